@@ -4,12 +4,20 @@ import android.content.Intent;
 import android.os.Bundle;
 import android.support.v7.app.AppCompatActivity;
 import android.util.Log;
+import android.view.MotionEvent;
 import android.view.View;
+import android.widget.Button;
 import android.widget.LinearLayout;
 import android.widget.TextView;
+import android.widget.Toast;
 
+import com.zjun.widget.GestureRecorder;
 import com.zjun.widget.RingTimeSelectView;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -29,6 +37,12 @@ public class MainActivity extends AppCompatActivity {
     private LinearLayout ll_parent;
     private RingTimeSelectView rtv_time;
     private TextView tv_time;
+    private Button btn_record;
+
+    /**
+     * 正在录制的手势，null为未录制
+     */
+    private GestureRecorder mRecorder;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -38,12 +52,23 @@ public class MainActivity extends AppCompatActivity {
         ll_parent = findViewById(R.id.ll_parent);
         rtv_time = findViewById(R.id.rtv_time);
         tv_time = findViewById(R.id.tv_time);
+        btn_record = findViewById(R.id.btn_record);
 
         initView();
         initData();
     }
 
     private void initView() {
+        rtv_time.setOnTouchListener(new View.OnTouchListener() {
+            @Override
+            public boolean onTouch(View v, MotionEvent event) {
+                if (mRecorder != null) {
+                    mRecorder.record(event);
+                }
+                // 只录制，交给控件处理
+                return false;
+            }
+        });
         rtv_time.setOnTimeChangeListener(new RingTimeSelectView.IOnTimeChangedListener() {
             @Override
             public void onChanged(RingTimeSelectView view, List<RingTimeSelectView.TimePart> timePartList) {
@@ -99,6 +124,45 @@ public class MainActivity extends AppCompatActivity {
         return num < 10 ? "0" + num : String.valueOf(num);
     }
 
+    /**
+     * 开始或停止录制手势。停止时保存到应用的外部文件目录gestures/下，可用adb pull取出回放
+     */
+    private void toggleRecording() {
+        if (mRecorder == null) {
+            mRecorder = new GestureRecorder(rtv_time.getWidth(), rtv_time.getHeight());
+            btn_record.setText("Stop");
+            return;
+        }
+        GestureRecorder recorder = mRecorder;
+        mRecorder = null;
+        btn_record.setText("Record");
+        if (recorder.getEventCount() == 0) {
+            return;
+        }
+
+        File dir = getExternalFilesDir("gestures");
+        if (dir == null) {
+            Toast.makeText(this, "No external storage", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        File file = new File(dir, "gesture_" + System.currentTimeMillis() + ".rtg");
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(file);
+            recorder.writeTo(out);
+            Toast.makeText(this, "Saved to " + file.getPath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Log.e(TAG, "toggleRecording: failed to save the recording", e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
 
 
 
@@ -114,6 +178,9 @@ public class MainActivity extends AppCompatActivity {
             case R.id.btn_clear:
                 rtv_time.clearTimeSections();
                 break;
+            case R.id.btn_record:
+                toggleRecording();
+                break;
             case R.id.btn_other_style:
                 startActivity(new Intent(this, MoreActivity.class));
             default: break;
@@ -0,0 +1,182 @@
+package com.zjun.widget;
+
+import java.util.Arrays;
+
+/**
+ * CoverageHeatmap
+ *  多个时间段集合的覆盖热度：每分钟被多少个时间段集合覆盖
+ *
+ * @author Ralap
+ * @description 用{@link RingTimeSelectView#setCoverageHeatmap(CoverageHeatmap, int)}在圆环上显示为热度色带。
+ *          1、计数是int[60]，按压缩的时间段集合{@link PackedSchedule}增量更新：添加、删除、替换只遍历变化的位，
+ *              不创建{@link RingTimeSelectView.TimePart}
+ *          2、批量添加用{@link ScheduleAlgebra#coverage(long[], int, int)}的按位计数器统计
+ *          3、只有计数真正变化时，版本号才增加，控件据此判断是否需要重建色带
+ *          可在任意线程更新，方法用this加锁
+ *
+ * @date 2026-10-18
+ */
+public final class CoverageHeatmap {
+
+    private final int[] mCounts = new int[PackedSchedule.MINUTES];
+    private int mScheduleCount;
+    /**
+     * 计数每变化一次加1
+     */
+    private int mVersion;
+
+    /**
+     * 计数变化的通知，由显示它的控件设置
+     */
+    private Runnable mOnChanged;
+
+    /**
+     * 添加一个时间段集合
+     */
+    public void add(long packed) {
+        PackedSchedule.checkPacked(packed);
+        synchronized (this) {
+            addBits(packed, 1);
+            mScheduleCount++;
+            changed(packed != PackedSchedule.EMPTY);
+        }
+        notifyChanged(packed != PackedSchedule.EMPTY);
+    }
+
+    /**
+     * 删除一个之前添加的时间段集合
+     *
+     * @throws IllegalStateException    有分钟的计数会小于0，即该集合没有被添加过
+     */
+    public void remove(long packed) {
+        PackedSchedule.checkPacked(packed);
+        synchronized (this) {
+            if (mScheduleCount == 0) {
+                throw new IllegalStateException("The heatmap is empty");
+            }
+            checkRemovable(packed);
+            addBits(packed, -1);
+            mScheduleCount--;
+            changed(packed != PackedSchedule.EMPTY);
+        }
+        notifyChanged(packed != PackedSchedule.EMPTY);
+    }
+
+    /**
+     * 把一个已添加的时间段集合替换为新值，只更新两者不同的分钟
+     */
+    public void replace(long oldPacked, long newPacked) {
+        PackedSchedule.checkPacked(oldPacked);
+        PackedSchedule.checkPacked(newPacked);
+        long removed = oldPacked & ~newPacked;
+        long added = newPacked & ~oldPacked;
+        synchronized (this) {
+            if (mScheduleCount == 0) {
+                throw new IllegalStateException("The heatmap is empty");
+            }
+            checkRemovable(removed);
+            addBits(removed, -1);
+            addBits(added, 1);
+            changed((removed | added) != 0);
+        }
+        notifyChanged((removed | added) != 0);
+    }
+
+    /**
+     * 批量添加
+     */
+    public void addAll(long[] schedules, int offset, int length) {
+        int[] coverage = ScheduleAlgebra.coverage(schedules, offset, length);
+        boolean changed = false;
+        synchronized (this) {
+            for (int i = 0; i < PackedSchedule.MINUTES; i++) {
+                mCounts[i] += coverage[i];
+                changed |= coverage[i] != 0;
+            }
+            mScheduleCount += length;
+            changed(changed);
+        }
+        notifyChanged(changed);
+    }
+
+    public void clear() {
+        boolean changed;
+        synchronized (this) {
+            changed = mScheduleCount != 0;
+            Arrays.fill(mCounts, 0);
+            mScheduleCount = 0;
+            changed(changed);
+        }
+        notifyChanged(changed);
+    }
+
+    public synchronized int getCount(int minute) {
+        return mCounts[minute];
+    }
+
+    /**
+     * 已添加的时间段集合数
+     */
+    public synchronized int getScheduleCount() {
+        return mScheduleCount;
+    }
+
+    public synchronized int getMaxCount() {
+        int max = 0;
+        for (int count : mCounts) {
+            max = Math.max(max, count);
+        }
+        return max;
+    }
+
+    /**
+     * 复制所有分钟的计数
+     *
+     * @param out   长度至少为60
+     * @return  当前的版本号
+     */
+    public synchronized int copyCounts(int[] out) {
+        System.arraycopy(mCounts, 0, out, 0, mCounts.length);
+        return mVersion;
+    }
+
+    synchronized int getVersion() {
+        return mVersion;
+    }
+
+    synchronized void setOnChanged(Runnable onChanged) {
+        mOnChanged = onChanged;
+    }
+
+    private void addBits(long bits, int delta) {
+        while (bits != 0) {
+            mCounts[Long.numberOfTrailingZeros(bits)] += delta;
+            bits &= bits - 1;
+        }
+    }
+
+    private void checkRemovable(long bits) {
+        for (long b = bits; b != 0; b &= b - 1) {
+            if (mCounts[Long.numberOfTrailingZeros(b)] == 0) {
+                throw new IllegalStateException("The schedule to remove was not added: minute "
+                        + Long.numberOfTrailingZeros(b) + " has no coverage");
+            }
+        }
+    }
+
+    private void changed(boolean changed) {
+        if (changed) {
+            mVersion++;
+        }
+    }
+
+    private void notifyChanged(boolean changed) {
+        Runnable onChanged;
+        synchronized (this) {
+            onChanged = mOnChanged;
+        }
+        if (changed && onChanged != null) {
+            onChanged.run();
+        }
+    }
+}
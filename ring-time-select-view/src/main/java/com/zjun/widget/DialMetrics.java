@@ -0,0 +1,132 @@
+package com.zjun.widget;
+
+/**
+ * DialMetrics
+ *  触摸处理的指标统计：触摸到帧的延迟、合并耗时、每次手势中被拒绝的移动次数
+ *
+ * @author Ralap
+ * @description 实现了{@link RingTimeSelectView.IMetricsSink}，通过{@link RingTimeSelectView#setMetricsSink(RingTimeSelectView.IMetricsSink)}设置。
+ *          每个指标是一个{@link Histogram}：按2的幂分桶，记录时不创建对象，可在任意线程读取
+ *
+ * @date 2026-10-18
+ */
+public final class DialMetrics implements RingTimeSelectView.IMetricsSink {
+
+    private final Histogram mTouchToFrameNanos = new Histogram();
+    private final Histogram mMergeNanos = new Histogram();
+    private final Histogram mRejectedMoves = new Histogram();
+
+    @Override
+    public void onTouchToFrameLatency(long nanos) {
+        mTouchToFrameNanos.record(nanos);
+    }
+
+    @Override
+    public void onMergeDuration(long nanos) {
+        mMergeNanos.record(nanos);
+    }
+
+    @Override
+    public void onGestureFinished(int rejectedMoves) {
+        mRejectedMoves.record(rejectedMoves);
+    }
+
+    /**
+     * 触摸事件时间（{@link android.view.MotionEvent#getEventTime()}）到绘制该变化的帧开始时间的延迟（ns）
+     */
+    public Histogram getTouchToFrameNanos() {
+        return mTouchToFrameNanos;
+    }
+
+    /**
+     * 抬起时合并时间段的耗时（ns）
+     */
+    public Histogram getMergeNanos() {
+        return mMergeNanos;
+    }
+
+    /**
+     * 每次拖动手势中，因越界、跳跃或约束而被拒绝的移动次数
+     */
+    public Histogram getRejectedMoves() {
+        return mRejectedMoves;
+    }
+
+    public void reset() {
+        mTouchToFrameNanos.reset();
+        mMergeNanos.reset();
+        mRejectedMoves.reset();
+    }
+
+    /**
+     * 按2的幂分桶的直方图：第0个桶为值0，第i个桶为[2^(i-1), 2^i)
+     */
+    public static final class Histogram {
+        public static final int BUCKETS = 64;
+
+        private final long[] mBuckets = new long[BUCKETS];
+        private long mCount;
+        /**
+         * 用double累加，记录很大的值（如Long.MAX_VALUE）时不会溢出
+         */
+        private double mSum;
+        private long mMax;
+
+        public synchronized void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            mBuckets[64 - Long.numberOfLeadingZeros(value)]++;
+            mCount++;
+            mSum += value;
+            if (value > mMax) {
+                mMax = value;
+            }
+        }
+
+        public synchronized long getCount() {
+            return mCount;
+        }
+
+        public synchronized long getMax() {
+            return mMax;
+        }
+
+        public synchronized double getMean() {
+            return mCount == 0 ? 0 : mSum / mCount;
+        }
+
+        public synchronized long getBucketCount(int bucket) {
+            return mBuckets[bucket];
+        }
+
+        /**
+         * 百分位数的上界（所在桶的上界，最大不超过最大值）
+         *
+         * @param percentile    ∈(0, 100]
+         */
+        public synchronized long getPercentile(double percentile) {
+            if (mCount == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(mCount * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += mBuckets[i];
+                if (seen >= target) {
+                    return i == 0 ? 0 : Math.min(mMax, (1L << i) - 1);
+                }
+            }
+            return mMax;
+        }
+
+        public synchronized void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                mBuckets[i] = 0;
+            }
+            mCount = 0;
+            mSum = 0;
+            mMax = 0;
+        }
+    }
+}
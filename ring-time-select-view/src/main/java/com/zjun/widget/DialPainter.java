@@ -0,0 +1,653 @@
+package com.zjun.widget;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Shader;
+import android.graphics.SweepGradient;
+
+/**
+ * DialPainter
+ *  表盘的绘制：背景圆环、覆盖热度色带、刻度、数字、时间段圆弧和锚点，以及实时时间指针
+ *
+ * @author Ralap
+ * @description 从{@link RingTimeSelectView#onDraw(Canvas)}中提取，不依赖View，可在任意线程的Canvas上绘制（如Bitmap）。
+ *          画笔有状态，一个实例只能在一个线程中使用。
+ *          使用前先{@link #layout(float, float, float, int)}确定中心点和圆环半径
+ *
+ * @date 2026-10-18
+ */
+final class DialPainter {
+
+    /**
+     * 最小、最大分钟值
+     */
+    private static final int MIN_MINUTE = 0;
+    private static final int MAX_MINUTE = 60;
+
+    /**
+     * 刻度数字的文字：00、05、...、55
+     */
+    private static final String[] NUMBER_TEXTS = new String[12];
+
+    static {
+        for (int i = 0; i < NUMBER_TEXTS.length; i++) {
+            int num = i * 5;
+            NUMBER_TEXTS[i] = num < 10 ? "0" + num : String.valueOf(num);
+        }
+    }
+
+    /**
+     * 细节层级，由绘制区域的大小决定，见{@link #detailFor(DialStyle, int)}：
+     *  完整；只有长刻度，没有数字；只有圆环、圆弧和圆点锚点
+     */
+    static final int DETAIL_FULL = 0;
+    static final int DETAIL_TICKS = 1;
+    static final int DETAIL_MINIMAL = 2;
+
+    private DialStyle mStyle;
+
+    /**
+     * 圆环画笔
+     */
+    private final Paint mRingPaint;
+    /**
+     * 时间段圆环画笔
+     */
+    private final Paint mSectionPaint;
+    /**
+     * 刻度画笔
+     */
+    private final Paint mDegreePaint;
+    /**
+     * 刻度数值画笔
+     */
+    private final Paint mNumberPaint;
+    /**
+     * 锚点画笔
+     */
+    private final Paint mAnchorPaint;
+    /**
+     * 锚点文字画笔
+     */
+    private final Paint mTextPaint;
+
+    /**
+     * 锚点半径
+     */
+    private float mAnchorRadius;
+    private float mStartTextOffsetX, mEndTextOffsetX, mTextOffsetY;
+    private float mNumberHalfHeight;
+    private float mOneNumberWidth;
+    private final Rect mTextBounds = new Rect();
+
+    /**
+     * 布局：中心点、圆环中心圆的半径、刻度长度、已选圆环弧的矩形
+     */
+    private boolean mLaidOut;
+    private int mDetail = DETAIL_FULL;
+    private float mCenterX, mCenterY;
+    private float mRingRadius;
+    private float mDegreeLongLength, mDegreeShortLength;
+    private final RectF mSectionRectF = new RectF();
+
+    /**
+     * 覆盖热度色带：画笔（第一次设置时创建）、每分钟的覆盖次数、颜色；着色器只在计数或布局变化后的第一次绘制时重建
+     */
+    private Paint mHeatPaint;
+    private final int[] mHeatCounts = new int[MAX_MINUTE];
+    private final int[] mHeatColors = new int[MAX_MINUTE * 2];
+    private final float[] mHeatPositions = new float[MAX_MINUTE * 2];
+    private int mHeatColor;
+    private boolean mHasHeatmap;
+    private boolean mHeatDirty;
+
+    /**
+     * 实时时间：指针画笔、当前分钟高亮画笔，第一次绘制时创建
+     */
+    private Paint mHandPaint;
+    private Paint mNowPaint;
+
+    DialPainter(DialStyle style) {
+        // 圆环画笔
+        mRingPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mRingPaint.setAntiAlias(true);
+        mRingPaint.setStyle(Paint.Style.STROKE);
+
+        // 时间段的圆环画笔，渐变色在布局时确定中心点
+        mSectionPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mSectionPaint.setAntiAlias(true);
+        mSectionPaint.setStyle(Paint.Style.STROKE);
+
+        // 刻度画笔
+        mDegreePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mDegreePaint.setAntiAlias(true);
+        mDegreePaint.setStyle(Paint.Style.STROKE);
+
+        // 刻度数值画笔
+        mNumberPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mNumberPaint.setAntiAlias(true);
+        mNumberPaint.setStyle(Paint.Style.FILL);
+
+        // 锚点画笔
+        mAnchorPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mAnchorPaint.setAntiAlias(true);
+        mAnchorPaint.setStyle(Paint.Style.FILL);
+
+        // 锚点文字画笔
+        mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        mTextPaint.setAntiAlias(true);
+        mTextPaint.setStyle(Paint.Style.FILL);
+
+        applyStyle(null, style);
+    }
+
+    /**
+     * 更换外观：与当前外观比较，只更新变化的画笔、着色器和文字尺寸，不创建画笔
+     *
+     * @return  true：圆环宽度、锚点直径、数字字号或长刻度长度变化，圆环半径或细节层级可能变化，
+     *          需要重新{@link #ringRadiusFor(DialStyle, int)}、{@link #detailFor(DialStyle, int)}并{@link #layout(float, float, float, int)}
+     */
+    boolean setStyle(DialStyle style) {
+        if (style.equals(mStyle)) {
+            return false;
+        }
+        DialStyle old = mStyle;
+        applyStyle(old, style);
+        return old.ringWidth != style.ringWidth || old.anchorDiameter != style.anchorDiameter
+                || old.numberSize != style.numberSize || old.degreeLongLength != style.degreeLongLength;
+    }
+
+    /**
+     * 把外观应用到画笔上
+     *
+     * @param old   原来的外观；null：全部应用
+     */
+    private void applyStyle(DialStyle old, DialStyle style) {
+        mStyle = style;
+        if (old == null || old.ringBgColor != style.ringBgColor) {
+            mRingPaint.setColor(style.ringBgColor);
+        }
+        if (old == null || old.ringWidth != style.ringWidth) {
+            mRingPaint.setStrokeWidth(style.ringWidth);
+            mSectionPaint.setStrokeWidth(style.ringWidth);
+            if (mHeatPaint != null) {
+                mHeatPaint.setStrokeWidth(style.ringWidth);
+            }
+            if (mNowPaint != null) {
+                mNowPaint.setStrokeWidth(style.ringWidth);
+            }
+        }
+        if (old == null || old.sectionColor != style.sectionColor
+                || old.sectionColor2 != style.sectionColor2 || old.sectionColor3 != style.sectionColor3) {
+            mSectionPaint.setColor(style.sectionColor);
+            if (mLaidOut) {
+                updateSectionShader();
+            }
+        }
+        if (old == null || old.degreeColor != style.degreeColor) {
+            mDegreePaint.setColor(style.degreeColor);
+        }
+        if (mLaidOut && (old.degreeLongLength != style.degreeLongLength || old.degreeShortLength != style.degreeShortLength)) {
+            updateDegreeLengths();
+        }
+        if (old == null || old.numberColor != style.numberColor) {
+            mNumberPaint.setColor(style.numberColor);
+        }
+        if (old == null || old.numberSize != style.numberSize) {
+            mNumberPaint.setTextSize(style.numberSize);
+            Paint.FontMetricsInt fontMetrics = mNumberPaint.getFontMetricsInt();
+            mNumberHalfHeight = (fontMetrics.top - fontMetrics.bottom) * .5f - fontMetrics.top;
+            mOneNumberWidth = mNumberPaint.measureText("0");
+        }
+        if (old == null || old.anchorDiameter != style.anchorDiameter) {
+            mAnchorRadius = style.anchorDiameter * .5f;
+        }
+        if (old == null || old.anchorTextSize != style.anchorTextSize
+                || !old.anchorStartText.equals(style.anchorStartText) || !old.anchorEndText.equals(style.anchorEndText)) {
+            mTextPaint.setTextSize(style.anchorTextSize);
+            measureAnchorTexts();
+        }
+    }
+
+    /**
+     * 锚点文字绘制起始点，相对于文字中心点的偏移量
+     * 中英文字符宽度不同，但高度一样
+     */
+    private void measureAnchorTexts() {
+        mTextPaint.getTextBounds(mStyle.anchorStartText, 0, mStyle.anchorStartText.length(), mTextBounds);
+        mStartTextOffsetX = mTextBounds.width() * .5f;
+
+        mTextPaint.getTextBounds(mStyle.anchorEndText, 0, mStyle.anchorEndText.length(), mTextBounds);
+        mEndTextOffsetX = mTextBounds.width() * .5f;
+
+        Paint.FontMetricsInt fontMetrics = mTextPaint.getFontMetricsInt();
+        mTextOffsetY = (fontMetrics.top - fontMetrics.bottom) * .5f - fontMetrics.top;
+    }
+
+    /**
+     * 边长为size的正方形绘制区域中，圆环中心圆的半径：留出锚点或圆环宽度的一半。
+     * 圆点锚点（{@link #DETAIL_MINIMAL}）不超出圆环，只留出圆环宽度的一半
+     */
+    static float ringRadiusFor(DialStyle style, int size) {
+        if (detailFor(style, size) == DETAIL_MINIMAL) {
+            return (size - style.ringWidth) * .5f;
+        }
+        return (size - Math.max(style.anchorDiameter, style.ringWidth)) * .5f;
+    }
+
+    /**
+     * 边长为size的正方形绘制区域应使用的细节层级：
+     *  1、圆环半径小于锚点直径，带文字的锚点放不下：{@link #DETAIL_MINIMAL}
+     *  2、数字所在的圆上，相邻数字的间距小于两位数字的宽度（按字号的1.2倍估算），数字会重叠：{@link #DETAIL_TICKS}
+     */
+    static int detailFor(DialStyle style, int size) {
+        float radius = (size - Math.max(style.anchorDiameter, style.ringWidth)) * .5f;
+        if (radius < style.anchorDiameter) {
+            return DETAIL_MINIMAL;
+        }
+        float longLength = style.degreeLongLength == DialStyle.AUTO ? radius / 16 : style.degreeLongLength;
+        float numberRadius = radius - style.ringWidth * .5f - longLength - style.numberSize;
+        if (numberRadius * 2 * Math.PI / NUMBER_TEXTS.length < style.numberSize * 1.2f) {
+            return DETAIL_TICKS;
+        }
+        return DETAIL_FULL;
+    }
+
+    DialStyle getStyle() {
+        return mStyle;
+    }
+
+    /**
+     * 当前细节层级下锚点的绘制半径，也是触摸和无障碍节点的范围：圆点锚点为圆环宽度的一半
+     */
+    float getAnchorRadius() {
+        return mDetail == DETAIL_MINIMAL ? mStyle.ringWidth * .5f : mAnchorRadius;
+    }
+
+    boolean isLaidOut() {
+        return mLaidOut;
+    }
+
+    int getDetail() {
+        return mDetail;
+    }
+
+    /**
+     * 确定中心点、圆环半径和细节层级，并计算与之相关的值
+     *
+     * @param detail    细节层级，见{@link #detailFor(DialStyle, int)}
+     */
+    void layout(float centerX, float centerY, float ringRadius, int detail) {
+        mCenterX = centerX;
+        mCenterY = centerY;
+        mRingRadius = ringRadius;
+        mDetail = detail;
+
+        updateDegreeLengths();
+
+        // 已选圆环弧的矩形
+        mSectionRectF.set(centerX - ringRadius, centerY - ringRadius, centerX + ringRadius, centerY + ringRadius);
+
+        updateSectionShader();
+        // 热度色带的着色器以中心点为中心，需重建
+        mHeatDirty = mHasHeatmap;
+        mLaidOut = true;
+    }
+
+    /**
+     * 设置覆盖热度色带：每分钟的透明度与覆盖次数成正比，覆盖次数最多的分钟为color原本的透明度
+     *
+     * @param counts    60个分钟的覆盖次数，会被复制；null：不显示色带
+     * @param color     色带颜色
+     */
+    void setHeatmap(int[] counts, int color) {
+        mHasHeatmap = counts != null;
+        if (counts == null) {
+            if (mHeatPaint != null) {
+                mHeatPaint.setShader(null);
+            }
+            return;
+        }
+        if (mHeatPaint == null) {
+            // 覆盖热度色带画笔，第一次使用时创建
+            mHeatPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mHeatPaint.setAntiAlias(true);
+            mHeatPaint.setStyle(Paint.Style.STROKE);
+            mHeatPaint.setStrokeWidth(mStyle.ringWidth);
+        }
+        System.arraycopy(counts, 0, mHeatCounts, 0, MAX_MINUTE);
+        mHeatColor = color;
+        mHeatDirty = true;
+    }
+
+    /**
+     * 重建热度色带的着色器：每分钟是两个位置相同颜色的色标，分钟之间不渐变
+     */
+    private void updateHeatShader() {
+        int max = 0;
+        for (int count : mHeatCounts) {
+            max = Math.max(max, count);
+        }
+        int alpha = mHeatColor >>> 24;
+        int rgb = mHeatColor & 0xffffff;
+        for (int i = 0; i < MAX_MINUTE; i++) {
+            int a = max == 0 ? 0 : alpha * mHeatCounts[i] / max;
+            mHeatColors[i * 2] = mHeatColors[i * 2 + 1] = (a << 24) | rgb;
+            mHeatPositions[i * 2] = (float) i / MAX_MINUTE;
+            mHeatPositions[i * 2 + 1] = (float) (i + 1) / MAX_MINUTE;
+        }
+        mHeatPaint.setShader(new SweepGradient(mCenterX, mCenterY, mHeatColors, mHeatPositions));
+        mHeatDirty = false;
+    }
+
+    /**
+     * 刻度长、短指针的长度
+     */
+    private void updateDegreeLengths() {
+        mDegreeLongLength = mStyle.degreeLongLength == DialStyle.AUTO ? mRingRadius / 16 : mStyle.degreeLongLength;
+        mDegreeShortLength = mStyle.degreeShortLength == DialStyle.AUTO ? mDegreeLongLength * .5f : mStyle.degreeShortLength;
+    }
+
+    /**
+     * 渐变色：扫描渲染着色器，以圆环中心为中心；不使用渐变时清除
+     */
+    private void updateSectionShader() {
+        Shader shader = null;
+        if (mStyle.sectionColor2 != -1) {
+            if (mStyle.sectionColor3 != -1) {
+                shader = new SweepGradient(mCenterX, mCenterY, new int[]{mStyle.sectionColor, mStyle.sectionColor2, mStyle.sectionColor3, mStyle.sectionColor}, null);
+            } else {
+                shader = new SweepGradient(mCenterX, mCenterY, new int[]{mStyle.sectionColor, mStyle.sectionColor2, mStyle.sectionColor}, null);
+            }
+        }
+        mSectionPaint.setShader(shader);
+    }
+
+    /**
+     * 根据角度，计算锚点在圆环上的坐标（不修改分钟）
+     */
+    void updateAnchor(RingTimeSelectView.TimeSection.TimeAnchor anchor, double angle) {
+        anchor.angle = angle;
+        double cos = -Math.cos(Math.toRadians(angle));
+        // sin² + cos² = 1
+        double sin = Math.sqrt(1 - cos * cos);
+        anchor.x = (float) (angle < 180 ? mCenterX + sin * mRingRadius : mCenterX - sin * mRingRadius);
+        anchor.y = mCenterY + mRingRadius * (float) cos;
+    }
+
+    /**
+     * 绘制表盘：背景圆环、覆盖热度色带、分针刻度、数字。按细节层级省略短刻度、数字或全部刻度
+     */
+    void drawDial(Canvas canvas) {
+        // 1. 绘制背景圆环
+        canvas.drawCircle(mCenterX, mCenterY, mRingRadius, mRingPaint);
+
+        // 1.1 覆盖热度色带。扫描渲染从3点钟方向开始，旋转到从0分开始
+        if (mHasHeatmap) {
+            if (mHeatDirty) {
+                updateHeatShader();
+            }
+            canvas.save();
+            canvas.rotate(-90, mCenterX, mCenterY);
+            canvas.drawCircle(mCenterX, mCenterY, mRingRadius, mHeatPaint);
+            canvas.restore();
+        }
+
+        if (mDetail == DETAIL_MINIMAL) {
+            return;
+        }
+
+        // 2. 分针刻度。只有长刻度时，每次旋转30°
+        float startY = mCenterY - mRingRadius + mStyle.ringWidth * .5f;
+        float shortStopY = startY + mDegreeShortLength;
+        float longStopY = startY + mDegreeLongLength;
+        int step = mDetail == DETAIL_FULL ? 1 : 5;
+        canvas.save();
+        for (int i = 0; i < MAX_MINUTE; i += step) {
+            if (i % 5 == 0) {
+                // 长针
+                mDegreePaint.setStrokeWidth(mStyle.degreeLongWidth);
+                canvas.drawLine(mCenterX, startY, mCenterX, longStopY, mDegreePaint);
+            } else {
+                // 短针
+                mDegreePaint.setStrokeWidth(mStyle.degreeShortWidth);
+                canvas.drawLine(mCenterX, startY, mCenterX, shortStopY, mDegreePaint);
+            }
+            canvas.rotate(6 * step, mCenterX, mCenterY);
+        }
+        canvas.restore();
+        if (mDetail != DETAIL_FULL) {
+            return;
+        }
+
+        // 3. 数字
+        // 理论上，若数字贴着长刻度，应该是numberSize/2。但使用numberSize，为了增加numberSize/2的间距
+        float numberCenterY = longStopY + mStyle.numberSize;
+        float numberRadius = mCenterY - numberCenterY;
+        for (int i = 0; i < NUMBER_TEXTS.length; i++) {
+            float x = (float) (mCenterX + Math.sin(Math.PI / 6 * i) * numberRadius);
+            float y = (float) (numberCenterY + numberRadius - Math.cos(Math.PI / 6 * i) * numberRadius);
+            canvas.drawText(NUMBER_TEXTS[i], x - mOneNumberWidth, y + mNumberHalfHeight, mNumberPaint);
+        }
+    }
+
+    /**
+     * 绘制时间段：圆弧和起止锚点
+     *
+     * @param canvas        画板
+     * @param section       时间段
+     * @param startOnTop    起始锚点是否绘制在终止锚点之上（正在拖动起始锚点时）
+     */
+    void drawSection(Canvas canvas, RingTimeSelectView.TimeSection section, boolean startOnTop) {
+        // 只有不相等的情况下才绘制圆弧。否则会把圆弧绘制成一个整圆
+        if (section.start.minute != section.end.minute) {
+            float begin; //圆弧的起点位置
+            float stop;
+            if (section.start.angle > 180 && section.start.angle > section.end.angle) {
+                //180  -- 360
+                begin = (float) (-Math.abs(section.start.angle - 360) - 90);
+                stop = (float) Math.abs(Math.abs(section.start.angle - 360) + section.end.angle);
+            } else if (section.start.angle > section.end.angle) {
+                begin = (float) section.start.angle - 90;
+                stop = (float) (360 - (section.start.angle - section.end.angle));
+            } else {
+                begin = (float) section.start.angle - 90;
+                stop = (float) Math.abs(section.start.angle - section.end.angle);
+            }
+            canvas.drawArc(mSectionRectF, begin, stop, false, mSectionPaint);
+        }
+
+        //画起始、终止锚点圆
+        if (mDetail == DETAIL_MINIMAL) {
+            drawDotAnchor(canvas, section.start, mStyle.anchorStartColor);
+            drawDotAnchor(canvas, section.end, mStyle.anchorEndColor);
+        } else if (mStyle.anchorNeedMerge && section.start.minute == MIN_MINUTE && section.end.minute == MAX_MINUTE) {
+            drawMergeAnchor(canvas, section.start.x, section.start.y);
+        } else if (startOnTop) {
+            drawEndAnchor(canvas, section.end);
+            drawStartAnchor(canvas, section.start);
+        } else {
+            drawStartAnchor(canvas, section.start);
+            drawEndAnchor(canvas, section.end);
+        }
+    }
+
+    /**
+     * 绘制实时时间：从中心指向圆环内边缘的指针；highlight为true时，把当前分钟在圆环上高亮（半透明的指针颜色）
+     *
+     * @param secondOfHour  本小时内的秒数：0~3599
+     * @param highlight     是否高亮当前分钟（当前分钟在已选时间段内时）
+     * @param color         指针颜色
+     */
+    void drawLiveTime(Canvas canvas, int secondOfHour, boolean highlight, int color) {
+        if (mHandPaint == null) {
+            mHandPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mHandPaint.setAntiAlias(true);
+            mHandPaint.setStyle(Paint.Style.STROKE);
+            mHandPaint.setStrokeCap(Paint.Cap.ROUND);
+
+            mNowPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            mNowPaint.setAntiAlias(true);
+            mNowPaint.setStyle(Paint.Style.STROKE);
+            mNowPaint.setStrokeWidth(mStyle.ringWidth);
+        }
+        if (highlight) {
+            mNowPaint.setColor(color);
+            mNowPaint.setAlpha((color >>> 24) / 2);
+            canvas.drawArc(mSectionRectF, secondOfHour / 60 * 6 - 90, 6, false, mNowPaint);
+        }
+
+        float handWidth = getHandWidth();
+        mHandPaint.setColor(color);
+        mHandPaint.setStrokeWidth(handWidth);
+        double radians = Math.toRadians(secondOfHour * .1);
+        float length = getHandLength();
+        canvas.drawLine(mCenterX, mCenterY, mCenterX + (float) Math.sin(radians) * length
+                , mCenterY - (float) Math.cos(radians) * length, mHandPaint);
+    }
+
+    /**
+     * 实时时间指针的范围，用于局部重绘
+     */
+    void getHandBounds(int secondOfHour, Rect out) {
+        double radians = Math.toRadians(secondOfHour * .1);
+        float length = getHandLength();
+        float endX = mCenterX + (float) Math.sin(radians) * length;
+        float endY = mCenterY - (float) Math.cos(radians) * length;
+        // 圆头的半径，多留1像素给抗锯齿
+        int inset = (int) Math.ceil(getHandWidth() * .5f) + 1;
+        out.set((int) Math.min(mCenterX, endX) - inset, (int) Math.min(mCenterY, endY) - inset
+                , (int) Math.ceil(Math.max(mCenterX, endX)) + inset, (int) Math.ceil(Math.max(mCenterY, endY)) + inset);
+    }
+
+    /**
+     * 某一分钟在圆环上的范围（含圆环宽度），用于局部重绘
+     */
+    void getMinuteBounds(int minute, Rect out) {
+        float inner = mRingRadius - mStyle.ringWidth * .5f;
+        float outer = mRingRadius + mStyle.ringWidth * .5f;
+        float left = Float.MAX_VALUE, top = Float.MAX_VALUE, right = -Float.MAX_VALUE, bottom = -Float.MAX_VALUE;
+        // 6度的圆弧，用两端内外边缘的四个点近似，外弧的拱高不到半径的0.2%，由外扩的像素覆盖
+        for (int i = 0; i < 2; i++) {
+            double radians = Math.toRadians((minute + i) * 6);
+            float sin = (float) Math.sin(radians);
+            float cos = (float) Math.cos(radians);
+            for (int j = 0; j < 2; j++) {
+                float r = j == 0 ? inner : outer;
+                float x = mCenterX + sin * r;
+                float y = mCenterY - cos * r;
+                left = Math.min(left, x);
+                top = Math.min(top, y);
+                right = Math.max(right, x);
+                bottom = Math.max(bottom, y);
+            }
+        }
+        int inset = (int) Math.ceil(outer * .002f) + 1;
+        out.set((int) left - inset, (int) top - inset, (int) Math.ceil(right) + inset, (int) Math.ceil(bottom) + inset);
+    }
+
+    /**
+     * 指针长度：到圆环内边缘
+     */
+    private float getHandLength() {
+        return mRingRadius - mStyle.ringWidth * .5f;
+    }
+
+    private float getHandWidth() {
+        return Math.max(mStyle.degreeLongWidth, 2);
+    }
+
+    /**
+     * 绘制合并的锚点
+     *  边框和背景都使用起始锚点的颜色
+     *  字体都缩小一定比例，起始文字在居中上，终止文字在居中下
+     *
+     * @param canvas    画板
+     * @param anchorX   锚点坐标X
+     * @param anchorY   锚点坐标Y
+     */
+    private void drawMergeAnchor(Canvas canvas, float anchorX, float anchorY) {
+        // 锚点边框的背景
+        if (mStyle.anchorStrokeWidth != 0) {
+            mAnchorPaint.setColor(mStyle.anchorStartStrokeColor);
+            canvas.drawCircle(anchorX, anchorY, mAnchorRadius, mAnchorPaint);
+        }
+
+        // 锚点背景
+        mAnchorPaint.setColor(mStyle.anchorStartColor);
+        canvas.drawCircle(anchorX, anchorY, mAnchorRadius - mStyle.anchorStrokeWidth, mAnchorPaint);
+
+        /*
+        绘制文字
+        字体缩小到原来的70%
+         */
+        final float scale = .7f;
+        mTextPaint.setTextSize(mStyle.anchorTextSize * scale);
+        float offsetY = (mAnchorRadius - 2 * mTextOffsetY * scale) * .5f;
+
+        // 锚点起始文字
+        float x = anchorX - mStartTextOffsetX * scale;
+        float y = anchorY - offsetY;
+        mTextPaint.setColor(mStyle.anchorStartTextColor);
+        canvas.drawText(mStyle.anchorStartText, x, y, mTextPaint);
+
+        // 锚点终止文字
+        x = anchorX - mEndTextOffsetX * scale;
+        y = anchorY + offsetY + mTextOffsetY;
+        mTextPaint.setColor(mStyle.anchorEndTextColor);
+        canvas.drawText(mStyle.anchorEndText, x, y, mTextPaint);
+
+        // 还原字体大小
+        mTextPaint.setTextSize(mStyle.anchorTextSize);
+    }
+
+    /**
+     * 绘制圆点锚点：直径为圆环宽度，没有边框和文字
+     */
+    private void drawDotAnchor(Canvas canvas, RingTimeSelectView.TimeSection.TimeAnchor anchor, int color) {
+        mAnchorPaint.setColor(color);
+        canvas.drawCircle(anchor.x, anchor.y, getAnchorRadius(), mAnchorPaint);
+    }
+
+    private void drawStartAnchor(Canvas canvas, RingTimeSelectView.TimeSection.TimeAnchor anchor) {
+        drawAnchor(canvas, anchor, mStyle.anchorStartStrokeColor, mStyle.anchorStartColor
+                , mStyle.anchorStartText, mStartTextOffsetX, mStyle.anchorStartTextColor);
+    }
+
+    private void drawEndAnchor(Canvas canvas, RingTimeSelectView.TimeSection.TimeAnchor anchor) {
+        drawAnchor(canvas, anchor, mStyle.anchorEndStrokeColor, mStyle.anchorEndColor
+                , mStyle.anchorEndText, mEndTextOffsetX, mStyle.anchorEndTextColor);
+    }
+
+    /**
+     * 绘制锚点
+     *
+     * @param canvas        画板
+     * @param anchor        锚点
+     * @param strokeColor   边框颜色
+     * @param bgColor       背景色
+     * @param text          文字
+     * @param offsetX       文字的X方向偏移量（中心点相对于起始点的偏移量=Xcenter - Xstart）
+     * @param textColor     文字颜色
+     */
+    private void drawAnchor(Canvas canvas, RingTimeSelectView.TimeSection.TimeAnchor anchor
+            , int strokeColor, int bgColor, String text, float offsetX, int textColor) {
+        // 锚点边框
+        if (mStyle.anchorStrokeWidth != 0) {
+            mAnchorPaint.setColor(strokeColor);
+            canvas.drawCircle(anchor.x, anchor.y, mAnchorRadius, mAnchorPaint);
+        }
+
+        // 锚点背景
+        mAnchorPaint.setColor(bgColor);
+        canvas.drawCircle(anchor.x, anchor.y, mAnchorRadius - mStyle.anchorStrokeWidth, mAnchorPaint);
+
+        // 锚点文字
+        float x = anchor.x - offsetX;
+        float y = anchor.y + mTextOffsetY;
+        mTextPaint.setColor(textColor);
+        canvas.drawText(text, x, y, mTextPaint);
+    }
+}
@@ -0,0 +1,406 @@
+package com.zjun.widget;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+
+/**
+ * DialStyle
+ *  表盘的外观：圆环、时间段、锚点、刻度、数字的颜色和尺寸
+ *
+ * @author Ralap
+ * @description 不可变，由布局属性{@link #obtain(Context, AttributeSet, int)}得到，或用{@link Builder}修改后创建。
+ *          {@link RingTimeSelectView}和{@link DialThumbnailRenderer}用同一个外观，绘制结果一致；
+ *          实现了{@link #equals(Object)}、{@link #hashCode()}，可作为缓存的键
+ *
+ * @date 2026-10-18
+ */
+public final class DialStyle {
+
+    /**
+     * 自动计算的长度，在布局时根据圆环半径确定
+     */
+    public static final float AUTO = -1;
+
+    final float ringWidth;
+    final int ringBgColor;
+    final int sectionColor;
+    /**
+     * -1为不使用渐变
+     */
+    final int sectionColor2;
+    final int sectionColor3;
+    final float anchorDiameter;
+    final float anchorStrokeWidth;
+    final float anchorTextSize;
+    final int anchorStartColor;
+    final int anchorStartStrokeColor;
+    final String anchorStartText;
+    final int anchorStartTextColor;
+    final int anchorEndColor;
+    final int anchorEndStrokeColor;
+    final String anchorEndText;
+    final int anchorEndTextColor;
+    final boolean anchorNeedMerge;
+    final int degreeColor;
+    final float degreeLongLength;
+    final float degreeLongWidth;
+    final float degreeShortLength;
+    final float degreeShortWidth;
+    final float numberSize;
+    final int numberColor;
+
+    private int mHashCode;
+
+    private DialStyle(Builder builder) {
+        ringWidth = builder.ringWidth;
+        ringBgColor = builder.ringBgColor;
+        sectionColor = builder.sectionColor;
+        sectionColor2 = builder.sectionColor2;
+        sectionColor3 = builder.sectionColor3;
+        anchorDiameter = builder.anchorDiameter;
+        anchorStrokeWidth = builder.anchorStrokeWidth;
+        anchorTextSize = builder.anchorTextSize;
+        anchorStartColor = builder.anchorStartColor;
+        anchorStartStrokeColor = builder.anchorStartStrokeColor;
+        anchorStartText = builder.anchorStartText;
+        anchorStartTextColor = builder.anchorStartTextColor;
+        anchorEndColor = builder.anchorEndColor;
+        anchorEndStrokeColor = builder.anchorEndStrokeColor;
+        anchorEndText = builder.anchorEndText;
+        anchorEndTextColor = builder.anchorEndTextColor;
+        anchorNeedMerge = builder.anchorNeedMerge;
+        degreeColor = builder.degreeColor;
+        degreeLongLength = builder.degreeLongLength;
+        degreeLongWidth = builder.degreeLongWidth;
+        degreeShortLength = builder.degreeShortLength;
+        degreeShortWidth = builder.degreeShortWidth;
+        numberSize = builder.numberSize;
+        numberColor = builder.numberColor;
+    }
+
+    /**
+     * 从布局属性中读取外观，未设置的属性使用默认值
+     *
+     * @param attrs         布局属性，可为null（全部使用默认值）
+     * @param defStyleAttr  默认样式
+     */
+    public static DialStyle obtain(Context context, AttributeSet attrs, int defStyleAttr) {
+        TypedArray ta = context.obtainStyledAttributes(attrs, R.styleable.RingTimeSelectView, defStyleAttr, 0);
+        try {
+            return obtain(context, ta);
+        } finally {
+            ta.recycle();
+        }
+    }
+
+    /**
+     * 从已解析的属性中读取外观，供控件与自己的属性一起读取，不重复解析布局属性
+     *
+     * @param ta    R.styleable.RingTimeSelectView的属性，由调用方回收
+     */
+    static DialStyle obtain(Context context, TypedArray ta) {
+        Builder builder = new Builder();
+        builder.ringWidth = ta.getDimension(R.styleable.RingTimeSelectView_rtv_ringWidth, dp2px(context, 30));
+        builder.ringBgColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_ringBgColor, Color.parseColor("#a7a7a7"));
+
+        builder.sectionColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_sectionColor, Color.parseColor("#148c75"));
+        builder.sectionColor2 = ta.getColor(R.styleable.RingTimeSelectView_rtv_sectionColor2, -1);
+        builder.sectionColor3 = ta.getColor(R.styleable.RingTimeSelectView_rtv_sectionColor3, -1);
+
+        builder.anchorDiameter = ta.getDimension(R.styleable.RingTimeSelectView_rtv_anchorDiameter, dp2px(context, 50));
+        builder.anchorStrokeWidth = ta.getDimension(R.styleable.RingTimeSelectView_rtv_anchorStrokeWidth, dp2px(context, 6));
+        builder.anchorTextSize = ta.getDimension(R.styleable.RingTimeSelectView_rtv_anchorTextSize, sp2px(context, 16));
+        builder.anchorNeedMerge = ta.getBoolean(R.styleable.RingTimeSelectView_rtv_anchorNeedMerge, true);
+
+        builder.anchorStartColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_anchorStartColor, Color.parseColor("#007ffe"));
+        builder.anchorStartStrokeColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_anchorStartStrokeColor, Color.parseColor("#FFFFFF"));
+        builder.anchorStartText = ta.getString(R.styleable.RingTimeSelectView_rtv_anchorStartText);
+        builder.anchorStartTextColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_anchorStartTextColor, Color.parseColor("#FFFFFF"));
+
+        builder.anchorEndColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_anchorEndColor, builder.anchorStartColor);
+        builder.anchorEndStrokeColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_anchorEndStrokeColor, builder.anchorStartStrokeColor);
+        builder.anchorEndText = ta.getString(R.styleable.RingTimeSelectView_rtv_anchorEndText);
+        builder.anchorEndTextColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_anchorEndTextColor, builder.anchorStartTextColor);
+
+        builder.degreeColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_degreeColor, Color.parseColor("#888888"));
+        builder.degreeLongLength = ta.getDimension(R.styleable.RingTimeSelectView_rtv_degreeLongLength, AUTO);
+        builder.degreeLongWidth = ta.getDimension(R.styleable.RingTimeSelectView_rtv_degreeLongWidth, dp2px(context, 2));
+        builder.degreeShortLength = ta.getDimension(R.styleable.RingTimeSelectView_rtv_degreeShortLength, AUTO);
+        builder.degreeShortWidth = ta.getDimension(R.styleable.RingTimeSelectView_rtv_degreeShortWidth, builder.degreeLongWidth);
+
+        builder.numberSize = ta.getDimension(R.styleable.RingTimeSelectView_rtv_numberSize, sp2px(context, 14));
+        builder.numberColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_numberColor, Color.parseColor("#888888"));
+
+        if (builder.anchorStartText == null) {
+            builder.anchorStartText = "ON";
+        }
+        if (builder.anchorEndText == null) {
+            builder.anchorEndText = "OFF";
+        }
+        return builder.build();
+    }
+
+    /**
+     * 默认外观
+     */
+    public static DialStyle obtainDefault(Context context) {
+        return obtain(context, null, 0);
+    }
+
+    public float getRingWidth() {
+        return ringWidth;
+    }
+
+    public float getAnchorDiameter() {
+        return anchorDiameter;
+    }
+
+    public String getAnchorStartText() {
+        return anchorStartText;
+    }
+
+    public String getAnchorEndText() {
+        return anchorEndText;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof DialStyle)) {
+            return false;
+        }
+        DialStyle that = (DialStyle) o;
+        return hashCode() == that.hashCode()
+                && Float.compare(ringWidth, that.ringWidth) == 0
+                && ringBgColor == that.ringBgColor
+                && sectionColor == that.sectionColor
+                && sectionColor2 == that.sectionColor2
+                && sectionColor3 == that.sectionColor3
+                && Float.compare(anchorDiameter, that.anchorDiameter) == 0
+                && Float.compare(anchorStrokeWidth, that.anchorStrokeWidth) == 0
+                && Float.compare(anchorTextSize, that.anchorTextSize) == 0
+                && anchorStartColor == that.anchorStartColor
+                && anchorStartStrokeColor == that.anchorStartStrokeColor
+                && anchorStartText.equals(that.anchorStartText)
+                && anchorStartTextColor == that.anchorStartTextColor
+                && anchorEndColor == that.anchorEndColor
+                && anchorEndStrokeColor == that.anchorEndStrokeColor
+                && anchorEndText.equals(that.anchorEndText)
+                && anchorEndTextColor == that.anchorEndTextColor
+                && anchorNeedMerge == that.anchorNeedMerge
+                && degreeColor == that.degreeColor
+                && Float.compare(degreeLongLength, that.degreeLongLength) == 0
+                && Float.compare(degreeLongWidth, that.degreeLongWidth) == 0
+                && Float.compare(degreeShortLength, that.degreeShortLength) == 0
+                && Float.compare(degreeShortWidth, that.degreeShortWidth) == 0
+                && Float.compare(numberSize, that.numberSize) == 0
+                && numberColor == that.numberColor;
+    }
+
+    @Override
+    public int hashCode() {
+        // 不可变，只计算一次
+        int h = mHashCode;
+        if (h == 0) {
+            h = Float.floatToIntBits(ringWidth);
+            h = 31 * h + ringBgColor;
+            h = 31 * h + sectionColor;
+            h = 31 * h + sectionColor2;
+            h = 31 * h + sectionColor3;
+            h = 31 * h + Float.floatToIntBits(anchorDiameter);
+            h = 31 * h + Float.floatToIntBits(anchorStrokeWidth);
+            h = 31 * h + Float.floatToIntBits(anchorTextSize);
+            h = 31 * h + anchorStartColor;
+            h = 31 * h + anchorStartStrokeColor;
+            h = 31 * h + anchorStartText.hashCode();
+            h = 31 * h + anchorStartTextColor;
+            h = 31 * h + anchorEndColor;
+            h = 31 * h + anchorEndStrokeColor;
+            h = 31 * h + anchorEndText.hashCode();
+            h = 31 * h + anchorEndTextColor;
+            h = 31 * h + (anchorNeedMerge ? 1 : 0);
+            h = 31 * h + degreeColor;
+            h = 31 * h + Float.floatToIntBits(degreeLongLength);
+            h = 31 * h + Float.floatToIntBits(degreeLongWidth);
+            h = 31 * h + Float.floatToIntBits(degreeShortLength);
+            h = 31 * h + Float.floatToIntBits(degreeShortWidth);
+            h = 31 * h + Float.floatToIntBits(numberSize);
+            h = 31 * h + numberColor;
+            mHashCode = h;
+        }
+        return h;
+    }
+
+    private static int dp2px(Context context, int dp) {
+        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, context.getResources().getDisplayMetrics());
+    }
+
+    private static int sp2px(Context context, int sp) {
+        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, sp, context.getResources().getDisplayMetrics());
+    }
+
+    /**
+     * 在已有外观的基础上修改，如：new Builder(DialStyle.obtainDefault(context)).setSectionColor(color).build()
+     *  尺寸的单位都是px
+     */
+    public static final class Builder {
+        private float ringWidth;
+        private int ringBgColor;
+        private int sectionColor;
+        private int sectionColor2 = -1;
+        private int sectionColor3 = -1;
+        private float anchorDiameter;
+        private float anchorStrokeWidth;
+        private float anchorTextSize;
+        private int anchorStartColor;
+        private int anchorStartStrokeColor;
+        private String anchorStartText;
+        private int anchorStartTextColor;
+        private int anchorEndColor;
+        private int anchorEndStrokeColor;
+        private String anchorEndText;
+        private int anchorEndTextColor;
+        private boolean anchorNeedMerge;
+        private int degreeColor;
+        private float degreeLongLength = AUTO;
+        private float degreeLongWidth;
+        private float degreeShortLength = AUTO;
+        private float degreeShortWidth;
+        private float numberSize;
+        private int numberColor;
+
+        private Builder() {
+        }
+
+        public Builder(DialStyle style) {
+            ringWidth = style.ringWidth;
+            ringBgColor = style.ringBgColor;
+            sectionColor = style.sectionColor;
+            sectionColor2 = style.sectionColor2;
+            sectionColor3 = style.sectionColor3;
+            anchorDiameter = style.anchorDiameter;
+            anchorStrokeWidth = style.anchorStrokeWidth;
+            anchorTextSize = style.anchorTextSize;
+            anchorStartColor = style.anchorStartColor;
+            anchorStartStrokeColor = style.anchorStartStrokeColor;
+            anchorStartText = style.anchorStartText;
+            anchorStartTextColor = style.anchorStartTextColor;
+            anchorEndColor = style.anchorEndColor;
+            anchorEndStrokeColor = style.anchorEndStrokeColor;
+            anchorEndText = style.anchorEndText;
+            anchorEndTextColor = style.anchorEndTextColor;
+            anchorNeedMerge = style.anchorNeedMerge;
+            degreeColor = style.degreeColor;
+            degreeLongLength = style.degreeLongLength;
+            degreeLongWidth = style.degreeLongWidth;
+            degreeShortLength = style.degreeShortLength;
+            degreeShortWidth = style.degreeShortWidth;
+            numberSize = style.numberSize;
+            numberColor = style.numberColor;
+        }
+
+        public Builder setRingWidth(float ringWidth) {
+            this.ringWidth = ringWidth;
+            return this;
+        }
+
+        public Builder setRingBgColor(int ringBgColor) {
+            this.ringBgColor = ringBgColor;
+            return this;
+        }
+
+        /**
+         * 时间段的颜色。color2不为-1时使用扫描渐变；color3只在color2有效时有效
+         */
+        public Builder setSectionColors(int color, int color2, int color3) {
+            sectionColor = color;
+            sectionColor2 = color2;
+            sectionColor3 = color3;
+            return this;
+        }
+
+        public Builder setSectionColor(int sectionColor) {
+            return setSectionColors(sectionColor, -1, -1);
+        }
+
+        public Builder setAnchorDiameter(float anchorDiameter) {
+            this.anchorDiameter = anchorDiameter;
+            return this;
+        }
+
+        public Builder setAnchorStrokeWidth(float anchorStrokeWidth) {
+            this.anchorStrokeWidth = anchorStrokeWidth;
+            return this;
+        }
+
+        public Builder setAnchorTextSize(float anchorTextSize) {
+            this.anchorTextSize = anchorTextSize;
+            return this;
+        }
+
+        public Builder setAnchorNeedMerge(boolean anchorNeedMerge) {
+            this.anchorNeedMerge = anchorNeedMerge;
+            return this;
+        }
+
+        public Builder setAnchorStart(int color, int strokeColor, String text, int textColor) {
+            anchorStartColor = color;
+            anchorStartStrokeColor = strokeColor;
+            anchorStartText = text;
+            anchorStartTextColor = textColor;
+            return this;
+        }
+
+        public Builder setAnchorEnd(int color, int strokeColor, String text, int textColor) {
+            anchorEndColor = color;
+            anchorEndStrokeColor = strokeColor;
+            anchorEndText = text;
+            anchorEndTextColor = textColor;
+            return this;
+        }
+
+        public Builder setDegreeColor(int degreeColor) {
+            this.degreeColor = degreeColor;
+            return this;
+        }
+
+        /**
+         * 长、短刻度的长度，{@link #AUTO}为根据圆环半径自动计算
+         */
+        public Builder setDegreeLength(float longLength, float shortLength) {
+            degreeLongLength = longLength;
+            degreeShortLength = shortLength;
+            return this;
+        }
+
+        public Builder setDegreeWidth(float longWidth, float shortWidth) {
+            degreeLongWidth = longWidth;
+            degreeShortWidth = shortWidth;
+            return this;
+        }
+
+        public Builder setNumber(float size, int color) {
+            numberSize = size;
+            numberColor = color;
+            return this;
+        }
+
+        /**
+         * @throws IllegalArgumentException 锚点文字为null，或尺寸为负数
+         */
+        public DialStyle build() {
+            if (anchorStartText == null || anchorEndText == null) {
+                throw new IllegalArgumentException("The anchor texts must not be null");
+            }
+            if (ringWidth < 0 || anchorDiameter < 0 || anchorStrokeWidth < 0 || anchorTextSize < 0 || numberSize < 0) {
+                throw new IllegalArgumentException("The sizes of DialStyle must not be negative");
+            }
+            return new DialStyle(this);
+        }
+    }
+}
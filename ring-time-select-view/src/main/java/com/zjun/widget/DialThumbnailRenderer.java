@@ -0,0 +1,453 @@
+package com.zjun.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+import android.util.LruCache;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DialThumbnailRenderer
+ *  在后台线程把时间段集合绘制成表盘缩略图，用于列表等大量展示的场景
+ *
+ * @author Ralap
+ * @description 与{@link RingTimeSelectView}使用同一套绘制代码{@link DialPainter}，外观由{@link DialStyle}决定。
+ *          1、内存缓存：LruCache，键为(压缩的时间段集合, 外观, 尺寸)，按字节数限制大小
+ *          2、磁盘缓存（可选）：PNG文件，文件名由绘制版本和三者的哈希组成。按总字节数和最久未使用的时间限制，
+ *              创建时在后台清理旧版本、过期的文件，写入后超过上限时从最久未使用的开始删除
+ *          3、相同的缩略图只绘制一次：正在绘制时的重复请求，只追加回调
+ *          列表滑动时，先用{@link #getCached(long, DialStyle, int)}查找，没有再{@link #request(long, DialStyle, int, Callback)}，
+ *          主线程只有缓存查找和drawBitmap。
+ *
+ * @date 2026-10-18
+ */
+public final class DialThumbnailRenderer {
+    private static final String TAG = "DialThumbnailRenderer";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    /**
+     * 绘制版本，写入磁盘缓存的文件名。绘制代码改变了缩略图的外观时加1，旧版本的文件不再使用，创建时清理
+     */
+    static final int RENDER_VERSION = 2;
+    /**
+     * 磁盘缓存默认的最大字节数
+     */
+    public static final long DEFAULT_DISK_CACHE_BYTES = 16L * 1024 * 1024;
+    /**
+     * 磁盘缓存默认的最久未使用时间（ms）：30天
+     */
+    public static final long DEFAULT_DISK_CACHE_MAX_AGE = 30L * 24 * 60 * 60 * 1000;
+
+    /**
+     * 缩略图准备好的回调，在主线程执行
+     */
+    public interface Callback {
+        /**
+         * @param packed    压缩的时间段集合
+         * @param bitmap    缩略图；绘制失败时为null
+         */
+        void onThumbnailReady(long packed, Bitmap bitmap);
+    }
+
+    private final LruCache<Key, Bitmap> mMemoryCache;
+    private final File mDiskCacheDir;
+    private final long mDiskCacheBytes;
+    private final long mDiskCacheMaxAge;
+    /**
+     * 磁盘缓存当前的总字节数（估计值），超过上限时清理
+     */
+    private final AtomicLong mDiskCacheSize = new AtomicLong();
+    /**
+     * 清理磁盘缓存的锁，同时只有一个线程清理
+     */
+    private final Object mDiskTrimLock = new Object();
+    private final ExecutorService mExecutor;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    /**
+     * 正在绘制的缩略图，及其等待的回调。用this加锁
+     */
+    private final Map<Key, List<Callback>> mPending = new HashMap<>();
+
+    /**
+     * 每个绘制线程复用的画笔
+     */
+    private final ThreadLocal<DialPainter> mPainters = new ThreadLocal<>();
+
+    /**
+     * 磁盘缓存使用默认的大小{@link #DEFAULT_DISK_CACHE_BYTES}和时间{@link #DEFAULT_DISK_CACHE_MAX_AGE}
+     *
+     * @param memoryCacheBytes  内存缓存的最大字节数
+     * @param diskCacheDir      磁盘缓存的目录；null：不使用磁盘缓存
+     */
+    public DialThumbnailRenderer(int memoryCacheBytes, File diskCacheDir) {
+        this(memoryCacheBytes, diskCacheDir, DEFAULT_DISK_CACHE_BYTES, DEFAULT_DISK_CACHE_MAX_AGE);
+    }
+
+    /**
+     * @param memoryCacheBytes  内存缓存的最大字节数
+     * @param diskCacheDir      磁盘缓存的目录；null：不使用磁盘缓存。目录由本类独占，其中其他的文件会被删除
+     * @param diskCacheBytes    磁盘缓存的最大字节数
+     * @param diskCacheMaxAge   磁盘缓存的文件最久未使用的时间（ms），超过的删除
+     */
+    public DialThumbnailRenderer(int memoryCacheBytes, File diskCacheDir, long diskCacheBytes, long diskCacheMaxAge) {
+        if (memoryCacheBytes <= 0) {
+            throw new IllegalArgumentException("The memoryCacheBytes must be positive");
+        }
+        if (diskCacheBytes <= 0 || diskCacheMaxAge <= 0) {
+            throw new IllegalArgumentException("The diskCacheBytes and diskCacheMaxAge must be positive");
+        }
+        mMemoryCache = new LruCache<Key, Bitmap>(memoryCacheBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+        mDiskCacheDir = diskCacheDir;
+        mDiskCacheBytes = diskCacheBytes;
+        mDiskCacheMaxAge = diskCacheMaxAge;
+        if (diskCacheDir != null && !diskCacheDir.isDirectory() && !diskCacheDir.mkdirs()) {
+            Log.w(TAG, "DialThumbnailRenderer: can't create the disk cache directory " + diskCacheDir);
+        }
+        int threads = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+        mExecutor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private final AtomicInteger mCount = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        r.run();
+                    }
+                }, "DialThumbnail #" + mCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        if (diskCacheDir != null) {
+            mExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    trimDiskCache();
+                }
+            });
+        }
+    }
+
+    /**
+     * 只查找内存缓存，不绘制
+     *
+     * @return  缩略图；null：未缓存
+     */
+    public Bitmap getCached(long packed, DialStyle style, int size) {
+        return mMemoryCache.get(new Key(packed, style, size));
+    }
+
+    /**
+     * 请求缩略图。内存中已有时，直接在当前线程回调；否则在后台线程查找磁盘缓存或绘制，完成后在主线程回调
+     *
+     * @param packed    压缩的时间段集合，见{@link PackedSchedule}
+     * @param style     外观
+     * @param size      缩略图边长（px）
+     * @param callback  回调
+     */
+    public void request(long packed, DialStyle style, int size, Callback callback) {
+        PackedSchedule.checkPacked(packed);
+        if (size <= 0) {
+            throw new IllegalArgumentException("The size must be positive");
+        }
+        final Key key = new Key(packed, style, size);
+        Bitmap bitmap = mMemoryCache.get(key);
+        if (bitmap != null) {
+            callback.onThumbnailReady(packed, bitmap);
+            return;
+        }
+        synchronized (this) {
+            List<Callback> callbacks = mPending.get(key);
+            if (callbacks != null) {
+                // 正在绘制，等待同一个结果
+                callbacks.add(callback);
+                return;
+            }
+            callbacks = new ArrayList<>(1);
+            callbacks.add(callback);
+            mPending.put(key, callbacks);
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                load(key);
+            }
+        });
+    }
+
+    /**
+     * 取消还未回调的请求（如列表项已被复用）。绘制不会中断，结果仍会缓存
+     */
+    public synchronized void cancel(Callback callback) {
+        for (Iterator<List<Callback>> it = mPending.values().iterator(); it.hasNext(); ) {
+            List<Callback> callbacks = it.next();
+            callbacks.remove(callback);
+        }
+    }
+
+    /**
+     * 清空内存缓存
+     */
+    public void clearMemory() {
+        mMemoryCache.evictAll();
+    }
+
+    /**
+     * 停止后台线程，之后不能再请求
+     */
+    public void shutdown() {
+        mExecutor.shutdownNow();
+    }
+
+    /**
+     * 后台线程：磁盘缓存 -> 绘制 -> 写入缓存 -> 主线程回调
+     */
+    private void load(final Key key) {
+        Bitmap bitmap = null;
+        try {
+            File file = mDiskCacheDir == null ? null : new File(mDiskCacheDir, key.fileName());
+            if (file != null && file.isFile()) {
+                bitmap = BitmapFactory.decodeFile(file.getPath());
+                if (bitmap != null && !file.setLastModified(System.currentTimeMillis())) {
+                    Log.w(TAG, "load: failed to touch " + file);
+                }
+            }
+            if (bitmap == null) {
+                bitmap = render(key.packed, key.style, key.size);
+                if (file != null && writeToDisk(bitmap, file)
+                        && mDiskCacheSize.addAndGet(file.length()) > mDiskCacheBytes) {
+                    trimDiskCache();
+                }
+            }
+            mMemoryCache.put(key, bitmap);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "load: failed to render the thumbnail", e);
+        }
+
+        final Bitmap result = bitmap;
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                List<Callback> callbacks;
+                synchronized (DialThumbnailRenderer.this) {
+                    callbacks = mPending.remove(key);
+                }
+                if (callbacks != null) {
+                    for (Callback callback : callbacks) {
+                        callback.onThumbnailReady(key.packed, result);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 绘制缩略图，可在任意线程调用
+     */
+    Bitmap render(long packed, DialStyle style, int size) {
+        DialPainter painter = mPainters.get();
+        if (painter == null) {
+            painter = new DialPainter(style);
+            mPainters.set(painter);
+        } else {
+            // 外观变化时只更新变化的画笔
+            painter.setStyle(style);
+        }
+        float center = size * .5f;
+        painter.layout(center, center, DialPainter.ringRadiusFor(style, size), DialPainter.detailFor(style, size));
+
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        painter.drawDial(canvas);
+        RingTimeSelectView.TimeSection section = new RingTimeSelectView.TimeSection();
+        section.start = new RingTimeSelectView.TimeSection.TimeAnchor();
+        section.end = new RingTimeSelectView.TimeSection.TimeAnchor();
+        for (RingTimeSelectView.TimePart part : PackedSchedule.unpack(packed)) {
+            section.start.minute = part.getStart();
+            section.end.minute = part.getEnd();
+            painter.updateAnchor(section.start, part.getStart() * 6);
+            painter.updateAnchor(section.end, part.getEnd() * 6);
+            painter.drawSection(canvas, section, false);
+        }
+        return bitmap;
+    }
+
+    /**
+     * @return  true：写入成功
+     */
+    private boolean writeToDisk(Bitmap bitmap, File file) {
+        // 先写临时文件再重命名，避免读到写了一半的文件
+        File tmp = new File(file.getPath() + TMP_SUFFIX);
+        OutputStream out = null;
+        boolean written = false;
+        try {
+            out = new FileOutputStream(tmp);
+            if (bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                out.close();
+                out = null;
+                written = tmp.renameTo(file);
+                if (!written) {
+                    Log.w(TAG, "writeToDisk: failed to rename " + tmp);
+                }
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "writeToDisk: failed to write " + file, e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                }
+            }
+            if (tmp.exists() && !tmp.delete()) {
+                Log.w(TAG, "writeToDisk: failed to delete " + tmp);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 清理磁盘缓存：删除其他绘制版本的、最久未使用时间超过上限的文件，
+     * 总字节数仍超过上限时，从最久未使用的开始删除。在后台线程调用
+     */
+    void trimDiskCache() {
+        synchronized (mDiskTrimLock) {
+            File[] files = mDiskCacheDir.listFiles();
+            if (files == null) {
+                return;
+            }
+            long expired = System.currentTimeMillis() - mDiskCacheMaxAge;
+            String prefix = Key.filePrefix();
+            List<File> kept = new ArrayList<>(files.length);
+            // 排序前记下修改时间，排序中其他线程读取文件会更新它
+            final Map<File, Long> lastUsed = new HashMap<>(files.length);
+            long total = 0;
+            for (File file : files) {
+                if (!file.isFile()) {
+                    continue;
+                }
+                String name = file.getName();
+                long modified = file.lastModified();
+                if (name.endsWith(TMP_SUFFIX)) {
+                    // 可能正在写入，只删除过期遗留的
+                    if (modified < expired) {
+                        deleteFile(file);
+                    }
+                } else if (!name.startsWith(prefix) || modified < expired) {
+                    deleteFile(file);
+                } else {
+                    kept.add(file);
+                    lastUsed.put(file, modified);
+                    total += file.length();
+                }
+            }
+            if (total > mDiskCacheBytes) {
+                Collections.sort(kept, new Comparator<File>() {
+                    @Override
+                    public int compare(File f1, File f2) {
+                        long m1 = lastUsed.get(f1);
+                        long m2 = lastUsed.get(f2);
+                        return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+                    }
+                });
+                for (int i = 0; i < kept.size() && total > mDiskCacheBytes; i++) {
+                    File file = kept.get(i);
+                    long length = file.length();
+                    if (deleteFile(file)) {
+                        total -= length;
+                    }
+                }
+            }
+            mDiskCacheSize.set(total);
+        }
+    }
+
+    private static boolean deleteFile(File file) {
+        if (file.delete()) {
+            return true;
+        }
+        Log.w(TAG, "trimDiskCache: failed to delete " + file);
+        return false;
+    }
+
+    /**
+     * 缓存的键：(压缩的时间段集合, 外观, 尺寸)
+     */
+    private static final class Key {
+        final long packed;
+        final DialStyle style;
+        final int size;
+        private final int mHashCode;
+
+        Key(long packed, DialStyle style, int size) {
+            if (style == null) {
+                throw new NullPointerException("style == null");
+            }
+            this.packed = packed;
+            this.style = style;
+            this.size = size;
+            int h = (int) (packed ^ (packed >>> 32));
+            h = 31 * h + style.hashCode();
+            mHashCode = 31 * h + size;
+        }
+
+        /**
+         * 当前绘制版本的文件名前缀
+         */
+        static String filePrefix() {
+            return "v" + RENDER_VERSION + "_";
+        }
+
+        /**
+         * 磁盘缓存的文件名：绘制版本_时间段_外观_尺寸。外观只用哈希值，不同外观哈希相同的概率可忽略
+         */
+        String fileName() {
+            return String.format(Locale.US, "%s%015x_%08x_%d.png", filePrefix(), packed, style.hashCode(), size);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) o;
+            return packed == that.packed && size == that.size && style.equals(that.style);
+        }
+
+        @Override
+        public int hashCode() {
+            return mHashCode;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.zjun.widget;
+
+import android.os.Build;
+import android.os.Trace;
+
+/**
+ * DialTrace
+ *  {@link Trace}的开关封装，用于在Perfetto/systrace中查看触摸处理和绘制的耗时
+ *
+ * @author Ralap
+ * @description 默认关闭，关闭时只有一次静态布尔值的判断。Trace需要API 18，低版本上始终关闭。
+ *          begin和end必须在同一线程中成对调用
+ *
+ * @date 2026-10-18
+ */
+final class DialTrace {
+
+    static final String DOWN_HIT_TEST = "RTV:down-hitTest";
+    static final String INSERT = "RTV:insert";
+    static final String QUICK_CUT = "RTV:quickCut";
+    static final String MOVE_QUANTIZE = "RTV:move-quantize";
+    static final String MOVE_COMMIT = "RTV:move-commit";
+    static final String UP_MERGE = "RTV:up-merge";
+    static final String DRAW = "RTV:draw";
+
+    private static boolean sEnabled;
+
+    private DialTrace() {
+    }
+
+    static void setEnabled(boolean enabled) {
+        sEnabled = enabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    static boolean isEnabled() {
+        return sEnabled;
+    }
+
+    static void begin(String name) {
+        if (sEnabled) {
+            Trace.beginSection(name);
+        }
+    }
+
+    static void end() {
+        if (sEnabled) {
+            Trace.endSection();
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.zjun.widget;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * ExecutorTimeChangedListener
+ *  把{@link RingTimeSelectView.IOnTimeChangedListener}的回调转到指定的{@link Executor}上执行
+ *
+ * @author Ralap
+ * @description 通过{@link RingTimeSelectView#setOnTimeChangeListener(RingTimeSelectView.IOnTimeChangedListener, Executor)}设置。
+ *          1、按发生的顺序回调：事件先进入队列，同一时刻只有一个任务在执行器上依次回调，即使是线程池也不会乱序
+ *          2、只保留最新：onChanged和onSelectChanged在消费者跟不上时，丢弃队列中还未回调的旧值，只回调最新的
+ *          3、onInsert、onSelectStart、onSelectFinished总会回调，也不会越过它们合并
+ *          onChanged的时间段集合和onInsert的时间段都是只属于该回调的只读副本，集合和其中的时间段都不可修改；
+ *          主线程只在入队时短暂加锁，不等待消费者
+ *
+ * @date 2026-10-18
+ */
+final class ExecutorTimeChangedListener implements RingTimeSelectView.IOnTimeChangedListener {
+
+    private static final int CHANGED = 0;
+    private static final int INSERT = 1;
+    private static final int SELECT_START = 2;
+    private static final int SELECT_CHANGED = 3;
+    private static final int SELECT_FINISHED = 4;
+
+    private final RingTimeSelectView.IOnTimeChangedListener mListener;
+    private final Executor mExecutor;
+
+    /**
+     * 待回调的事件，用this加锁
+     */
+    private final ArrayDeque<Event> mQueue = new ArrayDeque<>();
+    /**
+     * 是否已有回调任务提交到执行器。用this加锁
+     */
+    private boolean mDraining;
+
+    private final Runnable mDrainTask = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    ExecutorTimeChangedListener(RingTimeSelectView.IOnTimeChangedListener listener, Executor executor) {
+        if (listener == null || executor == null) {
+            throw new IllegalArgumentException("The listener and executor must not be null");
+        }
+        mListener = listener;
+        mExecutor = executor;
+    }
+
+    @Override
+    public void onChanged(RingTimeSelectView view, List<RingTimeSelectView.TimePart> timePartList) {
+        // 回调在其他线程执行，集合和时间段都复制为只读的，调用方之后的修改互不影响
+        RingTimeSelectView.TimePart[] parts = new RingTimeSelectView.TimePart[timePartList.size()];
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = new ReadOnlyTimePart(timePartList.get(i));
+        }
+        enqueue(new Event(CHANGED, view, Collections.unmodifiableList(Arrays.asList(parts)), null, 0));
+    }
+
+    @Override
+    public void onInsert(RingTimeSelectView.TimePart part) {
+        enqueue(new Event(INSERT, null, null, new ReadOnlyTimePart(part), 0));
+    }
+
+    @Override
+    public void onSelectStart(int minute) {
+        enqueue(new Event(SELECT_START, null, null, null, minute));
+    }
+
+    @Override
+    public void onSelectChanged(int minute) {
+        enqueue(new Event(SELECT_CHANGED, null, null, null, minute));
+    }
+
+    @Override
+    public void onSelectFinished() {
+        enqueue(new Event(SELECT_FINISHED, null, null, null, 0));
+    }
+
+    private void enqueue(Event event) {
+        boolean submit;
+        synchronized (this) {
+            if (isDroppable(event.type)) {
+                /*
+                 从队尾往前，在可丢弃的事件中查找同类型的旧值，遇到必须回调的事件就停止。
+                 两个必须回调的事件之间，每种类型最多只有一个，查找的长度是常数
+                 */
+                for (Iterator<Event> it = mQueue.descendingIterator(); it.hasNext(); ) {
+                    Event queued = it.next();
+                    if (!isDroppable(queued.type)) {
+                        break;
+                    }
+                    if (queued.type == event.type) {
+                        it.remove();
+                        break;
+                    }
+                }
+            }
+            mQueue.addLast(event);
+            submit = !mDraining;
+            mDraining = true;
+        }
+        if (submit) {
+            mExecutor.execute(mDrainTask);
+        }
+    }
+
+    /**
+     * 在执行器上依次回调队列中的事件，直到队列为空
+     */
+    private void drain() {
+        while (true) {
+            Event event;
+            synchronized (this) {
+                event = mQueue.pollFirst();
+                if (event == null) {
+                    mDraining = false;
+                    return;
+                }
+            }
+            boolean dispatched = false;
+            try {
+                dispatch(event);
+                dispatched = true;
+            } finally {
+                if (!dispatched) {
+                    // 回调抛出异常：释放标记，剩余的事件在下次入队时继续回调
+                    synchronized (this) {
+                        mDraining = false;
+                    }
+                }
+            }
+        }
+    }
+
+    private void dispatch(Event event) {
+        switch (event.type) {
+            case CHANGED:
+                mListener.onChanged(event.view, event.parts);
+                break;
+            case INSERT:
+                mListener.onInsert(event.part);
+                break;
+            case SELECT_START:
+                mListener.onSelectStart(event.minute);
+                break;
+            case SELECT_CHANGED:
+                mListener.onSelectChanged(event.minute);
+                break;
+            case SELECT_FINISHED:
+                mListener.onSelectFinished();
+                break;
+            default: break;
+        }
+    }
+
+    private static boolean isDroppable(int type) {
+        return type == CHANGED || type == SELECT_CHANGED;
+    }
+
+    /**
+     * 只读的时间段，修改时抛出UnsupportedOperationException
+     */
+    static final class ReadOnlyTimePart extends RingTimeSelectView.TimePart {
+
+        ReadOnlyTimePart(RingTimeSelectView.TimePart part) {
+            super(part.getId(), part.getStart(), part.getEnd());
+        }
+
+        @Override
+        public void setStart(int start) {
+            throw new UnsupportedOperationException("The time part delivered on the executor is read-only");
+        }
+
+        @Override
+        public void setEnd(int end) {
+            throw new UnsupportedOperationException("The time part delivered on the executor is read-only");
+        }
+    }
+
+    private static final class Event {
+        final int type;
+        final RingTimeSelectView view;
+        final List<RingTimeSelectView.TimePart> parts;
+        final RingTimeSelectView.TimePart part;
+        final int minute;
+
+        Event(int type, RingTimeSelectView view, List<RingTimeSelectView.TimePart> parts
+                , RingTimeSelectView.TimePart part, int minute) {
+            this.type = type;
+            this.view = view;
+            this.parts = parts;
+            this.part = part;
+            this.minute = minute;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.zjun.widget;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * GestureRecorder
+ *  录制触摸事件流（包括时间戳和历史样本），保存为紧凑的二进制文件，并可回放到控件上
+ *
+ * @author Ralap
+ * @description 用于性能和行为的对比：在真机上录制手势，在JVM上无界面、全速回放，比较耗时、分配和最终的时间段集合。
+ *          只录制单指事件，坐标相对于录制时的控件；回放时按控件中心和短边等比缩放到目标控件。
+ *          文件格式（大端）：
+ *          int 魔数"RTG1", short 版本, short 宽, short 高, int 事件数;
+ *          每个事件：byte 动作, short 样本数, 样本数 × (int 相对时间ms, float x, float y)，最后一个样本为当前样本，之前的为历史样本
+ *
+ * @date 2026-10-18
+ */
+public final class GestureRecorder {
+
+    private static final int MAGIC = 0x52544731;
+    private static final short VERSION = 1;
+
+    private byte[] mActions = new byte[64];
+    /**
+     * 每个事件的第一个样本在样本数组中的位置，长度为事件数+1
+     */
+    private int[] mSampleOffsets = new int[65];
+    private int[] mTimes = new int[256];
+    private float[] mXs = new float[256];
+    private float[] mYs = new float[256];
+    private int mEventCount;
+    private int mSampleCount;
+
+    private final int mWidth;
+    private final int mHeight;
+    /**
+     * 第一个事件的时间（ms，uptime），-1为还未录制
+     */
+    private long mBaseTime = -1;
+
+    /**
+     * @param width     录制时控件的宽
+     * @param height    录制时控件的高
+     */
+    public GestureRecorder(int width, int height) {
+        if (width <= 0 || height <= 0 || width > Short.MAX_VALUE || height > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Illegal size: " + width + "x" + height);
+        }
+        mWidth = width;
+        mHeight = height;
+    }
+
+    /**
+     * 录制控件上的一个事件。可在{@link View.OnTouchListener}中调用，不消费事件
+     */
+    public void record(MotionEvent event) {
+        int action = event.getActionMasked();
+        if (action != MotionEvent.ACTION_DOWN && action != MotionEvent.ACTION_MOVE
+                && action != MotionEvent.ACTION_UP && action != MotionEvent.ACTION_CANCEL) {
+            // 多指等其他事件，控件不处理，不录制
+            return;
+        }
+        beginEvent(action);
+        for (int i = 0, size = event.getHistorySize(); i < size; i++) {
+            addSample(event.getHistoricalEventTime(i), event.getHistoricalX(i), event.getHistoricalY(i));
+        }
+        addSample(event.getEventTime(), event.getX(), event.getY());
+    }
+
+    /**
+     * 开始一个事件，之后用{@link #addSample(long, float, float)}添加样本，至少一个
+     */
+    void beginEvent(int action) {
+        if (mEventCount > 0 && mSampleOffsets[mEventCount] == mSampleOffsets[mEventCount - 1]) {
+            throw new IllegalStateException("The previous event has no sample");
+        }
+        if (mEventCount + 1 == mActions.length) {
+            mActions = Arrays.copyOf(mActions, mActions.length * 2);
+            mSampleOffsets = Arrays.copyOf(mSampleOffsets, mActions.length + 1);
+        }
+        mActions[mEventCount++] = (byte) action;
+        mSampleOffsets[mEventCount] = mSampleCount;
+    }
+
+    /**
+     * 给当前事件添加一个样本
+     *
+     * @param eventTime     样本时间（ms，uptime）
+     */
+    void addSample(long eventTime, float x, float y) {
+        if (mEventCount == 0) {
+            throw new IllegalStateException("Call beginEvent first");
+        }
+        if (mBaseTime < 0) {
+            mBaseTime = eventTime;
+        }
+        if (mSampleCount == mTimes.length) {
+            int capacity = mTimes.length * 2;
+            mTimes = Arrays.copyOf(mTimes, capacity);
+            mXs = Arrays.copyOf(mXs, capacity);
+            mYs = Arrays.copyOf(mYs, capacity);
+        }
+        mTimes[mSampleCount] = (int) (eventTime - mBaseTime);
+        mXs[mSampleCount] = x;
+        mYs[mSampleCount] = y;
+        mSampleCount++;
+        mSampleOffsets[mEventCount] = mSampleCount;
+    }
+
+    public void clear() {
+        mEventCount = 0;
+        mSampleCount = 0;
+        mBaseTime = -1;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public int getEventCount() {
+        return mEventCount;
+    }
+
+    public int getSampleCount() {
+        return mSampleCount;
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeShort(mWidth);
+        data.writeShort(mHeight);
+        data.writeInt(mEventCount);
+        for (int i = 0; i < mEventCount; i++) {
+            int from = mSampleOffsets[i];
+            int to = mSampleOffsets[i + 1];
+            data.writeByte(mActions[i]);
+            data.writeShort(to - from);
+            for (int j = from; j < to; j++) {
+                data.writeInt(mTimes[j]);
+                data.writeFloat(mXs[j]);
+                data.writeFloat(mYs[j]);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * 读取{@link #writeTo(OutputStream)}写入的录制
+     */
+    public static GestureRecorder readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a gesture recording");
+        }
+        short version = data.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version: " + version);
+        }
+        GestureRecorder recorder = new GestureRecorder(data.readShort(), data.readShort());
+        int eventCount = data.readInt();
+        for (int i = 0; i < eventCount; i++) {
+            recorder.beginEvent(data.readByte());
+            int sampleCount = data.readShort();
+            if (sampleCount <= 0) {
+                throw new IOException("Event " + i + " has no sample");
+            }
+            for (int j = 0; j < sampleCount; j++) {
+                recorder.addSample(data.readInt(), data.readFloat(), data.readFloat());
+            }
+        }
+        return recorder;
+    }
+
+    /**
+     * 生成回放的事件，坐标缩放到目标尺寸。用完需要{@link MotionEvent#recycle()}
+     *
+     * @param width     目标控件的宽
+     * @param height    目标控件的高
+     * @param baseTime  回放的开始时间（ms，uptime），事件时间按录制时的间隔依次增加
+     */
+    public MotionEvent[] obtainEvents(int width, int height, long baseTime) {
+        float scale = Math.min(width, height) / (float) Math.min(mWidth, mHeight);
+        float dx = width * .5f - mWidth * .5f * scale;
+        float dy = height * .5f - mHeight * .5f * scale;
+        MotionEvent[] events = new MotionEvent[mEventCount];
+        long downTime = baseTime;
+        for (int i = 0; i < mEventCount; i++) {
+            int from = mSampleOffsets[i];
+            int to = mSampleOffsets[i + 1];
+            int action = mActions[i];
+            if (action == MotionEvent.ACTION_DOWN) {
+                downTime = baseTime + mTimes[from];
+            }
+            // 第一个样本创建事件，之后的样本追加为批次，最后一个成为当前样本
+            MotionEvent event = MotionEvent.obtain(downTime, baseTime + mTimes[from], action
+                    , mXs[from] * scale + dx, mYs[from] * scale + dy, 0);
+            for (int j = from + 1; j < to; j++) {
+                event.addBatch(baseTime + mTimes[j], mXs[j] * scale + dx, mYs[j] * scale + dy, 1, 1, 0);
+            }
+            events[i] = event;
+        }
+        return events;
+    }
+
+    /**
+     * 把录制的事件依次分发给控件，全速回放
+     *
+     * @return  控件消费的事件数
+     */
+    public int replay(View view) {
+        MotionEvent[] events = obtainEvents(view.getWidth(), view.getHeight(), SystemClock.uptimeMillis());
+        int handled = 0;
+        for (MotionEvent event : events) {
+            if (view.dispatchTouchEvent(event)) {
+                handled++;
+            }
+            event.recycle();
+        }
+        return handled;
+    }
+}
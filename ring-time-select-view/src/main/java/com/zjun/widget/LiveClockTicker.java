@@ -0,0 +1,108 @@
+package com.zjun.widget;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * LiveClockTicker
+ *  所有控件共用的秒钟节拍：在主线程上每到整秒回调一次
+ *
+ * @author Ralap
+ * @description 只有一个Handler消息在排队，与控件数量无关；没有注册的控件时停止。
+ *          控件在开启实时时间、已附加到窗口且可见时注册，否则注销，见{@link RingTimeSelectView#setLiveTimeEnabled(boolean)}。
+ *          只能在主线程调用
+ *
+ * @date 2026-10-18
+ */
+final class LiveClockTicker {
+
+    interface Listener {
+        /**
+         * @param secondOfHour  当前时区下，本小时内的秒数：0~3599
+         */
+        void onTick(int secondOfHour);
+    }
+
+    private static LiveClockTicker sInstance;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final List<Listener> mListeners = new ArrayList<>();
+    /**
+     * 回调时的副本，回调中注册、注销不影响本次遍历
+     */
+    private Listener[] mDispatching = new Listener[4];
+    private boolean mScheduled;
+
+    private final Runnable mTick = new Runnable() {
+        @Override
+        public void run() {
+            mScheduled = false;
+            if (mListeners.isEmpty()) {
+                return;
+            }
+            int secondOfHour = currentSecondOfHour();
+            int count = mListeners.size();
+            if (mDispatching.length < count) {
+                mDispatching = new Listener[count * 2];
+            }
+            mListeners.toArray(mDispatching);
+            for (int i = 0; i < count; i++) {
+                mDispatching[i].onTick(secondOfHour);
+                mDispatching[i] = null;
+            }
+            scheduleNext();
+        }
+    };
+
+    private LiveClockTicker() {
+    }
+
+    static LiveClockTicker getInstance() {
+        if (sInstance == null) {
+            sInstance = new LiveClockTicker();
+        }
+        return sInstance;
+    }
+
+    /**
+     * 当前时区下，本小时内的秒数：0~3599
+     */
+    static int currentSecondOfHour() {
+        long now = System.currentTimeMillis();
+        long local = now + TimeZone.getDefault().getOffset(now);
+        return (int) ((local / 1000) % 3600);
+    }
+
+    void register(Listener listener) {
+        if (mListeners.contains(listener)) {
+            return;
+        }
+        mListeners.add(listener);
+        scheduleNext();
+    }
+
+    void unregister(Listener listener) {
+        mListeners.remove(listener);
+        if (mListeners.isEmpty() && mScheduled) {
+            mHandler.removeCallbacks(mTick);
+            mScheduled = false;
+        }
+    }
+
+    /**
+     * 在下一个整秒回调
+     */
+    private void scheduleNext() {
+        if (mScheduled) {
+            return;
+        }
+        long delay = 1000 - System.currentTimeMillis() % 1000;
+        mHandler.postAtTime(mTick, SystemClock.uptimeMillis() + delay);
+        mScheduled = true;
+    }
+}
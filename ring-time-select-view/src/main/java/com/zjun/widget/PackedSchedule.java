@@ -0,0 +1,185 @@
+package com.zjun.widget;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PackedSchedule
+ *  时间段集合的压缩表示：用一个long的低60位表示0~60min中每一分钟是否被选中
+ *
+ * @author Ralap
+ * @description 第m位为1，表示[m, m+1)这一分钟被选中，所以时间段[start, end]对应第start ~ end-1位。
+ *          1、相交、包含或相接的时间段，压缩后会合并为一个（与拖动结束时的合并规则一致）
+ *          2、若需要保留相接时间段的分界，可额外使用起始位{@link #startBits(List)}，见{@link #unpack(long, long)}
+ *
+ * @date 2026-10-18
+ */
+public final class PackedSchedule {
+
+    /**
+     * 一小时的分钟数，即有效位数
+     */
+    public static final int MINUTES = 60;
+
+    /**
+     * 有效位的掩码：低60位
+     */
+    public static final long MINUTE_MASK = (1L << MINUTES) - 1;
+
+    /**
+     * 空的时间段集合
+     */
+    public static final long EMPTY = 0L;
+
+    private PackedSchedule() {
+    }
+
+    /**
+     * 时间段[start, end]对应的位
+     *
+     * @param start     起始分钟，∈[0, 60]
+     * @param end       终止分钟，∈[start, 60]
+     */
+    public static long rangeMask(int start, int end) {
+        if (start >= end) {
+            return EMPTY;
+        }
+        long high = end == MINUTES ? MINUTE_MASK : (1L << end) - 1;
+        return high & ~((1L << start) - 1);
+    }
+
+    /**
+     * 压缩时间段集合
+     *
+     * @param partList  时间段集合，null元素将被忽略
+     * @throws IllegalArgumentException 时间段不合法（分钟不在0~60之间，或终止分钟不大于起始分钟）
+     */
+    public static long pack(List<RingTimeSelectView.TimePart> partList) {
+        long packed = EMPTY;
+        if (partList == null) {
+            return packed;
+        }
+        for (int i = 0, size = partList.size(); i < size; i++) {
+            RingTimeSelectView.TimePart part = partList.get(i);
+            if (part == null) {
+                continue;
+            }
+            checkSection(part.getStart(), part.getEnd());
+            packed |= rangeMask(part.getStart(), part.getEnd());
+        }
+        return packed;
+    }
+
+    /**
+     * 时间段集合中，每个时间段起始分钟对应的位。与{@link #pack(List)}一起使用，可保留相接时间段的分界
+     */
+    public static long startBits(List<RingTimeSelectView.TimePart> partList) {
+        long starts = EMPTY;
+        if (partList == null) {
+            return starts;
+        }
+        for (int i = 0, size = partList.size(); i < size; i++) {
+            RingTimeSelectView.TimePart part = partList.get(i);
+            if (part != null) {
+                checkSection(part.getStart(), part.getEnd());
+                starts |= 1L << part.getStart();
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * 解压为时间段集合，已按起始时间从小到大排好序，可直接用于{@link RingTimeSelectView#setTimeSections(List)}
+     */
+    public static List<RingTimeSelectView.TimePart> unpack(long packed) {
+        return unpack(packed, EMPTY);
+    }
+
+    /**
+     * 解压为时间段集合，并在起始位处分开相接的时间段
+     *
+     * @param packed    压缩的时间段集合
+     * @param starts    起始位，见{@link #startBits(List)}
+     */
+    public static List<RingTimeSelectView.TimePart> unpack(long packed, long starts) {
+        checkPacked(packed);
+        List<RingTimeSelectView.TimePart> list = new ArrayList<>(sectionCount(packed, starts));
+        int minute = 0;
+        while (minute < MINUTES) {
+            if ((packed & (1L << minute)) == 0) {
+                minute++;
+                continue;
+            }
+            int start = minute++;
+            while (minute < MINUTES && (packed & (1L << minute)) != 0 && (starts & (1L << minute)) == 0) {
+                minute++;
+            }
+            list.add(new RingTimeSelectView.TimePart(start, minute));
+        }
+        return list;
+    }
+
+    /**
+     * 时间段的个数
+     */
+    public static int sectionCount(long packed) {
+        return Long.bitCount(beginBits(packed));
+    }
+
+    /**
+     * 时间段的个数，在起始位处分开相接的时间段
+     */
+    public static int sectionCount(long packed, long starts) {
+        return Long.bitCount(beginBits(packed) | (starts & packed));
+    }
+
+    /**
+     * 每个时间段的第一分钟对应的位
+     */
+    public static long beginBits(long packed) {
+        return packed & ~(packed << 1);
+    }
+
+    /**
+     * 每个时间段的最后一分钟对应的位（时间段的终止分钟 = 该位 + 1）
+     */
+    public static long lastBits(long packed) {
+        return packed & ~(packed >>> 1);
+    }
+
+    /**
+     * 已选的总分钟数
+     */
+    public static int totalMinutes(long packed) {
+        return Long.bitCount(packed);
+    }
+
+    /**
+     * 是否是合法的压缩值：只使用了低60位
+     */
+    public static boolean isValid(long packed) {
+        return (packed & ~MINUTE_MASK) == 0;
+    }
+
+    /**
+     * 检查压缩值
+     *
+     * @throws IllegalArgumentException 使用了低60位以外的位
+     */
+    public static void checkPacked(long packed) {
+        if (!isValid(packed)) {
+            throw new IllegalArgumentException("The packed schedule must only use the lowest 60 bits");
+        }
+    }
+
+    /**
+     * 检查时间段，与{@link RingTimeSelectView}中的规则一致
+     *
+     * @throws IllegalArgumentException 分钟不在0~60之间，或终止分钟不大于起始分钟
+     */
+    static void checkSection(int start, int end) {
+        if (!(start < end && start >= 0 && end <= MINUTES)) {
+            throw new IllegalArgumentException("The minutes of part must between 0 and 60, and end is larger than start!");
+        }
+    }
+}
@@ -2,26 +2,34 @@ package com.zjun.widget;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Paint;
 import android.graphics.Rect;
-import android.graphics.RectF;
-import android.graphics.Shader;
-import android.graphics.SweepGradient;
 import android.os.Build;
+import android.os.Bundle;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.annotation.IntDef;
+import android.support.v4.view.ViewCompat;
+import android.support.v4.view.accessibility.AccessibilityNodeInfoCompat;
+import android.support.v4.widget.ExploreByTouchHelper;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.accessibility.AccessibilityManager;
+import android.view.animation.AnimationUtils;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * RingTimeView
@@ -41,10 +49,38 @@ import java.util.List;
  *              2. 把{@link TimePart}从{@link IOnTimeChangedListener}里提取出来
  *              3. 增加获取当前所有时间段的方法{@link #getTimeSections()}
  *              4. 修复Bug：在{@link #onTouchEvent(MotionEvent)}的MotionEvent.ACTION_DOWN中添加时，未判断界限，导致NullPointerException
+ *          v3: 2026-10-18
+ *              1. 增加低延迟拖动模式{@link #lowLatencyDragEnable}：非缓冲输入分发 + 锚点位置预测
+ *              2. 设置、清除时间段时可使用动画过渡{@link #setTimeSections(List, boolean)}、{@link #clearTimeSections(boolean)}
+ *              3. 增加无障碍支持{@link AccessHelper}：每个锚点、圆弧都是一个虚拟节点，锚点可通过滚动操作调整分钟
+ *              4. 保存、恢复状态{@link SavedState}，时间段压缩为两个long并保留ID；增加{@link #getPackedTimeSections()}
+ *              5. 修复Bug：每次onMeasure都会用{@link #startMinute}、{@link #endMinute}覆盖第一个时间段
+ *              6. 增加撤销、重做{@link #undo()}、{@link #redo()}，历史记录为压缩值，深度由{@link #historyDepth}决定
+ *              7. 时间段增加稳定的ID{@link TimePart#getId()}，增加增量变化监听{@link IOnSectionDeltaListener}
+ *              8. 增加约束{@link SectionConstraints}：禁用分钟、最短/最长时长、吸附步长、最大总时长，在添加和拖动时检查
+ *              9. 绘制代码提取到{@link DialPainter}，外观提取到{@link DialStyle}；增加后台线程的缩略图绘制{@link DialThumbnailRenderer}
+ *              10. 修复Bug：时间段渐变色的中心点在测量前确定，始终为(0, 0)
+ *              11. 增加性能追踪{@link #setTraceEnabled(boolean)}和指标统计{@link #setMetricsSink(IMetricsSink)}
+ *              12. 拖动和绘制的热路径不再创建对象：调试日志由{@link #DEBUG}控制，拖动时原地更新锚点
+ *              13. 增加手势录制和回放{@link GestureRecorder}，用于对比性能和行为
+ *              14. 增加在执行器上回调的监听{@link #setOnTimeChangeListener(IOnTimeChangedListener, Executor)}，消费者跟不上时只回调最新的变化
+ *              15. 增加更换外观{@link #setDialStyle(DialStyle)}，只更新变化的画笔，不需要重新创建控件
+ *              16. 增加批量编辑{@link #beginEdit()}、{@link #commit()}，以及{@link #addTimeSection(int, int)}、{@link #removeTimeSection(int)}，提交时只刷新和回调一次
+ *              17. 增加覆盖热度色带{@link #setCoverageHeatmap(CoverageHeatmap, int)}和只读模式{@link #setReadOnly(boolean)}
+ *              18. 画笔、文字尺寸和着色器延迟到第一次布局时创建，未显示的控件创建更快
+ *              19. 增加实时时间{@link #setLiveTimeEnabled(boolean)}：所有控件共用一个秒钟节拍，不可见时暂停；表盘和时间段缓存为静态层，每秒只重绘指针
+ *              20. 增加{@link #bind(long)}、{@link #recycle()}，用于RecyclerView中复用控件：清除上一项的触摸状态，复用时间段和锚点对象
+ *              21. 增加{@link RingTimeSurfaceView}：以本控件为模型，在独立的渲染线程中处理触摸和绘制，主线程繁忙时拖动仍然流畅
+ *              22. 按表盘大小自动选择细节层级：小表盘省略短刻度和数字，更小的只绘制圆环、圆弧和圆点锚点，并缓存为静态层
+ *              23. 构造和属性解析可以在后台线程进行（如异步加载布局）：无障碍辅助、动画等与Looper相关的工作延迟到附加到窗口时
  *          v1
  */
 public class RingTimeSelectView extends View {
     private static final String TAG = "RingTimeView";
+    /**
+     * 调试日志开关。日志的参数拼接、装箱会在拖动、绘制中创建对象，所以发布时关闭，并由编译器移除
+     */
+    private static final boolean DEBUG = false;
 
     private static final int GRAVITY_TOP                = 0b00000001;
     private static final int GRAVITY_BOTTOM             = 0b00000010;
@@ -73,6 +109,28 @@ public class RingTimeSelectView extends View {
      */
     private static final int SMOOTH_RANGE_VALUE = 5;
 
+    /**
+     * 低延迟拖动：锚点位置的预测时长（ms），约为触摸到显示的一帧多延迟
+     */
+    private static final int PREDICT_AHEAD_MILLIS = 20;
+    /**
+     * 低延迟拖动：角速度的平滑系数，新样本所占的权重
+     */
+    private static final float VELOCITY_SMOOTH_FACTOR = .6f;
+
+    /**
+     * 时间段过渡动画的默认时长（ms）
+     */
+    private static final long DEFAULT_ANIMATION_DURATION = 300;
+    /**
+     * 过渡动画缓冲区中，每个时间段占用的长度：起始角度、终止角度（动画起点）；起始角度、终止角度（动画终点）
+     */
+    private static final int ANIM_STRIDE = 4;
+    /**
+     * 增量中没有ID时共用的空数组
+     */
+    private static final int[] EMPTY_IDS = new int[0];
+
     /**
      * 初始化时间的起始分钟，范围∈[0, 60]
      * 在布局中设置此属性和{@link #endMinute}，能查看时间段和锚点的效果
@@ -95,16 +153,6 @@ public class RingTimeSelectView extends View {
      * 创建时间段时，默认的时间段值
      */
     private int initialMinutes;
-    /**
-     * 圆环宽度
-     */
-    private float ringWidth;
-
-    /**
-     * 背景圆颜色
-     */
-    private int ringBgColor;
-
     /**
      * 时间段的最大个数
      */
@@ -114,156 +162,204 @@ public class RingTimeSelectView extends View {
      */
     private boolean quickCutEnable;
     /**
-     * 已选时间的圆环颜色
+     * 低延迟拖动：拖动锚点时请求非缓冲输入分发（Android 5.0+），并根据角速度预测绘制锚点位置，抬起时再回到整分钟
      */
-    private int sectionColor;
+    private boolean lowLatencyDragEnable;
     /**
-     * 已选时间的圆环颜色2（若设置，则将使用扫描渲染渐变色。默认不设置，值为-1）
+     * 撤销、重做的最大历史记录数（包括当前状态），0为不记录
      */
-    private int sectionColor2;
+    private int historyDepth;
+
     /**
-     * 已选时间的圆环颜色3（只有在sectionColor2有效的情况下，才有效）
+     * 表盘外观
      */
-    private int sectionColor3;
+    private DialStyle mStyle;
     /**
-     * 锚点直径
+     * 表盘绘制，与{@link DialThumbnailRenderer}共用。第一次布局时才创建，见{@link #obtainPainter()}
      */
-    private float anchorDiameter;
+    private DialPainter mPainter;
+
     /**
-     * 锚点背景边框宽度
+     * 圆环中心圆的半径
      */
-    private float anchorStrokeWidth;
+    private float mRingRadius;
     /**
-     * 锚点文字大小
+     * 锚点半径
      */
-    private float anchorTextSize;
+    private float mAnchorRadius;
+
     /**
-     * 起始锚点背景颜色
+     * 圆环外圆的范围（= 外圆半径²）
      */
-    private int anchorStartColor;
+    private float mOuterCircleRange;
     /**
-     * 起始锚点背景边框颜色
+     * 圆环内圆的范围（= 内圆半径²）
      */
-    private int anchorStartStrokeColor;
+    private float mInterCircleRange;
     /**
-     * 起始锚点文字
+     * 锚点圆范围（= 锚点半径²）
      */
-    private String anchorStartText;
+    private float mAnchorCircleRange;
+
+
     /**
-     * 起始锚点文字颜色
+     * 时间段集合
      */
-    private int anchorStartTextColor;
+    private TimeSection[] mTimeSections;
 
     /**
-     * 终止锚点背景颜色
+     * 监听回调
      */
-    private int anchorEndColor;
+    private IOnTimeChangedListener mListener;
+
     /**
-     * 终止锚点背景边框颜色
+     * 下一个时间段的ID，从1开始递增
      */
-    private int anchorEndStrokeColor;
+    private int mNextSectionId = 1;
     /**
-     * 终止锚点文字
+     * 回收的时间段（含起止锚点），{@link #bind(long)}时复用，不再创建新对象
      */
-    private String anchorEndText;
+    private TimeSection[] mRecycledSections;
+    private int mRecycledCount;
+
     /**
-     * 终止锚点文字颜色
+     * 批量编辑：嵌套的层数，0为不在编辑中
      */
-    private int anchorEndTextColor;
-
+    private int mEditDepth;
     /**
-     * 如果重叠，是否需要合并字体
+     * 批量编辑中暂存的时间段，提交时才合并、生成坐标并回调
      */
-    private boolean anchorNeedMerge;
-
+    private List<TimePart> mEditParts;
+    private boolean mEditAnimate;
 
     /**
-     * 分钟刻度颜色
+     * 覆盖热度：数据、颜色、已交给画笔的版本号（-1为需要重新同步）、复制计数用的缓冲区
      */
-    private int degreeColor;
+    private CoverageHeatmap mHeatmap;
+    private int mHeatmapColor;
+    private int mHeatmapVersion = -1;
+    private int[] mHeatmapCounts;
     /**
-     * 刻度长指针长度
+     * 覆盖热度：是否已请求重绘。批量更新时只请求一次，绘制时复位
      */
-    private float degreeLongLength;
+    private volatile boolean mHeatmapInvalidatePosted;
+    private final Runnable mHeatmapInvalidate = new Runnable() {
+        @Override
+        public void run() {
+            if (!mHeatmapInvalidatePosted) {
+                mHeatmapInvalidatePosted = true;
+                postInvalidate();
+            }
+        }
+    };
     /**
-     * 刻度长指针宽度
+     * 只读：不响应触摸和无障碍的调整操作
      */
-    private float degreeLongWidth;
+    private boolean mReadOnly;
+
     /**
-     * 刻度短指针长度
+     * 实时时间：是否开启、指针颜色（未设置时用起始锚点颜色）、当前本小时内的秒数（-1为未知）
      */
-    private float degreeShortLength;
+    private boolean mLiveTimeEnabled;
+    private boolean mHasLiveTimeColor;
+    private int mLiveTimeColor;
+    private int mLiveSecond = -1;
     /**
-     * 刻度短指针宽度
+     * 实时时间：是否已附加到窗口、是否已注册到共用的秒钟节拍
      */
-    private float degreeShortWidth;
+    private boolean mAttached;
+    private boolean mLiveTimeRegistered;
+    private final LiveClockTicker.Listener mLiveTick = new LiveClockTicker.Listener() {
+        @Override
+        public void onTick(int secondOfHour) {
+            onLiveTick(secondOfHour);
+        }
+    };
     /**
-     * 刻度数字大小
+     * 实时时间：局部重绘的范围
      */
-    private float numberSize;
+    private final Rect mLiveDirty = new Rect();
+    private final Rect mLiveBounds = new Rect();
     /**
-     * 刻度数字颜色
+     * 细节层级，在测量时根据绘制区域的大小确定，见{@link DialPainter#detailFor(DialStyle, int)}
      */
-    private int numberColor;
-
-
+    private int mDetail = DialPainter.DETAIL_FULL;
     /**
-     * 圆环中心圆的半径
+     * 静态层缓存（表盘和时间段）：实时时间每秒只在其上重绘指针；细节较少的小表盘每次只绘制这一张位图。
+     *  以时间段的压缩值、起始位、外观和覆盖热度的版本号判断是否需要重建；布局或更换热度后失效
      */
-    private float mRingRadius;
+    private Bitmap mStaticLayer;
+    private Canvas mStaticLayerCanvas;
+    private boolean mStaticLayerValid;
+    private long mStaticLayerPacked, mStaticLayerStarts;
+    private DialStyle mStaticLayerStyle;
+    private int mStaticLayerHeatmapVersion;
     /**
-     * 锚点半径
+     * 增量变化监听
      */
-    private float mAnchorRadius;
-
+    private IOnSectionDeltaListener mDeltaListener;
     /**
-     * 圆环外圆的范围（= 外圆半径²）
+     * 上一次回调增量时的状态：压缩值、起始位，以及每个位置上时间段的ID（0为空）、起止分钟
      */
-    private float mOuterCircleRange;
+    private long mDeltaPacked, mDeltaStarts;
+    private int[] mDeltaIds, mDeltaStart, mDeltaEnd;
     /**
-     * 圆环内圆的范围（= 内圆半径²）
+     * 上一次回调增量之后的合并记录：mMergedIds[i]被合并到mMergeTargetIds[i]
      */
-    private float mInterCircleRange;
+    private int[] mMergedIds, mMergeTargetIds;
+    private int mMergeCount;
     /**
-     * 锚点圆范围（= 锚点半径²）
+     * 复用的增量对象，以及计算删除ID的缓冲
      */
-    private float mAnchorCircleRange;
-
+    private SectionDelta mDelta;
+    private int[] mRemovedIds;
 
     /**
-     * 圆环画笔
+     * 过渡动画时长（ms）
      */
-    private Paint mRingPaint;
+    private long mAnimationDuration = DEFAULT_ANIMATION_DURATION;
     /**
-     * 时间段圆环画笔
+     * 过渡动画：是否正在进行、开始时间、参与动画的时间段个数
      */
-    private Paint mSectionPaint;
+    private boolean mAnimating;
+    private long mAnimStartTime;
+    private int mAnimCount;
     /**
-     * 刻度画笔
+     * 过渡动画：绘制用的时间段，与数据{@link #mTimeSections}分开。首次动画时创建，之后一直复用
      */
-    private Paint mDegreePaint;
+    private TimeSection[] mAnimSections;
     /**
-     * 刻度数值画笔
+     * 过渡动画：角度缓冲区，每个时间段占{@link #ANIM_STRIDE}位
      */
-    private Paint mNumberPaint;
+    private float[] mAnimBuffer;
     /**
-     * 锚点画笔
+     * 过渡动画：排序用的起始、终止角度临时缓冲区
      */
-    private Paint mAnchorPaint;
+    private float[] mAnimFromStart, mAnimFromEnd, mAnimToStart, mAnimToEnd;
     /**
-     * 锚点文字画笔
+     * 过渡动画：每帧的回调
      */
-    private Paint mTextPaint;
+    private final Runnable mAnimFrame = new Runnable() {
+        @Override
+        public void run() {
+            stepAnimation();
+        }
+    };
 
     /**
-     * 时间段集合
+     * 撤销、重做的历史记录：环形缓冲区，每条记录占两个long（压缩值、起始位，见{@link SavedState}）
+     *  mHistoryHead：最早一条记录在环中的位置；mHistorySize：记录数；mHistoryCursor：当前状态是第几条记录
      */
-    private TimeSection[] mTimeSections;
+    private long[] mHistory;
+    private int mHistoryHead;
+    private int mHistorySize;
+    private int mHistoryCursor;
 
     /**
-     * 监听回调
+     * 无障碍辅助，第一次附加到窗口时创建，之前为null
      */
-    private IOnTimeChangedListener mListener;
+    private AccessHelper mAccessHelper;
+    private AccessibilityManager mAccessibilityManager;
 
     public RingTimeSelectView(Context context) {
         this(context, null);
@@ -273,11 +369,16 @@ public class RingTimeSelectView extends View {
         this(context, attrs, 0);
     }
 
+    /**
+     * 可以在后台线程中调用（如AsyncLayoutInflater）：只解析属性、分配时间段和历史记录，不访问主线程的状态。
+     *  无障碍辅助在第一次附加到窗口时创建，画笔在第一次布局时创建。
+     *  附加到窗口之前，可以在同一个线程中继续设置和测量；之后只能在主线程中使用
+     */
     public RingTimeSelectView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
 
         initAttrs(attrs, defStyleAttr);
-        initPaints();
+        resetHistory();
     }
 
     /**
@@ -290,52 +391,18 @@ public class RingTimeSelectView extends View {
         gravity = ta.getInt(R.styleable.RingTimeSelectView_rtv_gravity, GRAVITY_LEFT | GRAVITY_TOP);
         initialMinutes = ta.getInt(R.styleable.RingTimeSelectView_rtv_initialMinutes, 5);
 
-        ringWidth = ta.getDimension(R.styleable.RingTimeSelectView_rtv_ringWidth, dp2px(30));
-        ringBgColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_ringBgColor, Color.parseColor("#a7a7a7"));
-
         sectionSum = ta.getInt(R.styleable.RingTimeSelectView_rtv_sectionSum, 3);
         quickCutEnable = ta.getBoolean(R.styleable.RingTimeSelectView_rtv_quickCutEnable, false);
-        sectionColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_sectionColor, Color.parseColor("#148c75"));
-        sectionColor2 = ta.getColor(R.styleable.RingTimeSelectView_rtv_sectionColor2, -1);
-        sectionColor3 = ta.getColor(R.styleable.RingTimeSelectView_rtv_sectionColor3, -1);
-
-        anchorDiameter = ta.getDimension(R.styleable.RingTimeSelectView_rtv_anchorDiameter, dp2px(50));
-        anchorStrokeWidth = ta.getDimension(R.styleable.RingTimeSelectView_rtv_anchorStrokeWidth, dp2px(6));
-        anchorTextSize = ta.getDimension(R.styleable.RingTimeSelectView_rtv_anchorTextSize, sp2px(16));
-        anchorNeedMerge = ta.getBoolean(R.styleable.RingTimeSelectView_rtv_anchorNeedMerge, true);
-
-        anchorStartColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_anchorStartColor, Color.parseColor("#007ffe"));
-        anchorStartStrokeColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_anchorStartStrokeColor, Color.parseColor("#FFFFFF"));
-        anchorStartText = ta.getString(R.styleable.RingTimeSelectView_rtv_anchorStartText);
-        anchorStartTextColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_anchorStartTextColor, Color.parseColor("#FFFFFF"));
-
-        anchorEndColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_anchorEndColor, anchorStartColor);
-        anchorEndStrokeColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_anchorEndStrokeColor, anchorStartStrokeColor);
-        anchorEndText = ta.getString(R.styleable.RingTimeSelectView_rtv_anchorEndText);
-        anchorEndTextColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_anchorEndTextColor, anchorStartTextColor);
-
-        degreeColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_degreeColor, Color.parseColor("#888888"));
-        degreeLongLength = ta.getDimension(R.styleable.RingTimeSelectView_rtv_degreeLongLength, -1);
-        degreeLongWidth = ta.getDimension(R.styleable.RingTimeSelectView_rtv_degreeLongWidth, dp2px(2));
-        degreeShortLength = ta.getDimension(R.styleable.RingTimeSelectView_rtv_degreeShortLength, -1);
-        degreeShortWidth = ta.getDimension(R.styleable.RingTimeSelectView_rtv_degreeShortWidth, degreeLongWidth);
-
-        numberSize = ta.getDimension(R.styleable.RingTimeSelectView_rtv_numberSize, sp2px(14));
-        numberColor = ta.getColor(R.styleable.RingTimeSelectView_rtv_numberColor, Color.parseColor("#888888"));
+        lowLatencyDragEnable = ta.getBoolean(R.styleable.RingTimeSelectView_rtv_lowLatencyDrag, false);
+        historyDepth = ta.getInt(R.styleable.RingTimeSelectView_rtv_historyDepth, 20);
+        mStyle = DialStyle.obtain(getContext(), ta);
         ta.recycle();
 
         /*
         检验，并设置其他相关变量
          */
-        mAnchorRadius = anchorDiameter * .5f;
+        mAnchorRadius = mStyle.anchorDiameter * .5f;
         mAnchorCircleRange = mAnchorRadius * mAnchorRadius;
-        if (anchorStartText == null) {
-            anchorStartText = "ON";
-        }
-        if (anchorEndText == null) {
-            anchorEndText = "OFF";
-        }
-
 
         if (startMinute < -1 || startMinute > MAX_MINUTE) {
             throw new IllegalArgumentException("The value of startMinute should between 0 and 60");
@@ -350,6 +417,9 @@ public class RingTimeSelectView extends View {
         if (sectionSum < 1 || sectionSum >= MAX_MINUTE) {
             throw new IllegalArgumentException("The value of sectionSum must between 1 and 60");
         }
+        if (historyDepth < 0) {
+            throw new IllegalArgumentException("The value of historyDepth must not be negative");
+        }
 
         /*
          初始化属性中的时间段
@@ -361,7 +431,7 @@ public class RingTimeSelectView extends View {
             start.minute = startMinute;
             end.minute = endMinute;
 
-            TimeSection section = new TimeSection();
+            TimeSection section = newSection();
             section.start = start;
             section.end = end;
             mTimeSections[0] = section;
@@ -369,73 +439,14 @@ public class RingTimeSelectView extends View {
     }
 
     /**
-     * 初始化画笔，和与画笔相关的值
+     * 获取画笔，第一次调用时才创建画笔、文字尺寸等。
+     * 创建了但未显示的控件（如ViewPager中的其他页）不会布局，也就不会创建
      */
-    private void initPaints() {
-        // 圆环画笔
-        mRingPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mRingPaint.setAntiAlias(true);
-        mRingPaint.setColor(ringBgColor);
-        mRingPaint.setStyle(Paint.Style.STROKE);
-        mRingPaint.setStrokeWidth(ringWidth);
-
-        // 时间段的圆环画笔
-        mSectionPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mSectionPaint.setAntiAlias(true);
-        mSectionPaint.setStyle(Paint.Style.STROKE);
-        mSectionPaint.setStrokeWidth(ringWidth);
-        if (sectionColor2 != -1) {
-            // 扫描渲染着色器
-            Shader shader;
-            if (sectionColor3 != -1) {
-                shader = new SweepGradient(centerX, centerY, new int[]{sectionColor, sectionColor2, sectionColor3, sectionColor}, null);
-            } else {
-                shader = new SweepGradient(centerX, centerY, new int[]{sectionColor, sectionColor2, sectionColor}, null);
-            }
-            mSectionPaint.setShader(shader);
-        } else {
-            mSectionPaint.setColor(sectionColor);
-        }
-
-        // 刻度画笔
-        mDegreePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mDegreePaint.setAntiAlias(true);
-        mDegreePaint.setColor(degreeColor);
-        mDegreePaint.setStyle(Paint.Style.STROKE);
-
-        // 刻度数值画笔
-        mNumberPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mNumberPaint.setAntiAlias(true);
-        mNumberPaint.setColor(numberColor);
-        mNumberPaint.setStyle(Paint.Style.FILL);
-        mNumberPaint.setTextSize(numberSize);
-        Paint.FontMetricsInt fontMetrics = mNumberPaint.getFontMetricsInt();
-        numberHalfHeight = (fontMetrics.top - fontMetrics.bottom) * .5f - fontMetrics.top;
-
-        // 锚点画笔
-        mAnchorPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mAnchorPaint.setAntiAlias(true);
-        mAnchorPaint.setStyle(Paint.Style.FILL);
-
-        // 锚点文字画笔
-        mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        mTextPaint.setAntiAlias(true);
-        mTextPaint.setStyle(Paint.Style.FILL);
-        mTextPaint.setTextSize(anchorTextSize);
-
-        /*
-         锚点文字绘制起始点，相对于文字中心点的偏移量
-         中英文字符宽度不同，但高度一样
-          */
-        Rect bounds = new Rect();
-        mTextPaint.getTextBounds(anchorStartText, 0, anchorStartText.length(), bounds);
-        mStartTextOffsetX = bounds.width() * .5f;
-
-        mTextPaint.getTextBounds(anchorEndText, 0, anchorEndText.length(), bounds);
-        mEndTextOffsetX = bounds.width() * .5f;
-
-        fontMetrics = mTextPaint.getFontMetricsInt();
-        mTextOffsetY = (fontMetrics.top - fontMetrics.bottom) * .5f - fontMetrics.top;
+    private DialPainter obtainPainter() {
+        if (mPainter == null) {
+            mPainter = new DialPainter(mStyle);
+        }
+        return mPainter;
     }
 
     @Override
@@ -446,8 +457,10 @@ public class RingTimeSelectView extends View {
         int widthSize = MeasureSpec.getSize(widthMeasureSpec);
         int heightMode = MeasureSpec.getMode(heightMeasureSpec);
         int heightSize = MeasureSpec.getSize(heightMeasureSpec);
-        logD("onMeasure>>>width: mode=0x%X, size=%d; height: mode=0x%X, size=%d"
-                , widthMode, widthSize, heightMode, heightSize);
+        if (DEBUG) {
+            logD("onMeasure>>>width: mode=0x%X, size=%d; height: mode=0x%X, size=%d"
+                    , widthMode, widthSize, heightMode, heightSize);
+        }
 
         int paddingTop = getPaddingTop();
         int paddingBottom = getPaddingBottom();
@@ -459,8 +472,10 @@ public class RingTimeSelectView extends View {
             paddingStart = getPaddingLeft();
             paddingEnd = getPaddingRight();
         }
-        logD("onMeasure>>>paddingStart=%d, paddingEnd=%d, paddingTop=%d, paddingBottom=%d"
-                , paddingStart,  paddingEnd, paddingTop, paddingBottom);
+        if (DEBUG) {
+            logD("onMeasure>>>paddingStart=%d, paddingEnd=%d, paddingTop=%d, paddingBottom=%d"
+                    , paddingStart,  paddingEnd, paddingTop, paddingBottom);
+        }
 
         /*
         确定控件的具体宽和高
@@ -485,43 +500,42 @@ public class RingTimeSelectView extends View {
                 desireHeight = Math.min(desireHeight, heightSize);
             }
         }
-        logD("onMeasure>>>desireWidth=%d, desireHeight=%d", desireWidth, desireHeight);
+        if (DEBUG) {
+            logD("onMeasure>>>desireWidth=%d, desireHeight=%d", desireWidth, desireHeight);
+        }
         setMeasuredDimension(desireWidth, desireHeight);
 
         // 绘制区域（正方形）大小
         int size = Math.min(desireWidth - paddingStart - paddingEnd, desireHeight - paddingTop - paddingBottom);
-        logD("onMeasure>>>size=%d", size);
+        if (DEBUG) {
+            logD("onMeasure>>>size=%d", size);
+        }
 
         /*
         1. 确定圆环的半径
          */
         int halfSize = size >> 1;
-        mRingRadius = (size - Math.max(anchorDiameter, ringWidth)) * .5f;
-
-        /*
-        2. 确定刻度长、短指针的长度
-         */
-        if (degreeLongLength == -1) {
-            degreeLongLength = mRingRadius / 16;
-        }
-        if (degreeShortLength == -1) {
-            degreeShortLength = degreeLongLength * .5f;
-        }
+        mRingRadius = DialPainter.ringRadiusFor(mStyle, size);
+        mDetail = DialPainter.detailFor(mStyle, size);
 
         /*
-        3. 确定圆环的外圆与內圆的范围
+        2. 确定圆环的外圆与內圆的范围
          */
-        float ringHalfWidth = ringWidth * .5f;
+        float ringHalfWidth = mStyle.ringWidth * .5f;
         mOuterCircleRange = (float) Math.pow(mRingRadius + ringHalfWidth, 2);
         mInterCircleRange = (float) Math.pow(mRingRadius - ringHalfWidth, 2);
-        logD("onMeasure>>>isInBlankArea: mOuterCircleRange=" + mOuterCircleRange);
-        logD("onMeasure>>>isInBlankArea: mInterCircleRange=" + mInterCircleRange);
+        if (DEBUG) {
+            logD("onMeasure>>>isInBlankArea: mOuterCircleRange=" + mOuterCircleRange);
+            logD("onMeasure>>>isInBlankArea: mInterCircleRange=" + mInterCircleRange);
+        }
 
         /*
-        4. 根据重力，确定中心点的位置
+        3. 根据重力，确定中心点的位置
          */
         // 中心坐标x
-        logD("onMeasure>>>gravity=%X", gravity);
+        if (DEBUG) {
+            logD("onMeasure>>>gravity=%X", gravity);
+        }
         switch (gravity & GRAVITY_CENTER_HORIZONTAL) {
             case GRAVITY_LEFT:
             default:
@@ -548,124 +562,197 @@ public class RingTimeSelectView extends View {
                 break;
         }
 
-        addInitializeSections();
+        // 4. 刻度长度、圆弧矩形等与布局相关的绘制参数
+        obtainPainter().layout(centerX, centerY, mRingRadius, mDetail);
+        // 触摸范围与绘制的锚点一致：圆点锚点（DETAIL_MINIMAL）较小，不能挡住相邻的空白处
+        mAnchorRadius = mPainter.getAnchorRadius();
+        mAnchorCircleRange = mAnchorRadius * mAnchorRadius;
+        relayoutSections();
+        if (mDetail == DialPainter.DETAIL_FULL && !mLiveTimeEnabled) {
+            // 完整细节且没有实时时间时，不使用静态层
+            releaseStaticLayer();
+        } else {
+            mStaticLayerValid = false;
+        }
+        // 布局变化，无障碍节点的范围需重新计算
+        if (mAccessHelper != null) {
+            mAccessHelper.invalidateCache(isAccessibilityEnabled());
+        }
+    }
+
+
+    /**
+     * 根据新的中心点和半径，重新计算所有时间段锚点的角度、x、y值
+     *  布局之前设置或恢复的时间段，只有分钟值，在这里生成坐标
+     */
+    private void relayoutSections() {
+        for (TimeSection section : mTimeSections) {
+            if (section != null) {
+                updateAnchorByAngle(section.start, calcAngleByMinute(section.start.minute));
+                updateAnchorByAngle(section.end, calcAngleByMinute(section.end.minute));
+            }
+        }
     }
 
+    /**
+     * 创建时间段，并分配新的ID
+     */
+    private TimeSection newSection() {
+        TimeSection section = new TimeSection();
+        section.id = mNextSectionId++;
+        return section;
+    }
 
     /**
-     * 初始化时间段的x、y值等。使用前先调用{@link #clearTimeSections()}清除或直接设置{@link #setTimeSections(List)}
+     * 为设置的时间段创建对象：part带有本控件分配过的ID（来自{@link #getTimeSections()}），
+     * 且没有被mTimeSections中前count个时间段使用时保留该ID，否则分配新ID
      */
-    private void addInitializeSections() {
-        if (startMinute != -1 && endMinute != -1) {
-            mTimeSections[0] = createTimeSection(startMinute, endMinute);
+    private TimeSection newSection(TimePart part, int count) {
+        int id = part.id;
+        if (id <= 0 || id >= mNextSectionId) {
+            return newSection();
+        }
+        for (int i = 0; i < count; i++) {
+            if (mTimeSections[i].id == id) {
+                return newSection();
+            }
         }
+        TimeSection section = new TimeSection();
+        section.id = id;
+        return section;
     }
 
     private TimeSection createTimeSection(int startMinute, int endMinute) {
         if (startMinute < 0 || endMinute > MAX_MINUTE || startMinute >= endMinute) {
             return null;
         }
-        TimeSection section = new TimeSection();
+        TimeSection section = newSection();
         section.start = generateAnchorByMinute(startMinute);
         section.end = generateAnchorByMinute(endMinute);
 
-        Log.d(TAG, "createTimeSection: start.angle=" + section.start.angle
-                + ", start.x=" + section.start.x
-                + ", start.y=" + section.start.y);
-        Log.d(TAG, "createTimeSection: end.angle=" + section.end.angle
-                + ", end.x=" + section.end.x
-                + ", end.y=" + section.end.y);
+        if (DEBUG) {
+            Log.d(TAG, "createTimeSection: start.angle=" + section.start.angle
+                    + ", start.x=" + section.start.x
+                    + ", start.y=" + section.start.y);
+            Log.d(TAG, "createTimeSection: end.angle=" + section.end.angle
+                    + ", end.x=" + section.end.x
+                    + ", end.y=" + section.end.y);
+        }
 
         return section;
     }
 
 
+    private float centerX, centerY;
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (mPainter == null || !mPainter.isLaidOut()) {
+            return;
+        }
+        DialTrace.begin(DialTrace.DRAW);
+        drawContent(canvas);
+        DialTrace.end();
+    }
+
     /**
-     * 根据角度和cos，计算坐标x
-     *  sin² + cos² = 1
-     *
-     * @param angle     角度（0°~360°）
-     * @param cos       cos值
+     * 绘制表盘和时间段
      */
-    private float calcXByCos(double angle, double cos) {
-        if (angle < 180) {
-            return (float) (centerX + Math.sqrt(1 - cos * cos) * mRingRadius);
+    private void drawContent(Canvas canvas) {
+        // 覆盖热度有变化时，同步给画笔
+        mHeatmapInvalidatePosted = false;
+        if (mHeatmap != null && mHeatmap.getVersion() != mHeatmapVersion) {
+            mHeatmapVersion = mHeatmap.copyCounts(mHeatmapCounts);
+            mPainter.setHeatmap(mHeatmapCounts, mHeatmapColor);
+        }
+
+        boolean liveTime = mLiveTimeEnabled && mLiveSecond >= 0;
+        if (!liveTime && mDetail == DialPainter.DETAIL_FULL) {
+            drawDialAndSections(canvas);
+            return;
+        }
+        // 实时时间或小表盘：拖动和过渡动画中每帧都在变化，直接绘制；否则绘制缓存的静态层
+        if (mAnimating || mSelectedSectionIndex != -1) {
+            drawDialAndSections(canvas);
         } else {
-            return (float) (centerX - Math.sqrt(1 - cos * cos) * mRingRadius);
+            canvas.drawBitmap(obtainStaticLayer(), 0, 0, null);
+        }
+        if (!liveTime) {
+            return;
         }
+        int minute = mLiveSecond / 60;
+        boolean inSection = (getPackedTimeSections() >>> minute & 1) != 0;
+        mPainter.drawLiveTime(canvas, mLiveSecond, inSection
+                , mHasLiveTimeColor ? mLiveTimeColor : mStyle.anchorStartColor);
     }
 
     /**
-     * 根据角度和cos，计算坐标y
-     * @param cos       cos值
+     * 获取静态层，时间段、外观或覆盖热度变化后重建
      */
-    private float calcYByCos(double cos) {
-        return centerY + mRingRadius * (float) cos;
+    private Bitmap obtainStaticLayer() {
+        int width = getWidth();
+        int height = getHeight();
+        if (mStaticLayer == null || mStaticLayer.getWidth() != width || mStaticLayer.getHeight() != height) {
+            releaseStaticLayer();
+            mStaticLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            mStaticLayerCanvas = new Canvas(mStaticLayer);
+        }
+        long packed = getPackedTimeSections();
+        long starts = getPackedStarts();
+        if (!mStaticLayerValid || packed != mStaticLayerPacked || starts != mStaticLayerStarts
+                || mStyle != mStaticLayerStyle || mHeatmapVersion != mStaticLayerHeatmapVersion) {
+            mStaticLayer.eraseColor(Color.TRANSPARENT);
+            drawDialAndSections(mStaticLayerCanvas);
+            mStaticLayerPacked = packed;
+            mStaticLayerStarts = starts;
+            mStaticLayerStyle = mStyle;
+            mStaticLayerHeatmapVersion = mHeatmapVersion;
+            mStaticLayerValid = true;
+        }
+        return mStaticLayer;
     }
 
-    private RectF mSectionRectF;
-    private float centerX, centerY;
-    private float mStartTextOffsetX, mEndTextOffsetX, mTextOffsetY;
-    private float numberHalfHeight;
-
-    @Override
-    protected void onDraw(Canvas canvas) {
-        super.onDraw(canvas);
-        if (mSectionRectF == null) {
-            // 已选圆环弧的矩形
-            mSectionRectF = new RectF(centerX - mRingRadius, centerY - mRingRadius, centerX + mRingRadius, centerY + mRingRadius);
-        }
-
-        // 1. 绘制背景圆环
-        canvas.drawCircle(centerX, centerY, mRingRadius, mRingPaint);
-
-        // 2. 分针刻度
-        float startY = centerY - mRingRadius + ringWidth * .5f;
-        float shortStopY = startY + degreeShortLength;
-        float longStopY = startY + degreeLongLength;
-        for (int i = 0; i < MAX_MINUTE; i++) {
-            if (i % 5 == 0) {
-                // 长针
-                mDegreePaint.setStrokeWidth(degreeLongWidth);
-                canvas.drawLine(centerX, startY, centerX, longStopY, mDegreePaint);
-            } else {
-                // 短针
-                mDegreePaint.setStrokeWidth(degreeShortWidth);
-                canvas.drawLine(centerX, startY, centerX, shortStopY, mDegreePaint);
-            }
-            canvas.rotate(6, centerX, centerY);
+    private void releaseStaticLayer() {
+        if (mStaticLayer != null) {
+            mStaticLayer.recycle();
+            mStaticLayer = null;
+            mStaticLayerCanvas = null;
         }
+        mStaticLayerValid = false;
+    }
 
-        // 3. 数字
-        float oneNumberWidth = mNumberPaint.measureText("0");
-        float numberCenterX = centerX;
-        // 理论上，若数字贴着长刻度，应该是numberSize/2。但使用numberSize，为了增加numberSize/2的间距
-        float numberCenterY = longStopY + numberSize;
-        float numberRadius = centerY - numberCenterY;
-
-        for (int i = 0; i < 12; i++) {
-            float x = (float) (numberCenterX + Math.sin(Math.PI / 6 * i) * numberRadius);
-            float y = (float) (numberCenterY + numberRadius - Math.cos(Math.PI / 6 * i) * numberRadius);
-            x = x - oneNumberWidth;
-            y = y + numberHalfHeight;
-            int num = i * 5;
-            String text = num < 10 ? "0" + num : String.valueOf(num);
-            canvas.drawText(text, x, y, mNumberPaint);
-        }
+    /**
+     * 绘制表盘和时间段
+     */
+    private void drawDialAndSections(Canvas canvas) {
+        // 1~3. 背景圆环、覆盖热度色带、分针刻度、数字
+        mPainter.drawDial(canvas);
 
         // 4. 绘制已选圆环弧
+        if (mAnimating) {
+            // 过渡动画中：绘制插值后的时间段
+            for (int i = 0; i < mAnimCount; i++) {
+                drawSection(canvas, mAnimSections[i], false);
+            }
+            return;
+        }
         // 把正在滑动选择的时间段，放置在最上面绘制
         for (int i=0; i< mTimeSections.length; i++) {
             TimeSection section = mTimeSections[i];
             if (section == null || i == mSelectedSectionIndex) {
-                Log.d(TAG, String.format("onDraw: will continue, i=%d, mSelectedSectionIndex=%d", i, mSelectedSectionIndex));
+                if (DEBUG) {
+                    Log.d(TAG, String.format("onDraw: will continue, i=%d, mSelectedSectionIndex=%d", i, mSelectedSectionIndex));
+                }
                 continue;
             }
 
-            Log.d(TAG, String.format("onDraw: Section_%d, start: minute=%d, angle=%f, x=%f, y=%f"
-                    , i, section.start.minute, section.start.angle, section.start.x, section.start.y));
-            Log.d(TAG, String.format("onDraw: Section_%d, end: minute=%d, angle=%f, x=%f, y=%f"
-                    , i, section.end.minute, section.end.angle, section.end.x, section.end.y));
+            if (DEBUG) {
+                Log.d(TAG, String.format("onDraw: Section_%d, start: minute=%d, angle=%f, x=%f, y=%f"
+                        , i, section.start.minute, section.start.angle, section.start.x, section.start.y));
+                Log.d(TAG, String.format("onDraw: Section_%d, end: minute=%d, angle=%f, x=%f, y=%f"
+                        , i, section.end.minute, section.end.angle, section.end.x, section.end.y));
+            }
 
             drawSection(canvas, section, false);
         }
@@ -673,10 +760,18 @@ public class RingTimeSelectView extends View {
         // 5. 绘制正在滑动移动的时间段
         if (mSelectedSectionIndex != -1 && mTimeSections[mSelectedSectionIndex] != null) {
             TimeSection section = mTimeSections[mSelectedSectionIndex];
-            Log.d(TAG, String.format("onDraw: Changing Section, start: minute=%d, angle=%f, x=%f, y=%f"
-                    , section.start.minute, section.start.angle, section.start.x, section.start.y));
-            Log.d(TAG, String.format("onDraw: Changing Section, end: minute=%d, angle=%f, x=%f, y=%f"
-                    , section.end.minute, section.end.angle, section.end.x, section.end.y));
+            if (DEBUG) {
+                Log.d(TAG, String.format("onDraw: Changing Section, start: minute=%d, angle=%f, x=%f, y=%f"
+                        , section.start.minute, section.start.angle, section.start.x, section.start.y));
+                Log.d(TAG, String.format("onDraw: Changing Section, end: minute=%d, angle=%f, x=%f, y=%f"
+                        , section.end.minute, section.end.angle, section.end.x, section.end.y));
+            }
+            if (mHasPrediction) {
+                // 低延迟拖动：用预测的锚点替换正在拖动的锚点
+                mPredictedSection.start = mIsStartAnchor ? mPredictedAnchor : section.start;
+                mPredictedSection.end = mIsStartAnchor ? section.end : mPredictedAnchor;
+                section = mPredictedSection;
+            }
             drawSection(canvas, section, true);
         }
     }
@@ -690,120 +785,7 @@ public class RingTimeSelectView extends View {
      * @param isSelectedSection     是否正在滑动的时间段
      */
     private void drawSection(Canvas canvas, TimeSection section, boolean isSelectedSection) {
-        // 只有不相等的情况下才绘制圆弧。否则会把圆弧绘制成一个整圆
-        if (section.start.minute != section.end.minute) {
-            float begin; //圆弧的起点位置
-            float stop;
-            if (section.start.angle > 180 && section.start.angle > section.end.angle) {
-                //180  -- 360
-                begin = (float) (-Math.abs(section.start.angle - 360) - 90);
-                stop = (float) Math.abs(Math.abs(section.start.angle - 360) + section.end.angle);
-                logD("begin=%f", begin);
-                logD("stop=%f", stop);
-            } else if (section.start.angle > section.end.angle) {
-                begin = (float) section.start.angle - 90;
-                stop = (float) (360 - (section.start.angle - section.end.angle));
-            } else {
-                begin = (float) section.start.angle - 90;
-                stop = (float) Math.abs(section.start.angle - section.end.angle);
-            }
-            canvas.drawArc(mSectionRectF, begin, stop, false, mSectionPaint);
-        }
-
-        //画起始、终止锚点圆
-        if (anchorNeedMerge && section.start.minute == MIN_MINUTE && section.end.minute == MAX_MINUTE) {
-            drawMergeAnchor(canvas, section.start.x, section.start.y);
-        } else {
-            if (isSelectedSection && mIsStartAnchor) {
-                drawEndAnchor(canvas, section.end);
-                drawStartAnchor(canvas, section.start);
-            } else {
-                drawStartAnchor(canvas, section.start);
-                drawEndAnchor(canvas, section.end);
-            }
-        }
-    }
-
-    /**
-     * 绘制合并的锚点
-     *  边框和背景都使用起始锚点的颜色
-     *  字体都缩小一定比例，起始文字在居中上，终止文字在居中下
-     *
-     * @param canvas    画板
-     * @param anchorX   锚点坐标X
-     * @param anchorY   锚点坐标Y
-     */
-    private void drawMergeAnchor(Canvas canvas, float anchorX, float anchorY) {
-        // 锚点边框的背景
-        if (anchorStrokeWidth != 0) {
-            mAnchorPaint.setColor(anchorStartStrokeColor);
-            canvas.drawCircle(anchorX, anchorY, mAnchorRadius, mAnchorPaint);
-        }
-
-        // 锚点背景
-        mAnchorPaint.setColor(anchorStartColor);
-        canvas.drawCircle(anchorX, anchorY, mAnchorRadius - anchorStrokeWidth, mAnchorPaint);
-
-        /*
-        绘制文字
-        字体缩小到原来的70%
-         */
-        final float scale = .7f;
-        mTextPaint.setTextSize(anchorTextSize * scale);
-        float offsetY = (mAnchorRadius - 2 * mTextOffsetY * scale) * .5f;
-
-        // 锚点起始文字
-        float x = anchorX - mStartTextOffsetX * scale;
-        float y = anchorY - offsetY;
-        mTextPaint.setColor(anchorStartTextColor);
-        canvas.drawText(anchorStartText, x, y, mTextPaint);
-
-        // 锚点终止文字
-        x = anchorX - mEndTextOffsetX * scale;
-        y = anchorY + offsetY + mTextOffsetY;
-        mTextPaint.setColor(anchorEndTextColor);
-        canvas.drawText(anchorEndText, x, y, mTextPaint);
-
-        // 还原字体大小
-        mTextPaint.setTextSize(anchorTextSize);
-    }
-
-    private void drawStartAnchor(Canvas canvas, TimeSection.TimeAnchor anchor) {
-        drawAnchor(canvas, anchor, anchorStartStrokeColor, anchorStartColor, anchorStartText, mStartTextOffsetX, anchorStartTextColor);
-    }
-
-    private void drawEndAnchor(Canvas canvas, TimeSection.TimeAnchor anchor) {
-        drawAnchor(canvas, anchor, anchorEndStrokeColor, anchorEndColor, anchorEndText, mEndTextOffsetX, anchorEndTextColor);
-    }
-
-    /**
-     * 绘制锚点
-     *
-     * @param canvas        画板
-     * @param anchor        锚点
-     * @param strokeColor   边框颜色
-     * @param bgColor       背景色
-     * @param text          文字
-     * @param offsetX       文字的X方向偏移量（中心点相对于起始点的偏移量=Xcenter - Xstart）
-     * @param textColor     文字颜色
-     */
-    private void drawAnchor(Canvas canvas, TimeSection.TimeAnchor anchor
-            , int strokeColor, int bgColor, String text,float offsetX, int textColor) {
-        // 锚点边框
-        if (anchorStrokeWidth != 0) {
-            mAnchorPaint.setColor(strokeColor);
-            canvas.drawCircle(anchor.x, anchor.y, mAnchorRadius, mAnchorPaint);
-        }
-
-        // 锚点背景
-        mAnchorPaint.setColor(bgColor);
-        canvas.drawCircle(anchor.x, anchor.y, mAnchorRadius - anchorStrokeWidth, mAnchorPaint);
-
-        // 锚点文字
-        float x = anchor.x - offsetX;
-        float y = anchor.y + mTextOffsetY;
-        mTextPaint.setColor(textColor);
-        canvas.drawText(text, x, y, mTextPaint);
+        mPainter.drawSection(canvas, section, isSelectedSection && mIsStartAnchor);
     }
 
     private int mDownStartMinute, mDownEndMinute;
@@ -813,8 +795,10 @@ public class RingTimeSelectView extends View {
      */
     private boolean isInRingArea(float x, float y) {
         float circlePoint = (float) (Math.pow(x - centerX, 2) + Math.pow(y - centerY, 2));
-        Log.d(TAG, "isInBlankArea: x=" + x + ", y=" + y);
-        Log.d(TAG, "isInBlankArea: circlePoint=" + circlePoint);
+        if (DEBUG) {
+            Log.d(TAG, "isInBlankArea: x=" + x + ", y=" + y);
+            Log.d(TAG, "isInBlankArea: circlePoint=" + circlePoint);
+        }
 
         // 判断是否在圆环内
         return circlePoint <= mOuterCircleRange && circlePoint >= mInterCircleRange;
@@ -829,13 +813,22 @@ public class RingTimeSelectView extends View {
     private boolean isInBlankArea(float x, float y) {
         mDownStartMinute = getMinuteByPoint(x, y);
         mDownEndMinute = mDownStartMinute + initialMinutes;
-        Log.d(TAG, "isInBlankArea: mDownStartMinute=" + mDownStartMinute + ", mDownEndMinute=" + mDownEndMinute);
+        if (mConstraints != null) {
+            mDownStartMinute = mConstraints.snap(mDownStartMinute);
+            // 时长为0时起止相同，不能添加
+            mDownEndMinute = mDownStartMinute + mConstraints.insertLength(initialMinutes);
+        }
+        if (DEBUG) {
+            Log.d(TAG, "isInBlankArea: mDownStartMinute=" + mDownStartMinute + ", mDownEndMinute=" + mDownEndMinute);
+        }
 
         for (TimeSection section : mTimeSections) {
             if (section != null){
                 if (isBetween(mDownStartMinute, section.start.minute, section.end.minute)
                         || isBetween(mDownEndMinute, section.start.minute, section.end.minute)) {
-                    Log.d(TAG, "isInBlankArea: the point is in other section");
+                    if (DEBUG) {
+                        Log.d(TAG, "isInBlankArea: the point is in other section");
+                    }
                     return false;
                 }
             }
@@ -881,18 +874,81 @@ public class RingTimeSelectView extends View {
     private boolean mIsStartAnchor;
     private TimeSection.TimeAnchor mNewAnchor;
 
+    /**
+     * 约束，null为无约束
+     */
+    private SectionConstraints mConstraints;
+    /**
+     * 约束：按下锚点时计算的可移动范围[mDragLower, mDragUpper]
+     */
+    private int mDragLower, mDragUpper;
+
+    /**
+     * 低延迟拖动：上一个触摸样本的角度（已展开，可超出0°~360°）和时间
+     */
+    private double mLastDragAngle;
+    private long mLastDragTime;
+    /**
+     * 低延迟拖动：平滑后的角速度（°/ms）
+     */
+    private double mDragVelocity;
+    /**
+     * 低延迟拖动：是否有预测的锚点需要绘制
+     */
+    private boolean mHasPrediction;
+    /**
+     * 低延迟拖动：预测的锚点，和绘制时用来替换的时间段。复用，不在拖动中创建对象
+     */
+    private final TimeSection.TimeAnchor mPredictedAnchor = new TimeSection.TimeAnchor();
+    private final TimeSection mPredictedSection = new TimeSection();
+
+    /**
+     * 指标统计，null为不统计
+     */
+    private IMetricsSink mMetricsSink;
+    /**
+     * 指标：等待绘制的最早一个输入事件的时间（ms，uptime），-1为没有
+     */
+    private long mPendingInputTime = -1;
+    /**
+     * 指标：本次拖动手势中被拒绝的移动次数
+     */
+    private int mRejectedMoves;
+    /**
+     * 指标：输入引起的变化所在帧开始时，计算触摸到帧的延迟
+     */
+    private final Choreographer.FrameCallback mLatencyFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mMetricsSink != null && mPendingInputTime >= 0) {
+                mMetricsSink.onTouchToFrameLatency(frameTimeNanos - mPendingInputTime * 1000000L);
+            }
+            mPendingInputTime = -1;
+        }
+    };
+
+
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        if (mReadOnly) {
+            return super.onTouchEvent(event);
+        }
         float x = event.getX();
         float y = event.getY();
 
         boolean needRefresh = false;
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
+                // 过渡动画中，直接结束，触摸判断以最终的时间段为准
+                finishAnimation();
                 mDownStartMinute = mDownEndMinute = -1;
+                DialTrace.begin(DialTrace.DOWN_HIT_TEST);
                 int selectIndex = findAnchorIndexByLocation(x, y);
-                Log.d(TAG, "onTouchEvent: selectIndex=" + selectIndex);
+                DialTrace.end();
+                if (DEBUG) {
+                    Log.d(TAG, "onTouchEvent: selectIndex=" + selectIndex);
+                }
                 if (selectIndex == -1) {
                     if (isInRingArea(x, y)) {
                         /*
@@ -907,6 +963,11 @@ public class RingTimeSelectView extends View {
                             if (mDownEndMinute > MAX_MINUTE) {
                                 return super.onTouchEvent(event);
                             }
+                            // 是否满足约束
+                            if (mConstraints != null && (mDownEndMinute == mDownStartMinute
+                                    || !mConstraints.allows(mDownStartMinute, mDownEndMinute, getOtherSectionsMask(-1)))) {
+                                return super.onTouchEvent(event);
+                            }
                             // 检查是否还可以添加：还没达到最大数量
                             int addIndex = -1;
                             for (int i = 0; i < mTimeSections.length; i++) {
@@ -916,22 +977,38 @@ public class RingTimeSelectView extends View {
                                 }
                             }
                             if(addIndex != -1) {
-                                Log.d(TAG, "onTouchEvent: create a section with index is " + addIndex);
+                                if (DEBUG) {
+                                    Log.d(TAG, "onTouchEvent: create a section with index is " + addIndex);
+                                }
+                                DialTrace.begin(DialTrace.INSERT);
                                 mTimeSections[addIndex] = createTimeSection(mDownStartMinute, mDownEndMinute);
                                 // 刷新并回调
                                 refresh();
+                                commitHistory();
+                                DialTrace.end();
+                                markInputForFrame(event);
                                 if (mListener != null) {
-                                    TimePart part = new TimePart();
-                                    part.start = mTimeSections[addIndex].start.minute;
-                                    part.end = mTimeSections[addIndex].end.minute;
-                                    mListener.onInsert(part);
+                                    TimeSection added = mTimeSections[addIndex];
+                                    mListener.onInsert(new TimePart(added.id, added.start.minute, added.end.minute));
                                 }
                             }
                         } else if (quickCutEnable) {
                             // 快速截取
                             int index = findSectionByMinute(mDownStartMinute);
+                            if (index == -1) {
+                                // 只有新时间段的终止分钟落在已有时间段上
+                                return super.onTouchEvent(event);
+                            }
+                            if (mConstraints != null && !mConstraints.allows(mTimeSections[index].start.minute
+                                    , mDownStartMinute, getOtherSectionsMask(index))) {
+                                return super.onTouchEvent(event);
+                            }
+                            DialTrace.begin(DialTrace.QUICK_CUT);
                             mTimeSections[index].end = generateAnchorByMinute(mDownStartMinute);
                             refresh();
+                            commitHistory();
+                            DialTrace.end();
+                            markInputForFrame(event);
                         }
                     }
                     return super.onTouchEvent(event);
@@ -941,15 +1018,30 @@ public class RingTimeSelectView extends View {
                 mSelectedSectionIndex = selectIndex >> 1;
                 mIsStartAnchor = (selectIndex & 0x01) == 0;
                 if (mIsStartAnchor) {
-                    Log.d(TAG, "onTouchEvent: selected point is start of TimeSection_" + mSelectedSectionIndex);
+                    if (DEBUG) {
+                        Log.d(TAG, "onTouchEvent: selected point is start of TimeSection_" + mSelectedSectionIndex);
+                    }
                 } else {
-                    Log.d(TAG, "onTouchEvent: selected point is end of TimeSection_" + mSelectedSectionIndex);
+                    if (DEBUG) {
+                        Log.d(TAG, "onTouchEvent: selected point is end of TimeSection_" + mSelectedSectionIndex);
+                    }
                 }
                 mNewAnchor = new TimeSection.TimeAnchor();
 
+                TimeSection.TimeAnchor selectedAnchor = mIsStartAnchor ? mTimeSections[mSelectedSectionIndex].start : mTimeSections[mSelectedSectionIndex].end;
+                if (mConstraints != null) {
+                    computeDragBounds();
+                }
+                mRejectedMoves = 0;
+                if (lowLatencyDragEnable) {
+                    requestUnbufferedDispatchCompat(event);
+                    mLastDragAngle = calcAngleByPoint(x, y);
+                    mLastDragTime = event.getEventTime();
+                    mDragVelocity = 0;
+                    mHasPrediction = false;
+                }
                 if (mListener != null) {
-                    TimeSection.TimeAnchor anchor = mIsStartAnchor ? mTimeSections[mSelectedSectionIndex].start : mTimeSections[mSelectedSectionIndex].end;
-                    mListener.onSelectStart(anchor.minute);
+                    mListener.onSelectStart(selectedAnchor.minute);
                 }
                 postInvalidate();
                 return true;
@@ -958,64 +1050,93 @@ public class RingTimeSelectView extends View {
                     return super.onTouchEvent(event);
                 }
 
-                //通过触摸点算出cos角度值
-                double cos = calculateCos(x, y);
-                // 通过反三角函数获得角度值
-                double angle;   //获取滑动的角度
-                if (x < centerX) {
-                    // 超过180°
-                    angle = Math.PI * RADIAN + Math.acos(cos) * RADIAN;
-                } else {
-                    // 没有超过180°
-                    angle = Math.PI * RADIAN - Math.acos(cos) * RADIAN;
-                }
+                DialTrace.begin(DialTrace.MOVE_QUANTIZE);
+                double angle = calcAngleByPoint(x, y);
 
                 int minute = calcMinuteByAngle(angle);
                 int oldMinute = mNewAnchor.minute;
+                if (mConstraints != null && mTimeSections[mSelectedSectionIndex] != null) {
+                    minute = constrainDragMinute(minute);
+                }
 
                 /*
                  矫正angle、x、y：重新根据minute，反计算，防止由x、y计算出的minute相同，angle却不同的误差
+                 原地更新，拖动中不创建对象
                   */
-                mNewAnchor = generateAnchorByMinute(minute);
+                updateAnchorByAngle(mNewAnchor, calcAngleByMinute(minute));
+                DialTrace.end();
 
                 // 改变数据
-                logD("onTouchEvent: ACTION_MOVE >>> selected point is %s of TimeSection_%d", mIsStartAnchor ? "start" : "end", mSelectedSectionIndex);
-                logD("onTouchEvent: ACTION_MOVE >>> minute=%d, oldMinute=%d", minute, oldMinute);
+                if (DEBUG) {
+                    logD("onTouchEvent: ACTION_MOVE >>> selected point is %s of TimeSection_%d", mIsStartAnchor ? "start" : "end", mSelectedSectionIndex);
+                    logD("onTouchEvent: ACTION_MOVE >>> minute=%d, oldMinute=%d", minute, oldMinute);
+                }
                 if (minute != oldMinute && mTimeSections[mSelectedSectionIndex] != null) {
-                    Log.d(TAG, "onTouchEvent: ACTION_MOVE >>> ready to set");
+                    if (DEBUG) {
+                        Log.d(TAG, "onTouchEvent: ACTION_MOVE >>> ready to set");
+                    }
                     if (mIsStartAnchor) {
                         // 确保在正常范围内
                         boolean inRange = minute >= 0 && minute <= mTimeSections[mSelectedSectionIndex].end.minute;
                         // 确保连续，不出现跳跃的情况。如：0~30， 0逆时针滑到30，就会跳跃过去
-                        inRange &= Math.abs(minute - mTimeSections[mSelectedSectionIndex].start.minute) <= SMOOTH_RANGE_VALUE;
+                        inRange &= Math.abs(minute - mTimeSections[mSelectedSectionIndex].start.minute) <= getSmoothRange();
                         if (inRange) {
                             mTimeSections[mSelectedSectionIndex].start.copyFrom(mNewAnchor);
                             needRefresh = true;
                         }
                     } else if (minute <= MAX_MINUTE && minute >= mTimeSections[mSelectedSectionIndex].start.minute){
-                        if (Math.abs(minute - mTimeSections[mSelectedSectionIndex].end.minute) <= SMOOTH_RANGE_VALUE) {
+                        if (Math.abs(minute - mTimeSections[mSelectedSectionIndex].end.minute) <= getSmoothRange()) {
                             mTimeSections[mSelectedSectionIndex].end.copyFrom(mNewAnchor);
                             needRefresh = true;
                         }
                     }
+                    if (!needRefresh) {
+                        // 越界、跳跃或约束导致的拒绝
+                        mRejectedMoves++;
+                    }
+                }
+
+                // 低延迟拖动：根据角速度预测锚点位置。整分钟未变化时，也需要重绘预测的锚点
+                if (lowLatencyDragEnable && mTimeSections[mSelectedSectionIndex] != null) {
+                    updateDragPrediction(event);
+                    if (!needRefresh) {
+                        postInvalidate();
+                    }
                 }
 
                 // 进度改变回调
                 if (needRefresh) {
-                    logD("onTouchEvent: ACTION_MOVE >>> refresh...");
+                    if (DEBUG) {
+                        logD("onTouchEvent: ACTION_MOVE >>> refresh...");
+                    }
+                    DialTrace.begin(DialTrace.MOVE_COMMIT);
                     refresh();
                     if (mListener != null) {
                         mListener.onSelectChanged(minute);
                     }
+                    DialTrace.end();
+                    markInputForFrame(event);
                 }
                 return true;
 
             case MotionEvent.ACTION_UP:
-                logD("onTouchEvent: ACTION_UP ---------- mSelectedSectionIndex=%d, mNewAnchor is null: %b"
-                        , mSelectedSectionIndex, mNewAnchor == null);
+            // 取消（如父控件拦截、RingTimeSurfaceView的Surface销毁）与抬起相同：结束拖动，删除长度为0的、合并交叉的时间段
+            case MotionEvent.ACTION_CANCEL:
+                if (DEBUG) {
+                    logD("onTouchEvent: ACTION_UP ---------- mSelectedSectionIndex=%d, mNewAnchor is null: %b"
+                            , mSelectedSectionIndex, mNewAnchor == null);
+                }
                 if (mNewAnchor == null) {
                     return super.onTouchEvent(event);
                 }
+                // 低延迟拖动：抬起时，锚点回到已量化的整分钟位置
+                if (mHasPrediction) {
+                    mHasPrediction = false;
+                    postInvalidate();
+                }
+                if (mMetricsSink != null) {
+                    mMetricsSink.onGestureFinished(mRejectedMoves);
+                }
                 /*
                 新时间点的逻辑处理：
                 1、与本时间段的另一时间比较：
@@ -1024,11 +1145,15 @@ public class RingTimeSelectView extends View {
                  */
                 TimeSection moveSection = mTimeSections[mSelectedSectionIndex];
                 if (moveSection != null) {
-                    logD("onTouchEvent: ACTION_UP >>> minutes: mNewAnchor=%d, start=%d, end=%d"
-                            , mNewAnchor.minute, mTimeSections[mSelectedSectionIndex].start.minute, mTimeSections[mSelectedSectionIndex].end.minute);
+                    if (DEBUG) {
+                        logD("onTouchEvent: ACTION_UP >>> minutes: mNewAnchor=%d, start=%d, end=%d"
+                                , mNewAnchor.minute, mTimeSections[mSelectedSectionIndex].start.minute, mTimeSections[mSelectedSectionIndex].end.minute);
+                    }
                     if (moveSection.start.minute == moveSection.end.minute) {
                         // 1.1 删除
-                        Log.d(TAG, "onTouchEvent: ACTION_UP >>> will delete....");
+                        if (DEBUG) {
+                            Log.d(TAG, "onTouchEvent: ACTION_UP >>> will delete....");
+                        }
                         mTimeSections[mSelectedSectionIndex] = null;
                         mNewAnchor = null;
                         mSelectedSectionIndex = -1;
@@ -1039,36 +1164,13 @@ public class RingTimeSelectView extends View {
                 }
 
                 // 2 合并
-                for (int i = 0, len = mTimeSections.length; i < len - 1; i++) {
-                    TimeSection first = mTimeSections[i];
-                    if (first == null) {
-                        continue;
-                    }
-                    for (int j = i + 1; j < len; j++) {
-                        TimeSection second = mTimeSections[j];
-                        if (second == null) {
-                            continue;
-                        }
-                        // 交叉，或包含
-                        logD("onTouchEvent: compare %d[%d, %d] and %d[%d, %d]"
-                                , i, first.start.minute, first.end.minute, j, second.start.minute, second.end.minute);
-                        boolean isCross = !((first.start.minute < second.start.minute && first.end.minute < second.start.minute)
-                                || (first.start.minute > second.end.minute && first.end.minute > second.end.minute));
-                        if (isCross) {
-                            logD("onTouchEvent ACTION_UP >>> : will combine %d and %d", i, j);
-                            needRefresh = true;
-                            if (second.start.minute < first.start.minute) {
-                                first.start = second.start;
-                            }
-                            if (second.end.minute > first.end.minute) {
-                                first.end = second.end;
-                            }
-                            mTimeSections[j] = null;
-                            // 需要重新检查一遍
-                            j = i;
-                        }
-                    }
+                DialTrace.begin(DialTrace.UP_MERGE);
+                long mergeBegin = mMetricsSink != null ? System.nanoTime() : 0;
+                needRefresh = mergeCrossSections();
+                if (mMetricsSink != null) {
+                    mMetricsSink.onMergeDuration(System.nanoTime() - mergeBegin);
                 }
+                DialTrace.end();
 
                 // 数据复位
                 mNewAnchor = null;
@@ -1077,6 +1179,7 @@ public class RingTimeSelectView extends View {
                     refreshOnActionUp();
                     return true;
                 }
+                commitHistory();
                 if (mListener != null) {
                     mListener.onSelectFinished();
                 }
@@ -1087,8 +1190,199 @@ public class RingTimeSelectView extends View {
         return super.onTouchEvent(event);
     }
 
-    private void refreshOnActionUp() {
-        refresh();
+    /**
+     * 拖动时允许的最大跳跃分钟数：吸附步长大于{@link #SMOOTH_RANGE_VALUE}时，至少要能跳一个步长
+     */
+    private int getSmoothRange() {
+        return mConstraints == null ? SMOOTH_RANGE_VALUE : Math.max(SMOOTH_RANGE_VALUE, mConstraints.getSnapStep());
+    }
+
+    /**
+     * 除指定时间段外，其他时间段的压缩值
+     * @param exceptIndex   排除的时间段索引；-1：不排除
+     */
+    private long getOtherSectionsMask(int exceptIndex) {
+        long mask = PackedSchedule.EMPTY;
+        for (int i = 0; i < sectionSum; i++) {
+            TimeSection section = mTimeSections[i];
+            if (section != null && i != exceptIndex) {
+                mask |= PackedSchedule.rangeMask(section.start.minute, section.end.minute);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * 约束：按下锚点时，根据另一锚点和其他时间段计算可移动的范围。当前位置始终在范围内，避免已有时间段跳变
+     */
+    private void computeDragBounds() {
+        TimeSection section = mTimeSections[mSelectedSectionIndex];
+        long otherMask = getOtherSectionsMask(mSelectedSectionIndex);
+        if (mIsStartAnchor) {
+            mDragLower = Math.min(mConstraints.lowerBound(section.end.minute, otherMask), section.start.minute);
+            mDragUpper = section.end.minute;
+        } else {
+            mDragLower = section.start.minute;
+            mDragUpper = Math.max(mConstraints.upperBound(section.start.minute, otherMask), section.end.minute);
+        }
+    }
+
+    /**
+     * 约束：吸附并截取拖动的分钟。时长在(0, 最短时长)之间时保持不动；时长为0表示删除，允许
+     *  只有常数次运算，不创建对象
+     */
+    private int constrainDragMinute(int minute) {
+        TimeSection section = mTimeSections[mSelectedSectionIndex];
+        minute = Math.max(mDragLower, Math.min(mDragUpper, mConstraints.snap(minute)));
+        int length = mIsStartAnchor ? section.end.minute - minute : minute - section.start.minute;
+        if (length > 0 && length < mConstraints.getMinLength()) {
+            return mIsStartAnchor ? section.start.minute : section.end.minute;
+        }
+        return minute;
+    }
+
+    /**
+     * 指标：记录引起变化的输入事件，在下一帧开始时计算触摸到帧的延迟
+     *  同一帧内有多个输入时，以最早的为准
+     */
+    private void markInputForFrame(MotionEvent event) {
+        if (mMetricsSink != null && mPendingInputTime < 0) {
+            mPendingInputTime = event.getEventTime();
+            Choreographer.getInstance().postFrameCallback(mLatencyFrameCallback);
+        }
+    }
+
+    /**
+     * 根据触摸点计算角度（0°~360°，12点方向为0°，顺时针）
+     */
+    private double calcAngleByPoint(float x, float y) {
+        //通过触摸点算出cos角度值
+        double cos = calculateCos(x, y);
+        // 通过反三角函数获得角度值
+        if (x < centerX) {
+            // 超过180°
+            return Math.PI * RADIAN + Math.acos(cos) * RADIAN;
+        } else {
+            // 没有超过180°
+            return Math.PI * RADIAN - Math.acos(cos) * RADIAN;
+        }
+    }
+
+    /**
+     * 低延迟拖动：用本次事件（包括历史样本）更新角速度，并计算预测的锚点位置
+     *  预测位置限制在本时间段的另一锚点与圆环起止之间，且不超过平滑过渡范围，避免越界和跳跃
+     */
+    private void updateDragPrediction(MotionEvent event) {
+        for (int i = 0, size = event.getHistorySize(); i < size; i++) {
+            trackDragSample(calcAngleByPoint(event.getHistoricalX(i), event.getHistoricalY(i)), event.getHistoricalEventTime(i));
+        }
+        trackDragSample(calcAngleByPoint(event.getX(), event.getY()), event.getEventTime());
+
+        TimeSection section = mTimeSections[mSelectedSectionIndex];
+        TimeSection.TimeAnchor anchor = mIsStartAnchor ? section.start : section.end;
+        double lower = mIsStartAnchor ? 0 : section.start.angle;
+        double upper = mIsStartAnchor ? section.end.angle : 360;
+        if (mConstraints != null) {
+            lower = Math.max(lower, calcAngleByMinute(mDragLower));
+            upper = Math.min(upper, calcAngleByMinute(mDragUpper));
+        }
+        double maxOffset = calcAngleByMinute(getSmoothRange());
+
+        double predicted = normalizeAngle(mLastDragAngle) + mDragVelocity * PREDICT_AHEAD_MILLIS;
+        predicted = Math.max(anchor.angle - maxOffset, Math.min(anchor.angle + maxOffset, predicted));
+        predicted = Math.max(lower, Math.min(upper, predicted));
+
+        updateAnchorByAngle(mPredictedAnchor, predicted);
+        mHasPrediction = true;
+    }
+
+    /**
+     * 低延迟拖动：记录一个触摸样本，展开角度（处理0°/360°的跨越），并平滑角速度
+     */
+    private void trackDragSample(double angle, long eventTime) {
+        double delta = angle - normalizeAngle(mLastDragAngle);
+        if (delta > 180) {
+            delta -= 360;
+        } else if (delta < -180) {
+            delta += 360;
+        }
+        long dt = eventTime - mLastDragTime;
+        if (dt > 0) {
+            double velocity = delta / dt;
+            mDragVelocity = mDragVelocity + (velocity - mDragVelocity) * VELOCITY_SMOOTH_FACTOR;
+        }
+        mLastDragAngle += delta;
+        mLastDragTime = eventTime;
+    }
+
+    /**
+     * 把展开的角度转回0°~360°
+     */
+    private static double normalizeAngle(double angle) {
+        angle %= 360;
+        return angle < 0 ? angle + 360 : angle;
+    }
+
+    /**
+     * 请求非缓冲的输入分发：系统不再按帧合并MOVE事件，而是立即分发。Android 5.0及以上有效
+     */
+    private void requestUnbufferedDispatchCompat(MotionEvent event) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            requestUnbufferedDispatch(event);
+        }
+    }
+
+    /**
+     * 合并所有交叉、包含或相接的时间段
+     *
+     * @return  true-有时间段被合并
+     */
+    private boolean mergeCrossSections() {
+        boolean merged = false;
+        for (int i = 0, len = mTimeSections.length; i < len - 1; i++) {
+            TimeSection first = mTimeSections[i];
+            if (first == null) {
+                continue;
+            }
+            for (int j = i + 1; j < len; j++) {
+                TimeSection second = mTimeSections[j];
+                if (second == null) {
+                    continue;
+                }
+                // 交叉，或包含
+                if (DEBUG) {
+                    logD("mergeCrossSections: compare %d[%d, %d] and %d[%d, %d]"
+                            , i, first.start.minute, first.end.minute, j, second.start.minute, second.end.minute);
+                }
+                boolean isCross = !((first.start.minute < second.start.minute && first.end.minute < second.start.minute)
+                        || (first.start.minute > second.end.minute && first.end.minute > second.end.minute));
+                if (isCross) {
+                    if (DEBUG) {
+                        logD("mergeCrossSections: will combine %d and %d", i, j);
+                    }
+                    merged = true;
+                    if (mDeltaListener != null && mMergeCount < sectionSum) {
+                        mMergedIds[mMergeCount] = second.id;
+                        mMergeTargetIds[mMergeCount++] = first.id;
+                    }
+                    if (second.start.minute < first.start.minute) {
+                        first.start = second.start;
+                    }
+                    if (second.end.minute > first.end.minute) {
+                        first.end = second.end;
+                    }
+                    mTimeSections[j] = null;
+                    // 需要重新检查一遍
+                    j = i;
+                }
+            }
+        }
+        return merged;
+    }
+
+    private void refreshOnActionUp() {
+        refresh();
+        commitHistory();
         if (mListener != null) {
             mListener.onSelectFinished();
         }
@@ -1102,23 +1396,91 @@ public class RingTimeSelectView extends View {
         if (mListener != null) {
             mListener.onChanged(this, getTimeSections());
         }
+        if (mDeltaListener != null) {
+            dispatchDelta();
+        }
+        if (isAccessibilityEnabled()) {
+            mAccessHelper.onSectionsChanged();
+        }
         postInvalidate();
     }
 
+    private boolean isAccessibilityEnabled() {
+        return mAccessibilityManager != null && mAccessibilityManager.isEnabled();
+    }
+
+    @Override
+    protected boolean dispatchHoverEvent(MotionEvent event) {
+        return (mAccessHelper != null && mAccessHelper.dispatchHoverEvent(event)) || super.dispatchHoverEvent(event);
+    }
+
+    @Override
+    protected void onFocusChanged(boolean gainFocus, int direction, Rect previouslyFocusedRect) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        if (mAccessHelper != null) {
+            mAccessHelper.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        }
+    }
+
+    /**
+     * 无障碍：把锚点移动若干分钟。起止点不能重合（不能删除），移动后与其他时间段交叉则合并
+     *
+     * @param index     时间段索引
+     * @param isStart   是否是起始锚点
+     * @param minutes   移动的分钟，负数为逆时针
+     * @return  true-移动成功
+     */
+    private boolean moveAnchorBy(int index, boolean isStart, int minutes) {
+        TimeSection section = mTimeSections[index];
+        if (section == null) {
+            return false;
+        }
+        if (mConstraints != null) {
+            minutes *= mConstraints.getSnapStep();
+        }
+        int start = section.start.minute + (isStart ? minutes : 0);
+        int end = section.end.minute + (isStart ? 0 : minutes);
+        if (start < MIN_MINUTE || end > MAX_MINUTE || start >= end) {
+            return false;
+        }
+        if (mConstraints != null && !mConstraints.allows(start, end, getOtherSectionsMask(index))) {
+            return false;
+        }
+        if (isStart) {
+            section.start = generateAnchorByMinute(start);
+        } else {
+            section.end = generateAnchorByMinute(end);
+        }
+        mergeCrossSections();
+        refresh();
+        commitHistory();
+        return true;
+    }
+
 
     /**
      * 根据分钟生产锚点
      */
     private TimeSection.TimeAnchor generateAnchorByMinute(int minute) {
         TimeSection.TimeAnchor anchor = new TimeSection.TimeAnchor();
+        updateAnchorByAngle(anchor, calcAngleByMinute(minute));
         anchor.minute = minute;
-        anchor.angle = calcAngleByMinute(minute);
-        double cos = -Math.cos(Math.toRadians(anchor.angle));
-        anchor.x = calcXByCos(anchor.angle, cos);
-        anchor.y = calcYByCos(cos);
         return anchor;
     }
 
+    /**
+     * 根据角度更新锚点的角度、坐标，分钟取最接近的整分钟。不创建新对象
+     */
+    private void updateAnchorByAngle(TimeSection.TimeAnchor anchor, double angle) {
+        anchor.minute = calcMinuteByAngle(angle);
+        if (mPainter != null) {
+            mPainter.updateAnchor(anchor, angle);
+        } else {
+            // 还未布局：只记录角度，坐标在布局时（relayoutSections）生成
+            anchor.angle = angle;
+        }
+    }
+
     /**
      * 判断坐标点（x, y）是否在时间段的锚点上
      *
@@ -1145,119 +1507,1320 @@ public class RingTimeSelectView extends View {
                 index += 2;
             }
         }
-        return -1;
+        return -1;
+    }
+
+    private boolean isSelectedAnchor(float x, float y, TimeSection.TimeAnchor point) {
+        return (x - point.x)*(x - point.x) + (y - point.y) * (y - point.y) < mAnchorCircleRange;
+    }
+
+
+    /**
+     * 拿到切斜角的cos值
+     */
+    private float calculateCos(float x, float y) {
+        float width = x - centerX;
+        float height = y - centerY;
+        float slope = (float) Math.sqrt(width * width + height * height);
+        return height / slope;
+    }
+
+    /**
+     * 角度转进度
+     */
+    private int calcMinuteByAngle(double angle) {
+        return Math.round(MAX_MINUTE * ((float) angle / 360));
+    }
+
+    /**
+     * 根据分钟，计算角度
+     */
+    private double calcAngleByMinute(int minute) {
+        return minute * 360./ MAX_MINUTE ;
+    }
+
+    private int dp2px(int dp) {
+        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, getContext().getResources()
+                .getDisplayMetrics());
+    }
+
+    private void logD(String format, Object... args) {
+        if (DEBUG) {
+            Log.d(TAG, "zjun@" + String.format(format, args));
+        }
+    }
+
+    /**
+     * 设置时间变化的监听事件
+     */
+    public void setOnTimeChangeListener(IOnTimeChangedListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * 设置时间变化的监听事件，回调在指定的执行器上执行，不阻塞触摸处理
+     * 回调按发生的顺序执行；消费者跟不上时，onChanged和onSelectChanged只回调最新的值，其他回调总会执行。
+     * onChanged中的时间段集合和onInsert中的时间段都是只读的副本，修改时抛出UnsupportedOperationException
+     *
+     * @param listener  监听；null为取消监听
+     * @param executor  执行回调的执行器，如单线程的线程池
+     */
+    public void setOnTimeChangeListener(IOnTimeChangedListener listener, Executor executor) {
+        mListener = listener == null ? null : new ExecutorTimeChangedListener(listener, executor);
+    }
+
+    /**
+     * 设置是否开启低延迟拖动
+     * 开启后，拖动锚点时请求非缓冲输入分发（Android 5.0+），并根据角速度预测绘制锚点的位置，抬起时回到整分钟
+     */
+    public void setLowLatencyDragEnable(boolean enable) {
+        lowLatencyDragEnable = enable;
+        if (!enable && mHasPrediction) {
+            mHasPrediction = false;
+            postInvalidate();
+        }
+    }
+
+    public boolean isLowLatencyDragEnable() {
+        return lowLatencyDragEnable;
+    }
+
+    /**
+     * 开启、关闭性能追踪（{@link android.os.Trace}，API 18+），所有实例共用
+     *  开启后，可在Perfetto/systrace中看到按下命中判断、添加、快速截取、移动的量化和提交、抬起合并、绘制的耗时
+     */
+    public static void setTraceEnabled(boolean enabled) {
+        DialTrace.setEnabled(enabled);
+    }
+
+    /**
+     * 设置指标统计，如{@link DialMetrics}；null：不统计
+     */
+    public void setMetricsSink(IMetricsSink sink) {
+        mMetricsSink = sink;
+        if (sink == null && mPendingInputTime >= 0) {
+            Choreographer.getInstance().removeFrameCallback(mLatencyFrameCallback);
+            mPendingInputTime = -1;
+        }
+    }
+
+    /**
+     * 获取表盘外观，可用于{@link DialThumbnailRenderer}绘制相同外观的缩略图
+     */
+    public DialStyle getDialStyle() {
+        return mStyle;
+    }
+
+    /**
+     * 更换表盘外观（如切换日间、夜间主题），不需要重新创建控件
+     * 只更新变化的画笔、着色器和文字尺寸；圆环宽度、锚点直径、数字字号或长刻度长度变化时重新布局，否则只重绘
+     *
+     * @param style 新外观，可由{@link DialStyle.Builder#Builder(DialStyle)}在当前外观上修改得到
+     */
+    public void setDialStyle(DialStyle style) {
+        if (style == null) {
+            throw new IllegalArgumentException("The style must not be null");
+        }
+        if (style.equals(mStyle)) {
+            return;
+        }
+        boolean anchorTextChanged = !style.anchorStartText.equals(mStyle.anchorStartText)
+                || !style.anchorEndText.equals(mStyle.anchorEndText);
+        // 还未测量时没有画笔，第一次测量时按新外观创建并布局
+        boolean needLayout = mPainter != null && mPainter.setStyle(style);
+        mStyle = style;
+        if (needLayout) {
+            // 在onMeasure中重新计算圆环半径、细节层级、触摸范围和锚点坐标
+            requestLayout();
+        } else if (anchorTextChanged && mAccessHelper != null) {
+            // 无障碍节点的描述包含锚点文字
+            mAccessHelper.invalidateCache(isAccessibilityEnabled());
+        }
+        invalidate();
+    }
+
+    /**
+     * 设置覆盖热度，在圆环上显示为色带（在时间段圆弧之下）：每分钟的透明度与覆盖次数成正比
+     * 热度的计数变化时自动重绘，色带只在计数变化后重建一次
+     *
+     * @param heatmap   覆盖热度；null：不显示。同一时间只能显示在一个控件上
+     * @param color     色带颜色，覆盖次数最多的分钟使用该颜色原本的透明度
+     */
+    public void setCoverageHeatmap(CoverageHeatmap heatmap, int color) {
+        if (mHeatmap != null) {
+            mHeatmap.setOnChanged(null);
+        }
+        mHeatmap = heatmap;
+        mHeatmapColor = color;
+        mHeatmapVersion = -1;
+        mStaticLayerValid = false;
+        if (heatmap != null) {
+            if (mHeatmapCounts == null) {
+                mHeatmapCounts = new int[PackedSchedule.MINUTES];
+            }
+            heatmap.setOnChanged(mHeatmapInvalidate);
+        } else if (mPainter != null) {
+            mPainter.setHeatmap(null, 0);
+        }
+        invalidate();
+    }
+
+    public CoverageHeatmap getCoverageHeatmap() {
+        return mHeatmap;
+    }
+
+    /**
+     * 设置是否只读：只读时不响应触摸添加、拖动，也不响应无障碍的调整操作，只用于显示（如覆盖热度）
+     */
+    public void setReadOnly(boolean readOnly) {
+        mReadOnly = readOnly;
+    }
+
+    public boolean isReadOnly() {
+        return mReadOnly;
+    }
+
+    /**
+     * 设置是否显示实时时间：从中心指向当前时间（本小时内的分、秒）的指针，当前分钟在已选时间段内时在圆环上高亮
+     *  所有控件共用一个秒钟节拍，控件未附加到窗口或不可见时不刷新。
+     *  每秒只重绘指针：表盘和时间段缓存为静态层（一张与控件同尺寸的位图），关闭时释放
+     */
+    public void setLiveTimeEnabled(boolean enabled) {
+        if (mLiveTimeEnabled == enabled) {
+            return;
+        }
+        mLiveTimeEnabled = enabled;
+        updateLiveTimeRegistration();
+        if (!enabled && mDetail == DialPainter.DETAIL_FULL) {
+            releaseStaticLayer();
+        }
+        invalidate();
+    }
+
+    public boolean isLiveTimeEnabled() {
+        return mLiveTimeEnabled;
+    }
+
+    /**
+     * 设置实时时间指针的颜色，默认为起始锚点的颜色。高亮当前分钟时使用一半的透明度
+     */
+    public void setLiveTimeColor(int color) {
+        mHasLiveTimeColor = true;
+        mLiveTimeColor = color;
+        if (mLiveTimeEnabled) {
+            invalidate();
+        }
+    }
+
+    /**
+     * 开启实时时间、已附加到窗口且可见时，注册到共用的秒钟节拍；否则注销
+     */
+    private void updateLiveTimeRegistration() {
+        boolean register = mLiveTimeEnabled && mAttached && getWindowVisibility() == VISIBLE && isShown();
+        if (register == mLiveTimeRegistered) {
+            return;
+        }
+        mLiveTimeRegistered = register;
+        if (register) {
+            // 暂停期间时间已变化，立即更新到当前时间
+            mLiveSecond = LiveClockTicker.currentSecondOfHour();
+            LiveClockTicker.getInstance().register(mLiveTick);
+            invalidate();
+        } else {
+            LiveClockTicker.getInstance().unregister(mLiveTick);
+        }
+    }
+
+    /**
+     * 每秒的回调：只重绘新旧指针的范围；分钟变化时，加上新旧分钟在圆环上的范围（高亮）
+     */
+    private void onLiveTick(int secondOfHour) {
+        int oldSecond = mLiveSecond;
+        mLiveSecond = secondOfHour;
+        if (oldSecond == secondOfHour || mPainter == null || !mPainter.isLaidOut()) {
+            return;
+        }
+        if (oldSecond < 0) {
+            invalidate();
+            return;
+        }
+        mPainter.getHandBounds(secondOfHour, mLiveDirty);
+        mPainter.getHandBounds(oldSecond, mLiveBounds);
+        mLiveDirty.union(mLiveBounds);
+        if (oldSecond / 60 != secondOfHour / 60) {
+            mPainter.getMinuteBounds(oldSecond / 60, mLiveBounds);
+            mLiveDirty.union(mLiveBounds);
+            mPainter.getMinuteBounds(secondOfHour / 60, mLiveBounds);
+            mLiveDirty.union(mLiveBounds);
+        }
+        invalidate(mLiveDirty);
+    }
+
+    /**
+     * 设置约束，在点击添加、快速截取、拖动和无障碍调整时检查；已有的时间段不受影响
+     * @param constraints   约束；null：取消约束
+     */
+    public synchronized void setSectionConstraints(SectionConstraints constraints) {
+        mConstraints = constraints;
+        if (constraints != null && mNewAnchor != null && mTimeSections[mSelectedSectionIndex] != null) {
+            // 拖动中，重新计算可移动的范围
+            computeDragBounds();
+        }
+    }
+
+    public SectionConstraints getSectionConstraints() {
+        return mConstraints;
+    }
+
+    /**
+     * 设置时间段增量变化的监听：新增、删除、大小变化和合并的时间段，用ID标识。
+     * 以设置时的状态为基准，之后每次变化回调与上一次回调之间的增量
+     */
+    public synchronized void setOnSectionDeltaListener(IOnSectionDeltaListener listener) {
+        mDeltaListener = listener;
+        mMergeCount = 0;
+        if (listener != null) {
+            if (mDeltaIds == null) {
+                mDeltaIds = new int[sectionSum];
+                mDeltaStart = new int[sectionSum];
+                mDeltaEnd = new int[sectionSum];
+                mMergedIds = new int[sectionSum];
+                mMergeTargetIds = new int[sectionSum];
+                mRemovedIds = new int[sectionSum];
+                mDelta = new SectionDelta();
+            }
+            saveDeltaState();
+        }
+    }
+
+    /**
+     * 记录当前状态，作为下一次计算增量的基准
+     */
+    private void saveDeltaState() {
+        mDeltaPacked = getPackedTimeSections();
+        mDeltaStarts = getPackedStarts();
+        for (int i = 0; i < sectionSum; i++) {
+            TimeSection section = mTimeSections[i];
+            mDeltaIds[i] = section == null ? 0 : section.id;
+            mDeltaStart[i] = section == null ? 0 : section.start.minute;
+            mDeltaEnd[i] = section == null ? 0 : section.end.minute;
+        }
+    }
+
+    /**
+     * 与上一次的状态比较，计算增量并回调
+     *  先用压缩值、起始位的异或，以及每个位置的ID判断是否有变化，没有则直接返回；否则按ID比较起止分钟
+     */
+    private void dispatchDelta() {
+        long packed = getPackedTimeSections();
+        long starts = getPackedStarts();
+        long changedBits = (packed ^ mDeltaPacked) | (starts ^ mDeltaStarts);
+        boolean changed = changedBits != 0 || mMergeCount > 0;
+        for (int i = 0; i < sectionSum && !changed; i++) {
+            TimeSection section = mTimeSections[i];
+            // 拖动中起止点重合的时间段不占位，需比较分钟
+            changed = section == null
+                    ? mDeltaIds[i] != 0
+                    : section.id != mDeltaIds[i] || section.start.minute != mDeltaStart[i] || section.end.minute != mDeltaEnd[i];
+        }
+        if (!changed) {
+            return;
+        }
+
+        // 复用同一个增量对象，拖动中每次MOVE不再分配
+        SectionDelta delta = mDelta;
+        delta.reset();
+        for (int i = 0; i < sectionSum; i++) {
+            TimeSection section = mTimeSections[i];
+            if (section == null) {
+                continue;
+            }
+            int old = findDeltaIndexById(section.id, i);
+            if (old == -1) {
+                delta.inserted.add(delta.obtainPart(section.id, section.start.minute, section.end.minute));
+            } else if (mDeltaStart[old] != section.start.minute || mDeltaEnd[old] != section.end.minute) {
+                delta.resized.add(delta.obtainPart(section.id, section.start.minute, section.end.minute));
+            }
+        }
+        int removedCount = 0;
+        for (int i = 0; i < sectionSum; i++) {
+            int id = mDeltaIds[i];
+            if (id == 0 || findSectionIndexById(id, i) != -1 || indexOf(mMergedIds, mMergeCount, id) != -1) {
+                continue;
+            }
+            mRemovedIds[removedCount++] = id;
+        }
+        delta.removedIds = copyIds(mRemovedIds, removedCount);
+        // 只保留上一次回调时已存在的时间段的合并，两次回调之间新增又被合并的，对外相当于不存在
+        int mergedCount = 0;
+        for (int i = 0; i < mMergeCount; i++) {
+            if (indexOf(mDeltaIds, sectionSum, mMergedIds[i]) != -1) {
+                mMergedIds[mergedCount] = mMergedIds[i];
+                mMergeTargetIds[mergedCount++] = mMergeTargetIds[i];
+            }
+        }
+        delta.mergedIds = copyIds(mMergedIds, mergedCount);
+        delta.mergeTargetIds = copyIds(mMergeTargetIds, mergedCount);
+
+        mMergeCount = 0;
+        saveDeltaState();
+        mDeltaListener.onDelta(this, delta);
+    }
+
+    /**
+     * 复制前count个ID，没有时返回共用的空数组：拖动中只有大小变化，不分配
+     */
+    private static int[] copyIds(int[] ids, int count) {
+        return count == 0 ? EMPTY_IDS : Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * 在上一次的状态中查找ID，优先查找同一位置
+     * @return  位置；-1：不存在
+     */
+    private int findDeltaIndexById(int id, int hint) {
+        if (mDeltaIds[hint] == id) {
+            return hint;
+        }
+        return indexOf(mDeltaIds, sectionSum, id);
+    }
+
+    /**
+     * 在当前的时间段中查找ID，优先查找同一位置
+     * @return  位置；-1：不存在
+     */
+    private int findSectionIndexById(int id, int hint) {
+        if (mTimeSections[hint] != null && mTimeSections[hint].id == id) {
+            return hint;
+        }
+        for (int i = 0; i < sectionSum; i++) {
+            if (mTimeSections[i] != null && mTimeSections[i].id == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 获取当前的时间段集合值。这些时间段已经按起始时间，从小到大排好了序
+     * @return  时间段集合
+     */
+    public synchronized List<TimePart> getTimeSections() {
+        List<TimePart> list = new ArrayList<>();
+        for (TimeSection section : mTimeSections) {
+            if (section != null) {
+                TimePart part = new TimePart();
+                part.id = section.id;
+                part.start = section.start.minute;
+                part.end = section.end.minute;
+                list.add(part);
+            }
+        }
+
+        // 按从小到大排序
+        Collections.sort(list, new TimePart.TimePartComparator());
+        return list;
+    }
+
+    /**
+     * 设置时间段集合
+     * @param partList  时间段集合
+     */
+    public synchronized void setTimeSections(List<TimePart> partList) {
+        setTimeSections(partList, false);
+    }
+
+    /**
+     * 设置时间段集合
+     * @param partList  时间段集合
+     * @param animate   是否使用动画过渡：圆弧伸缩，锚点沿圆环滑动到新位置
+     */
+    public synchronized void setTimeSections(List<TimePart> partList, boolean animate) {
+        if (partList == null) {
+            return;
+        }
+        for (TimePart part : partList) {
+            if (part != null && !checkSection(part)) {
+                throw new IllegalArgumentException("The minutes of part must between 0 and 60, and end is larger than start!");
+            }
+        }
+        if (mEditDepth > 0) {
+            // 批量编辑中：只暂存，数量在提交时检查
+            mEditParts.clear();
+            for (TimePart part : partList) {
+                if (part != null) {
+                    mEditParts.add(new TimePart(part.id, part.start, part.end));
+                }
+            }
+            mEditAnimate |= animate;
+            return;
+        }
+        if (partList.size() > sectionSum) {
+            throw new IllegalArgumentException("The size of partList must equal or smaller than sectionSum");
+        }
+
+        if (animate) {
+            captureAnimationFrom();
+        }
+        for (int i = 0; i < sectionSum; i++) {
+            mTimeSections[i] = null;
+        }
+
+        int insertPos = 0;
+        for (TimePart part : partList) {
+            if (part != null) {
+                // 已有的时间段保留ID，增量监听中表现为大小变化
+                TimeSection section = newSection(part, insertPos);
+                section.start = generateAnchorByMinute(part.start);
+                section.end = generateAnchorByMinute(part.end);
+
+                mTimeSections[insertPos++] = section;
+            }
+        }
+        if (animate) {
+            startAnimation();
+        }
+        refresh();
+        commitHistory();
+    }
+
+    /**
+     * 清除所有时间段
+     */
+    public synchronized void clearTimeSections(){
+        clearTimeSections(false);
+    }
+
+    /**
+     * 清除所有时间段
+     * @param animate   是否使用动画过渡：圆弧收缩到中点后消失
+     */
+    public synchronized void clearTimeSections(boolean animate){
+        if (mEditDepth > 0) {
+            mEditParts.clear();
+            mEditAnimate |= animate;
+            return;
+        }
+        if (animate) {
+            captureAnimationFrom();
+        }
+        for (int i = 0; i < mTimeSections.length; i++) {
+            mTimeSections[i] = null;
+        }
+        if (animate) {
+            startAnimation();
+        }
+        refresh();
+        commitHistory();
+    }
+
+    /**
+     * 开始批量编辑。之后的{@link #setTimeSections(List, boolean)}、{@link #clearTimeSections(boolean)}、
+     * {@link #addTimeSection(int, int)}、{@link #removeTimeSection(int)}只暂存修改，
+     * 直到{@link #commit()}时才一次性合并、生成坐标、重绘和回调。可嵌套，最外层的commit才生效。
+     * 编辑中{@link #getTimeSections()}仍返回提交前的时间段，不能撤销、重做
+     */
+    public synchronized void beginEdit() {
+        if (mEditDepth++ == 0) {
+            mEditParts = getTimeSections();
+            mEditAnimate = false;
+        }
+    }
+
+    /**
+     * 提交批量编辑：交叉或相接的时间段合并为一个，然后只刷新、回调、记录历史一次
+     *
+     * @throws IllegalStateException    没有对应的{@link #beginEdit()}；
+     *          或合并后的时间段数量超过sectionSum，此时整个编辑被丢弃，时间段保持不变
+     */
+    public synchronized void commit() {
+        if (mEditDepth == 0) {
+            throw new IllegalStateException("commit() is called without beginEdit()");
+        }
+        if (--mEditDepth > 0) {
+            return;
+        }
+        List<TimePart> parts = mEditParts;
+        mEditParts = null;
+        applyEdit(parts, mEditAnimate);
+    }
+
+    /**
+     * 是否在批量编辑中
+     */
+    public synchronized boolean isEditing() {
+        return mEditDepth > 0;
+    }
+
+    /**
+     * 添加一个时间段，与已有时间段交叉或相接时合并。在批量编辑中只暂存
+     *
+     * @throws IllegalArgumentException 分钟不在0~60之间，或起始分钟不小于终止分钟
+     * @throws IllegalStateException    不在批量编辑中，且合并后的数量超过sectionSum
+     */
+    public synchronized void addTimeSection(int start, int end) {
+        TimePart part = new TimePart(start, end);
+        if (!checkSection(part)) {
+            throw new IllegalArgumentException("The minutes of part must between 0 and 60, and end is larger than start!");
+        }
+        beginEdit();
+        mEditParts.add(part);
+        commit();
+    }
+
+    /**
+     * 删除一个时间段。在批量编辑中只暂存
+     *
+     * @param id    时间段的ID，见{@link TimePart#getId()}
+     * @return  true：找到并删除
+     */
+    public synchronized boolean removeTimeSection(int id) {
+        if (id == 0) {
+            return false;
+        }
+        beginEdit();
+        boolean removed = false;
+        for (int i = 0; i < mEditParts.size(); i++) {
+            if (mEditParts.get(i).id == id) {
+                mEditParts.remove(i);
+                removed = true;
+                break;
+            }
+        }
+        commit();
+        return removed;
+    }
+
+    /**
+     * 提交批量编辑的时间段：按起始分钟排序，合并交叉或相接的，检查数量后替换所有时间段
+     */
+    private void applyEdit(List<TimePart> parts, boolean animate) {
+        Collections.sort(parts, new TimePart.TimePartComparator());
+        List<TimePart> merged = new ArrayList<>(parts.size());
+        // 合并记录：被合并的ID -> 保留的ID，数量检查通过后才交给增量监听
+        int[] absorbedIds = new int[parts.size()];
+        int[] targetIds = new int[parts.size()];
+        int mergeCount = 0;
+        TimePart last = null;
+        for (TimePart part : parts) {
+            if (last != null && part.start <= last.end) {
+                last.end = Math.max(last.end, part.end);
+                if (last.id == 0) {
+                    last.id = part.id;
+                } else if (part.id != 0) {
+                    absorbedIds[mergeCount] = part.id;
+                    targetIds[mergeCount++] = last.id;
+                }
+                continue;
+            }
+            merged.add(part);
+            last = part;
+        }
+        if (merged.size() > sectionSum) {
+            throw new IllegalStateException("The edit results in " + merged.size()
+                    + " sections, more than sectionSum(" + sectionSum + ")");
+        }
+
+        for (int i = 0; i < mergeCount && mDeltaListener != null && mMergeCount < sectionSum; i++) {
+            mMergedIds[mMergeCount] = absorbedIds[i];
+            mMergeTargetIds[mMergeCount++] = targetIds[i];
+        }
+        if (animate) {
+            captureAnimationFrom();
+        }
+        for (int i = 0; i < sectionSum; i++) {
+            mTimeSections[i] = null;
+        }
+        for (int i = 0; i < merged.size(); i++) {
+            TimePart part = merged.get(i);
+            // 已有的时间段保留ID，增量监听中表现为大小变化
+            TimeSection section = newSection(part, i);
+            section.start = generateAnchorByMinute(part.start);
+            section.end = generateAnchorByMinute(part.end);
+            mTimeSections[i] = section;
+        }
+        if (animate) {
+            startAnimation();
+        }
+        refresh();
+        commitHistory();
+    }
+
+    /**
+     * 设置时间段过渡动画的时长
+     * @param duration  时长（ms），默认300ms
+     */
+    public void setAnimationDuration(long duration) {
+        if (duration < 0) {
+            throw new IllegalArgumentException("The duration must not be negative");
+        }
+        mAnimationDuration = duration;
+    }
+
+    /**
+     * 过渡动画：记录动画起点。
+     *  若动画正在进行，则从当前插值的位置开始（合并重叠的动画），正在收缩消失的时间段不作为起点；否则从当前的时间段开始
+     */
+    private void captureAnimationFrom() {
+        if (mAnimSections == null) {
+            mAnimSections = new TimeSection[sectionSum];
+            for (int i = 0; i < sectionSum; i++) {
+                TimeSection section = new TimeSection();
+                section.start = new TimeSection.TimeAnchor();
+                section.end = new TimeSection.TimeAnchor();
+                mAnimSections[i] = section;
+            }
+            mAnimBuffer = new float[sectionSum * ANIM_STRIDE];
+            mAnimFromStart = new float[sectionSum];
+            mAnimFromEnd = new float[sectionSum];
+            mAnimToStart = new float[sectionSum];
+            mAnimToEnd = new float[sectionSum];
+        }
+
+        if (mAnimating) {
+            // 终点长度为0的是上一次动画中多出的旧时间段，移到后面，不参与配对
+            int fromLength = 0;
+            for (int i = 0; i < mAnimCount; i++) {
+                int offset = i * ANIM_STRIDE;
+                if (mAnimBuffer[offset + 2] != mAnimBuffer[offset + 3]) {
+                    TimeSection section = mAnimSections[fromLength];
+                    mAnimSections[fromLength++] = mAnimSections[i];
+                    mAnimSections[i] = section;
+                }
+            }
+            mAnimCount = collectSortedAngles(mAnimSections, fromLength, mAnimFromStart, mAnimFromEnd);
+        } else {
+            mAnimCount = collectSortedAngles(mTimeSections, mTimeSections.length, mAnimFromStart, mAnimFromEnd);
+        }
+    }
+
+    /**
+     * 过渡动画：以新的时间段为终点，配对起点和终点，并开始动画。
+     *  起点和终点都按起始角度排序后依次配对；多出的旧时间段收缩到中点，多出的新时间段从中点展开
+     */
+    private void startAnimation() {
+        int fromCount = mAnimCount;
+        int toCount = collectSortedAngles(mTimeSections, mTimeSections.length, mAnimToStart, mAnimToEnd);
+        int count = Math.max(fromCount, toCount);
+        if (count == 0 || mAnimationDuration == 0 || !mAttached) {
+            // 未附加到窗口时不显示，也不能向Looper提交帧回调，直接结束
+            finishAnimation();
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            int offset = i * ANIM_STRIDE;
+            if (i < fromCount && i < toCount) {
+                mAnimBuffer[offset] = mAnimFromStart[i];
+                mAnimBuffer[offset + 1] = mAnimFromEnd[i];
+                mAnimBuffer[offset + 2] = mAnimToStart[i];
+                mAnimBuffer[offset + 3] = mAnimToEnd[i];
+            } else if (i < fromCount) {
+                // 收缩
+                float middle = (mAnimFromStart[i] + mAnimFromEnd[i]) * .5f;
+                mAnimBuffer[offset] = mAnimFromStart[i];
+                mAnimBuffer[offset + 1] = mAnimFromEnd[i];
+                mAnimBuffer[offset + 2] = middle;
+                mAnimBuffer[offset + 3] = middle;
+            } else {
+                // 展开
+                float middle = (mAnimToStart[i] + mAnimToEnd[i]) * .5f;
+                mAnimBuffer[offset] = middle;
+                mAnimBuffer[offset + 1] = middle;
+                mAnimBuffer[offset + 2] = mAnimToStart[i];
+                mAnimBuffer[offset + 3] = mAnimToEnd[i];
+            }
+        }
+        mAnimCount = count;
+        mAnimStartTime = AnimationUtils.currentAnimationTimeMillis();
+        mAnimating = true;
+        // 先把绘制用的时间段放到起点，再逐帧推进
+        applyAnimationFraction(0);
+        removeCallbacks(mAnimFrame);
+        postOnAnimation(mAnimFrame);
+    }
+
+    /**
+     * 过渡动画：推进一帧
+     */
+    private void stepAnimation() {
+        if (!mAnimating) {
+            return;
+        }
+        float t = (AnimationUtils.currentAnimationTimeMillis() - mAnimStartTime) / (float) mAnimationDuration;
+        if (t >= 1) {
+            finishAnimation();
+            return;
+        }
+        // 减速插值：1 - (1 - t)²
+        float fraction = 1 - (1 - t) * (1 - t);
+        applyAnimationFraction(fraction);
+        invalidate();
+        postOnAnimation(mAnimFrame);
+    }
+
+    /**
+     * 过渡动画：按进度插值，直接更新绘制用的时间段，不创建对象
+     */
+    private void applyAnimationFraction(float fraction) {
+        for (int i = 0; i < mAnimCount; i++) {
+            int offset = i * ANIM_STRIDE;
+            float start = mAnimBuffer[offset] + (mAnimBuffer[offset + 2] - mAnimBuffer[offset]) * fraction;
+            float end = mAnimBuffer[offset + 1] + (mAnimBuffer[offset + 3] - mAnimBuffer[offset + 1]) * fraction;
+            updateAnchorByAngle(mAnimSections[i].start, start);
+            updateAnchorByAngle(mAnimSections[i].end, end);
+        }
+    }
+
+    /**
+     * 结束过渡动画，直接显示最终的时间段
+     */
+    private void finishAnimation() {
+        if (mAnimating) {
+            mAnimating = false;
+            removeCallbacks(mAnimFrame);
+            postInvalidate();
+        }
+    }
+
+    /**
+     * 过渡动画：收集时间段的起始、终止角度，并按起始角度从小到大排序（插入排序，数量很少）。
+     *  长度为0的（如刚开始展开的）跳过
+     *
+     * @return  有效时间段的个数
+     */
+    private static int collectSortedAngles(TimeSection[] sections, int length, float[] starts, float[] ends) {
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            TimeSection section = sections[i];
+            if (section == null) {
+                continue;
+            }
+            float start = (float) section.start.angle;
+            float end = (float) section.end.angle;
+            if (start == end) {
+                continue;
+            }
+            int j = count - 1;
+            while (j >= 0 && starts[j] > start) {
+                starts[j + 1] = starts[j];
+                ends[j + 1] = ends[j];
+                j--;
+            }
+            starts[j + 1] = start;
+            ends[j + 1] = end;
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        if (mAccessHelper == null) {
+            // 构造可能在后台线程，无障碍服务的查询和委托的设置放到这里，只做一次
+            mAccessibilityManager = (AccessibilityManager) getContext().getSystemService(Context.ACCESSIBILITY_SERVICE);
+            mAccessHelper = new AccessHelper();
+            ViewCompat.setAccessibilityDelegate(this, mAccessHelper);
+        }
+        updateLiveTimeRegistration();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateLiveTimeRegistration();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateLiveTimeRegistration();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAttached = false;
+        updateLiveTimeRegistration();
+        // 分离后可能不再显示（如列表回收），释放静态层，再次显示时重建
+        releaseStaticLayer();
+        finishAnimation();
+        if (mPendingInputTime >= 0) {
+            Choreographer.getInstance().removeFrameCallback(mLatencyFrameCallback);
+            mPendingInputTime = -1;
+        }
+    }
+
+    /**
+     * 获取当前时间段集合的压缩值，见{@link PackedSchedule}。相交或相接的时间段会合并
+     * @return  低60位表示每一分钟是否被选中
+     */
+    public synchronized long getPackedTimeSections() {
+        long packed = PackedSchedule.EMPTY;
+        for (TimeSection section : mTimeSections) {
+            if (section != null) {
+                packed |= PackedSchedule.rangeMask(section.start.minute, section.end.minute);
+            }
+        }
+        return packed;
+    }
+
+    /**
+     * 用压缩值设置时间段集合，见{@link PackedSchedule}
+     * @param packed    低60位表示每一分钟是否被选中
+     */
+    public synchronized void setPackedTimeSections(long packed) {
+        setTimeSections(PackedSchedule.unpack(packed));
+    }
+
+    /**
+     * 时间段的最大个数，由属性rtv_sectionSum决定
+     */
+    public int getSectionSum() {
+        return sectionSum;
+    }
+
+    /**
+     * 绑定时间段集合，用于RecyclerView等复用控件的场景（在onBindViewHolder中调用）：
+     *  1、清除触摸、拖动、动画和批量编辑的状态，清空撤销历史，增量监听以绑定后的状态为基准
+     *  2、复用已有的时间段和锚点对象；不回调、不重新布局，尺寸不变时，布局和实时时间的静态层都保留
+     * 列表的差异比较可使用{@link ScheduleDiffCallback}
+     *
+     * @param packed    压缩值，见{@link PackedSchedule}
+     */
+    public synchronized void bind(long packed) {
+        PackedSchedule.checkPacked(packed);
+        if (PackedSchedule.sectionCount(packed) > sectionSum) {
+            throw new IllegalArgumentException("The section count of packed must equal or smaller than sectionSum");
+        }
+        resetInteraction();
+        recycleSections();
+
+        boolean laidOut = mPainter != null && mPainter.isLaidOut();
+        long begins = PackedSchedule.beginBits(packed);
+        long lasts = PackedSchedule.lastBits(packed);
+        int index = 0;
+        while (begins != 0) {
+            TimeSection section = obtainRecycledSection();
+            section.start.minute = Long.numberOfTrailingZeros(begins);
+            section.end.minute = Long.numberOfTrailingZeros(lasts) + 1;
+            if (laidOut) {
+                updateAnchorByAngle(section.start, calcAngleByMinute(section.start.minute));
+                updateAnchorByAngle(section.end, calcAngleByMinute(section.end.minute));
+            }
+            mTimeSections[index++] = section;
+            begins &= begins - 1;
+            lasts &= lasts - 1;
+        }
+
+        resetHistory();
+        if (mDeltaListener != null) {
+            mMergeCount = 0;
+            saveDeltaState();
+        }
+        if (isAccessibilityEnabled()) {
+            mAccessHelper.onSectionsChanged();
+        }
+        invalidate();
+    }
+
+    /**
+     * 回收控件，用于RecyclerView等复用控件的场景（在onViewRecycled中调用）：
+     *  清除时间段（对象留待{@link #bind(long)}复用）、触摸和动画状态、撤销历史，并移除时间变化和增量监听，
+     *  避免回调到上一个绑定的数据。外观、约束、覆盖热度、实时时间等设置保留
+     */
+    public synchronized void recycle() {
+        resetInteraction();
+        recycleSections();
+        mListener = null;
+        mDeltaListener = null;
+        mMergeCount = 0;
+        resetHistory();
+        if (isAccessibilityEnabled()) {
+            mAccessHelper.onSectionsChanged();
+        }
+        invalidate();
+    }
+
+    /**
+     * 清除触摸、拖动、过渡动画和批量编辑的状态
+     */
+    private void resetInteraction() {
+        finishAnimation();
+        mNewAnchor = null;
+        mSelectedSectionIndex = -1;
+        mDownStartMinute = mDownEndMinute = -1;
+        mHasPrediction = false;
+        mRejectedMoves = 0;
+        if (mPendingInputTime >= 0) {
+            Choreographer.getInstance().removeFrameCallback(mLatencyFrameCallback);
+            mPendingInputTime = -1;
+        }
+        if (mEditDepth > 0) {
+            mEditDepth = 0;
+            mEditParts = null;
+            mEditAnimate = false;
+        }
+    }
+
+    /**
+     * 把所有时间段移到回收池中
+     */
+    private void recycleSections() {
+        if (mRecycledSections == null || mRecycledSections.length < mTimeSections.length) {
+            mRecycledSections = mRecycledSections == null
+                    ? new TimeSection[mTimeSections.length] : Arrays.copyOf(mRecycledSections, mTimeSections.length);
+        }
+        for (int i = 0; i < mTimeSections.length; i++) {
+            TimeSection section = mTimeSections[i];
+            if (section != null && section.start != null && section.end != null
+                    && mRecycledCount < mRecycledSections.length) {
+                mRecycledSections[mRecycledCount++] = section;
+            }
+            mTimeSections[i] = null;
+        }
+    }
+
+    /**
+     * 从回收池中取一个时间段，并分配新的ID；回收池为空时创建
+     */
+    private TimeSection obtainRecycledSection() {
+        if (mRecycledCount == 0) {
+            TimeSection section = newSection();
+            section.start = new TimeSection.TimeAnchor();
+            section.end = new TimeSection.TimeAnchor();
+            return section;
+        }
+        TimeSection section = mRecycledSections[--mRecycledCount];
+        mRecycledSections[mRecycledCount] = null;
+        section.id = mNextSectionId++;
+        return section;
+    }
+
+    /**
+     * 每个时间段的起始分钟对应的位，与{@link #getPackedTimeSections()}一起，可保留相接时间段的分界
+     */
+    private long getPackedStarts() {
+        long starts = PackedSchedule.EMPTY;
+        for (TimeSection section : mTimeSections) {
+            if (section != null && section.start.minute < section.end.minute) {
+                starts |= 1L << section.start.minute;
+            }
+        }
+        return starts;
+    }
+
+    /**
+     * 用压缩值和起始位替换所有时间段，不回调
+     *  若已布局，则直接生成锚点坐标；否则只设置分钟值，在下一次布局时（relayoutSections）再生成
+     *  若时间段个数超过sectionSum（如布局中修改了sectionSum），则多余的舍弃
+     */
+    private void setSectionsByPacked(long packed, long starts) {
+        finishAnimation();
+        Arrays.fill(mTimeSections, null);
+        boolean laidOut = mPainter != null && mPainter.isLaidOut();
+        int index = 0;
+        for (TimePart part : PackedSchedule.unpack(packed, starts)) {
+            if (index >= sectionSum) {
+                Log.w(TAG, "setSectionsByPacked: too many sections, the rest are dropped");
+                break;
+            }
+            mTimeSections[index++] = newRestoredSection(part.start, part.end, laidOut);
+        }
     }
 
-    private boolean isSelectedAnchor(float x, float y, TimeSection.TimeAnchor point) {
-        return (x - point.x)*(x - point.x) + (y - point.y) * (y - point.y) < mAnchorCircleRange;
+    /**
+     * 用保存的起止分钟和ID（见{@link SavedState#sections}）替换所有时间段，不回调。其他同{@link #setSectionsByPacked(long, long)}
+     */
+    private void setSectionsBySaved(int[] sections) {
+        finishAnimation();
+        Arrays.fill(mTimeSections, null);
+        boolean laidOut = mPainter != null && mPainter.isLaidOut();
+        int index = 0;
+        for (int i = 0; i + 2 < sections.length; i += 3) {
+            if (index >= sectionSum) {
+                Log.w(TAG, "setSectionsBySaved: too many sections, the rest are dropped");
+                break;
+            }
+            TimeSection section = newRestoredSection(sections[i], sections[i + 1], laidOut);
+            section.id = sections[i + 2];
+            mTimeSections[index++] = section;
+        }
     }
 
-
     /**
-     * 拿到切斜角的cos值
+     * 创建恢复的时间段，并分配新的ID
+     * @param laidOut   是否已布局：是则直接生成锚点坐标；否则只设置分钟值
      */
-    private float calculateCos(float x, float y) {
-        float width = x - centerX;
-        float height = y - centerY;
-        float slope = (float) Math.sqrt(width * width + height * height);
-        return height / slope;
+    private TimeSection newRestoredSection(int start, int end, boolean laidOut) {
+        TimeSection section = newSection();
+        if (laidOut) {
+            section.start = generateAnchorByMinute(start);
+            section.end = generateAnchorByMinute(end);
+        } else {
+            section.start = new TimeSection.TimeAnchor();
+            section.end = new TimeSection.TimeAnchor();
+            section.start.minute = start;
+            section.end.minute = end;
+        }
+        return section;
     }
 
     /**
-     * 角度转进度
+     * 设置撤销、重做的最大历史记录数（包括当前状态），并清空历史记录
+     * @param depth     最大历史记录数，0为不记录，默认20
      */
-    private int calcMinuteByAngle(double angle) {
-        return Math.round(MAX_MINUTE * ((float) angle / 360));
+    public synchronized void setHistoryDepth(int depth) {
+        if (depth < 0) {
+            throw new IllegalArgumentException("The value of historyDepth must not be negative");
+        }
+        historyDepth = depth;
+        resetHistory();
     }
 
     /**
-     * 根据分钟，计算角度
+     * 是否可以撤销
      */
-    private double calcAngleByMinute(int minute) {
-        return minute * 360./ MAX_MINUTE ;
+    public synchronized boolean canUndo() {
+        return mHistoryCursor > 0;
     }
 
-    private int dp2px(int dp) {
-        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, dp, getContext().getResources()
-                .getDisplayMetrics());
+    /**
+     * 是否可以重做
+     */
+    public synchronized boolean canRedo() {
+        return mHistoryCursor < mHistorySize - 1;
     }
 
-    private int sp2px(int sp) {
-        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, sp, getContext().getResources()
-                .getDisplayMetrics());
+    /**
+     * 撤销上一次修改（拖动、添加、删除、合并、快速截取或设置），正在拖动时无效
+     * @return  true-已撤销
+     */
+    public synchronized boolean undo() {
+        if (!canUndo() || mNewAnchor != null || mEditDepth > 0) {
+            return false;
+        }
+        applyHistory(--mHistoryCursor);
+        return true;
     }
 
-    private void logD(String format, Object... args) {
-        Log.d(TAG, "zjun@" + String.format(format, args));
+    /**
+     * 重做被撤销的修改，正在拖动时无效
+     * @return  true-已重做
+     */
+    public synchronized boolean redo() {
+        if (!canRedo() || mNewAnchor != null || mEditDepth > 0) {
+            return false;
+        }
+        applyHistory(++mHistoryCursor);
+        return true;
     }
 
     /**
-     * 设置时间变化的监听事件
+     * 清空历史记录，只保留当前状态
      */
-    public void setOnTimeChangeListener(IOnTimeChangedListener listener) {
-        mListener = listener;
+    private void resetHistory() {
+        mHistoryHead = 0;
+        mHistorySize = 0;
+        mHistoryCursor = -1;
+        if (historyDepth == 0) {
+            mHistory = null;
+            return;
+        }
+        if (mHistory == null || mHistory.length != historyDepth << 1) {
+            mHistory = new long[historyDepth << 1];
+        }
+        commitHistory();
     }
 
     /**
-     * 获取当前的时间段集合值。这些时间段已经按起始时间，从小到大排好了序
-     * @return  时间段集合
+     * 记录当前状态。与当前记录相同则忽略；否则丢弃可重做的记录，超过深度时丢弃最早的记录
      */
-    public synchronized List<TimePart> getTimeSections() {
-        List<TimePart> list = new ArrayList<>();
-        for (TimeSection section : mTimeSections) {
-            if (section != null) {
-                TimePart part = new TimePart();
-                part.start = section.start.minute;
-                part.end = section.end.minute;
-                list.add(part);
+    private void commitHistory() {
+        if (mHistory == null) {
+            return;
+        }
+        long packed = getPackedTimeSections();
+        long starts = getPackedStarts();
+        if (mHistoryCursor >= 0) {
+            int current = historySlot(mHistoryCursor);
+            if (mHistory[current] == packed && mHistory[current + 1] == starts) {
+                return;
             }
         }
+        mHistorySize = mHistoryCursor + 1;
+        if (mHistorySize == historyDepth) {
+            mHistoryHead = (mHistoryHead + 1) % historyDepth;
+            mHistorySize--;
+        }
+        int slot = historySlot(mHistorySize);
+        mHistory[slot] = packed;
+        mHistory[slot + 1] = starts;
+        mHistoryCursor = mHistorySize++;
+    }
 
-        // 按从小到大排序
-        Collections.sort(list, new TimePart.TimePartComparator());
-        return list;
+    private void applyHistory(int cursor) {
+        int slot = historySlot(cursor);
+        setSectionsByPacked(mHistory[slot], mHistory[slot + 1]);
+        refresh();
     }
 
     /**
-     * 设置时间段集合
-     * @param partList  时间段集合
+     * 第index条记录在环形缓冲区中的位置
      */
-    public synchronized void setTimeSections(List<TimePart> partList) {
-        if (partList == null) {
-            return;
+    private int historySlot(int index) {
+        return ((mHistoryHead + index) % historyDepth) << 1;
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState ss = new SavedState(super.onSaveInstanceState());
+        ss.packed = getPackedTimeSections();
+        ss.starts = getPackedStarts();
+        ss.nextSectionId = mNextSectionId;
+        // 压缩值还原出的时间段与当前的一一对应时，只需按还原的顺序保存ID；否则（交叉、包含）逐个保存
+        List<TimePart> parts = PackedSchedule.unpack(ss.packed, ss.starts);
+        int count = 0;
+        for (TimeSection section : mTimeSections) {
+            if (section != null && section.start.minute < section.end.minute) {
+                count++;
+            }
         }
-        if (partList.size() > sectionSum) {
-            throw new IllegalArgumentException("The size of partList must equal or smaller than sectionSum");
+        int[] ids = new int[parts.size()];
+        boolean exact = parts.size() == count;
+        for (int i = 0; exact && i < ids.length; i++) {
+            TimeSection section = findSection(parts.get(i).start, parts.get(i).end);
+            exact = section != null;
+            ids[i] = exact ? section.id : 0;
+        }
+        if (exact) {
+            ss.ids = ids;
+        } else {
+            int[] sections = new int[count * 3];
+            int index = 0;
+            for (TimeSection section : mTimeSections) {
+                if (section != null && section.start.minute < section.end.minute) {
+                    sections[index++] = section.start.minute;
+                    sections[index++] = section.end.minute;
+                    sections[index++] = section.id;
+                }
+            }
+            ss.sections = sections;
         }
+        return ss;
+    }
 
-        for (int i = 0; i < sectionSum; i++) {
-            mTimeSections[i] = null;
+    /**
+     * 查找起止分钟相同的时间段
+     * @return  null：没有
+     */
+    private TimeSection findSection(int start, int end) {
+        for (TimeSection section : mTimeSections) {
+            if (section != null && section.start.minute == start && section.end.minute == end) {
+                return section;
+            }
         }
+        return null;
+    }
 
-        int insertPos = 0;
-        for (TimePart part : partList) {
-            if (part != null) {
-                if (!checkSection(part)) {
-                    throw new IllegalArgumentException("The minutes of part must between 0 and 60, and end is larger than start!");
-                }
-                TimeSection section = new TimeSection();
-                section.start = generateAnchorByMinute(part.start);
-                section.end = generateAnchorByMinute(part.end);
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState ss = (SavedState) state;
+        super.onRestoreInstanceState(ss.getSuperState());
 
-                mTimeSections[insertPos++] = section;
+        // 布局之前恢复时，只恢复分钟值，锚点的坐标在下一次布局时（relayoutSections）再生成
+        if (ss.sections != null) {
+            setSectionsBySaved(ss.sections);
+        } else {
+            setSectionsByPacked(ss.packed, ss.starts);
+            if (ss.ids != null) {
+                for (int i = 0; i < ss.ids.length && i < sectionSum && mTimeSections[i] != null; i++) {
+                    mTimeSections[i].id = ss.ids[i];
+                }
             }
         }
+        // 之后分配的ID不与保存前分配过的重复
+        mNextSectionId = Math.max(mNextSectionId, ss.nextSectionId);
+        resetHistory();
         refresh();
+        requestLayout();
     }
 
     /**
-     * 清除所有时间段
+     * 保存的状态：时间段集合压缩为两个long，加上每个时间段的ID。
+     * 压缩值不能准确表示的（通过{@link #setTimeSections(List)}设置的交叉、包含的时间段），逐个保存起止分钟和ID
      */
-    public synchronized void clearTimeSections(){
-        for (int i = 0; i < mTimeSections.length; i++) {
-            mTimeSections[i] = null;
+    static class SavedState extends BaseSavedState {
+        /**
+         * 每一分钟是否被选中，见{@link PackedSchedule}
+         */
+        long packed;
+        /**
+         * 每个时间段的起始分钟，用于分开相接的时间段
+         */
+        long starts;
+        /**
+         * 下一个分配的ID
+         */
+        int nextSectionId;
+        /**
+         * 由packed、starts还原出的时间段（按起始分钟排序）的ID；sections不为null时为null
+         */
+        int[] ids;
+        /**
+         * 压缩值不能准确表示时，每个时间段的起始分钟、终止分钟、ID依次排列；否则为null
+         */
+        int[] sections;
+
+        SavedState(Parcelable superState) {
+            super(superState);
         }
-        refresh();
+
+        private SavedState(Parcel in) {
+            super(in);
+            packed = in.readLong();
+            starts = in.readLong();
+            nextSectionId = in.readInt();
+            ids = in.createIntArray();
+            sections = in.createIntArray();
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeLong(packed);
+            out.writeLong(starts);
+            out.writeInt(nextSectionId);
+            out.writeIntArray(ids);
+            out.writeIntArray(sections);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
     }
 
     /**
@@ -1267,10 +2830,230 @@ public class RingTimeSelectView extends View {
         return part.start < part.end && part.start >= MIN_MINUTE && part.end <= MAX_MINUTE;
     }
 
+    /**
+     * 无障碍辅助：每个时间段有起始锚点、终止锚点、圆弧三个虚拟节点
+     *  虚拟节点ID：锚点 = 时间段索引 * 2 + (0-起始，1-终止)，与{@link #findAnchorIndexByLocation(float, float)}一致；
+     *             圆弧 = sectionSum * 2 + 时间段索引
+     *  节点的范围和描述按时间段缓存，只有该时间段的分钟变化或重新布局后，才重新计算
+     */
+    private class AccessHelper extends ExploreByTouchHelper {
+        /**
+         * 缓存的节点范围、描述，按虚拟节点ID索引
+         */
+        private final Rect[] mBounds;
+        private final CharSequence[] mDescriptions;
+        /**
+         * 生成缓存时，时间段的起止分钟，按时间段索引。-1：没有缓存（或时间段不存在）
+         */
+        private final int[] mCachedStart, mCachedEnd;
+        /**
+         * 按起始分钟排序后的时间段索引，用于确定节点的遍历顺序
+         */
+        private final int[] mOrder;
+        private final Rect mEmptyBounds = new Rect();
+
+        AccessHelper() {
+            super(RingTimeSelectView.this);
+            int nodeSum = sectionSum * 3;
+            mBounds = new Rect[nodeSum];
+            mDescriptions = new CharSequence[nodeSum];
+            for (int i = 0; i < nodeSum; i++) {
+                mBounds[i] = new Rect();
+            }
+            mCachedStart = new int[sectionSum];
+            mCachedEnd = new int[sectionSum];
+            mOrder = new int[sectionSum];
+            Arrays.fill(mCachedStart, -1);
+            Arrays.fill(mCachedEnd, -1);
+        }
+
+        /**
+         * 清除所有缓存，如布局变化后
+         * @param notify    是否通知无障碍服务
+         */
+        void invalidateCache(boolean notify) {
+            Arrays.fill(mCachedStart, -1);
+            Arrays.fill(mCachedEnd, -1);
+            if (notify) {
+                invalidateRoot();
+            }
+        }
+
+        /**
+         * 时间段变化后，只更新分钟有变化的时间段的节点，并通知无障碍服务
+         */
+        void onSectionsChanged() {
+            boolean structureChanged = false;
+            for (int i = 0; i < sectionSum; i++) {
+                TimeSection section = mTimeSections[i];
+                int start = section == null ? -1 : section.start.minute;
+                int end = section == null ? -1 : section.end.minute;
+                if (start == mCachedStart[i] && end == mCachedEnd[i]) {
+                    continue;
+                }
+                if (section == null || mCachedStart[i] == -1) {
+                    // 节点增加或减少
+                    structureChanged = true;
+                    ensureNodes(i);
+                } else {
+                    ensureNodes(i);
+                    invalidateVirtualView(i << 1);
+                    invalidateVirtualView((i << 1) + 1);
+                    invalidateVirtualView((sectionSum << 1) + i);
+                }
+            }
+            if (structureChanged) {
+                invalidateRoot();
+            }
+        }
+
+        /**
+         * 确保时间段的节点缓存是最新的
+         * @return  false-时间段不存在
+         */
+        private boolean ensureNodes(int index) {
+            TimeSection section = mTimeSections[index];
+            if (section == null) {
+                mCachedStart[index] = mCachedEnd[index] = -1;
+                return false;
+            }
+            if (mCachedStart[index] == section.start.minute && mCachedEnd[index] == section.end.minute) {
+                return true;
+            }
+
+            int startId = index << 1;
+            int endId = startId + 1;
+            int arcId = (sectionSum << 1) + index;
+            setAnchorBounds(section.start, mBounds[startId]);
+            setAnchorBounds(section.end, mBounds[endId]);
+            setArcBounds(section, mBounds[arcId]);
+            mDescriptions[startId] = getContext().getString(R.string.rtv_accessibility_anchor, mStyle.anchorStartText, section.start.minute);
+            mDescriptions[endId] = getContext().getString(R.string.rtv_accessibility_anchor, mStyle.anchorEndText, section.end.minute);
+            mDescriptions[arcId] = getContext().getString(R.string.rtv_accessibility_section, section.start.minute, section.end.minute);
+
+            mCachedStart[index] = section.start.minute;
+            mCachedEnd[index] = section.end.minute;
+            return true;
+        }
+
+        private void setAnchorBounds(TimeSection.TimeAnchor anchor, Rect out) {
+            out.set((int) (anchor.x - mAnchorRadius), (int) (anchor.y - mAnchorRadius)
+                    , (int) Math.ceil(anchor.x + mAnchorRadius), (int) Math.ceil(anchor.y + mAnchorRadius));
+        }
+
+        /**
+         * 圆弧的范围：起止点，加上圆弧经过的90°、180°、270°方向上的极值点，再向外扩展圆环的半宽
+         *  圆弧不会跨过0°，所以0°方向的极值点只可能是起止点
+         */
+        private void setArcBounds(TimeSection section, Rect out) {
+            float left = Math.min(section.start.x, section.end.x);
+            float right = Math.max(section.start.x, section.end.x);
+            float top = Math.min(section.start.y, section.end.y);
+            float bottom = Math.max(section.start.y, section.end.y);
+            for (int angle = 90; angle < 360; angle += 90) {
+                if (angle > section.start.angle && angle < section.end.angle) {
+                    switch (angle) {
+                        case 90:
+                            right = centerX + mRingRadius;
+                            break;
+                        case 180:
+                            bottom = centerY + mRingRadius;
+                            break;
+                        case 270:
+                            left = centerX - mRingRadius;
+                            break;
+                        default: break;
+                    }
+                }
+            }
+            float ringHalfWidth = mStyle.ringWidth * .5f;
+            out.set((int) (left - ringHalfWidth), (int) (top - ringHalfWidth)
+                    , (int) Math.ceil(right + ringHalfWidth), (int) Math.ceil(bottom + ringHalfWidth));
+        }
+
+        @Override
+        protected int getVirtualViewAt(float x, float y) {
+            int anchorIndex = findAnchorIndexByLocation(x, y);
+            if (anchorIndex != -1) {
+                return anchorIndex;
+            }
+            if (isInRingArea(x, y)) {
+                int index = findSectionByMinute(getMinuteByPoint(x, y));
+                if (index != -1) {
+                    return (sectionSum << 1) + index;
+                }
+            }
+            return INVALID_ID;
+        }
+
+        @Override
+        protected void getVisibleVirtualViews(List<Integer> virtualViewIds) {
+            // 按起始分钟排序（插入排序），依次是：圆弧、起始锚点、终止锚点
+            int count = 0;
+            for (int i = 0; i < sectionSum; i++) {
+                if (mTimeSections[i] == null) {
+                    continue;
+                }
+                int j = count - 1;
+                while (j >= 0 && mTimeSections[mOrder[j]].start.minute > mTimeSections[i].start.minute) {
+                    mOrder[j + 1] = mOrder[j];
+                    j--;
+                }
+                mOrder[j + 1] = i;
+                count++;
+            }
+            for (int i = 0; i < count; i++) {
+                int index = mOrder[i];
+                virtualViewIds.add((sectionSum << 1) + index);
+                virtualViewIds.add(index << 1);
+                virtualViewIds.add((index << 1) + 1);
+            }
+        }
+
+        @Override
+        protected void onPopulateNodeForVirtualView(int virtualViewId, AccessibilityNodeInfoCompat node) {
+            boolean isAnchor = virtualViewId < (sectionSum << 1);
+            int index = isAnchor ? virtualViewId >> 1 : virtualViewId - (sectionSum << 1);
+            if (!ensureNodes(index)) {
+                // 时间段已不存在
+                node.setContentDescription("");
+                node.setBoundsInParent(mEmptyBounds);
+                return;
+            }
+            node.setContentDescription(mDescriptions[virtualViewId]);
+            node.setBoundsInParent(mBounds[virtualViewId]);
+            if (isAnchor) {
+                node.setScrollable(true);
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD);
+                node.addAction(AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD);
+            }
+        }
+
+        @Override
+        protected boolean onPerformActionForVirtualView(int virtualViewId, int action, Bundle arguments) {
+            if (mReadOnly || virtualViewId >= (sectionSum << 1)) {
+                return false;
+            }
+            int minutes;
+            if (action == AccessibilityNodeInfoCompat.ACTION_SCROLL_FORWARD) {
+                minutes = 1;
+            } else if (action == AccessibilityNodeInfoCompat.ACTION_SCROLL_BACKWARD) {
+                minutes = -1;
+            } else {
+                return false;
+            }
+            return moveAnchorBy(virtualViewId >> 1, (virtualViewId & 0x01) == 0, minutes);
+        }
+    }
+
     /**
      * 时间段类：[起始点, 终止点]
      */
-    private static class TimeSection{
+    static class TimeSection{
+        /**
+         * ID，在本控件中唯一且不变；0表示无ID（仅用于绘制的时间段）
+         */
+        int id;
         /**
          * 起始锚点
          */
@@ -1283,7 +3066,7 @@ public class RingTimeSelectView extends View {
         /**
          * 时间点类
          */
-        private static class TimeAnchor {
+        static class TimeAnchor {
             /**
              * 分钟
              */
@@ -1348,7 +3131,115 @@ public class RingTimeSelectView extends View {
 
     }
 
+    /**
+     * 指标统计接口，都在主线程回调
+     */
+    public interface IMetricsSink {
+        /**
+         * 触摸事件时间到绘制该变化的帧开始时间的延迟
+         * @param nanos     延迟（ns）
+         */
+        void onTouchToFrameLatency(long nanos);
+
+        /**
+         * 抬起时合并时间段的耗时
+         * @param nanos     耗时（ns）
+         */
+        void onMergeDuration(long nanos);
+
+        /**
+         * 一次拖动手势结束
+         * @param rejectedMoves     因越界、跳跃或约束而被拒绝的移动次数
+         */
+        void onGestureFinished(int rejectedMoves);
+    }
+
+    /**
+     * 时间段增量变化监听接口
+     */
+    public interface IOnSectionDeltaListener {
+        /**
+         * 时间段变化时，回调与上一次回调之间的增量
+         * @param view      本控件
+         * @param delta     增量。控件会复用该对象及其中的时间段，只在回调中有效，需要保留时请复制
+         */
+        void onDelta(RingTimeSelectView view, SectionDelta delta);
+    }
+
+    /**
+     * 时间段的增量变化，时间段用ID{@link TimePart#getId()}标识
+     */
+    public static class SectionDelta {
+        private final List<TimePart> inserted = new ArrayList<>();
+        private final List<TimePart> resized = new ArrayList<>();
+        private int[] removedIds;
+        private int[] mergedIds;
+        private int[] mergeTargetIds;
+        /** 复用的时间段，每个时间段在一次增量中最多出现一次 */
+        private final List<TimePart> pool = new ArrayList<>();
+        private int poolUsed;
+
+        /**
+         * 清空，准备复用
+         */
+        void reset() {
+            inserted.clear();
+            resized.clear();
+            poolUsed = 0;
+        }
+
+        /**
+         * 从复用池中取一个时间段并赋值，池不够时才创建
+         */
+        TimePart obtainPart(int id, int start, int end) {
+            if (poolUsed == pool.size()) {
+                pool.add(new TimePart());
+            }
+            TimePart part = pool.get(poolUsed++);
+            part.id = id;
+            part.start = start;
+            part.end = end;
+            return part;
+        }
+
+        /**
+         * 新增的时间段
+         */
+        public List<TimePart> getInserted() {
+            return inserted;
+        }
+
+        /**
+         * 起止分钟有变化的时间段（新的起止分钟），包括合并了其他时间段的
+         */
+        public List<TimePart> getResized() {
+            return resized;
+        }
+
+        /**
+         * 删除的时间段ID，不包括被合并的
+         */
+        public int[] getRemovedIds() {
+            return removedIds;
+        }
+
+        /**
+         * 被合并的时间段ID，与{@link #getMergeTargetIds()}一一对应
+         */
+        public int[] getMergedIds() {
+            return mergedIds;
+        }
+
+        /**
+         * 合并后保留的时间段ID：getMergedIds()[i]被合并到getMergeTargetIds()[i]
+         */
+        public int[] getMergeTargetIds() {
+            return mergeTargetIds;
+        }
+    }
+
     public static class TimePart {
+        private int id;
         private int start;
         private int end;
 
@@ -1359,6 +3250,19 @@ public class RingTimeSelectView extends View {
             this.end = end;
         }
 
+        TimePart(int id, int start, int end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * 时间段的ID，由控件分配，在该控件中唯一且不变；自行创建的时间段为0
+         */
+        public int getId() {
+            return id;
+        }
+
         public int getStart() {
             return start;
         }
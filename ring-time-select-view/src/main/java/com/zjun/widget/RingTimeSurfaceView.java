@@ -0,0 +1,407 @@
+package com.zjun.widget;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.Surface;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * RingTimeSurfaceView
+ *  在独立的渲染线程中处理触摸和绘制的时间选择控件，主线程繁忙时拖动仍然流畅
+ *
+ * @author Ralap
+ * @description 时间段模型是一个不附加到窗口的{@link RingTimeSelectView}，与之共用触摸、合并、约束等全部逻辑，支持相同的xml属性：
+ *          1、触摸事件复制后转发到渲染线程，由模型处理；模型变化后，在渲染线程的下一帧（Choreographer）绘制到Surface上，
+ *              多个事件合并为一帧
+ *          2、时间变化通过{@link ExecutorTimeChangedListener}异步回调到主线程，只保留最新；
+ *              {@link #getTimeSections()}返回最近一次回调到主线程的时间段
+ *          3、Surface销毁时结束渲染线程，重新创建时再启动，模型保留。还未处理的设置和触摸事件在主线程中按顺序处理完，
+ *              再向模型发送ACTION_CANCEL结束未完成的拖动
+ *          不支持过渡动画、实时时间、覆盖热度和无障碍。尺寸不使用wrap_content，请指定具体大小或match_parent。
+ *          公开方法只能在主线程调用
+ *
+ * @date 2026-10-18
+ */
+public class RingTimeSurfaceView extends SurfaceView implements SurfaceHolder.Callback {
+
+    private static final String THREAD_NAME = "RingTimeRender";
+
+    private static final int MSG_SIZE = 1;
+    private static final int MSG_PENDING = 2;
+
+    /**
+     * 时间段模型。渲染线程运行时，只在渲染线程中使用；否则在主线程中使用
+     */
+    private final RingTimeSelectView mModel;
+
+    /**
+     * 交给渲染线程、还未执行的任务：设置和触摸事件，按调用顺序执行。用自身加锁。
+     *  不放在渲染线程的消息队列中：结束渲染线程时消息会被丢弃，这里的任务则在主线程中执行完
+     */
+    private final ArrayDeque<Runnable> mPendingTasks = new ArrayDeque<>();
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Executor mMainExecutor = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            mMainHandler.post(command);
+        }
+    };
+    /**
+     * 主线程：外部的监听、最近一次回调的时间段
+     */
+    private RingTimeSelectView.IOnTimeChangedListener mListener;
+    private List<RingTimeSelectView.TimePart> mPublished = Collections.emptyList();
+    private int mSurfaceColor = Color.WHITE;
+
+    /**
+     * 渲染线程，Surface存在期间运行
+     */
+    private HandlerThread mRenderThread;
+    private Handler mRenderHandler;
+    /**
+     * 渲染线程：帧回调、是否已请求下一帧、Surface的尺寸
+     */
+    private Choreographer mChoreographer;
+    private boolean mFramePending;
+    private int mWidth, mHeight;
+
+    private final Choreographer.FrameCallback mFrame = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFramePending = false;
+            render();
+        }
+    };
+
+    private final Handler.Callback mRenderCallback = new Handler.Callback() {
+        @Override
+        public boolean handleMessage(Message msg) {
+            switch (msg.what) {
+                case MSG_SIZE:
+                    mWidth = msg.arg1;
+                    mHeight = msg.arg2;
+                    mModel.measure(MeasureSpec.makeMeasureSpec(mWidth, MeasureSpec.EXACTLY)
+                            , MeasureSpec.makeMeasureSpec(mHeight, MeasureSpec.EXACTLY));
+                    mModel.layout(0, 0, mWidth, mHeight);
+                    requestRender();
+                    return true;
+                case MSG_PENDING:
+                    runPendingTasks();
+                    requestRender();
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    };
+
+    public RingTimeSurfaceView(Context context) {
+        this(context, null);
+    }
+
+    public RingTimeSurfaceView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public RingTimeSurfaceView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        mModel = new RingTimeSelectView(context, attrs, defStyleAttr);
+        mModel.setOnTimeChangeListener(new PublishingListener(), mMainExecutor);
+        mPublished = Collections.unmodifiableList(mModel.getTimeSections());
+        getHolder().addCallback(this);
+    }
+
+    /**
+     * 设置时间变化的监听，在主线程回调。onChanged的view参数为null
+     */
+    public void setOnTimeChangeListener(RingTimeSelectView.IOnTimeChangedListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * 获取最近一次回调到主线程的时间段，已排序，不可修改
+     */
+    public List<RingTimeSelectView.TimePart> getTimeSections() {
+        return mPublished;
+    }
+
+    /**
+     * 设置时间段集合，在渲染线程中生效，之后异步回调。
+     * 集合在调用时检查并复制，之后的修改不影响模型
+     *
+     * @throws IllegalArgumentException 时间段不合法，或数量超过sectionSum
+     */
+    public void setTimeSections(List<RingTimeSelectView.TimePart> partList) {
+        if (partList == null) {
+            return;
+        }
+        final List<RingTimeSelectView.TimePart> copy = new ArrayList<>(partList.size());
+        for (RingTimeSelectView.TimePart part : partList) {
+            if (part != null) {
+                PackedSchedule.checkSection(part.getStart(), part.getEnd());
+                copy.add(new RingTimeSelectView.TimePart(part.getId(), part.getStart(), part.getEnd()));
+            }
+        }
+        if (copy.size() > mModel.getSectionSum()) {
+            throw new IllegalArgumentException("The size of partList must equal or smaller than sectionSum");
+        }
+        runOnRenderThread(new Runnable() {
+            @Override
+            public void run() {
+                mModel.setTimeSections(copy);
+            }
+        });
+    }
+
+    public void setDialStyle(final DialStyle style) {
+        runOnRenderThread(new Runnable() {
+            @Override
+            public void run() {
+                mModel.setDialStyle(style);
+                if (mWidth > 0) {
+                    // 模型不附加到窗口，requestLayout不会生效，需重新测量布局
+                    mModel.measure(MeasureSpec.makeMeasureSpec(mWidth, MeasureSpec.EXACTLY)
+                            , MeasureSpec.makeMeasureSpec(mHeight, MeasureSpec.EXACTLY));
+                    mModel.layout(0, 0, mWidth, mHeight);
+                }
+            }
+        });
+    }
+
+    public void setReadOnly(final boolean readOnly) {
+        runOnRenderThread(new Runnable() {
+            @Override
+            public void run() {
+                mModel.setReadOnly(readOnly);
+            }
+        });
+    }
+
+    /**
+     * 设置Surface的背景色，默认白色
+     */
+    public void setSurfaceColor(final int color) {
+        runOnRenderThread(new Runnable() {
+            @Override
+            public void run() {
+                mSurfaceColor = color;
+            }
+        });
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        Handler handler = mRenderHandler;
+        if (handler == null) {
+            return false;
+        }
+        // 原事件在返回后会被回收，转发副本，由处理它的线程回收
+        enqueue(handler, new TouchTask(MotionEvent.obtain(event)));
+        return true;
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        mRenderThread = new HandlerThread(THREAD_NAME, Process.THREAD_PRIORITY_DISPLAY);
+        mRenderThread.start();
+        mRenderHandler = new Handler(mRenderThread.getLooper(), mRenderCallback);
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+        mRenderHandler.obtainMessage(MSG_SIZE, width, height, null).sendToTarget();
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        // 返回后不能再使用Surface：结束渲染线程并等待，之后模型回到主线程使用
+        mRenderHandler = null;
+        mRenderThread.quit();
+        try {
+            mRenderThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        mRenderThread = null;
+        mChoreographer = null;
+        mFramePending = false;
+
+        // 模型已回到主线程：执行完还未执行的设置和触摸事件，再取消被打断的拖动，清除触摸状态
+        runPendingTasks();
+        long now = SystemClock.uptimeMillis();
+        MotionEvent cancel = MotionEvent.obtain(now, now, MotionEvent.ACTION_CANCEL, 0, 0, 0);
+        mModel.onTouchEvent(cancel);
+        cancel.recycle();
+    }
+
+    /**
+     * 按顺序执行交给渲染线程的任务。在渲染线程中，或渲染线程结束后在主线程中调用
+     */
+    private void runPendingTasks() {
+        while (true) {
+            Runnable task;
+            synchronized (mPendingTasks) {
+                task = mPendingTasks.pollFirst();
+            }
+            if (task == null) {
+                return;
+            }
+            task.run();
+        }
+    }
+
+    /**
+     * 渲染线程运行时，交给渲染线程执行并请求重绘；否则直接执行，等Surface创建后绘制
+     */
+    private void runOnRenderThread(Runnable action) {
+        Handler handler = mRenderHandler;
+        if (handler == null) {
+            action.run();
+            return;
+        }
+        enqueue(handler, action);
+    }
+
+    /**
+     * 加入待执行的任务，并通知渲染线程。多个任务在一条消息中一起执行，只请求一帧
+     */
+    private void enqueue(Handler handler, Runnable task) {
+        synchronized (mPendingTasks) {
+            mPendingTasks.addLast(task);
+        }
+        handler.sendEmptyMessage(MSG_PENDING);
+    }
+
+    /**
+     * 渲染线程：请求在下一帧绘制，一帧只绘制一次
+     */
+    private void requestRender() {
+        if (mFramePending || mWidth == 0) {
+            return;
+        }
+        if (mChoreographer == null) {
+            // 每个Looper线程有自己的Choreographer
+            mChoreographer = Choreographer.getInstance();
+        }
+        mFramePending = true;
+        mChoreographer.postFrameCallback(mFrame);
+    }
+
+    /**
+     * 渲染线程：把模型绘制到Surface上
+     */
+    private void render() {
+        Canvas canvas = lockCanvas();
+        if (canvas == null) {
+            return;
+        }
+        try {
+            canvas.drawColor(mSurfaceColor);
+            mModel.draw(canvas);
+        } finally {
+            unlockCanvasAndPost(canvas);
+        }
+    }
+
+    /**
+     * 渲染线程：锁定Surface的Canvas。API 23以上使用硬件加速的Canvas
+     *
+     * @return  null：Surface不可用
+     */
+    Canvas lockCanvas() {
+        SurfaceHolder holder = getHolder();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            Surface surface = holder.getSurface();
+            return surface == null || !surface.isValid() ? null : surface.lockHardwareCanvas();
+        }
+        return holder.lockCanvas();
+    }
+
+    /**
+     * 渲染线程：提交{@link #lockCanvas()}锁定的Canvas
+     */
+    void unlockCanvasAndPost(Canvas canvas) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            getHolder().getSurface().unlockCanvasAndPost(canvas);
+        } else {
+            getHolder().unlockCanvasAndPost(canvas);
+        }
+    }
+
+    /**
+     * 转发的触摸事件副本：交给模型处理后回收
+     */
+    private final class TouchTask implements Runnable {
+        private final MotionEvent mEvent;
+
+        TouchTask(MotionEvent event) {
+            mEvent = event;
+        }
+
+        @Override
+        public void run() {
+            mModel.onTouchEvent(mEvent);
+            mEvent.recycle();
+        }
+    }
+
+    /**
+     * 主线程：记录最近的时间段，再转给外部的监听
+     */
+    private final class PublishingListener implements RingTimeSelectView.IOnTimeChangedListener {
+        @Override
+        public void onChanged(RingTimeSelectView view, List<RingTimeSelectView.TimePart> timePartList) {
+            mPublished = timePartList;
+            if (mListener != null) {
+                mListener.onChanged(null, timePartList);
+            }
+        }
+
+        @Override
+        public void onInsert(RingTimeSelectView.TimePart part) {
+            if (mListener != null) {
+                mListener.onInsert(part);
+            }
+        }
+
+        @Override
+        public void onSelectStart(int minute) {
+            if (mListener != null) {
+                mListener.onSelectStart(minute);
+            }
+        }
+
+        @Override
+        public void onSelectChanged(int minute) {
+            if (mListener != null) {
+                mListener.onSelectChanged(minute);
+            }
+        }
+
+        @Override
+        public void onSelectFinished() {
+            if (mListener != null) {
+                mListener.onSelectFinished();
+            }
+        }
+    }
+}
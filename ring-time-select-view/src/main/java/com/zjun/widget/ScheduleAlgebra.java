@@ -0,0 +1,306 @@
+package com.zjun.widget;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ScheduleAlgebra
+ *  压缩时间段集合{@link PackedSchedule}的集合运算：并、交、差、补，以及覆盖次数统计
+ *
+ * @author Ralap
+ * @description 所有运算都直接在long上进行，不创建{@link RingTimeSelectView.TimePart}；
+ *          需要显示时，用{@link #toParts(long)}转换；运算结果的段数可能超过控件的sectionSum，
+ *          设置前需用{@link PackedSchedule#sectionCount(long)}与{@link RingTimeSelectView#getSectionSum()}比较。
+ *          1、单个运算：{@link #union(long, long)}、{@link #intersect(long, long)}、{@link #difference(long, long)}、{@link #complement(long)}
+ *          2、批量运算：{@link #union(long[], int, int)}、{@link #intersect(long[], int, int)}、{@link #coverage(long[], int, int)}，
+ *              数量超过{@link #PARALLEL_THRESHOLD}时，分块后在线程池中并行计算（minSdk为16，不使用API 21的ForkJoinPool）
+ *          3、覆盖次数用按位计数器统计：每一位平面表示计数的一个二进制位，每个时间段集合平均只需两次位运算
+ *
+ * @date 2026-10-18
+ */
+public final class ScheduleAlgebra {
+
+    /**
+     * 批量运算时，超过该数量才并行计算
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    /**
+     * 计数器的位平面数，可统计到2^31 - 1次
+     */
+    private static final int COUNTER_PLANES = 31;
+
+    private static volatile ExecutorService sExecutor;
+
+    private ScheduleAlgebra() {
+    }
+
+    /**
+     * 并集
+     */
+    public static long union(long a, long b) {
+        return (a | b) & PackedSchedule.MINUTE_MASK;
+    }
+
+    /**
+     * 交集，如：用户的时间段与维护时间窗口的重叠部分
+     */
+    public static long intersect(long a, long b) {
+        return a & b & PackedSchedule.MINUTE_MASK;
+    }
+
+    /**
+     * 差集：在a中但不在b中的分钟
+     */
+    public static long difference(long a, long b) {
+        return a & ~b & PackedSchedule.MINUTE_MASK;
+    }
+
+    /**
+     * 补集：0~60min中未选中的分钟
+     */
+    public static long complement(long a) {
+        return ~a & PackedSchedule.MINUTE_MASK;
+    }
+
+    /**
+     * 转换为时间段集合，已按起始时间排好序。
+     * 不限制段数：并集、补集等可能得到比控件sectionSum更多的时间段，
+     * 直接传给{@link RingTimeSelectView#setTimeSections(List)}会抛出IllegalArgumentException
+     */
+    public static List<RingTimeSelectView.TimePart> toParts(long packed) {
+        return PackedSchedule.unpack(packed);
+    }
+
+    /**
+     * 批量求并集
+     *
+     * @throws IllegalArgumentException 有压缩值使用了低60位以外的位
+     */
+    public static long union(final long[] schedules, int offset, int length) {
+        checkRange(schedules, offset, length);
+        if (length < PARALLEL_THRESHOLD) {
+            return unionRange(schedules, offset, offset + length);
+        }
+        long result = PackedSchedule.EMPTY;
+        for (Long part : invokeChunks(schedules, offset, length, new ChunkTask<Long>() {
+            @Override
+            public Long run(int from, int to) {
+                return unionRange(schedules, from, to);
+            }
+        })) {
+            result |= part;
+        }
+        return result;
+    }
+
+    /**
+     * 批量求交集，length为0时返回{@link PackedSchedule#EMPTY}
+     *
+     * @throws IllegalArgumentException 有压缩值使用了低60位以外的位
+     */
+    public static long intersect(final long[] schedules, int offset, int length) {
+        checkRange(schedules, offset, length);
+        if (length == 0) {
+            return PackedSchedule.EMPTY;
+        }
+        if (length < PARALLEL_THRESHOLD) {
+            return intersectRange(schedules, offset, offset + length);
+        }
+        long result = PackedSchedule.MINUTE_MASK;
+        for (Long part : invokeChunks(schedules, offset, length, new ChunkTask<Long>() {
+            @Override
+            public Long run(int from, int to) {
+                return intersectRange(schedules, from, to);
+            }
+        })) {
+            result &= part;
+        }
+        return result;
+    }
+
+    /**
+     * 统计每一分钟被多少个时间段集合覆盖
+     *
+     * @return  长度为60的数组，第m个元素为[m, m+1)被覆盖的次数
+     * @throws IllegalArgumentException 有压缩值使用了低60位以外的位
+     */
+    public static int[] coverage(final long[] schedules, int offset, int length) {
+        checkRange(schedules, offset, length);
+        if (length < PARALLEL_THRESHOLD) {
+            return coverageRange(schedules, offset, offset + length);
+        }
+        int[] result = new int[PackedSchedule.MINUTES];
+        for (int[] part : invokeChunks(schedules, offset, length, new ChunkTask<int[]>() {
+            @Override
+            public int[] run(int from, int to) {
+                return coverageRange(schedules, from, to);
+            }
+        })) {
+            for (int m = 0; m < PackedSchedule.MINUTES; m++) {
+                result[m] += part[m];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 被至少k个时间段集合覆盖的分钟
+     *
+     * @param coverage  {@link #coverage(long[], int, int)}的结果
+     * @param k         最少覆盖次数
+     */
+    public static long atLeast(int[] coverage, int k) {
+        if (coverage == null || coverage.length != PackedSchedule.MINUTES) {
+            throw new IllegalArgumentException("The coverage must have " + PackedSchedule.MINUTES + " elements");
+        }
+        long result = PackedSchedule.EMPTY;
+        for (int m = 0; m < PackedSchedule.MINUTES; m++) {
+            if (coverage[m] >= k) {
+                result |= 1L << m;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 被至少k个时间段集合覆盖的分钟
+     */
+    public static long atLeast(long[] schedules, int offset, int length, int k) {
+        return atLeast(coverage(schedules, offset, length), k);
+    }
+
+    private static long unionRange(long[] schedules, int from, int to) {
+        long result = PackedSchedule.EMPTY;
+        for (int i = from; i < to; i++) {
+            result |= schedules[i];
+        }
+        PackedSchedule.checkPacked(result);
+        return result;
+    }
+
+    private static long intersectRange(long[] schedules, int from, int to) {
+        long result = PackedSchedule.MINUTE_MASK;
+        long invalid = PackedSchedule.EMPTY;
+        for (int i = from; i < to; i++) {
+            result &= schedules[i];
+            invalid |= schedules[i];
+        }
+        PackedSchedule.checkPacked(invalid);
+        return result;
+    }
+
+    /**
+     * 按位计数器：planes[k]的第m位是第m分钟计数的第k个二进制位。
+     * 加一个时间段集合就是一次逐位的进位加法，进位为0时提前结束
+     */
+    private static int[] coverageRange(long[] schedules, int from, int to) {
+        long[] planes = new long[COUNTER_PLANES];
+        int used = 0;
+        long invalid = PackedSchedule.EMPTY;
+        for (int i = from; i < to; i++) {
+            long carry = schedules[i];
+            invalid |= carry;
+            for (int k = 0; carry != 0; k++) {
+                long plane = planes[k];
+                planes[k] = plane ^ carry;
+                carry &= plane;
+                if (k >= used) {
+                    used = k + 1;
+                }
+            }
+        }
+        PackedSchedule.checkPacked(invalid);
+
+        int[] counts = new int[PackedSchedule.MINUTES];
+        for (int k = 0; k < used; k++) {
+            long plane = planes[k];
+            while (plane != 0) {
+                counts[Long.numberOfTrailingZeros(plane)] += 1 << k;
+                plane &= plane - 1;
+            }
+        }
+        return counts;
+    }
+
+    private static void checkRange(long[] schedules, int offset, int length) {
+        if (schedules == null) {
+            throw new NullPointerException("schedules == null");
+        }
+        if (offset < 0 || length < 0 || offset > schedules.length - length) {
+            throw new ArrayIndexOutOfBoundsException("offset=" + offset + ", length=" + length
+                    + ", array length=" + schedules.length);
+        }
+    }
+
+    /**
+     * 分块任务
+     */
+    private interface ChunkTask<T> {
+        T run(int from, int to);
+    }
+
+    /**
+     * 按CPU核数分块，在共享线程池中执行，并等待所有结果
+     */
+    private static <T> List<T> invokeChunks(long[] schedules, int offset, int length, final ChunkTask<T> task) {
+        int chunks = Math.min(Runtime.getRuntime().availableProcessors(), length / (PARALLEL_THRESHOLD / 2));
+        chunks = Math.max(chunks, 1);
+        List<Callable<T>> calls = new ArrayList<>(chunks);
+        int chunkSize = (length + chunks - 1) / chunks;
+        for (int from = offset, end = offset + length; from < end; from += chunkSize) {
+            final int start = from;
+            final int stop = Math.min(from + chunkSize, end);
+            calls.add(new Callable<T>() {
+                @Override
+                public T call() {
+                    return task.run(start, stop);
+                }
+            });
+        }
+
+        List<T> results = new ArrayList<>(calls.size());
+        try {
+            for (Future<T> future : getExecutor().invokeAll(calls)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while computing schedules", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        return results;
+    }
+
+    private static ExecutorService getExecutor() {
+        if (sExecutor == null) {
+            synchronized (ScheduleAlgebra.class) {
+                if (sExecutor == null) {
+                    sExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+                        private final AtomicInteger mCount = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "ScheduleAlgebra #" + mCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+                }
+            }
+        }
+        return sExecutor;
+    }
+}
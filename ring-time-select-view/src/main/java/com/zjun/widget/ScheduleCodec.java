@@ -0,0 +1,287 @@
+package com.zjun.widget;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * ScheduleCodec
+ *  时间段集合的二进制编解码，用于批量导入、导出
+ *
+ * @author Ralap
+ * @description 每个时间段集合编码为固定8字节（大端序）的压缩值{@link PackedSchedule}，只使用低60位。
+ *          1、流式编码{@link Encoder}、解码{@link Decoder}，内部使用固定的缓冲区，每条记录不创建对象
+ *          2、{@link ByteBuffer}的编解码，见{@link #encode(ByteBuffer, long)}、{@link #decode(ByteBuffer)}
+ *          3、校验规则与{@link RingTimeSelectView#setTimeSections(List)}一致，非法数据抛出异常
+ *
+ * @date 2026-10-18
+ */
+public final class ScheduleCodec {
+
+    /**
+     * 每条记录的字节数
+     */
+    public static final int RECORD_SIZE = 8;
+
+    /**
+     * 流的默认缓冲区大小（字节）
+     */
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private ScheduleCodec() {
+    }
+
+    /**
+     * 编码一条记录到ByteBuffer，字节序使用ByteBuffer的设置（默认大端序）
+     *
+     * @throws IllegalArgumentException 压缩值使用了低60位以外的位
+     */
+    public static void encode(ByteBuffer buffer, long packed) {
+        PackedSchedule.checkPacked(packed);
+        buffer.putLong(packed);
+    }
+
+    /**
+     * 批量编码到ByteBuffer
+     *
+     * @throws IllegalArgumentException 压缩值使用了低60位以外的位，此前的记录已写入
+     */
+    public static void encode(ByteBuffer buffer, long[] src, int offset, int length) {
+        for (int i = offset, end = offset + length; i < end; i++) {
+            encode(buffer, src[i]);
+        }
+    }
+
+    /**
+     * 从ByteBuffer解码一条记录
+     *
+     * @throws IllegalArgumentException 记录使用了低60位以外的位
+     * @throws BufferUnderflowException 剩余不足一条记录
+     */
+    public static long decode(ByteBuffer buffer) {
+        long packed = buffer.getLong();
+        PackedSchedule.checkPacked(packed);
+        return packed;
+    }
+
+    /**
+     * 从ByteBuffer批量解码，最多解码length条，或剩余的完整记录数
+     *
+     * @return  解码的记录数
+     * @throws IllegalArgumentException 记录使用了低60位以外的位
+     */
+    public static int decode(ByteBuffer buffer, long[] dst, int offset, int length) {
+        int count = Math.min(length, buffer.remaining() / RECORD_SIZE);
+        for (int i = 0; i < count; i++) {
+            dst[offset + i] = decode(buffer);
+        }
+        return count;
+    }
+
+    /**
+     * 流式编码器。非线程安全
+     */
+    public static final class Encoder implements Flushable, Closeable {
+        private final OutputStream mOut;
+        private final byte[] mBuffer;
+        private int mPosition;
+
+        public Encoder(OutputStream out) {
+            this(out, DEFAULT_BUFFER_SIZE);
+        }
+
+        /**
+         * @param out           输出流
+         * @param bufferSize    缓冲区大小（字节），至少一条记录
+         */
+        public Encoder(OutputStream out, int bufferSize) {
+            if (out == null) {
+                throw new NullPointerException("out == null");
+            }
+            if (bufferSize < RECORD_SIZE) {
+                throw new IllegalArgumentException("The bufferSize must not be smaller than " + RECORD_SIZE);
+            }
+            mOut = out;
+            mBuffer = new byte[bufferSize - bufferSize % RECORD_SIZE];
+        }
+
+        /**
+         * 编码一条压缩的记录
+         *
+         * @throws IllegalArgumentException 压缩值使用了低60位以外的位
+         */
+        public void write(long packed) throws IOException {
+            PackedSchedule.checkPacked(packed);
+            if (mPosition == mBuffer.length) {
+                flushBuffer();
+            }
+            byte[] b = mBuffer;
+            int p = mPosition;
+            b[p] = (byte) (packed >>> 56);
+            b[p + 1] = (byte) (packed >>> 48);
+            b[p + 2] = (byte) (packed >>> 40);
+            b[p + 3] = (byte) (packed >>> 32);
+            b[p + 4] = (byte) (packed >>> 24);
+            b[p + 5] = (byte) (packed >>> 16);
+            b[p + 6] = (byte) (packed >>> 8);
+            b[p + 7] = (byte) packed;
+            mPosition = p + RECORD_SIZE;
+        }
+
+        /**
+         * 编码一个时间段集合
+         *
+         * @throws IllegalArgumentException 时间段不合法
+         */
+        public void write(List<RingTimeSelectView.TimePart> partList) throws IOException {
+            write(PackedSchedule.pack(partList));
+        }
+
+        /**
+         * 批量编码
+         */
+        public void write(long[] src, int offset, int length) throws IOException {
+            for (int i = offset, end = offset + length; i < end; i++) {
+                write(src[i]);
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            if (mPosition > 0) {
+                mOut.write(mBuffer, 0, mPosition);
+                mPosition = 0;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBuffer();
+            mOut.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flushBuffer();
+            } finally {
+                mOut.close();
+            }
+        }
+    }
+
+    /**
+     * 流式解码器。非线程安全
+     */
+    public static final class Decoder implements Closeable {
+        private final InputStream mIn;
+        private final byte[] mBuffer;
+        private int mPosition;
+        private int mLimit;
+
+        public Decoder(InputStream in) {
+            this(in, DEFAULT_BUFFER_SIZE);
+        }
+
+        /**
+         * @param in            输入流
+         * @param bufferSize    缓冲区大小（字节），至少一条记录
+         */
+        public Decoder(InputStream in, int bufferSize) {
+            if (in == null) {
+                throw new NullPointerException("in == null");
+            }
+            if (bufferSize < RECORD_SIZE) {
+                throw new IllegalArgumentException("The bufferSize must not be smaller than " + RECORD_SIZE);
+            }
+            mIn = in;
+            mBuffer = new byte[bufferSize];
+        }
+
+        /**
+         * 是否还有记录
+         *
+         * @throws EOFException 流在一条记录的中间结束
+         */
+        public boolean hasNext() throws IOException {
+            return fill();
+        }
+
+        /**
+         * 解码下一条记录
+         *
+         * @throws EOFException 没有更多的记录，或流在一条记录的中间结束
+         * @throws IOException  记录使用了低60位以外的位
+         */
+        public long next() throws IOException {
+            if (!fill()) {
+                throw new EOFException("No more schedules");
+            }
+            byte[] b = mBuffer;
+            int p = mPosition;
+            long packed = (b[p] & 0xFFL) << 56
+                    | (b[p + 1] & 0xFFL) << 48
+                    | (b[p + 2] & 0xFFL) << 40
+                    | (b[p + 3] & 0xFFL) << 32
+                    | (b[p + 4] & 0xFFL) << 24
+                    | (b[p + 5] & 0xFFL) << 16
+                    | (b[p + 6] & 0xFFL) << 8
+                    | (b[p + 7] & 0xFFL);
+            mPosition = p + RECORD_SIZE;
+            if (!PackedSchedule.isValid(packed)) {
+                throw new IOException("Invalid schedule: the packed value must only use the lowest 60 bits");
+            }
+            return packed;
+        }
+
+        /**
+         * 批量解码，最多length条
+         *
+         * @return  解码的记录数，流结束时返回-1
+         */
+        public int read(long[] dst, int offset, int length) throws IOException {
+            int count = 0;
+            while (count < length && fill()) {
+                dst[offset + count++] = next();
+            }
+            return count == 0 && length > 0 ? -1 : count;
+        }
+
+        /**
+         * 确保缓冲区中至少有一条完整的记录
+         *
+         * @return  false-流已结束
+         */
+        private boolean fill() throws IOException {
+            int remaining = mLimit - mPosition;
+            if (remaining >= RECORD_SIZE) {
+                return true;
+            }
+            // 把不完整的记录移到缓冲区开头，再继续读取
+            System.arraycopy(mBuffer, mPosition, mBuffer, 0, remaining);
+            mPosition = 0;
+            mLimit = remaining;
+            while (mLimit < RECORD_SIZE) {
+                int n = mIn.read(mBuffer, mLimit, mBuffer.length - mLimit);
+                if (n == -1) {
+                    if (mLimit == 0) {
+                        return false;
+                    }
+                    throw new EOFException("The stream ends in the middle of a schedule");
+                }
+                mLimit += n;
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            mIn.close();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.zjun.widget;
+
+import android.support.v7.util.DiffUtil;
+
+/**
+ * ScheduleDiffCallback
+ *  RecyclerView列表中时间段集合的差异比较，用于DiffUtil.calculateDiff
+ *
+ * @author Ralap
+ * @description 每一项用一个整数ID（如设备索引）标识，内容是压缩值{@link PackedSchedule}，两种比较都是O(1)，不解压时间段。
+ *          内容变化时的payload是新的压缩值（Long），可在onBindViewHolder(holder, position, payloads)中直接{@link RingTimeSelectView#bind(long)}。
+ *          库只在编译时依赖recyclerview-v7，使用本类的应用需自行依赖
+ *
+ * @date 2026-10-18
+ */
+public class ScheduleDiffCallback extends DiffUtil.Callback {
+
+    private final int[] mOldIds;
+    private final long[] mOldPacked;
+    private final int[] mNewIds;
+    private final long[] mNewPacked;
+
+    /**
+     * @param oldIds        旧列表每一项的ID
+     * @param oldPacked     旧列表每一项的压缩值，长度与oldIds相同
+     * @param newIds        新列表每一项的ID
+     * @param newPacked     新列表每一项的压缩值，长度与newIds相同
+     */
+    public ScheduleDiffCallback(int[] oldIds, long[] oldPacked, int[] newIds, long[] newPacked) {
+        if (oldIds.length != oldPacked.length || newIds.length != newPacked.length) {
+            throw new IllegalArgumentException("The ids and packed schedules must have the same length");
+        }
+        mOldIds = oldIds;
+        mOldPacked = oldPacked;
+        mNewIds = newIds;
+        mNewPacked = newPacked;
+    }
+
+    @Override
+    public int getOldListSize() {
+        return mOldIds.length;
+    }
+
+    @Override
+    public int getNewListSize() {
+        return mNewIds.length;
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+        return mOldIds[oldItemPosition] == mNewIds[newItemPosition];
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+        return mOldPacked[oldItemPosition] == mNewPacked[newItemPosition];
+    }
+
+    @Override
+    public Object getChangePayload(int oldItemPosition, int newItemPosition) {
+        return mNewPacked[newItemPosition];
+    }
+}
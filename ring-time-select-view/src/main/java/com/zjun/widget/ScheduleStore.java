@@ -0,0 +1,263 @@
+package com.zjun.widget;
+
+import android.util.LruCache;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ScheduleStore
+ *  大量设备（如继电器）的时间段集合存储，数据在内存映射文件中，前面有一个LRU缓存
+ *
+ * @author Ralap
+ * @description 文件结构：16字节文件头 + 每个设备固定8字节的压缩值{@link PackedSchedule}，按设备索引O(1)定位。
+ *          1、打开时只映射文件{@link FileChannel#map(FileChannel.MapMode, long, long)}，不解析、不加载全部数据到堆内存
+ *          2、读取：{@link #get(int)}直接读映射；{@link #getSections(int)}经过LRU缓存，缓存解压后的时间段集合
+ *          3、绑定：{@link #bind(RingTimeSelectView, int)}用压缩值直接绑定到控件上（{@link RingTimeSelectView#bind(long)}），控件上的修改自动写回映射
+ *          4、非线程安全，请在同一线程（一般是主线程）中使用
+ *
+ * @date 2026-10-18
+ */
+public class ScheduleStore implements Closeable {
+
+    /**
+     * 文件头：魔数"RTSS"、版本、容量、保留
+     */
+    private static final int MAGIC = 0x52545353;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_CAPACITY = 8;
+
+    private final RandomAccessFile mFile;
+    private final FileChannel mChannel;
+    private MappedByteBuffer mBuffer;
+    private int mCapacity;
+
+    /**
+     * 解压后的时间段集合缓存，key为设备索引
+     */
+    private final LruCache<Integer, List<RingTimeSelectView.TimePart>> mCache;
+
+    /**
+     * 打开存储文件，文件不存在则创建。若已有文件的容量小于capacity，则扩容，新增的设备没有时间段
+     *
+     * @param file          存储文件
+     * @param capacity      设备个数
+     * @param cacheSize     LRU缓存的设备个数
+     * @throws IOException  文件读写失败，或不是本类创建的文件
+     */
+    public ScheduleStore(File file, int capacity, int cacheSize) throws IOException {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("The capacity must not be negative");
+        }
+        mFile = new RandomAccessFile(file, "rw");
+        mChannel = mFile.getChannel();
+        mCache = new LruCache<>(cacheSize);
+        try {
+            int fileCapacity = -1;
+            if (mFile.length() >= HEADER_SIZE) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                mChannel.read(header, 0);
+                if (header.getInt(OFFSET_MAGIC) != MAGIC || header.getInt(OFFSET_VERSION) != VERSION) {
+                    throw new IOException("Not a schedule store: " + file);
+                }
+                fileCapacity = header.getInt(OFFSET_CAPACITY);
+            } else if (mFile.length() > 0) {
+                throw new IOException("Not a schedule store: " + file);
+            }
+            map(Math.max(capacity, fileCapacity));
+        } catch (IOException e) {
+            mFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 映射文件，并写入文件头。扩大文件时，新增部分由文件系统填0，即没有时间段
+     */
+    private void map(int capacity) throws IOException {
+        long size = HEADER_SIZE + (long) capacity * ScheduleCodec.RECORD_SIZE;
+        mBuffer = mChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        mBuffer.putInt(OFFSET_MAGIC, MAGIC);
+        mBuffer.putInt(OFFSET_VERSION, VERSION);
+        mBuffer.putInt(OFFSET_CAPACITY, capacity);
+        mCapacity = capacity;
+    }
+
+    /**
+     * 设备个数
+     */
+    public int getCapacity() {
+        return mCapacity;
+    }
+
+    /**
+     * 读取设备的压缩时间段集合，直接读取映射，不经过缓存
+     *
+     * @param index     设备索引
+     * @throws IllegalStateException    文件中的数据已损坏
+     */
+    public long get(int index) {
+        long packed = mBuffer.getLong(offsetOf(index));
+        if (!PackedSchedule.isValid(packed)) {
+            throw new IllegalStateException("The schedule of device " + index + " is corrupted");
+        }
+        return packed;
+    }
+
+    /**
+     * 写入设备的压缩时间段集合，并使该设备的缓存失效
+     *
+     * @param index     设备索引
+     * @param packed    压缩的时间段集合
+     */
+    public void put(int index, long packed) {
+        PackedSchedule.checkPacked(packed);
+        mBuffer.putLong(offsetOf(index), packed);
+        mCache.remove(index);
+    }
+
+    /**
+     * 读取设备的时间段集合，已按起始时间排序。
+     * 时间段个数可能超过控件的sectionSum，设置到控件前请检查，或使用{@link #bind(RingTimeSelectView, int)}
+     * 返回的集合来自缓存，不可修改
+     *
+     * @param index     设备索引
+     */
+    public List<RingTimeSelectView.TimePart> getSections(int index) {
+        List<RingTimeSelectView.TimePart> parts = mCache.get(index);
+        if (parts == null) {
+            parts = Collections.unmodifiableList(PackedSchedule.unpack(get(index)));
+            mCache.put(index, parts);
+        }
+        return parts;
+    }
+
+    /**
+     * 把设备的时间段集合绑定到控件上：设置时间段，并把控件上的修改写回存储
+     * 会替换控件原有的监听，见{@link #bind(RingTimeSelectView, int, RingTimeSelectView.IOnTimeChangedListener)}
+     *
+     * @param view      控件
+     * @param index     设备索引
+     * @throws IllegalStateException    设备的时间段个数超过控件的sectionSum，控件不变
+     */
+    public void bind(RingTimeSelectView view, int index) {
+        bind(view, index, null);
+    }
+
+    /**
+     * 把设备的时间段集合绑定到控件上：设置时间段，并把控件上的修改写回存储。
+     *  使用{@link RingTimeSelectView#bind(long)}，不经过缓存、不回调，清除控件上一个设备的触摸状态和撤销历史
+     *
+     * @param view      控件
+     * @param index     设备索引
+     * @param listener  控件原有的监听，写回存储后再回调，可为null
+     * @throws IllegalStateException    设备的时间段个数超过控件的sectionSum，控件不变
+     */
+    public void bind(RingTimeSelectView view, int index, RingTimeSelectView.IOnTimeChangedListener listener) {
+        long packed = get(index);
+        int count = PackedSchedule.sectionCount(packed);
+        if (count > view.getSectionSum()) {
+            throw new IllegalStateException("The schedule of device " + index + " has " + count
+                    + " sections, but the view accepts at most " + view.getSectionSum());
+        }
+        // 先解除监听，避免绑定时把旧设备的回调写到新设备上
+        view.setOnTimeChangeListener(null);
+        view.bind(packed);
+        view.setOnTimeChangeListener(new PersistListener(index, listener));
+    }
+
+    /**
+     * 解除控件的绑定
+     */
+    public void unbind(RingTimeSelectView view) {
+        view.setOnTimeChangeListener(null);
+    }
+
+    /**
+     * 把修改强制写入磁盘
+     */
+    public void flush() {
+        mBuffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mBuffer.force();
+        mCache.evictAll();
+        mFile.close();
+    }
+
+    private int offsetOf(int index) {
+        checkIndex(index);
+        return HEADER_SIZE + index * ScheduleCodec.RECORD_SIZE;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mCapacity) {
+            throw new IndexOutOfBoundsException("index=" + index + ", capacity=" + mCapacity);
+        }
+    }
+
+    /**
+     * 把控件上的修改写回存储，并使缓存失效
+     */
+    private class PersistListener implements RingTimeSelectView.IOnTimeChangedListener {
+        private final int mIndex;
+        private final RingTimeSelectView.IOnTimeChangedListener mDelegate;
+
+        PersistListener(int index, RingTimeSelectView.IOnTimeChangedListener delegate) {
+            mIndex = index;
+            mDelegate = delegate;
+        }
+
+        @Override
+        public void onChanged(RingTimeSelectView view, List<RingTimeSelectView.TimePart> timePartList) {
+            long packed = view.getPackedTimeSections();
+            if (mBuffer.getLong(offsetOf(mIndex)) != packed) {
+                // 缓存在下次读取时再解压
+                put(mIndex, packed);
+            }
+            if (mDelegate != null) {
+                mDelegate.onChanged(view, timePartList);
+            }
+        }
+
+        @Override
+        public void onInsert(RingTimeSelectView.TimePart part) {
+            if (mDelegate != null) {
+                mDelegate.onInsert(part);
+            }
+        }
+
+        @Override
+        public void onSelectStart(int minute) {
+            if (mDelegate != null) {
+                mDelegate.onSelectStart(minute);
+            }
+        }
+
+        @Override
+        public void onSelectChanged(int minute) {
+            if (mDelegate != null) {
+                mDelegate.onSelectChanged(minute);
+            }
+        }
+
+        @Override
+        public void onSelectFinished() {
+            if (mDelegate != null) {
+                mDelegate.onSelectFinished();
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.zjun.widget;
+
+/**
+ * SectionConstraints
+ *  时间段的约束：禁用的分钟、最短/最长时长、吸附步长、最大总时长
+ *
+ * @author Ralap
+ * @description 约束在创建时编译为位掩码，所有检查都是常数次位运算，不创建对象：
+ *          1、禁用分钟：时间段[start, end]对应的位{@link PackedSchedule#rangeMask(int, int)}与禁用掩码不相交
+ *          2、总时长：与其他时间段的并集的位数{@link Long#bitCount(long)}，即合并后的实际总时长
+ *          3、拖动时，在按下时根据另一锚点计算出可移动的范围{@link #lowerBound(int, long)}、{@link #upperBound(int, long)}，
+ *              移动中只需吸附和截取。碰到其他时间段会在抬起时合并，合并后的长度同样不能超过最长时长。
+ *              范围向内对齐到吸附步长，吸附后截取的结果仍在步长上
+ *          起止重合（长度为0）表示拖动删除，不受最短时长限制。约束只作用于触摸和无障碍操作，
+ *          {@link RingTimeSelectView#setTimeSections(java.util.List)}等代码设置的时间段不检查
+ *
+ * @date 2026-10-18
+ */
+public final class SectionConstraints {
+
+    /**
+     * 禁用的分钟：第m位为1表示[m, m+1)不能被选中
+     */
+    private final long blockedMask;
+    private final int minLength;
+    private final int maxLength;
+    private final int snapStep;
+    private final int maxTotal;
+
+    private SectionConstraints(Builder builder) {
+        blockedMask = builder.blockedMask;
+        minLength = builder.minLength;
+        maxLength = builder.maxLength;
+        snapStep = builder.snapStep;
+        maxTotal = builder.maxTotal;
+    }
+
+    public long getBlockedMask() {
+        return blockedMask;
+    }
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public int getSnapStep() {
+        return snapStep;
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    /**
+     * 吸附到最近的步长整数倍，结果在0~60之间
+     */
+    public int snap(int minute) {
+        if (snapStep > 1) {
+            minute = (minute + snapStep / 2) / snapStep * snapStep;
+        }
+        return Math.max(0, Math.min(PackedSchedule.MINUTES, minute));
+    }
+
+    /**
+     * 时间段[start, end]是否满足约束
+     *
+     * @param otherMask 其他时间段的压缩值，用于计算总时长
+     */
+    public boolean allows(int start, int end, long otherMask) {
+        if (start < 0 || end > PackedSchedule.MINUTES || start > end) {
+            return false;
+        }
+        int length = end - start;
+        if (length == 0) {
+            return true;
+        }
+        if (length < minLength || length > maxLength) {
+            return false;
+        }
+        long mask = PackedSchedule.rangeMask(start, end);
+        return (mask & blockedMask) == 0 && Long.bitCount(mask | otherMask) <= maxTotal;
+    }
+
+    /**
+     * 起始锚点固定为start时，终止锚点能达到的最大分钟。
+     * 终止锚点碰到（相接或交叉）其他时间段时会与之合并，合并后超过最长时长的，止于该时间段之前。
+     * 结果向下对齐到吸附步长
+     *
+     * @param otherMask 其他时间段的压缩值
+     * @return  不小于start；等于start时表示不能伸展
+     */
+    public int upperBound(int start, long otherMask) {
+        // 第一个禁用的分钟
+        long blocked = blockedMask & ~PackedSchedule.rangeMask(0, start);
+        int upper = blocked == 0 ? PackedSchedule.MINUTES : Long.numberOfTrailingZeros(blocked);
+        upper = Math.min(upper, start + maxLength);
+        // 总时长：空闲分钟中，从start开始，只能再增加maxTotal - 已选的分钟
+        int budget = maxTotal - Long.bitCount(otherMask);
+        long free = PackedSchedule.rangeMask(start, upper) & ~otherMask;
+        if (Long.bitCount(free) > budget) {
+            upper = budget <= 0 ? start : nthSetBit(free, budget - 1) + 1;
+            // 紧接着的已选分钟不增加总时长
+            while (upper < PackedSchedule.MINUTES && (otherMask & (1L << upper)) != 0 && (blockedMask & (1L << upper)) == 0
+                    && upper - start < maxLength) {
+                upper++;
+            }
+        }
+        // 依次检查碰到的其他时间段[runStart, runEnd)，合并后为[start, max(upper, runEnd)]
+        long occupied = otherMask & ~PackedSchedule.rangeMask(0, start);
+        while (occupied != 0) {
+            int runStart = Long.numberOfTrailingZeros(occupied);
+            if (runStart > upper) {
+                break;
+            }
+            int runEnd = Long.numberOfTrailingZeros(~otherMask & ~PackedSchedule.rangeMask(0, runStart));
+            if (Math.max(upper, runEnd) - start > maxLength) {
+                upper = runStart - 1;
+                break;
+            }
+            occupied &= ~PackedSchedule.rangeMask(0, runEnd);
+        }
+        // 向下对齐只会缩小范围，以上的约束仍然满足
+        return Math.max(start, upper / snapStep * snapStep);
+    }
+
+    /**
+     * 终止锚点固定为end时，起始锚点能达到的最小分钟。
+     * 起始锚点碰到（相接或交叉）其他时间段时会与之合并，合并后超过最长时长的，止于该时间段之后。
+     * 结果向上对齐到吸附步长
+     *
+     * @param otherMask 其他时间段的压缩值
+     * @return  不大于end；等于end时表示不能伸展
+     */
+    public int lowerBound(int end, long otherMask) {
+        // 最后一个禁用的分钟之后
+        long blocked = blockedMask & PackedSchedule.rangeMask(0, end);
+        int lower = blocked == 0 ? 0 : 64 - Long.numberOfLeadingZeros(blocked);
+        lower = Math.max(lower, end - maxLength);
+        int budget = maxTotal - Long.bitCount(otherMask);
+        long free = PackedSchedule.rangeMask(lower, end) & ~otherMask;
+        int freeCount = Long.bitCount(free);
+        if (freeCount > budget) {
+            lower = budget <= 0 ? end : nthSetBit(free, freeCount - budget);
+            while (lower > 0 && (otherMask & (1L << (lower - 1))) != 0 && (blockedMask & (1L << (lower - 1))) == 0
+                    && end - lower < maxLength) {
+                lower--;
+            }
+        }
+        // 依次检查碰到的其他时间段[runStart, runEnd)，合并后为[min(lower, runStart), end]
+        long occupied = otherMask & PackedSchedule.rangeMask(0, end);
+        while (occupied != 0) {
+            int runEnd = 64 - Long.numberOfLeadingZeros(occupied);
+            if (runEnd < lower) {
+                break;
+            }
+            int runStart = 64 - Long.numberOfLeadingZeros(~otherMask & PackedSchedule.rangeMask(0, runEnd));
+            if (end - Math.min(lower, runStart) > maxLength) {
+                lower = runEnd + 1;
+                break;
+            }
+            occupied &= PackedSchedule.rangeMask(0, runStart);
+        }
+        return Math.min(end, (lower + snapStep - 1) / snapStep * snapStep);
+    }
+
+    /**
+     * 点击添加的时间段的时长：限制在最短、最长时长之间，并对齐到吸附步长，起始分钟吸附后终止分钟也在步长上
+     *
+     * @param preferred 期望的时长（min）
+     * @return  0：最短、最长时长之间没有步长的整数倍，不能添加
+     */
+    public int insertLength(int preferred) {
+        int length = Math.min(Math.max(preferred, minLength), maxLength);
+        int up = (length + snapStep - 1) / snapStep * snapStep;
+        if (up <= maxLength) {
+            return up;
+        }
+        int down = length / snapStep * snapStep;
+        return down >= minLength ? down : 0;
+    }
+
+    /**
+     * 第n个（从0开始）为1的位的位置
+     */
+    private static int nthSetBit(long bits, int n) {
+        for (int i = 0; i < n; i++) {
+            bits &= bits - 1;
+        }
+        return Long.numberOfTrailingZeros(bits);
+    }
+
+    public static final class Builder {
+        private long blockedMask = PackedSchedule.EMPTY;
+        private int minLength = 0;
+        private int maxLength = PackedSchedule.MINUTES;
+        private int snapStep = 1;
+        private int maxTotal = PackedSchedule.MINUTES;
+
+        /**
+         * 禁用的分钟，压缩值见{@link PackedSchedule}
+         */
+        public Builder setBlockedMask(long blockedMask) {
+            PackedSchedule.checkPacked(blockedMask);
+            this.blockedMask = blockedMask;
+            return this;
+        }
+
+        /**
+         * 禁用[start, end)
+         */
+        public Builder addBlockedRange(int start, int end) {
+            PackedSchedule.checkSection(start, end);
+            blockedMask |= PackedSchedule.rangeMask(start, end);
+            return this;
+        }
+
+        /**
+         * 最短时长（min），默认0
+         */
+        public Builder setMinLength(int minLength) {
+            checkMinutes("minLength", minLength);
+            this.minLength = minLength;
+            return this;
+        }
+
+        /**
+         * 最长时长（min），默认60
+         */
+        public Builder setMaxLength(int maxLength) {
+            checkMinutes("maxLength", maxLength);
+            this.maxLength = maxLength;
+            return this;
+        }
+
+        /**
+         * 吸附步长（min），默认1，即不吸附
+         */
+        public Builder setSnapStep(int snapStep) {
+            if (snapStep < 1 || snapStep > PackedSchedule.MINUTES) {
+                throw new IllegalArgumentException("The snapStep must between 1 and 60");
+            }
+            this.snapStep = snapStep;
+            return this;
+        }
+
+        /**
+         * 所有时间段的最大总时长（min），默认60
+         */
+        public Builder setMaxTotal(int maxTotal) {
+            checkMinutes("maxTotal", maxTotal);
+            this.maxTotal = maxTotal;
+            return this;
+        }
+
+        public SectionConstraints build() {
+            if (minLength > maxLength) {
+                throw new IllegalArgumentException("The minLength must not be larger than maxLength");
+            }
+            return new SectionConstraints(this);
+        }
+
+        private static void checkMinutes(String name, int minutes) {
+            if (minutes < 0 || minutes > PackedSchedule.MINUTES) {
+                throw new IllegalArgumentException("The " + name + " must between 0 and 60");
+            }
+        }
+    }
+}
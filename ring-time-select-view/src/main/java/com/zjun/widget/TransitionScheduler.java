@@ -0,0 +1,361 @@
+package com.zjun.widget;
+
+import android.os.Handler;
+import android.os.SystemClock;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * TransitionScheduler
+ *  大量设备（如继电器）的开关调度：在每个时间段的起始分钟回调开（ON），终止分钟回调关（OFF），每小时重复
+ *
+ * @author Ralap
+ * @description 时间段集合每小时重复，所以只需要一层60个槽的时间轮，每个槽是该分钟所有转换的链表：
+ *          1、转换存放在int数组中，槽链表是侵入式的双向链表，每个设备的转换另用单向链表串起，不为每个转换创建对象
+ *          2、{@link #set(int, long)}只比较新旧转换的差异：插入和从槽中取消都是O(1)，只遍历该设备自己的转换（最多60个）；
+ *              整点相接的时间段（如50-60和0-10）之间没有转换
+ *          3、{@link #tick()}只遍历当前分钟的槽，不扫描所有设备；两次之间跳过的分钟按顺序补发
+ *          4、所有设备共用一个定时器{@link #start(Handler)}，也可由外部按分钟调用{@link #tick()}；时钟可注入{@link Clock}，便于测试
+ *          修改方法用this加锁，可在任意线程调用；{@link #tick()}只能在一个线程中调用，回调在锁外进行，回调中的修改从下一分钟起生效
+ *
+ * @date 2026-10-18
+ */
+public final class TransitionScheduler {
+
+    private static final int MINUTES = PackedSchedule.MINUTES;
+    private static final long MINUTE_MILLIS = 60 * 1000;
+    private static final int NONE = -1;
+    /**
+     * 转换信息：低6位为分钟，第7位为开
+     */
+    private static final int INFO_ON = 1 << 6;
+    private static final int INFO_MINUTE_MASK = INFO_ON - 1;
+
+    /**
+     * 时钟，返回UTC毫秒数
+     */
+    public interface Clock {
+        long currentTimeMillis();
+    }
+
+    public static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    };
+
+    public interface OnTransitionListener {
+        /**
+         * @param device    设备索引
+         * @param on        true：时间段开始；false：时间段结束
+         * @param minute    本小时内的分钟：0~59
+         */
+        void onTransition(int device, boolean on, int minute);
+    }
+
+    private final Clock mClock;
+    private final TimeZone mTimeZone;
+    private final OnTransitionListener mListener;
+
+    /**
+     * 时间轮：每个槽（分钟）的链表头、尾，同一分钟按插入顺序回调
+     */
+    private final int[] mSlotHead = new int[MINUTES];
+    private final int[] mSlotTail = new int[MINUTES];
+    /**
+     * 转换：槽链表的前后、设备链表的下一个（空闲时为空闲链表的下一个）、设备索引、信息
+     */
+    private int[] mPrev, mNext, mDeviceNext, mDevice, mInfo;
+    private int mFreeEntry = NONE;
+    private int mEntryCount;
+    /**
+     * 设备：转换链表头、当前的压缩值
+     */
+    private int[] mDeviceHead;
+    private long[] mDevicePacked;
+    private int mTransitionCount;
+
+    /**
+     * 已处理到的分钟（从1970年起按本地时间计），-1为还未开始
+     */
+    private long mLastMinute = NONE;
+    /**
+     * 回调缓冲：在锁内收集，锁外回调
+     */
+    private int[] mFireDevice = new int[16];
+    private int[] mFireInfo = new int[16];
+
+    private Handler mHandler;
+    private final Runnable mTick = new Runnable() {
+        @Override
+        public void run() {
+            tick();
+            scheduleNext();
+        }
+    };
+
+    public TransitionScheduler(OnTransitionListener listener) {
+        this(listener, SYSTEM_CLOCK, TimeZone.getDefault());
+    }
+
+    /**
+     * @param listener  转换回调
+     * @param clock     时钟
+     * @param timeZone  时间段所在的时区：本小时内的分钟按该时区计算
+     */
+    public TransitionScheduler(OnTransitionListener listener, Clock clock, TimeZone timeZone) {
+        if (listener == null || clock == null || timeZone == null) {
+            throw new IllegalArgumentException("The listener, clock and time zone must not be null");
+        }
+        mListener = listener;
+        mClock = clock;
+        mTimeZone = timeZone;
+        Arrays.fill(mSlotHead, NONE);
+        Arrays.fill(mSlotTail, NONE);
+        mPrev = new int[16];
+        mNext = new int[16];
+        mDeviceNext = new int[16];
+        mDevice = new int[16];
+        mInfo = new int[16];
+        mDeviceHead = new int[16];
+        Arrays.fill(mDeviceHead, NONE);
+        mDevicePacked = new long[16];
+    }
+
+    /**
+     * 设置设备的时间段集合，如来自{@link RingTimeSelectView#getTimeSections()}
+     */
+    public void set(int device, List<RingTimeSelectView.TimePart> partList) {
+        set(device, PackedSchedule.pack(partList));
+    }
+
+    /**
+     * 设置设备的时间段集合（压缩值，见{@link PackedSchedule}），只插入、取消变化的转换
+     *
+     * @param device    设备索引，从0开始
+     * @param packed    压缩值；{@link PackedSchedule#EMPTY}：没有转换
+     */
+    public synchronized void set(int device, long packed) {
+        if (device < 0) {
+            throw new IllegalArgumentException("The device index must not be negative: " + device);
+        }
+        PackedSchedule.checkPacked(packed);
+        ensureDevice(device);
+        long old = mDevicePacked[device];
+        if (old == packed) {
+            return;
+        }
+        long oldOn = onBits(old), oldOff = offBits(old);
+        long newOn = onBits(packed), newOff = offBits(packed);
+        mDevicePacked[device] = packed;
+
+        // 取消不再存在的转换
+        long cancelOn = oldOn & ~newOn;
+        long cancelOff = oldOff & ~newOff;
+        if ((cancelOn | cancelOff) != 0) {
+            int entry = mDeviceHead[device];
+            int prev = NONE;
+            while (entry != NONE) {
+                int next = mDeviceNext[entry];
+                int info = mInfo[entry];
+                long bit = 1L << (info & INFO_MINUTE_MASK);
+                if ((info & INFO_ON) != 0 ? (cancelOn & bit) != 0 : (cancelOff & bit) != 0) {
+                    if (prev == NONE) {
+                        mDeviceHead[device] = next;
+                    } else {
+                        mDeviceNext[prev] = next;
+                    }
+                    unlinkSlot(entry);
+                    freeEntry(entry);
+                } else {
+                    prev = entry;
+                }
+                entry = next;
+            }
+        }
+
+        // 插入新增的转换
+        insert(device, newOn & ~oldOn, INFO_ON);
+        insert(device, newOff & ~oldOff, 0);
+    }
+
+    /**
+     * 移除设备的所有转换
+     */
+    public void remove(int device) {
+        set(device, PackedSchedule.EMPTY);
+    }
+
+    public synchronized long get(int device) {
+        return device < mDevicePacked.length ? mDevicePacked[device] : PackedSchedule.EMPTY;
+    }
+
+    /**
+     * 所有设备的转换总数
+     */
+    public synchronized int getTransitionCount() {
+        return mTransitionCount;
+    }
+
+    /**
+     * 处理到当前分钟：依次回调上次处理之后，到当前分钟（含）的所有转换。
+     * 第一次调用只记录当前分钟，不回调；跳过超过一小时的，只补发最近一小时
+     */
+    public void tick() {
+        int count;
+        synchronized (this) {
+            long now = mClock.currentTimeMillis();
+            long minute = (now + mTimeZone.getOffset(now)) / MINUTE_MILLIS;
+            if (mLastMinute == NONE || minute <= mLastMinute) {
+                mLastMinute = Math.max(mLastMinute, minute);
+                return;
+            }
+            long from = Math.max(mLastMinute + 1, minute - MINUTES + 1);
+            mLastMinute = minute;
+            count = 0;
+            for (long m = from; m <= minute; m++) {
+                for (int entry = mSlotHead[(int) (m % MINUTES)]; entry != NONE; entry = mNext[entry]) {
+                    if (count == mFireDevice.length) {
+                        mFireDevice = Arrays.copyOf(mFireDevice, count * 2);
+                        mFireInfo = Arrays.copyOf(mFireInfo, count * 2);
+                    }
+                    mFireDevice[count] = mDevice[entry];
+                    mFireInfo[count] = mInfo[entry];
+                    count++;
+                }
+            }
+        }
+        // 缓冲区只在tick所在的线程中使用
+        for (int i = 0; i < count; i++) {
+            mListener.onTransition(mFireDevice[i], (mFireInfo[i] & INFO_ON) != 0, mFireInfo[i] & INFO_MINUTE_MASK);
+        }
+    }
+
+    /**
+     * 用一个定时器在每分钟开始时调用{@link #tick()}，回调在handler的线程中进行
+     */
+    public void start(Handler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("The handler must not be null");
+        }
+        stop();
+        mHandler = handler;
+        // 记录当前分钟，从下一分钟开始回调
+        tick();
+        scheduleNext();
+    }
+
+    public void stop() {
+        if (mHandler != null) {
+            mHandler.removeCallbacks(mTick);
+            mHandler = null;
+        }
+    }
+
+    private void scheduleNext() {
+        if (mHandler == null) {
+            return;
+        }
+        long now = mClock.currentTimeMillis();
+        long delay = MINUTE_MILLIS - (now + mTimeZone.getOffset(now)) % MINUTE_MILLIS;
+        mHandler.postAtTime(mTick, SystemClock.uptimeMillis() + delay);
+    }
+
+    /**
+     * 开的位：该分钟选中，前一分钟（循环）未选中
+     */
+    private static long onBits(long packed) {
+        return packed & ~rotatePrevious(packed);
+    }
+
+    /**
+     * 关的位：该分钟未选中，前一分钟（循环）选中，即时间段的终止分钟
+     */
+    private static long offBits(long packed) {
+        return ~packed & rotatePrevious(packed) & PackedSchedule.MINUTE_MASK;
+    }
+
+    /**
+     * 第m位为原来的第m-1位，第0位为原来的第59位
+     */
+    private static long rotatePrevious(long packed) {
+        return ((packed << 1) | (packed >>> (MINUTES - 1))) & PackedSchedule.MINUTE_MASK;
+    }
+
+    private void insert(int device, long bits, int flag) {
+        while (bits != 0) {
+            int minute = Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+            int entry = obtainEntry();
+            mDevice[entry] = device;
+            mInfo[entry] = flag | minute;
+            // 设备链表头插
+            mDeviceNext[entry] = mDeviceHead[device];
+            mDeviceHead[device] = entry;
+            // 槽链表尾插
+            int tail = mSlotTail[minute];
+            mPrev[entry] = tail;
+            mNext[entry] = NONE;
+            if (tail == NONE) {
+                mSlotHead[minute] = entry;
+            } else {
+                mNext[tail] = entry;
+            }
+            mSlotTail[minute] = entry;
+            mTransitionCount++;
+        }
+    }
+
+    private void unlinkSlot(int entry) {
+        int minute = mInfo[entry] & INFO_MINUTE_MASK;
+        int prev = mPrev[entry];
+        int next = mNext[entry];
+        if (prev == NONE) {
+            mSlotHead[minute] = next;
+        } else {
+            mNext[prev] = next;
+        }
+        if (next == NONE) {
+            mSlotTail[minute] = prev;
+        } else {
+            mPrev[next] = prev;
+        }
+        mTransitionCount--;
+    }
+
+    private int obtainEntry() {
+        if (mFreeEntry != NONE) {
+            int entry = mFreeEntry;
+            mFreeEntry = mDeviceNext[entry];
+            return entry;
+        }
+        if (mEntryCount == mNext.length) {
+            int capacity = mEntryCount * 2;
+            mPrev = Arrays.copyOf(mPrev, capacity);
+            mNext = Arrays.copyOf(mNext, capacity);
+            mDeviceNext = Arrays.copyOf(mDeviceNext, capacity);
+            mDevice = Arrays.copyOf(mDevice, capacity);
+            mInfo = Arrays.copyOf(mInfo, capacity);
+        }
+        return mEntryCount++;
+    }
+
+    private void freeEntry(int entry) {
+        mDeviceNext[entry] = mFreeEntry;
+        mFreeEntry = entry;
+    }
+
+    private void ensureDevice(int device) {
+        if (device < mDeviceHead.length) {
+            return;
+        }
+        int capacity = Math.max(device + 1, mDeviceHead.length * 2);
+        int oldLength = mDeviceHead.length;
+        mDeviceHead = Arrays.copyOf(mDeviceHead, capacity);
+        Arrays.fill(mDeviceHead, oldLength, capacity, NONE);
+        mDevicePacked = Arrays.copyOf(mDevicePacked, capacity);
+    }
+}
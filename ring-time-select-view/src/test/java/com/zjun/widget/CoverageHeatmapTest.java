@@ -0,0 +1,98 @@
+package com.zjun.widget;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link CoverageHeatmap}的增量更新和吞吐量测试，吞吐量依赖机器，默认跳过，见{@link ScheduleFixtures}
+ */
+public class CoverageHeatmapTest {
+
+    private static final int FLEET_SIZE = 10000;
+    private static final long FRAME_NANOS = 16000000L;
+
+    @Test
+    public void incrementalUpdates_matchBulkCoverage() throws Exception {
+        long[] schedules = ScheduleFixtures.randomSchedules(new Random(43), 500);
+        CoverageHeatmap heatmap = new CoverageHeatmap();
+        for (long packed : schedules) {
+            heatmap.add(packed);
+        }
+        // 替换一半，删除四分之一
+        Random random = new Random(7);
+        for (int i = 0; i < schedules.length / 2; i++) {
+            long next = ScheduleFixtures.randomSchedule(random);
+            heatmap.replace(schedules[i], next);
+            schedules[i] = next;
+        }
+        int remaining = schedules.length - schedules.length / 4;
+        for (int i = remaining; i < schedules.length; i++) {
+            heatmap.remove(schedules[i]);
+        }
+
+        int[] expected = ScheduleAlgebra.coverage(schedules, 0, remaining);
+        int[] actual = new int[PackedSchedule.MINUTES];
+        heatmap.copyCounts(actual);
+        assertArrayEquals(expected, actual);
+        assertEquals(remaining, heatmap.getScheduleCount());
+    }
+
+    @Test
+    public void version_changesOnlyWhenCountsChange() throws Exception {
+        CoverageHeatmap heatmap = new CoverageHeatmap();
+        long packed = PackedSchedule.rangeMask(10, 20);
+        heatmap.add(packed);
+        int version = heatmap.getVersion();
+
+        heatmap.replace(packed, packed);
+        heatmap.add(PackedSchedule.EMPTY);
+        assertEquals(version, heatmap.getVersion());
+
+        heatmap.replace(packed, PackedSchedule.rangeMask(10, 25));
+        assertEquals(version + 1, heatmap.getVersion());
+        assertEquals(1, heatmap.getCount(24));
+        assertEquals(0, heatmap.getCount(25));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void remove_notAdded_throws() throws Exception {
+        CoverageHeatmap heatmap = new CoverageHeatmap();
+        heatmap.add(PackedSchedule.rangeMask(0, 10));
+        heatmap.remove(PackedSchedule.rangeMask(5, 15));
+    }
+
+    @Test
+    public void fleetUpdate_withinOneFrame() throws Exception {
+        ScheduleFixtures.assumeBenchmarkEnabled();
+        long[] schedules = ScheduleFixtures.randomSchedules(new Random(1), FLEET_SIZE);
+        long[] updated = ScheduleFixtures.randomSchedules(new Random(2), FLEET_SIZE);
+        CoverageHeatmap heatmap = new CoverageHeatmap();
+        // 预热
+        for (int round = 0; round < 20; round++) {
+            heatmap.clear();
+            heatmap.addAll(schedules, 0, FLEET_SIZE);
+            for (int i = 0; i < FLEET_SIZE; i++) {
+                heatmap.replace(schedules[i], updated[i]);
+            }
+        }
+
+        heatmap.clear();
+        long begin = System.nanoTime();
+        heatmap.addAll(schedules, 0, FLEET_SIZE);
+        long bulk = System.nanoTime() - begin;
+
+        begin = System.nanoTime();
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            heatmap.replace(schedules[i], updated[i]);
+        }
+        long incremental = System.nanoTime() - begin;
+
+        System.out.printf("CoverageHeatmap: %d schedules, addAll %.2f ms, %d replaces %.2f ms%n"
+                , FLEET_SIZE, bulk / 1e6, FLEET_SIZE, incremental / 1e6);
+        assertTrue(bulk < FRAME_NANOS);
+        assertTrue(incremental < FRAME_NANOS);
+    }
+}
@@ -0,0 +1,97 @@
+package com.zjun.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link DialMetrics.Histogram}的分桶和百分位数：0、2的幂的边界、Long.MAX_VALUE
+ */
+public class DialMetricsTest {
+
+    @Test
+    public void record_bucketsByPowerOfTwo() {
+        DialMetrics.Histogram histogram = new DialMetrics.Histogram();
+        histogram.record(0);
+        histogram.record(-5);
+        histogram.record(1);
+        histogram.record(2);
+        histogram.record(3);
+        histogram.record(4);
+        histogram.record((1L << 62) - 1);
+        histogram.record(1L << 62);
+        histogram.record(Long.MAX_VALUE);
+
+        // 负数按0记录
+        assertEquals(2, histogram.getBucketCount(0));
+        assertEquals(1, histogram.getBucketCount(1));
+        // [2, 4)
+        assertEquals(2, histogram.getBucketCount(2));
+        assertEquals(1, histogram.getBucketCount(3));
+        assertEquals(1, histogram.getBucketCount(62));
+        // [2^62, 2^63)
+        assertEquals(2, histogram.getBucketCount(63));
+        assertEquals(9, histogram.getCount());
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+    }
+
+    @Test
+    public void percentile_returnsBucketUpperBoundCappedByMax() {
+        DialMetrics.Histogram histogram = new DialMetrics.Histogram();
+        assertEquals(0, histogram.getPercentile(50));
+
+        for (int i = 0; i < 50; i++) {
+            histogram.record(0);
+        }
+        for (int i = 0; i < 40; i++) {
+            histogram.record(8);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(1000);
+        }
+        assertEquals(0, histogram.getPercentile(50));
+        // 8在[8, 16)中，上界15
+        assertEquals(15, histogram.getPercentile(51));
+        assertEquals(15, histogram.getPercentile(90));
+        // 1000在[512, 1024)中，上界1023超过最大值，取最大值
+        assertEquals(1000, histogram.getPercentile(91));
+        assertEquals(1000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void percentile_powerOfTwoEdges() {
+        DialMetrics.Histogram histogram = new DialMetrics.Histogram();
+        histogram.record(7);
+        histogram.record(1024);
+        assertEquals(7, histogram.getPercentile(50));
+        // 1024是[1024, 2048)的下界，上界不超过最大值
+        assertEquals(1024, histogram.getPercentile(100));
+
+        histogram.record(1025);
+        histogram.record(4096);
+        assertEquals(2047, histogram.getPercentile(75));
+        assertEquals(4096, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void maxValue_doesNotOverflow() {
+        DialMetrics.Histogram histogram = new DialMetrics.Histogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(1));
+        assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+        assertEquals(Long.MAX_VALUE, histogram.getMean(), Long.MAX_VALUE * 1e-12);
+    }
+
+    @Test
+    public void reset_clearsEverything() {
+        DialMetrics.Histogram histogram = new DialMetrics.Histogram();
+        histogram.record(100);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getMean(), 0);
+        assertEquals(0, histogram.getBucketCount(7));
+        assertEquals(0, histogram.getPercentile(100));
+    }
+}
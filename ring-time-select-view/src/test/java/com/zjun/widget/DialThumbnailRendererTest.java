@@ -0,0 +1,95 @@
+package com.zjun.widget;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link DialThumbnailRenderer}磁盘缓存的清理：其他绘制版本、过期、超过总字节数的文件
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class DialThumbnailRendererTest {
+
+    private static final long MAX_AGE = 60 * 60 * 1000;
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private DialThumbnailRenderer mRenderer;
+
+    @After
+    public void tearDown() {
+        if (mRenderer != null) {
+            mRenderer.shutdown();
+        }
+    }
+
+    @Test
+    public void trim_dropsOtherVersionsAndExpiredFiles() throws Exception {
+        File dir = mFolder.newFolder("dials");
+        long now = System.currentTimeMillis();
+        String prefix = "v" + DialThumbnailRenderer.RENDER_VERSION + "_";
+        newFile(dir, prefix + "current.png", 10, now);
+        newFile(dir, prefix + "writing.png.tmp", 10, now);
+        // 加入版本号之前的文件名，以及旧版本
+        newFile(dir, "000000000000000_1234abcd_96.png", 10, now);
+        newFile(dir, "v" + (DialThumbnailRenderer.RENDER_VERSION - 1) + "_old.png", 10, now);
+        newFile(dir, prefix + "expired.png", 10, now - 2 * MAX_AGE);
+        newFile(dir, prefix + "left.png.tmp", 10, now - 2 * MAX_AGE);
+
+        mRenderer = new DialThumbnailRenderer(1024, dir, 1024, MAX_AGE);
+        mRenderer.trimDiskCache();
+
+        assertEquals(Arrays.asList(prefix + "current.png", prefix + "writing.png.tmp"), list(dir));
+    }
+
+    @Test
+    public void trim_overBudget_dropsLeastRecentlyUsed() throws Exception {
+        File dir = mFolder.newFolder("dials");
+        long now = System.currentTimeMillis();
+        String prefix = "v" + DialThumbnailRenderer.RENDER_VERSION + "_";
+        newFile(dir, prefix + "a.png", 100, now - 3000);
+        newFile(dir, prefix + "b.png", 100, now - 1000);
+        newFile(dir, prefix + "c.png", 100, now - 2000);
+
+        mRenderer = new DialThumbnailRenderer(1024, dir, 250, MAX_AGE);
+        mRenderer.trimDiskCache();
+
+        assertEquals(Arrays.asList(prefix + "b.png", prefix + "c.png"), list(dir));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPositiveDiskCacheBytes_throws() throws Exception {
+        new DialThumbnailRenderer(1024, mFolder.newFolder("dials"), 0, MAX_AGE);
+    }
+
+    private static void newFile(File dir, String name, int length, long lastModified) throws IOException {
+        File file = new File(dir, name);
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(new byte[length]);
+        } finally {
+            out.close();
+        }
+        assertTrue(file.setLastModified(lastModified));
+    }
+
+    private static List<String> list(File dir) {
+        String[] names = dir.list();
+        Arrays.sort(names);
+        return Arrays.asList(names);
+    }
+}
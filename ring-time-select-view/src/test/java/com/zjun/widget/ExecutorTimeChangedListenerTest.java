@@ -0,0 +1,191 @@
+package com.zjun.widget;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ExecutorTimeChangedListener}的顺序、只保留最新和快照的测试
+ */
+public class ExecutorTimeChangedListenerTest {
+
+    @Test
+    public void coalescesChangesBetweenBarriers() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        RecordingListener recorder = new RecordingListener();
+        ExecutorTimeChangedListener listener = new ExecutorTimeChangedListener(recorder, executor);
+
+        listener.onSelectStart(10);
+        listener.onChanged(null, GestureCorpus.parts(10, 11));
+        listener.onSelectChanged(11);
+        listener.onChanged(null, GestureCorpus.parts(10, 12));
+        listener.onSelectChanged(12);
+        listener.onInsert(new RingTimeSelectView.TimePart(30, 35));
+        listener.onChanged(null, GestureCorpus.parts(10, 12, 30, 35));
+        listener.onChanged(null, GestureCorpus.parts(10, 13, 30, 35));
+        listener.onSelectFinished();
+
+        // 只提交了一个回调任务
+        assertEquals(1, executor.tasks.size());
+        executor.runAll();
+        assertEquals("start 10, changed 10-12, selectChanged 12, insert 30-35, changed 10-13,30-35, finished"
+                , recorder.toString());
+    }
+
+    @Test
+    public void snapshotIsUnmodifiable() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        RecordingListener recorder = new RecordingListener();
+        new ExecutorTimeChangedListener(recorder, executor).onChanged(null, GestureCorpus.parts(10, 20));
+        executor.runAll();
+        try {
+            recorder.lastParts.add(new RingTimeSelectView.TimePart(30, 40));
+            fail("The snapshot must be unmodifiable");
+        } catch (UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void snapshotPartsAreReadOnlyCopies() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        RecordingListener recorder = new RecordingListener();
+        ExecutorTimeChangedListener listener = new ExecutorTimeChangedListener(recorder, executor);
+        List<RingTimeSelectView.TimePart> parts = GestureCorpus.parts(10, 20);
+        listener.onChanged(null, parts);
+        // 入队后调用方修改自己的对象，不影响回调的值
+        parts.get(0).setEnd(30);
+        executor.runAll();
+
+        RingTimeSelectView.TimePart part = recorder.lastParts.get(0);
+        assertEquals(20, part.getEnd());
+        try {
+            part.setEnd(40);
+            fail("The parts of the snapshot must be read-only");
+        } catch (UnsupportedOperationException expected) {
+        }
+        try {
+            part.setStart(0);
+            fail("The parts of the snapshot must be read-only");
+        } catch (UnsupportedOperationException expected) {
+        }
+        assertEquals(10, part.getStart());
+        assertEquals(20, part.getEnd());
+    }
+
+    @Test
+    public void slowConsumer_getsLatestAndAllBarriers() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        final CountDownLatch finished = new CountDownLatch(1);
+        RecordingListener recorder = new RecordingListener() {
+            @Override
+            public void onChanged(RingTimeSelectView view, List<RingTimeSelectView.TimePart> timePartList) {
+                super.onChanged(view, timePartList);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onSelectFinished() {
+                super.onSelectFinished();
+                finished.countDown();
+            }
+        };
+        ExecutorTimeChangedListener listener = new ExecutorTimeChangedListener(recorder, executor);
+
+        int inserts = 0;
+        for (int end = 1; end <= 60; end++) {
+            listener.onChanged(null, GestureCorpus.parts(0, end));
+            if (end % 10 == 0) {
+                listener.onInsert(new RingTimeSelectView.TimePart(0, end));
+                inserts++;
+            }
+        }
+        listener.onSelectFinished();
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        assertEquals(inserts, recorder.inserts);
+        assertTrue(recorder.changes <= 60);
+        assertEquals("0-60", GestureCorpus.format(recorder.lastParts));
+        // 每次回调的时间段不会倒退
+        assertTrue(recorder.monotonic);
+    }
+
+    private static final class ManualExecutor implements java.util.concurrent.Executor {
+        final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+
+    private static class RecordingListener implements RingTimeSelectView.IOnTimeChangedListener {
+        private final StringBuilder mLog = new StringBuilder();
+        volatile List<RingTimeSelectView.TimePart> lastParts;
+        int changes;
+        int inserts;
+        boolean monotonic = true;
+        private int mLastEnd = -1;
+
+        @Override
+        public void onChanged(RingTimeSelectView view, List<RingTimeSelectView.TimePart> timePartList) {
+            String parts = GestureCorpus.format(timePartList);
+            log("changed " + parts);
+            int end = timePartList.get(0).getEnd();
+            monotonic &= end > mLastEnd;
+            mLastEnd = end;
+            lastParts = timePartList;
+            changes++;
+        }
+
+        @Override
+        public void onInsert(RingTimeSelectView.TimePart part) {
+            log("insert " + part.getStart() + "-" + part.getEnd());
+            inserts++;
+        }
+
+        @Override
+        public void onSelectStart(int minute) {
+            log("start " + minute);
+        }
+
+        @Override
+        public void onSelectChanged(int minute) {
+            log("selectChanged " + minute);
+        }
+
+        @Override
+        public void onSelectFinished() {
+            log("finished");
+        }
+
+        private synchronized void log(String message) {
+            if (mLog.length() > 0) {
+                mLog.append(", ");
+            }
+            mLog.append(message);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return mLog.toString();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.zjun.widget;
+
+import android.view.MotionEvent;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 回放用的手势语料：快速旋转、合并、快速截取、删除、添加后拖动
+ *  按真机的采样节奏合成（每8ms一个样本，每16ms一个事件，中间的样本作为历史样本），
+ *  每个手势带有初始时间段和回放后期望的时间段
+ */
+final class GestureCorpus {
+
+    static final int SIZE = 600;
+
+    private static final int SAMPLE_INTERVAL_MS = 8;
+
+    static final class Entry {
+        final String name;
+        final List<RingTimeSelectView.TimePart> initial;
+        final boolean quickCut;
+        final GestureRecorder recording;
+        /**
+         * 期望的时间段，格式同{@link #format(List)}
+         */
+        final String expected;
+
+        Entry(String name, List<RingTimeSelectView.TimePart> initial, boolean quickCut
+                , GestureRecorder recording, String expected) {
+            this.name = name;
+            this.initial = initial;
+            this.quickCut = quickCut;
+            this.recording = recording;
+            this.expected = expected;
+        }
+    }
+
+    private final float mRadius;
+    private GestureRecorder mRecorder;
+    private long mTime;
+
+    private GestureCorpus(float radius) {
+        mRadius = radius;
+    }
+
+    /**
+     * @param radius    {@link #SIZE}大小的控件的圆环半径
+     */
+    static List<Entry> build(float radius) {
+        GestureCorpus corpus = new GestureCorpus(radius);
+        List<Entry> entries = new ArrayList<>();
+
+        // 终止锚点从5顺时针快速转到55，再回到10
+        corpus.begin();
+        corpus.drag(4, 5, 55, 10);
+        entries.add(new Entry("fastSpin", parts(0, 5), false, corpus.mRecorder, "0-10"));
+
+        // 拖过另一个时间段，抬起时合并
+        corpus.begin();
+        corpus.drag(1, 20, 35);
+        entries.add(new Entry("merge", parts(10, 20, 30, 40), false, corpus.mRecorder, "10-40"));
+
+        // 在时间段内点击，截掉之后的部分
+        corpus.begin();
+        corpus.tap(25);
+        entries.add(new Entry("quickCut", parts(10, 40), true, corpus.mRecorder, "10-25"));
+
+        // 终止锚点拖到起始锚点，抬起时删除
+        corpus.begin();
+        corpus.drag(1, 20, 10);
+        entries.add(new Entry("delete", parts(10, 20, 40, 50), false, corpus.mRecorder, "40-50"));
+
+        // 空白处点击添加（默认5分钟），再拖长
+        corpus.begin();
+        corpus.tap(15);
+        corpus.drag(2, 20, 30);
+        entries.add(new Entry("insertAndDrag", parts(), false, corpus.mRecorder, "15-30"));
+        return entries;
+    }
+
+    static List<RingTimeSelectView.TimePart> parts(int... minutes) {
+        List<RingTimeSelectView.TimePart> list = new ArrayList<>();
+        for (int i = 0; i < minutes.length; i += 2) {
+            list.add(new RingTimeSelectView.TimePart(minutes[i], minutes[i + 1]));
+        }
+        return list;
+    }
+
+    /**
+     * 时间段集合的文本形式，如"10-20,30-40"
+     */
+    static String format(List<RingTimeSelectView.TimePart> partList) {
+        RingTimeSelectView.TimePart[] parts = partList.toArray(new RingTimeSelectView.TimePart[partList.size()]);
+        Arrays.sort(parts, new RingTimeSelectView.TimePart.TimePartComparator());
+        StringBuilder sb = new StringBuilder();
+        for (RingTimeSelectView.TimePart part : parts) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(part.getStart()).append('-').append(part.getEnd());
+        }
+        return sb.toString();
+    }
+
+    private void begin() {
+        mRecorder = new GestureRecorder(SIZE, SIZE);
+        mTime = 1000;
+    }
+
+    private void tap(int minute) {
+        event(MotionEvent.ACTION_DOWN, minute);
+        mTime += 80;
+        event(MotionEvent.ACTION_UP, minute);
+        mTime += 200;
+    }
+
+    /**
+     * 按下path[0]处的锚点，每个事件最多移动step分钟，依次经过path中的各分钟，最后抬起
+     */
+    private void drag(int step, int... path) {
+        float minute = path[0];
+        event(MotionEvent.ACTION_DOWN, minute);
+        for (int i = 1; i < path.length; i++) {
+            int target = path[i];
+            while (minute != target) {
+                float next = minute < target ? Math.min(minute + step, target) : Math.max(minute - step, target);
+                mRecorder.beginEvent(MotionEvent.ACTION_MOVE);
+                // 中间的样本作为历史样本
+                mTime += SAMPLE_INTERVAL_MS;
+                sample((minute + next) * .5f);
+                mTime += SAMPLE_INTERVAL_MS;
+                sample(next);
+                minute = next;
+            }
+        }
+        // 抬起前停在终点：只有一个样本的移动，不依赖历史样本是否被分发（Robolectric的addBatch不保存历史样本）
+        mTime += SAMPLE_INTERVAL_MS;
+        event(MotionEvent.ACTION_MOVE, minute);
+        mTime += SAMPLE_INTERVAL_MS;
+        event(MotionEvent.ACTION_UP, minute);
+        mTime += 200;
+    }
+
+    private void event(int action, float minute) {
+        mRecorder.beginEvent(action);
+        sample(minute);
+    }
+
+    private void sample(float minute) {
+        double radians = Math.toRadians(minute * 6);
+        float center = SIZE * .5f;
+        mRecorder.addSample(mTime, (float) (center + Math.sin(radians) * mRadius)
+                , (float) (center - Math.cos(radians) * mRadius));
+    }
+}
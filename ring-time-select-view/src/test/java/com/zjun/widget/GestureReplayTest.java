@@ -0,0 +1,164 @@
+package com.zjun.widget;
+
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 手势回放：把{@link GestureCorpus}和真机录制的手势全速回放到{@link RingTimeSelectView}上，
+ *  检查最终的时间段，并输出吞吐量（事件/s、ns/事件）和每个事件的分配字节数
+ *
+ *  吞吐量只输出不检查，默认跳过：语料的吞吐量用系统属性rtv.benchmark开启，见{@link ScheduleFixtures}；
+ *  真机录制的文件（demo中"Record"按钮保存的*.rtg）可放在一个目录中，用系统属性rtv.gestures.dir指定，
+ *  如gradlew test -Prtv.gestures.dir=/path/to/gestures，这些文件只输出结果，不检查
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class GestureReplayTest {
+
+    private static final int WARM_UP_ROUNDS = 200;
+    private static final int MEASURE_ROUNDS = 500;
+    /**
+     * JVM是否支持统计线程分配的字节数
+     */
+    private static final boolean ALLOCATION_COUNTED = ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean
+            && ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).isThreadAllocatedMemoryEnabled();
+
+    @Test
+    public void recording_roundTrips() throws Exception {
+        for (GestureCorpus.Entry entry : GestureCorpus.build(radius())) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            entry.recording.writeTo(out);
+            GestureRecorder read = GestureRecorder.readFrom(new ByteArrayInputStream(out.toByteArray()));
+            assertEquals(entry.recording.getEventCount(), read.getEventCount());
+            assertEquals(entry.recording.getSampleCount(), read.getSampleCount());
+
+            ByteArrayOutputStream again = new ByteArrayOutputStream();
+            read.writeTo(again);
+            assertArrayEquals(entry.name, out.toByteArray(), again.toByteArray());
+        }
+    }
+
+    @Test
+    public void corpus_producesExpectedSchedules() throws Exception {
+        for (GestureCorpus.Entry entry : GestureCorpus.build(radius())) {
+            RingTimeSelectView view = createView(entry.quickCut);
+            view.setTimeSections(entry.initial);
+            entry.recording.replay(view);
+            assertEquals(entry.name, entry.expected, GestureCorpus.format(view.getTimeSections()));
+        }
+    }
+
+    @Test
+    public void corpus_throughput() throws Exception {
+        ScheduleFixtures.assumeBenchmarkEnabled();
+        for (GestureCorpus.Entry entry : GestureCorpus.build(radius())) {
+            RingTimeSelectView view = createView(entry.quickCut);
+            report(entry.name, view, entry.initial, entry.recording);
+            assertEquals(entry.name, entry.expected, GestureCorpus.format(view.getTimeSections()));
+        }
+    }
+
+    @Test
+    public void recordedGestures_throughput() throws Exception {
+        String dir = System.getProperty("rtv.gestures.dir");
+        File[] files = dir == null ? null : new File(dir).listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (!file.getName().endsWith(".rtg")) {
+                continue;
+            }
+            GestureRecorder recording;
+            InputStream in = new FileInputStream(file);
+            try {
+                recording = GestureRecorder.readFrom(in);
+            } finally {
+                in.close();
+            }
+            report(file.getName(), createView(true), GestureCorpus.parts(), recording);
+        }
+    }
+
+    /**
+     * 预热后回放多轮，输出吞吐量、分配和最终的时间段。每轮开始前恢复初始时间段，不计入耗时
+     */
+    private void report(String name, RingTimeSelectView view, List<RingTimeSelectView.TimePart> initial
+            , GestureRecorder recording) throws IOException {
+        MotionEvent[] events = recording.obtainEvents(view.getWidth(), view.getHeight(), 0);
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            view.setTimeSections(initial);
+            dispatch(view, events);
+        }
+
+        long nanos = 0;
+        long bytes = 0;
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            view.setTimeSections(initial);
+            long beginBytes = allocatedBytes();
+            long begin = System.nanoTime();
+            dispatch(view, events);
+            nanos += System.nanoTime() - begin;
+            bytes += allocatedBytes() - beginBytes;
+        }
+        for (MotionEvent event : events) {
+            event.recycle();
+        }
+
+        long total = (long) events.length * MEASURE_ROUNDS;
+        System.out.printf("GestureReplay: %-14s %4d events, %8.0f events/s, %6.0f ns/event, %s B/event, final=%s%n"
+                , name, events.length, total * 1e9 / nanos, (double) nanos / total
+                , ALLOCATION_COUNTED ? String.valueOf(bytes / total) : "n/a", GestureCorpus.format(view.getTimeSections()));
+    }
+
+    private static void dispatch(View view, MotionEvent[] events) {
+        for (MotionEvent event : events) {
+            view.dispatchTouchEvent(event);
+        }
+    }
+
+    /**
+     * 当前线程已分配的字节数；JVM不支持时为0
+     */
+    private static long allocatedBytes() {
+        if (!ALLOCATION_COUNTED) {
+            return 0;
+        }
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static RingTimeSelectView createView(boolean quickCut) {
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.rtv_quickCutEnable, String.valueOf(quickCut))
+                .build();
+        RingTimeSelectView view = new RingTimeSelectView(RuntimeEnvironment.application, attrs);
+        int spec = View.MeasureSpec.makeMeasureSpec(GestureCorpus.SIZE, View.MeasureSpec.EXACTLY);
+        view.measure(spec, spec);
+        view.layout(0, 0, GestureCorpus.SIZE, GestureCorpus.SIZE);
+        return view;
+    }
+
+    private static float radius() {
+        return DialPainter.ringRadiusFor(createView(false).getDialStyle(), GestureCorpus.SIZE);
+    }
+}
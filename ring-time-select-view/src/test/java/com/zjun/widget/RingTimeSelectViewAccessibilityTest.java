@@ -0,0 +1,96 @@
+package com.zjun.widget;
+
+import android.graphics.Rect;
+import android.view.View;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.view.accessibility.AccessibilityNodeProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * 无障碍虚拟节点：锚点、圆弧的描述和范围，以及通过滚动操作调整分钟
+ *  虚拟节点ID：锚点 = 时间段索引 * 2 + (0-起始，1-终止)，圆弧 = sectionSum * 2 + 时间段索引
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class RingTimeSelectViewAccessibilityTest {
+
+    /**
+     * 默认sectionSum为3
+     */
+    private static final int FIRST_END_ANCHOR = 1;
+    private static final int SECOND_ARC = 3 * 2 + 1;
+
+    private RingTimeSelectView mView;
+    private AccessibilityNodeProvider mProvider;
+
+    @Before
+    public void setUp() {
+        mView = new RingTimeSelectView(RuntimeEnvironment.application);
+        int spec = View.MeasureSpec.makeMeasureSpec(GestureCorpus.SIZE, View.MeasureSpec.EXACTLY);
+        mView.measure(spec, spec);
+        mView.layout(0, 0, GestureCorpus.SIZE, GestureCorpus.SIZE);
+        mView.setTimeSections(GestureCorpus.parts(10, 20, 40, 50));
+        // 无障碍辅助在附加到窗口时创建
+        assertNull(mView.getAccessibilityNodeProvider());
+        mView.onAttachedToWindow();
+        mProvider = mView.getAccessibilityNodeProvider();
+        assertNotNull(mProvider);
+    }
+
+    @Test
+    public void host_exposesArcAndAnchorsPerSection() {
+        AccessibilityNodeInfo host = mProvider.createAccessibilityNodeInfo(View.NO_ID);
+        assertEquals(6, host.getChildCount());
+
+        assertTrue(mView.removeTimeSection(mView.getTimeSections().get(0).getId()));
+        host = mProvider.createAccessibilityNodeInfo(View.NO_ID);
+        assertEquals(3, host.getChildCount());
+    }
+
+    @Test
+    public void nodes_describeMinutesWithinBounds() {
+        AccessibilityNodeInfo anchor = mProvider.createAccessibilityNodeInfo(FIRST_END_ANCHOR);
+        assertTrue(anchor.getContentDescription().toString().endsWith("minute 20"));
+        assertTrue(anchor.isScrollable());
+        Rect bounds = new Rect();
+        anchor.getBoundsInParent(bounds);
+        // 20分钟在右下方
+        assertTrue(bounds.centerX() > GestureCorpus.SIZE / 2);
+        assertTrue(bounds.centerY() > GestureCorpus.SIZE / 2);
+
+        AccessibilityNodeInfo arc = mProvider.createAccessibilityNodeInfo(SECOND_ARC);
+        assertEquals("Selected from minute 40 to 50", arc.getContentDescription().toString());
+        assertFalse(arc.isScrollable());
+        arc.getBoundsInParent(bounds);
+        assertTrue(bounds.right <= GestureCorpus.SIZE / 2);
+    }
+
+    @Test
+    public void scroll_movesAnchorAndRefreshesDescription() {
+        assertTrue(mProvider.performAction(FIRST_END_ANCHOR, AccessibilityNodeInfo.ACTION_SCROLL_FORWARD, null));
+        assertEquals("10-21,40-50", GestureCorpus.format(mView.getTimeSections()));
+        assertTrue(mProvider.createAccessibilityNodeInfo(FIRST_END_ANCHOR)
+                .getContentDescription().toString().endsWith("minute 21"));
+
+        assertTrue(mProvider.performAction(FIRST_END_ANCHOR, AccessibilityNodeInfo.ACTION_SCROLL_BACKWARD, null));
+        assertTrue(mProvider.performAction(FIRST_END_ANCHOR, AccessibilityNodeInfo.ACTION_SCROLL_BACKWARD, null));
+        assertEquals("10-19,40-50", GestureCorpus.format(mView.getTimeSections()));
+        // 圆弧不能滚动
+        assertFalse(mProvider.performAction(SECOND_ARC, AccessibilityNodeInfo.ACTION_SCROLL_FORWARD, null));
+    }
+
+    @Test
+    public void readOnly_refusesScroll() {
+        mView.setReadOnly(true);
+        assertFalse(mProvider.performAction(FIRST_END_ANCHOR, AccessibilityNodeInfo.ACTION_SCROLL_FORWARD, null));
+        assertEquals("10-20,40-50", GestureCorpus.format(mView.getTimeSections()));
+    }
+}
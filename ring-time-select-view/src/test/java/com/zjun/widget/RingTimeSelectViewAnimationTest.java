@@ -0,0 +1,73 @@
+package com.zjun.widget;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.*;
+
+/**
+ * 设置、清除时间段时的过渡动画
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class RingTimeSelectViewAnimationTest {
+
+    private RingTimeSelectView mView;
+
+    @Before
+    public void setUp() {
+        mView = new RingTimeSelectView(RuntimeEnvironment.application);
+        int spec = View.MeasureSpec.makeMeasureSpec(GestureCorpus.SIZE, View.MeasureSpec.EXACTLY);
+        mView.measure(spec, spec);
+        mView.layout(0, 0, GestureCorpus.SIZE, GestureCorpus.SIZE);
+    }
+
+    @Test
+    public void detached_appliesWithoutAnimation() throws Exception {
+        mView.setTimeSections(GestureCorpus.parts(10, 20), true);
+        assertFalse(field("mAnimating").getBoolean(mView));
+        assertEquals("10-20", GestureCorpus.format(mView.getTimeSections()));
+    }
+
+    @Test
+    public void attached_animatesButDataIsFinal() throws Exception {
+        mView.onAttachedToWindow();
+        mView.setTimeSections(GestureCorpus.parts(10, 20, 40, 50));
+        mView.setTimeSections(GestureCorpus.parts(30, 35), true);
+        assertTrue(field("mAnimating").getBoolean(mView));
+        // 一个移动到新位置，一个收缩
+        assertEquals(2, field("mAnimCount").getInt(mView));
+        assertEquals("30-35", GestureCorpus.format(mView.getTimeSections()));
+
+        mView.onDetachedFromWindow();
+        assertFalse(field("mAnimating").getBoolean(mView));
+    }
+
+    @Test
+    public void interrupted_doesNotStartFromCollapsingSections() throws Exception {
+        mView.onAttachedToWindow();
+        mView.setTimeSections(GestureCorpus.parts(10, 20, 40, 50));
+        // 40-50收缩消失
+        mView.setTimeSections(GestureCorpus.parts(10, 20), true);
+        assertEquals(2, field("mAnimCount").getInt(mView));
+
+        // 动画中再设置：只从10-20移动过去，不再从正在消失的40-50展开
+        mView.setTimeSections(GestureCorpus.parts(30, 35), true);
+        assertEquals(1, field("mAnimCount").getInt(mView));
+        assertEquals("30-35", GestureCorpus.format(mView.getTimeSections()));
+    }
+
+    private static Field field(String name) throws NoSuchFieldException {
+        Field field = RingTimeSelectView.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field;
+    }
+}
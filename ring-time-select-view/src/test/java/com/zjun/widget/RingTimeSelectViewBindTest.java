@@ -0,0 +1,123 @@
+package com.zjun.widget;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RingTimeSelectView#bind(long)}、{@link RingTimeSelectView#recycle()}复用控件的测试
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class RingTimeSelectViewBindTest {
+
+    private RingTimeSelectView mView;
+    private float mCenter;
+    private float mRadius;
+    private int mChanged;
+
+    @Before
+    public void setUp() {
+        mView = new RingTimeSelectView(RuntimeEnvironment.application);
+        int spec = View.MeasureSpec.makeMeasureSpec(GestureCorpus.SIZE, View.MeasureSpec.EXACTLY);
+        mView.measure(spec, spec);
+        mView.layout(0, 0, GestureCorpus.SIZE, GestureCorpus.SIZE);
+        mCenter = GestureCorpus.SIZE * .5f;
+        mRadius = DialPainter.ringRadiusFor(mView.getDialStyle(), GestureCorpus.SIZE);
+        mView.setOnTimeChangeListener(new RingTimeSelectView.IOnTimeChangedListener() {
+            @Override
+            public void onChanged(RingTimeSelectView view, List<RingTimeSelectView.TimePart> timePartList) {
+                mChanged++;
+            }
+
+            @Override
+            public void onInsert(RingTimeSelectView.TimePart part) {
+            }
+
+            @Override
+            public void onSelectStart(int minute) {
+            }
+
+            @Override
+            public void onSelectChanged(int minute) {
+            }
+
+            @Override
+            public void onSelectFinished() {
+            }
+        });
+    }
+
+    @Test
+    public void bind_replacesScheduleWithoutCallback() {
+        mView.setTimeSections(GestureCorpus.parts(0, 10));
+        mChanged = 0;
+
+        mView.bind(PackedSchedule.rangeMask(10, 20) | PackedSchedule.rangeMask(40, 60));
+        assertEquals("10-20,40-60", GestureCorpus.format(mView.getTimeSections()));
+        assertEquals(0, mChanged);
+        // 上一项的历史不能撤销到这一项上
+        assertFalse(mView.canUndo());
+    }
+
+    @Test
+    public void bind_midDrag_dropsTheGesture() {
+        mView.bind(PackedSchedule.rangeMask(10, 30));
+        long downTime = SystemClock.uptimeMillis();
+        assertTrue(mView.onTouchEvent(event(downTime, MotionEvent.ACTION_DOWN, 30)));
+        mView.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, 32));
+
+        // 拖动中被复用：新一项不受上一项手势的影响
+        mView.bind(PackedSchedule.rangeMask(40, 50));
+        mView.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, 34));
+        mView.onTouchEvent(event(downTime, MotionEvent.ACTION_UP, 34));
+        assertEquals("40-50", GestureCorpus.format(mView.getTimeSections()));
+    }
+
+    @Test
+    public void bind_tooManySections_throwsAndKeepsSchedule() {
+        mView.bind(PackedSchedule.rangeMask(0, 5));
+        try {
+            mView.bind(PackedSchedule.rangeMask(0, 5) | PackedSchedule.rangeMask(10, 15)
+                    | PackedSchedule.rangeMask(20, 25) | PackedSchedule.rangeMask(30, 35));
+            fail("Four sections must not fit into the default sectionSum of 3");
+        } catch (IllegalArgumentException expected) {
+        }
+        assertEquals("0-5", GestureCorpus.format(mView.getTimeSections()));
+    }
+
+    @Test
+    public void recycle_clearsScheduleAndListener() {
+        mView.bind(PackedSchedule.rangeMask(10, 20));
+        mView.recycle();
+        assertEquals("", GestureCorpus.format(mView.getTimeSections()));
+
+        mChanged = 0;
+        mView.setTimeSections(GestureCorpus.parts(0, 10));
+        assertEquals(0, mChanged);
+
+        // 回收后再绑定，复用时间段对象，ID仍然是新的
+        mView.bind(PackedSchedule.rangeMask(30, 40));
+        List<RingTimeSelectView.TimePart> parts = mView.getTimeSections();
+        mView.bind(PackedSchedule.rangeMask(30, 40));
+        assertNotEquals(parts.get(0).getId(), mView.getTimeSections().get(0).getId());
+    }
+
+    private MotionEvent event(long downTime, int action, float minute) {
+        double radians = Math.toRadians(minute * 6);
+        float x = (float) (mCenter + Math.sin(radians) * mRadius);
+        float y = (float) (mCenter - Math.cos(radians) * mRadius);
+        return MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+    }
+}
@@ -0,0 +1,205 @@
+package com.zjun.widget;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 稳定的ID与增量监听：传回getTimeSections()的时间段保留ID，拖动中复用增量对象
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class RingTimeSelectViewDeltaTest {
+
+    private RingTimeSelectView mView;
+    private final List<RingTimeSelectView.SectionDelta> mDeltas = new ArrayList<>();
+    private final List<String> mResized = new ArrayList<>();
+    private final List<String> mInserted = new ArrayList<>();
+    private int mRemovedCount;
+
+    @Before
+    public void setUp() {
+        mView = new RingTimeSelectView(RuntimeEnvironment.application);
+        int spec = View.MeasureSpec.makeMeasureSpec(GestureCorpus.SIZE, View.MeasureSpec.EXACTLY);
+        mView.measure(spec, spec);
+        mView.layout(0, 0, GestureCorpus.SIZE, GestureCorpus.SIZE);
+    }
+
+    @Test
+    public void setTimeSections_keepsIdsFromGetTimeSections() {
+        mView.setTimeSections(GestureCorpus.parts(0, 10, 20, 30));
+        List<RingTimeSelectView.TimePart> parts = mView.getTimeSections();
+        int firstId = parts.get(0).getId();
+        int secondId = parts.get(1).getId();
+        listen();
+
+        parts.get(1).setEnd(40);
+        mView.setTimeSections(parts);
+
+        List<RingTimeSelectView.TimePart> result = mView.getTimeSections();
+        assertEquals(firstId, result.get(0).getId());
+        assertEquals(secondId, result.get(1).getId());
+        assertEquals(1, mDeltas.size());
+        assertEquals("[" + secondId + ":20-40]", mResized.toString());
+        assertTrue(mInserted.isEmpty());
+        assertEquals(0, mRemovedCount);
+    }
+
+    @Test
+    public void setTimeSections_animated_keepsIds() {
+        mView.onAttachedToWindow();
+        mView.setTimeSections(GestureCorpus.parts(0, 10));
+        List<RingTimeSelectView.TimePart> parts = mView.getTimeSections();
+        int id = parts.get(0).getId();
+
+        parts.get(0).setEnd(15);
+        mView.setTimeSections(parts, true);
+
+        assertEquals(id, mView.getTimeSections().get(0).getId());
+    }
+
+    @Test
+    public void batchEdit_keepsIds() {
+        mView.setTimeSections(GestureCorpus.parts(0, 10));
+        List<RingTimeSelectView.TimePart> parts = mView.getTimeSections();
+        int id = parts.get(0).getId();
+
+        mView.beginEdit();
+        mView.setTimeSections(parts);
+        mView.addTimeSection(30, 40);
+        mView.commit();
+
+        List<RingTimeSelectView.TimePart> result = mView.getTimeSections();
+        assertEquals(id, result.get(0).getId());
+        assertNotEquals(id, result.get(1).getId());
+    }
+
+    @Test
+    public void duplicateOrForeignIds_getNewIds() {
+        mView.setTimeSections(GestureCorpus.parts(0, 10));
+        RingTimeSelectView.TimePart own = mView.getTimeSections().get(0);
+
+        RingTimeSelectView other = new RingTimeSelectView(RuntimeEnvironment.application);
+        other.setTimeSections(GestureCorpus.parts(0, 5, 10, 15, 20, 25));
+        RingTimeSelectView.TimePart foreign = other.getTimeSections().get(2);
+
+        // 同一个时间段传入两次，以及另一个控件分配的、本控件还没用过的ID
+        List<RingTimeSelectView.TimePart> parts = new ArrayList<>();
+        parts.add(own);
+        parts.add(new RingTimeSelectView.TimePart(own.getId(), 20, 30));
+        parts.add(foreign);
+        mView.setTimeSections(parts);
+
+        List<RingTimeSelectView.TimePart> result = mView.getTimeSections();
+        assertEquals(own.getId(), result.get(0).getId());
+        assertNotEquals(own.getId(), result.get(1).getId());
+        assertNotEquals(result.get(1).getId(), result.get(2).getId());
+        assertTrue(result.get(2).getId() > own.getId());
+    }
+
+    @Test
+    public void drag_reusesDelta() {
+        mView.setTimeSections(GestureCorpus.parts(10, 30));
+        int id = mView.getTimeSections().get(0).getId();
+        listen();
+
+        float center = GestureCorpus.SIZE * .5f;
+        float radius = DialPainter.ringRadiusFor(mView.getDialStyle(), GestureCorpus.SIZE);
+        long downTime = SystemClock.uptimeMillis();
+        assertTrue(mView.onTouchEvent(event(downTime, MotionEvent.ACTION_DOWN, center, radius, 30)));
+        mView.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, center, radius, 31));
+        mView.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, center, radius, 32));
+        mView.onTouchEvent(event(downTime, MotionEvent.ACTION_UP, center, radius, 32));
+
+        assertTrue(mDeltas.size() >= 2);
+        for (RingTimeSelectView.SectionDelta delta : mDeltas) {
+            assertSame(mDeltas.get(0), delta);
+        }
+        assertEquals(id + ":10-31", mResized.get(0));
+        assertEquals(id + ":10-32", mResized.get(1));
+        assertTrue(mInserted.isEmpty());
+        assertEquals(0, mRemovedCount);
+    }
+
+    @Test
+    public void tapInsert_onInsertCarriesSectionId() {
+        mView.setTimeSections(GestureCorpus.parts(10, 30));
+        listen();
+        final List<RingTimeSelectView.TimePart> inserted = new ArrayList<>();
+        mView.setOnTimeChangeListener(new RingTimeSelectView.IOnTimeChangedListener() {
+            @Override
+            public void onChanged(RingTimeSelectView view, List<RingTimeSelectView.TimePart> timePartList) {
+            }
+
+            @Override
+            public void onInsert(RingTimeSelectView.TimePart part) {
+                inserted.add(part);
+            }
+
+            @Override
+            public void onSelectStart(int minute) {
+            }
+
+            @Override
+            public void onSelectChanged(int minute) {
+            }
+
+            @Override
+            public void onSelectFinished() {
+            }
+        });
+
+        float center = GestureCorpus.SIZE * .5f;
+        float radius = DialPainter.ringRadiusFor(mView.getDialStyle(), GestureCorpus.SIZE);
+        long downTime = SystemClock.uptimeMillis();
+        // 空白处按下即添加
+        mView.onTouchEvent(event(downTime, MotionEvent.ACTION_DOWN, center, radius, 45));
+
+        assertEquals(1, inserted.size());
+        RingTimeSelectView.TimePart part = inserted.get(0);
+        assertEquals(45, part.getStart());
+        // 与增量和getTimeSections()中的ID一致，可以对应之后的增量
+        assertNotEquals(0, part.getId());
+        assertEquals("[" + part.getId() + ":45-50]", mInserted.toString());
+        for (RingTimeSelectView.TimePart section : mView.getTimeSections()) {
+            if (section.getStart() == 45) {
+                assertEquals(part.getId(), section.getId());
+            }
+        }
+    }
+
+    private void listen() {
+        mView.setOnSectionDeltaListener(new RingTimeSelectView.IOnSectionDeltaListener() {
+            @Override
+            public void onDelta(RingTimeSelectView view, RingTimeSelectView.SectionDelta delta) {
+                mDeltas.add(delta);
+                for (RingTimeSelectView.TimePart part : delta.getResized()) {
+                    mResized.add(part.getId() + ":" + part.getStart() + "-" + part.getEnd());
+                }
+                for (RingTimeSelectView.TimePart part : delta.getInserted()) {
+                    mInserted.add(part.getId() + ":" + part.getStart() + "-" + part.getEnd());
+                }
+                mRemovedCount += delta.getRemovedIds().length + delta.getMergedIds().length;
+            }
+        });
+    }
+
+    private static MotionEvent event(long downTime, int action, float center, float radius, float minute) {
+        double radians = Math.toRadians(minute * 6);
+        float x = (float) (center + Math.sin(radians) * radius);
+        float y = (float) (center - Math.cos(radians) * radius);
+        return MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+    }
+}
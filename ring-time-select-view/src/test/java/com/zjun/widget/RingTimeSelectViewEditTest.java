@@ -0,0 +1,134 @@
+package com.zjun.widget;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RingTimeSelectView#beginEdit()}、{@link RingTimeSelectView#commit()}批量编辑的测试
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class RingTimeSelectViewEditTest {
+
+    private RingTimeSelectView mView;
+    private int mChanged;
+
+    @Before
+    public void setUp() {
+        mView = new RingTimeSelectView(RuntimeEnvironment.application);
+        int spec = View.MeasureSpec.makeMeasureSpec(GestureCorpus.SIZE, View.MeasureSpec.EXACTLY);
+        mView.measure(spec, spec);
+        mView.layout(0, 0, GestureCorpus.SIZE, GestureCorpus.SIZE);
+        mView.clearTimeSections();
+        mView.setOnTimeChangeListener(new RingTimeSelectView.IOnTimeChangedListener() {
+            @Override
+            public void onChanged(RingTimeSelectView view, List<RingTimeSelectView.TimePart> timePartList) {
+                mChanged++;
+            }
+
+            @Override
+            public void onInsert(RingTimeSelectView.TimePart part) {
+            }
+
+            @Override
+            public void onSelectStart(int minute) {
+            }
+
+            @Override
+            public void onSelectChanged(int minute) {
+            }
+
+            @Override
+            public void onSelectFinished() {
+            }
+        });
+    }
+
+    @Test
+    public void edit_notifiesOnceOnCommit() {
+        mView.beginEdit();
+        mView.addTimeSection(0, 10);
+        mView.addTimeSection(20, 30);
+        mView.addTimeSection(40, 50);
+        assertTrue(mView.isEditing());
+        assertEquals(0, mChanged);
+        assertEquals("", GestureCorpus.format(mView.getTimeSections()));
+
+        mView.commit();
+        assertFalse(mView.isEditing());
+        assertEquals(1, mChanged);
+        assertEquals("0-10,20-30,40-50", GestureCorpus.format(mView.getTimeSections()));
+    }
+
+    @Test
+    public void edit_mergesCrossingAndTouchingSections() {
+        mView.beginEdit();
+        mView.addTimeSection(10, 20);
+        mView.addTimeSection(15, 25);
+        mView.addTimeSection(25, 30);
+        mView.addTimeSection(40, 45);
+        mView.commit();
+        assertEquals("10-30,40-45", GestureCorpus.format(mView.getTimeSections()));
+    }
+
+    @Test
+    public void edit_nested_appliesOnOutermostCommit() {
+        mView.beginEdit();
+        mView.setTimeSections(GestureCorpus.parts(0, 5));
+        mView.beginEdit();
+        mView.addTimeSection(10, 15);
+        mView.commit();
+        assertEquals(0, mChanged);
+        mView.commit();
+        assertEquals(1, mChanged);
+        assertEquals("0-5,10-15", GestureCorpus.format(mView.getTimeSections()));
+    }
+
+    @Test
+    public void edit_keepsIdsOfExistingSections() {
+        mView.setTimeSections(GestureCorpus.parts(10, 20, 40, 50));
+        List<RingTimeSelectView.TimePart> before = mView.getTimeSections();
+
+        mView.beginEdit();
+        assertTrue(mView.removeTimeSection(before.get(1).getId()));
+        mView.addTimeSection(20, 30);
+        mView.commit();
+
+        List<RingTimeSelectView.TimePart> after = mView.getTimeSections();
+        assertEquals("10-30", GestureCorpus.format(after));
+        assertEquals(before.get(0).getId(), after.get(0).getId());
+    }
+
+    @Test
+    public void edit_exceedingSectionSum_throwsAndKeepsSchedule() {
+        mView.setTimeSections(GestureCorpus.parts(0, 5));
+        mChanged = 0;
+        mView.beginEdit();
+        mView.addTimeSection(10, 15);
+        mView.addTimeSection(20, 25);
+        mView.addTimeSection(30, 35);
+        try {
+            mView.commit();
+            fail("Four sections must not fit into the default sectionSum of 3");
+        } catch (IllegalStateException expected) {
+        }
+        assertFalse(mView.isEditing());
+        assertEquals(0, mChanged);
+        assertEquals("0-5", GestureCorpus.format(mView.getTimeSections()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void commit_withoutBegin_throws() {
+        mView.commit();
+    }
+}
@@ -0,0 +1,136 @@
+package com.zjun.widget;
+
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.*;
+
+/**
+ * 撤销、重做的环形历史记录：超过深度时丢弃最早的记录，新的修改丢弃可重做的记录，拖动和批量编辑中不可用
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class RingTimeSelectViewHistoryTest {
+
+    @Test
+    public void fullRing_dropsOldestAndWrapsAround() {
+        RingTimeSelectView view = createView(3);
+        // 初始空状态 + 4次修改，只保留最后3条
+        for (int start = 0; start < 40; start += 10) {
+            view.setTimeSections(GestureCorpus.parts(start, start + 5));
+        }
+        assertTrue(view.undo());
+        assertEquals("20-25", GestureCorpus.format(view.getTimeSections()));
+        assertTrue(view.undo());
+        assertEquals("10-15", GestureCorpus.format(view.getTimeSections()));
+        assertFalse(view.undo());
+        assertEquals("10-15", GestureCorpus.format(view.getTimeSections()));
+
+        assertTrue(view.redo());
+        assertTrue(view.redo());
+        assertEquals("30-35", GestureCorpus.format(view.getTimeSections()));
+        assertFalse(view.redo());
+
+        // 再绕一圈：头部在环中继续前移
+        view.setTimeSections(GestureCorpus.parts(40, 45));
+        view.setTimeSections(GestureCorpus.parts(50, 55));
+        assertTrue(view.undo());
+        assertTrue(view.undo());
+        assertEquals("30-35", GestureCorpus.format(view.getTimeSections()));
+        assertFalse(view.undo());
+    }
+
+    @Test
+    public void newEdit_truncatesRedo() {
+        RingTimeSelectView view = createView(10);
+        view.setTimeSections(GestureCorpus.parts(0, 10));
+        view.setTimeSections(GestureCorpus.parts(20, 30));
+        assertTrue(view.undo());
+        assertTrue(view.canRedo());
+
+        view.setTimeSections(GestureCorpus.parts(40, 50));
+        assertFalse(view.canRedo());
+        assertTrue(view.undo());
+        assertEquals("0-10", GestureCorpus.format(view.getTimeSections()));
+        assertTrue(view.redo());
+        assertEquals("40-50", GestureCorpus.format(view.getTimeSections()));
+    }
+
+    @Test
+    public void sameState_isNotRecorded() {
+        RingTimeSelectView view = createView(10);
+        view.setTimeSections(GestureCorpus.parts(0, 10));
+        view.setTimeSections(GestureCorpus.parts(0, 10));
+        assertTrue(view.undo());
+        assertEquals("", GestureCorpus.format(view.getTimeSections()));
+        assertFalse(view.canUndo());
+    }
+
+    @Test
+    public void duringDrag_refused() {
+        RingTimeSelectView view = createView(10);
+        view.setTimeSections(GestureCorpus.parts(10, 30));
+        float center = GestureCorpus.SIZE * .5f;
+        float radius = DialPainter.ringRadiusFor(view.getDialStyle(), GestureCorpus.SIZE);
+        long downTime = SystemClock.uptimeMillis();
+        assertTrue(view.onTouchEvent(event(downTime, MotionEvent.ACTION_DOWN, center, radius, 30)));
+        view.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, center, radius, 32));
+
+        assertFalse(view.undo());
+        assertFalse(view.redo());
+        assertEquals("10-32", GestureCorpus.format(view.getTimeSections()));
+
+        // 抬起后整个拖动是一条记录
+        view.onTouchEvent(event(downTime, MotionEvent.ACTION_UP, center, radius, 32));
+        assertTrue(view.undo());
+        assertEquals("10-30", GestureCorpus.format(view.getTimeSections()));
+    }
+
+    @Test
+    public void duringEdit_refused() {
+        RingTimeSelectView view = createView(10);
+        view.setTimeSections(GestureCorpus.parts(10, 20));
+        view.beginEdit();
+        view.addTimeSection(30, 40);
+        assertFalse(view.undo());
+        view.commit();
+
+        assertTrue(view.undo());
+        assertEquals("10-20", GestureCorpus.format(view.getTimeSections()));
+    }
+
+    @Test
+    public void zeroDepth_recordsNothing() {
+        RingTimeSelectView view = createView(0);
+        view.setTimeSections(GestureCorpus.parts(10, 20));
+        assertFalse(view.canUndo());
+        assertFalse(view.undo());
+    }
+
+    private static MotionEvent event(long downTime, int action, float center, float radius, float minute) {
+        double radians = Math.toRadians(minute * 6);
+        float x = (float) (center + Math.sin(radians) * radius);
+        float y = (float) (center - Math.cos(radians) * radius);
+        return MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+    }
+
+    private static RingTimeSelectView createView(int historyDepth) {
+        AttributeSet attrs = Robolectric.buildAttributeSet()
+                .addAttribute(R.attr.rtv_historyDepth, String.valueOf(historyDepth))
+                .build();
+        RingTimeSelectView view = new RingTimeSelectView(RuntimeEnvironment.application, attrs);
+        int spec = View.MeasureSpec.makeMeasureSpec(GestureCorpus.SIZE, View.MeasureSpec.EXACTLY);
+        view.measure(spec, spec);
+        view.layout(0, 0, GestureCorpus.SIZE, GestureCorpus.SIZE);
+        return view;
+    }
+}
@@ -0,0 +1,124 @@
+package com.zjun.widget;
+
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Field;
+
+import static org.junit.Assert.*;
+
+/**
+ * 低延迟拖动：预测的锚点领先于量化的整分钟，限制在另一锚点之内，抬起时回到整分钟
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class RingTimeSelectViewLowLatencyTest {
+
+    /**
+     * 相邻两个事件的时间间隔（ms）
+     */
+    private static final long STEP_MILLIS = 16;
+
+    private RingTimeSelectView mView;
+    private float mCenter;
+    private float mRadius;
+    private long mDownTime;
+
+    @Before
+    public void setUp() {
+        mView = new RingTimeSelectView(RuntimeEnvironment.application);
+        mView.setLowLatencyDragEnable(true);
+        int spec = View.MeasureSpec.makeMeasureSpec(GestureCorpus.SIZE, View.MeasureSpec.EXACTLY);
+        mView.measure(spec, spec);
+        mView.layout(0, 0, GestureCorpus.SIZE, GestureCorpus.SIZE);
+        mCenter = GestureCorpus.SIZE * .5f;
+        mRadius = DialPainter.ringRadiusFor(mView.getDialStyle(), GestureCorpus.SIZE);
+        mDownTime = 1000;
+    }
+
+    @Test
+    public void drag_predictedAnchorRunsAhead() throws Exception {
+        mView.setTimeSections(GestureCorpus.parts(10, 30));
+
+        assertTrue(mView.onTouchEvent(event(0, MotionEvent.ACTION_DOWN, 30)));
+        mView.onTouchEvent(event(1, MotionEvent.ACTION_MOVE, 31));
+        mView.onTouchEvent(event(2, MotionEvent.ACTION_MOVE, 32));
+        mView.onTouchEvent(event(3, MotionEvent.ACTION_MOVE, 33));
+
+        assertEquals("10-33", GestureCorpus.format(mView.getTimeSections()));
+        assertTrue(hasPrediction());
+        // 顺时针拖动：预测位置在量化的整分钟之后
+        assertTrue(predicted().angle > 33 * 6);
+        assertTrue(predicted().minute > 33);
+    }
+
+    @Test
+    public void drag_predictionClampedToOtherAnchor() throws Exception {
+        mView.setTimeSections(GestureCorpus.parts(10, 20));
+
+        // 快速把起点拖向终点，按角速度预测会越过终点
+        assertTrue(mView.onTouchEvent(event(0, MotionEvent.ACTION_DOWN, 10)));
+        mView.onTouchEvent(event(1, MotionEvent.ACTION_MOVE, 14));
+        mView.onTouchEvent(event(2, MotionEvent.ACTION_MOVE, 18));
+        mView.onTouchEvent(event(3, MotionEvent.ACTION_MOVE, 19));
+
+        assertEquals("19-20", GestureCorpus.format(mView.getTimeSections()));
+        assertTrue(hasPrediction());
+        assertEquals(20 * 6, predicted().angle, 1e-6);
+        assertEquals(20, predicted().minute);
+    }
+
+    @Test
+    public void up_snapsBackToMinute() throws Exception {
+        mView.setTimeSections(GestureCorpus.parts(10, 30));
+
+        mView.onTouchEvent(event(0, MotionEvent.ACTION_DOWN, 30));
+        mView.onTouchEvent(event(1, MotionEvent.ACTION_MOVE, 31));
+        mView.onTouchEvent(event(2, MotionEvent.ACTION_MOVE, 32));
+        assertTrue(hasPrediction());
+        mView.onTouchEvent(event(3, MotionEvent.ACTION_UP, 32));
+
+        assertFalse(hasPrediction());
+        assertEquals("10-32", GestureCorpus.format(mView.getTimeSections()));
+    }
+
+    @Test
+    public void disabled_noPrediction() throws Exception {
+        mView.setLowLatencyDragEnable(false);
+        mView.setTimeSections(GestureCorpus.parts(10, 30));
+
+        mView.onTouchEvent(event(0, MotionEvent.ACTION_DOWN, 30));
+        mView.onTouchEvent(event(1, MotionEvent.ACTION_MOVE, 31));
+        mView.onTouchEvent(event(2, MotionEvent.ACTION_MOVE, 32));
+
+        assertFalse(hasPrediction());
+    }
+
+    private MotionEvent event(int step, int action, float minute) {
+        double radians = Math.toRadians(minute * 6);
+        float x = (float) (mCenter + Math.sin(radians) * mRadius);
+        float y = (float) (mCenter - Math.cos(radians) * mRadius);
+        return MotionEvent.obtain(mDownTime, mDownTime + step * STEP_MILLIS, action, x, y, 0);
+    }
+
+    private boolean hasPrediction() throws Exception {
+        return (Boolean) field("mHasPrediction");
+    }
+
+    private RingTimeSelectView.TimeSection.TimeAnchor predicted() throws Exception {
+        return (RingTimeSelectView.TimeSection.TimeAnchor) field("mPredictedAnchor");
+    }
+
+    private Object field(String name) throws Exception {
+        Field field = RingTimeSelectView.class.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(mView);
+    }
+}
@@ -0,0 +1,497 @@
+package com.zjun.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.accessibility.AccessibilityNodeInfo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * {@link RingTimeSelectView}热路径的性能回归测试：测量、绘制和脚本化的触摸手势
+ *  用JVM的线程分配计数器（com.sun.management.ThreadMXBean）统计分配的字节数
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class RingTimeSelectViewPerfTest {
+
+    private static final int SIZE = 600;
+    private static final int WARM_UP_ROUNDS = 2000;
+    private static final int MEASURE_ROUNDS = 1000;
+    /**
+     * 每次onDraw允许分配的字节数
+     */
+    private static final int DRAW_BUDGET_BYTES = 256;
+    /**
+     * 设置了时间变化监听时，每次移动允许分配的字节数：回调的时间段集合
+     */
+    private static final int NOTIFY_BUDGET_BYTES = 256;
+    private static final int RESTYLE_DIALS = 50;
+
+    private RingTimeSelectView mView;
+    private float mCenter;
+    private float mRadius;
+
+    @Before
+    public void setUp() {
+        setUpView(new RingTimeSelectView(RuntimeEnvironment.application));
+    }
+
+    private void setUpView(RingTimeSelectView view) {
+        mView = view;
+        int spec = View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY);
+        mView.measure(spec, spec);
+        mView.layout(0, 0, SIZE, SIZE);
+        mCenter = SIZE * .5f;
+        mRadius = DialPainter.ringRadiusFor(mView.getDialStyle(), SIZE);
+
+        List<RingTimeSelectView.TimePart> parts = new ArrayList<>();
+        parts.add(new RingTimeSelectView.TimePart(10, 30));
+        mView.setTimeSections(parts);
+    }
+
+    @Test
+    public void move_allocatesNothingAfterWarmUp() {
+        assumeAllocationCounterSupported();
+        long allocated = measureMoves(null);
+
+        // 平均每次移动不到1字节，即稳定状态下不分配（容忍个别的延迟初始化）
+        assertTrue("ACTION_MOVE allocated " + allocated + " bytes in " + MEASURE_ROUNDS + " events"
+                , allocated < MEASURE_ROUNDS);
+    }
+
+    @Test
+    public void move_withListener_allocatesOnlyTheNotifiedList() {
+        assumeAllocationCounterSupported();
+        CountingListener listener = new CountingListener();
+        long allocated = measureMoves(listener);
+
+        // 每次移动都跨过一分钟，回调一次，分配getTimeSections()的集合
+        assertTrue(listener.changed >= WARM_UP_ROUNDS + MEASURE_ROUNDS);
+        long perMove = allocated / MEASURE_ROUNDS;
+        assertTrue("ACTION_MOVE with a listener allocated " + perMove + " bytes per event"
+                , perMove <= NOTIFY_BUDGET_BYTES);
+    }
+
+    @Test
+    public void draw_staysWithinBudget() {
+        assumeAllocationCounterSupported();
+        Canvas canvas = new NoOpCanvas();
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            mView.onDraw(canvas);
+        }
+
+        long begin = currentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURE_ROUNDS; i++) {
+            mView.onDraw(canvas);
+        }
+        long perDraw = (currentThreadAllocatedBytes() - begin) / MEASURE_ROUNDS;
+        assertTrue("onDraw allocated " + perDraw + " bytes per frame", perDraw <= DRAW_BUDGET_BYTES);
+    }
+
+    @Test
+    public void move_withinSameMinute_doesNotNotify() {
+        CountingListener listener = new CountingListener();
+        mView.setOnTimeChangeListener(listener);
+        long downTime = SystemClock.uptimeMillis();
+        mView.onTouchEvent(event(downTime, MotionEvent.ACTION_DOWN, 30));
+        assertEquals(1, listener.selectStart);
+
+        // 第一次移动会从按下时的状态量化到30分钟，之后在同一分钟内抖动
+        mView.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, 30));
+        listener.changed = listener.selectChanged = 0;
+        for (float offset = -.4f; offset <= .4f; offset += .05f) {
+            mView.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, 30 + offset));
+        }
+        assertEquals(0, listener.changed);
+        assertEquals(0, listener.selectChanged);
+
+        // 对照：跨过一分钟，回调一次
+        mView.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, 31));
+        assertEquals(1, listener.changed);
+        assertEquals(1, listener.selectChanged);
+        mView.onTouchEvent(event(downTime, MotionEvent.ACTION_UP, 31));
+        assertEquals(1, listener.selectFinished);
+    }
+
+    @Test
+    public void restyle_fiftyDials_updatesPaintsInPlace() throws Exception {
+        RingTimeSelectView[] views = new RingTimeSelectView[RESTYLE_DIALS];
+        for (int i = 0; i < views.length; i++) {
+            views[i] = new RingTimeSelectView(RuntimeEnvironment.application);
+            int spec = View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY);
+            views[i].measure(spec, spec);
+            views[i].layout(0, 0, SIZE, SIZE);
+        }
+        DialStyle day = mView.getDialStyle();
+        // 只改颜色：不影响尺寸、文字和布局
+        DialStyle night = new DialStyle.Builder(day)
+                .setRingBgColor(0xff303030)
+                .setSectionColors(0xff00695c, 0xff283593, -1)
+                .setDegreeColor(0xff9e9e9e)
+                .setNumber(day.numberSize, 0xffbdbdbd)
+                .build();
+        Object[] painters = new Object[RESTYLE_DIALS];
+        Paint[][] paints = new Paint[RESTYLE_DIALS][];
+        for (int i = 0; i < views.length; i++) {
+            painters[i] = field(views[i], "mPainter");
+            paints[i] = paintsOf(painters[i]);
+        }
+        float numberSize = paints[0][3].getTextSize();
+        float anchorTextSize = paints[0][5].getTextSize();
+
+        Canvas canvas = new NoOpCanvas();
+        for (int round = 0; round < 4; round++) {
+            DialStyle style = round % 2 == 0 ? night : day;
+            for (int i = 0; i < views.length; i++) {
+                RingTimeSelectView view = views[i];
+                view.setDialStyle(style);
+                view.onDraw(canvas);
+
+                // 复用绘制器和画笔，颜色已更新
+                assertSame(painters[i], field(view, "mPainter"));
+                Paint[] current = paintsOf(painters[i]);
+                for (int k = 0; k < current.length; k++) {
+                    assertSame(paints[i][k], current[k]);
+                }
+                assertEquals(style.ringBgColor, current[0].getColor());
+                assertEquals(style.sectionColor, current[1].getColor());
+                assertEquals(style.degreeColor, current[2].getColor());
+                assertEquals(style.numberColor, current[3].getColor());
+                // 未变化的文字尺寸不重新设置，也不需要重新布局
+                assertEquals(numberSize, current[3].getTextSize(), 0);
+                assertEquals(anchorTextSize, current[5].getTextSize(), 0);
+                assertFalse(view.isLayoutRequested());
+            }
+        }
+        assertSame(day, views[0].getDialStyle());
+    }
+
+    @Test
+    public void construction_defersPaintsUntilLayout() throws Exception {
+        Field painter = RingTimeSelectView.class.getDeclaredField("mPainter");
+        painter.setAccessible(true);
+        RingTimeSelectView view = new RingTimeSelectView(RuntimeEnvironment.application);
+        // 布局前的设置只保存数据
+        view.setTimeSections(GestureCorpus.parts(10, 30));
+        view.setDialStyle(new DialStyle.Builder(view.getDialStyle()).setRingBgColor(0xff303030).build());
+        view.setCoverageHeatmap(new CoverageHeatmap(), 0xccff5722);
+        assertNull(painter.get(view));
+
+        int spec = View.MeasureSpec.makeMeasureSpec(SIZE, View.MeasureSpec.EXACTLY);
+        view.measure(spec, spec);
+        view.layout(0, 0, SIZE, SIZE);
+        assertNotNull(painter.get(view));
+        view.onDraw(new NoOpCanvas());
+
+        // 锚点坐标在布局时生成：可以按住终止锚点拖动
+        mView = view;
+        long downTime = SystemClock.uptimeMillis();
+        assertTrue(view.onTouchEvent(event(downTime, MotionEvent.ACTION_DOWN, 30)));
+        view.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, 32));
+        view.onTouchEvent(event(downTime, MotionEvent.ACTION_UP, 32));
+        assertEquals("10-32", GestureCorpus.format(view.getTimeSections()));
+    }
+
+    @Test
+    public void liveTime_tickDrawsOnlyHandOverStaticLayer() throws Exception {
+        mView.setLiveTimeEnabled(true);
+        Field tick = RingTimeSelectView.class.getDeclaredField("mLiveTick");
+        tick.setAccessible(true);
+        LiveClockTicker.Listener listener = (LiveClockTicker.Listener) tick.get(mView);
+
+        // xx:15:00，在10-30内：静态层、高亮和指针
+        listener.onTick(15 * 60);
+        CountingCanvas canvas = new CountingCanvas();
+        mView.onDraw(canvas);
+        assertEquals(1, canvas.bitmaps);
+        assertEquals(1, canvas.arcs);
+        // 刻度在静态层中，每秒只画指针
+        assertEquals(1, canvas.lines);
+
+        // xx:45:01，不在时间段内：不高亮
+        listener.onTick(45 * 60 + 1);
+        canvas = new CountingCanvas();
+        mView.onDraw(canvas);
+        assertEquals(1, canvas.bitmaps);
+        assertEquals(0, canvas.arcs);
+        assertEquals(1, canvas.lines);
+
+        // 关闭后恢复直接绘制
+        mView.setLiveTimeEnabled(false);
+        canvas = new CountingCanvas();
+        mView.onDraw(canvas);
+        assertEquals(0, canvas.bitmaps);
+        assertTrue(canvas.lines >= 60);
+    }
+
+    @Test
+    public void detail_dependsOnDialSize() {
+        DialStyle style = mView.getDialStyle();
+        assertEquals(DialPainter.DETAIL_FULL, DialPainter.detailFor(style, SIZE));
+        assertEquals(DialPainter.DETAIL_TICKS, DialPainter.detailFor(style, 150));
+        assertEquals(DialPainter.DETAIL_MINIMAL, DialPainter.detailFor(style, 48));
+        // 圆点锚点不超出圆环
+        assertEquals((48 - style.ringWidth) * .5f, DialPainter.ringRadiusFor(style, 48), 0);
+    }
+
+    @Test
+    public void smallDial_drawsOnlyCachedLayer() {
+        RingTimeSelectView view = new RingTimeSelectView(RuntimeEnvironment.application);
+        int spec = View.MeasureSpec.makeMeasureSpec(48, View.MeasureSpec.EXACTLY);
+        view.measure(spec, spec);
+        view.layout(0, 0, 48, 48);
+        view.setTimeSections(GestureCorpus.parts(10, 30));
+
+        for (int i = 0; i < 3; i++) {
+            CountingCanvas canvas = new CountingCanvas();
+            view.onDraw(canvas);
+            assertEquals(1, canvas.bitmaps);
+            assertEquals(0, canvas.lines);
+            assertEquals(0, canvas.arcs);
+        }
+    }
+
+    @Test
+    public void smallDial_hitTestMatchesDotAnchors() {
+        // 锚点直径远大于圆环宽度：只绘制圆点锚点
+        final int size = 100;
+        DialStyle style = new DialStyle.Builder(mView.getDialStyle())
+                .setRingWidth(10)
+                .setAnchorDiameter(50)
+                .build();
+        assertEquals(DialPainter.DETAIL_MINIMAL, DialPainter.detailFor(style, size));
+        RingTimeSelectView view = new RingTimeSelectView(RuntimeEnvironment.application);
+        view.setDialStyle(style);
+        int spec = View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.EXACTLY);
+        view.measure(spec, spec);
+        view.layout(0, 0, size, size);
+        view.setTimeSections(GestureCorpus.parts(10, 20));
+
+        // 距终止锚点3分钟（约14px）：在锚点直径的范围内，但在圆点之外，是空白处，点击添加
+        float center = size * .5f;
+        float radius = DialPainter.ringRadiusFor(style, size);
+        double radians = Math.toRadians(23 * 6);
+        float x = (float) (center + Math.sin(radians) * radius);
+        float y = (float) (center - Math.cos(radians) * radius);
+        long now = SystemClock.uptimeMillis();
+        view.onTouchEvent(MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, x, y, 0));
+        view.onTouchEvent(MotionEvent.obtain(now, now, MotionEvent.ACTION_UP, x, y, 0));
+        assertEquals("10-20,23-28", GestureCorpus.format(view.getTimeSections()));
+
+        // 无障碍节点的范围也是圆点的大小
+        view.onAttachedToWindow();
+        AccessibilityNodeInfo anchor = view.getAccessibilityNodeProvider().createAccessibilityNodeInfo(1);
+        Rect bounds = new Rect();
+        anchor.getBoundsInParent(bounds);
+        assertTrue(bounds.width() <= style.ringWidth + 1);
+        assertTrue(bounds.height() <= style.ringWidth + 1);
+    }
+
+    private MotionEvent event(long downTime, int action, float minute) {
+        double radians = Math.toRadians(minute * 6);
+        float x = (float) (mCenter + Math.sin(radians) * mRadius);
+        float y = (float) (mCenter - Math.cos(radians) * mRadius);
+        return MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+    }
+
+    /**
+     * 在30~33分钟之间来回拖动终止锚点，预热后测量MEASURE_ROUNDS个移动事件，返回当前线程分配的字节数
+     *
+     * @param listener  时间变化监听，可为null
+     */
+    private long measureMoves(RingTimeSelectView.IOnTimeChangedListener listener) {
+        QuietView view = new QuietView();
+        setUpView(view);
+        view.setOnTimeChangeListener(listener);
+        long downTime = SystemClock.uptimeMillis();
+        assertTrue(mView.onTouchEvent(event(downTime, MotionEvent.ACTION_DOWN, 30)));
+
+        // 事件提前创建好
+        float[] minutes = {31, 32, 33, 32, 31, 30};
+        MotionEvent[] moves = new MotionEvent[minutes.length];
+        for (int i = 0; i < minutes.length; i++) {
+            moves[i] = event(downTime, MotionEvent.ACTION_MOVE, minutes[i]);
+        }
+
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            mView.onTouchEvent(moves[i % moves.length]);
+        }
+        long baseline = allocatedBytes(0, moves);
+        long allocated = allocatedBytes(MEASURE_ROUNDS, moves);
+        // 确认每个事件都被接受：停在最后一个事件的分钟
+        int lastMinute = (int) minutes[(MEASURE_ROUNDS - 1) % minutes.length];
+        assertEquals(lastMinute, mView.getTimeSections().get(0).getEnd());
+
+        // 每次移动都跨过一分钟，都要重绘
+        assertTrue(view.invalidates >= WARM_UP_ROUNDS + MEASURE_ROUNDS);
+
+        mView.onTouchEvent(event(downTime, MotionEvent.ACTION_UP, lastMinute));
+        return allocated - baseline;
+    }
+
+    /**
+     * 绘制器的画笔：圆环、时间段、刻度、数字、锚点、锚点文字
+     */
+    private static Paint[] paintsOf(Object painter) throws Exception {
+        String[] names = {"mRingPaint", "mSectionPaint", "mDegreePaint", "mNumberPaint", "mAnchorPaint", "mTextPaint"};
+        Paint[] paints = new Paint[names.length];
+        for (int i = 0; i < names.length; i++) {
+            paints[i] = (Paint) field(painter, names[i]);
+        }
+        return paints;
+    }
+
+    private static Object field(Object target, String name) throws Exception {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+
+    /**
+     * 依次分发rounds个移动事件，返回当前线程分配的字节数
+     */
+    private long allocatedBytes(int rounds, MotionEvent[] moves) {
+        long begin = currentThreadAllocatedBytes();
+        for (int i = 0; i < rounds; i++) {
+            mView.onTouchEvent(moves[i % moves.length]);
+        }
+        return currentThreadAllocatedBytes() - begin;
+    }
+
+    private static void assumeAllocationCounterSupported() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(bean.isThreadAllocatedMemorySupported());
+        bean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * 只统计重绘请求的控件：Robolectric的invalidate()每次会分配几百字节，测量控件自身的分配时跳过
+     */
+    private static class QuietView extends RingTimeSelectView {
+        int invalidates;
+
+        QuietView() {
+            super(RuntimeEnvironment.application);
+        }
+
+        @Override
+        public void invalidate() {
+            invalidates++;
+        }
+
+        @Override
+        public void postInvalidate() {
+            invalidates++;
+        }
+    }
+
+    /**
+     * 不做任何绘制的Canvas，只测量控件自身的分配
+     */
+    private static class NoOpCanvas extends Canvas {
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+        }
+
+        @Override
+        public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+        }
+
+        @Override
+        public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+        }
+
+        @Override
+        public int save() {
+            return 1;
+        }
+
+        @Override
+        public void restoreToCount(int saveCount) {
+        }
+    }
+
+    /**
+     * 统计直接绘制在控件Canvas上的线、圆弧和位图
+     */
+    private static class CountingCanvas extends NoOpCanvas {
+        int lines;
+        int arcs;
+        int bitmaps;
+
+        @Override
+        public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+            lines++;
+        }
+
+        @Override
+        public void drawArc(RectF oval, float startAngle, float sweepAngle, boolean useCenter, Paint paint) {
+            arcs++;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+            bitmaps++;
+        }
+    }
+
+    private static class CountingListener implements RingTimeSelectView.IOnTimeChangedListener {
+        int changed;
+        int selectStart;
+        int selectChanged;
+        int selectFinished;
+
+        @Override
+        public void onChanged(RingTimeSelectView view, List<RingTimeSelectView.TimePart> timePartList) {
+            changed++;
+        }
+
+        @Override
+        public void onInsert(RingTimeSelectView.TimePart part) {
+        }
+
+        @Override
+        public void onSelectStart(int minute) {
+            selectStart++;
+        }
+
+        @Override
+        public void onSelectChanged(int minute) {
+            selectChanged++;
+        }
+
+        @Override
+        public void onSelectFinished() {
+            selectFinished++;
+        }
+    }
+}
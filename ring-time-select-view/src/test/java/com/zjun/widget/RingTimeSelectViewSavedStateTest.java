@@ -0,0 +1,165 @@
+package com.zjun.widget;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * 保存、恢复状态：时间段压缩为两个long并保留ID，经过Parcel后恢复；交叉的时间段逐个保存
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class RingTimeSelectViewSavedStateTest {
+
+    @Test
+    public void roundTrip_keepsAdjacentSectionsApart() {
+        RingTimeSelectView view = createView();
+        view.setTimeSections(GestureCorpus.parts(0, 10, 10, 25, 50, 60));
+
+        RingTimeSelectView restored = createView();
+        restored.onRestoreInstanceState(throughParcel(view.onSaveInstanceState()));
+        assertEquals("0-10,10-25,50-60", GestureCorpus.format(restored.getTimeSections()));
+        assertEquals(view.getPackedTimeSections(), restored.getPackedTimeSections());
+    }
+
+    @Test
+    public void savedState_isTwoLongsAndIds() {
+        RingTimeSelectView view = createView();
+        view.setTimeSections(GestureCorpus.parts(5, 15));
+        RingTimeSelectView.SavedState state = (RingTimeSelectView.SavedState) view.onSaveInstanceState();
+
+        Parcel parcel = Parcel.obtain();
+        state.writeToParcel(parcel, 0);
+        int size = parcel.dataSize();
+        parcel.recycle();
+
+        // 与父类的状态相比，只多两个long，下一个ID，每个时间段的ID（数组长度 + 1个int），以及不需要逐个保存的标记
+        Parcel base = Parcel.obtain();
+        new View.BaseSavedState(View.BaseSavedState.EMPTY_STATE).writeToParcel(base, 0);
+        assertEquals(16 + 4 + (4 + 4) + 4, size - base.dataSize());
+        assertNull(state.sections);
+        base.recycle();
+    }
+
+    @Test
+    public void restoreBeforeLayout_anchorsAreDraggableAfterLayout() {
+        RingTimeSelectView view = createView();
+        view.setTimeSections(GestureCorpus.parts(10, 30));
+        Parcelable state = throughParcel(view.onSaveInstanceState());
+
+        RingTimeSelectView restored = new RingTimeSelectView(RuntimeEnvironment.application);
+        restored.onRestoreInstanceState(state);
+        assertEquals("10-30", GestureCorpus.format(restored.getTimeSections()));
+        layout(restored);
+
+        float center = GestureCorpus.SIZE * .5f;
+        float radius = DialPainter.ringRadiusFor(restored.getDialStyle(), GestureCorpus.SIZE);
+        long downTime = SystemClock.uptimeMillis();
+        assertTrue(restored.onTouchEvent(MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN
+                , center, center + radius, 0)));
+        restored.onTouchEvent(MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_UP, center, center + radius, 0));
+        // 按在30分钟的终止锚点上，没有新增时间段
+        assertEquals("10-30", GestureCorpus.format(restored.getTimeSections()));
+    }
+
+    @Test
+    public void restore_clearsHistory() {
+        RingTimeSelectView view = createView();
+        view.setTimeSections(GestureCorpus.parts(10, 30));
+        Parcelable state = throughParcel(view.onSaveInstanceState());
+
+        RingTimeSelectView restored = createView();
+        restored.setTimeSections(GestureCorpus.parts(40, 50));
+        assertTrue(restored.canUndo());
+        restored.onRestoreInstanceState(state);
+        assertFalse(restored.canUndo());
+    }
+
+    @Test
+    public void roundTrip_keepsIds() {
+        RingTimeSelectView view = createView();
+        view.setTimeSections(GestureCorpus.parts(0, 10, 10, 25, 50, 60));
+        List<RingTimeSelectView.TimePart> parts = view.getTimeSections();
+
+        RingTimeSelectView restored = createView();
+        restored.onRestoreInstanceState(throughParcel(view.onSaveInstanceState()));
+        assertEquals(ids(parts), ids(restored.getTimeSections()));
+
+        // 恢复后新分配的ID大于保存前分配过的
+        int maxId = 0;
+        for (RingTimeSelectView.TimePart part : parts) {
+            maxId = Math.max(maxId, part.getId());
+        }
+        restored.removeTimeSection(parts.get(0).getId());
+        restored.addTimeSection(30, 40);
+        for (RingTimeSelectView.TimePart part : restored.getTimeSections()) {
+            if (part.getStart() == 30) {
+                assertTrue(part.getId() > maxId);
+            }
+        }
+    }
+
+    @Test
+    public void roundTrip_keepsOverlappingSectionsAndIds() {
+        RingTimeSelectView view = createView();
+        // 交叉、包含的时间段，压缩值不能准确表示
+        view.setTimeSections(GestureCorpus.parts(10, 30, 20, 40, 25, 28));
+        List<RingTimeSelectView.TimePart> parts = view.getTimeSections();
+        RingTimeSelectView.SavedState state = (RingTimeSelectView.SavedState) view.onSaveInstanceState();
+        assertNotNull(state.sections);
+
+        RingTimeSelectView restored = createView();
+        restored.onRestoreInstanceState(throughParcel(state));
+        assertEquals("10-30,20-40,25-28", GestureCorpus.format(restored.getTimeSections()));
+        assertEquals(ids(parts), ids(restored.getTimeSections()));
+    }
+
+    /**
+     * 按起止分钟排序的"起止:ID,"文本
+     */
+    private static String ids(List<RingTimeSelectView.TimePart> partList) {
+        RingTimeSelectView.TimePart[] parts = partList.toArray(new RingTimeSelectView.TimePart[partList.size()]);
+        Arrays.sort(parts, new RingTimeSelectView.TimePart.TimePartComparator());
+        StringBuilder sb = new StringBuilder();
+        for (RingTimeSelectView.TimePart part : parts) {
+            sb.append(part.getStart()).append('-').append(part.getEnd()).append(':').append(part.getId()).append(',');
+        }
+        return sb.toString();
+    }
+
+    private static Parcelable throughParcel(Parcelable state) {
+        Parcel parcel = Parcel.obtain();
+        try {
+            state.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return RingTimeSelectView.SavedState.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private static RingTimeSelectView createView() {
+        RingTimeSelectView view = new RingTimeSelectView(RuntimeEnvironment.application);
+        layout(view);
+        return view;
+    }
+
+    private static void layout(RingTimeSelectView view) {
+        int spec = View.MeasureSpec.makeMeasureSpec(GestureCorpus.SIZE, View.MeasureSpec.EXACTLY);
+        view.measure(spec, spec);
+        view.layout(0, 0, GestureCorpus.SIZE, GestureCorpus.SIZE);
+    }
+}
@@ -0,0 +1,88 @@
+package com.zjun.widget;
+
+import android.support.v4.view.ViewCompat;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * 在后台线程中并发构造、测量控件的测试
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class RingTimeSelectViewThreadTest {
+
+    private static final int THREADS = 4;
+    private static final int VIEWS_PER_THREAD = 25;
+
+    @Test
+    public void constructAndMeasure_onWorkerThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<RingTimeSelectView>>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final int size = 200 + t * 100;
+                futures.add(executor.submit(new Callable<List<RingTimeSelectView>>() {
+                    @Override
+                    public List<RingTimeSelectView> call() throws Exception {
+                        start.await();
+                        List<RingTimeSelectView> views = new ArrayList<>();
+                        for (int i = 0; i < VIEWS_PER_THREAD; i++) {
+                            RingTimeSelectView view = new RingTimeSelectView(RuntimeEnvironment.application);
+                            view.setTimeSections(GestureCorpus.parts(i, i + 10), true);
+                            int spec = View.MeasureSpec.makeMeasureSpec(size, View.MeasureSpec.EXACTLY);
+                            view.measure(spec, spec);
+                            view.layout(0, 0, size, size);
+                            views.add(view);
+                        }
+                        return views;
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (int t = 0; t < THREADS; t++) {
+                List<RingTimeSelectView> views = futures.get(t).get(10, TimeUnit.SECONDS);
+                assertEquals(VIEWS_PER_THREAD, views.size());
+                for (int i = 0; i < VIEWS_PER_THREAD; i++) {
+                    RingTimeSelectView view = views.get(i);
+                    assertEquals(200 + t * 100, view.getMeasuredWidth());
+                    assertEquals(PackedSchedule.rangeMask(i, i + 10), view.getPackedTimeSections());
+                    // 与Looper相关的工作都还没有开始
+                    assertFalse(ViewCompat.hasAccessibilityDelegate(view));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void accessibilityDelegate_installedOnAttach() {
+        RingTimeSelectView view = new RingTimeSelectView(RuntimeEnvironment.application);
+        assertFalse(ViewCompat.hasAccessibilityDelegate(view));
+
+        view.onAttachedToWindow();
+        assertTrue(ViewCompat.hasAccessibilityDelegate(view));
+        view.onDetachedFromWindow();
+        // 再次附加时复用
+        view.onAttachedToWindow();
+        assertTrue(ViewCompat.hasAccessibilityDelegate(view));
+    }
+}
@@ -0,0 +1,283 @@
+package com.zjun.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.PixelFormat;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.SurfaceHolder;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link RingTimeSurfaceView}的行为：没有Surface时直接使用模型；有Surface时触摸转发到渲染线程、一帧合并多个事件、
+ *  在主线程发布结果，Surface销毁时结束被打断的拖动。
+ *  Robolectric中后台Looper的消息不会自动执行，用ShadowLooper在测试线程中逐步执行渲染线程和主线程的消息
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class RingTimeSurfaceViewTest {
+
+    @Test
+    public void setTimeSections_publishesOnMainThread() {
+        RingTimeSurfaceView view = new RingTimeSurfaceView(RuntimeEnvironment.application);
+        final int[] changed = new int[1];
+        view.setOnTimeChangeListener(new RingTimeSelectView.IOnTimeChangedListener() {
+            @Override
+            public void onChanged(RingTimeSelectView v, List<RingTimeSelectView.TimePart> timePartList) {
+                assertNull(v);
+                changed[0]++;
+            }
+
+            @Override
+            public void onInsert(RingTimeSelectView.TimePart part) {
+            }
+
+            @Override
+            public void onSelectStart(int minute) {
+            }
+
+            @Override
+            public void onSelectChanged(int minute) {
+            }
+
+            @Override
+            public void onSelectFinished() {
+            }
+        });
+
+        view.setTimeSections(GestureCorpus.parts(10, 20, 40, 50));
+        assertEquals(1, changed[0]);
+        assertEquals("10-20,40-50", GestureCorpus.format(view.getTimeSections()));
+    }
+
+    @Test
+    public void touch_withoutSurface_isNotConsumed() {
+        RingTimeSurfaceView view = new RingTimeSurfaceView(RuntimeEnvironment.application);
+        long now = SystemClock.uptimeMillis();
+        assertFalse(view.onTouchEvent(MotionEvent.obtain(now, now, MotionEvent.ACTION_DOWN, 10, 10, 0)));
+    }
+
+    @Test
+    public void setTimeSections_copiesTheList() throws Exception {
+        ShadowLooper.pauseMainLooper();
+        RecordingSurfaceView view = new RecordingSurfaceView();
+        SurfaceHolder holder = view.getHolder();
+        view.surfaceCreated(holder);
+        try {
+            List<RingTimeSelectView.TimePart> parts = GestureCorpus.parts(10, 20);
+            view.setTimeSections(parts);
+            // 渲染线程处理之前，调用方修改或清空了自己的集合
+            parts.get(0).setEnd(50);
+            parts.clear();
+            idle(view);
+            ShadowLooper.runUiThreadTasks();
+            assertEquals("10-20", GestureCorpus.format(view.getTimeSections()));
+        } finally {
+            view.surfaceDestroyed(holder);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setTimeSections_invalid_throwsOnCaller() {
+        new RingTimeSurfaceView(RuntimeEnvironment.application).setTimeSections(GestureCorpus.parts(20, 10));
+    }
+
+    @Test
+    public void renderThread_forwardsTouchesAndCoalescesFrames() throws Exception {
+        ShadowLooper.pauseMainLooper();
+        RecordingSurfaceView view = new RecordingSurfaceView();
+        final List<String> published = new ArrayList<>();
+        view.setOnTimeChangeListener(new RecordingListener(published));
+        view.setTimeSections(GestureCorpus.parts(10, 30));
+        ShadowLooper.runUiThreadTasks();
+        published.clear();
+
+        SurfaceHolder holder = view.getHolder();
+        view.surfaceCreated(holder);
+        view.surfaceChanged(holder, PixelFormat.RGBA_8888, GestureCorpus.SIZE, GestureCorpus.SIZE);
+        idle(view);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertEquals(1, view.frames);
+
+        float radius = DialPainter.ringRadiusFor(view.getModelStyle(), GestureCorpus.SIZE);
+        long downTime = SystemClock.uptimeMillis();
+        assertTrue(view.onTouchEvent(event(downTime, MotionEvent.ACTION_DOWN, radius, 30)));
+        assertTrue(view.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, radius, 31)));
+        assertTrue(view.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, radius, 32)));
+        // 还在渲染线程的队列中
+        assertTrue(published.isEmpty());
+
+        idle(view);
+        // 模型已变化，但还没有发布到主线程，也还没有绘制
+        assertTrue(published.isEmpty());
+        assertEquals("10-30", GestureCorpus.format(view.getTimeSections()));
+        assertEquals(1, view.frames);
+
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        // 三个事件合并为一帧；消费者跟不上时只回调最新的时间段
+        assertEquals(2, view.frames);
+        assertEquals("10-32", GestureCorpus.format(view.getTimeSections()));
+        assertEquals("[start 30, changed 10-32, selectChanged 32]", published.toString());
+
+        view.surfaceDestroyed(holder);
+    }
+
+    @Test
+    public void surfaceDestroyed_midDrag_finishesTheGesture() throws Exception {
+        ShadowLooper.pauseMainLooper();
+        RecordingSurfaceView view = new RecordingSurfaceView();
+        final List<String> published = new ArrayList<>();
+        view.setOnTimeChangeListener(new RecordingListener(published));
+        view.setTimeSections(GestureCorpus.parts(10, 30, 40, 50));
+
+        SurfaceHolder holder = view.getHolder();
+        view.surfaceCreated(holder);
+        view.surfaceChanged(holder, PixelFormat.RGBA_8888, GestureCorpus.SIZE, GestureCorpus.SIZE);
+        idle(view);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        published.clear();
+
+        float radius = DialPainter.ringRadiusFor(view.getModelStyle(), GestureCorpus.SIZE);
+        long downTime = SystemClock.uptimeMillis();
+        view.onTouchEvent(event(downTime, MotionEvent.ACTION_DOWN, radius, 30));
+        view.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, radius, 33));
+        idle(view);
+        // Surface在拖动中被销毁，还有未处理的事件：拖到40，与后一个时间段相接
+        view.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, radius, 36));
+        view.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, radius, 40));
+        view.surfaceDestroyed(holder);
+        assertFalse(view.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, radius, 45)));
+
+        ShadowLooper.runUiThreadTasks();
+        // 未处理的事件在销毁时处理完，取消与抬起相同：合并并结束拖动
+        assertEquals("10-50", GestureCorpus.format(view.getTimeSections()));
+        assertEquals("finished", published.get(published.size() - 1));
+        assertNull(field(field(view, "mModel"), "mNewAnchor"));
+        assertEquals(-1, field(field(view, "mModel"), "mSelectedSectionIndex"));
+    }
+
+    @Test
+    public void surfaceDestroyed_beforeRenderThreadRuns_keepsPendingSettings() throws Exception {
+        ShadowLooper.pauseMainLooper();
+        RecordingSurfaceView view = new RecordingSurfaceView();
+        SurfaceHolder holder = view.getHolder();
+        view.surfaceCreated(holder);
+        view.surfaceChanged(holder, PixelFormat.RGBA_8888, GestureCorpus.SIZE, GestureCorpus.SIZE);
+        idle(view);
+
+        // 渲染线程还没有执行，Surface就被销毁：设置和之后的触摸都不能丢，且按顺序执行
+        float radius = DialPainter.ringRadiusFor(view.getModelStyle(), GestureCorpus.SIZE);
+        long downTime = SystemClock.uptimeMillis();
+        view.setTimeSections(GestureCorpus.parts(10, 30));
+        assertTrue(view.onTouchEvent(event(downTime, MotionEvent.ACTION_DOWN, radius, 30)));
+        assertTrue(view.onTouchEvent(event(downTime, MotionEvent.ACTION_MOVE, radius, 33)));
+        view.setReadOnly(true);
+        view.surfaceDestroyed(holder);
+
+        ShadowLooper.runUiThreadTasks();
+        assertEquals("10-33", GestureCorpus.format(view.getTimeSections()));
+        assertTrue(((RingTimeSelectView) field(view, "mModel")).isReadOnly());
+    }
+
+    /**
+     * 在测试线程中执行渲染线程队列中的消息
+     */
+    private static void idle(RingTimeSurfaceView view) throws Exception {
+        HandlerThread thread = (HandlerThread) field(view, "mRenderThread");
+        Shadows.shadowOf(thread.getLooper()).idle();
+    }
+
+    private static Object field(Object target, String name) throws Exception {
+        for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+            try {
+                Field field = type.getDeclaredField(name);
+                field.setAccessible(true);
+                return field.get(target);
+            } catch (NoSuchFieldException e) {
+                // 继续查找父类
+            }
+        }
+        throw new NoSuchFieldException(name);
+    }
+
+    private static MotionEvent event(long downTime, int action, float radius, float minute) {
+        float center = GestureCorpus.SIZE * .5f;
+        double radians = Math.toRadians(minute * 6);
+        float x = (float) (center + Math.sin(radians) * radius);
+        float y = (float) (center - Math.cos(radians) * radius);
+        return MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+    }
+
+    /**
+     * 绘制到位图上并统计帧数：Robolectric的SurfaceHolder没有Surface
+     */
+    private static class RecordingSurfaceView extends RingTimeSurfaceView {
+        private final Bitmap mBitmap = Bitmap.createBitmap(GestureCorpus.SIZE, GestureCorpus.SIZE, Bitmap.Config.ARGB_8888);
+        int frames;
+
+        RecordingSurfaceView() {
+            super(RuntimeEnvironment.application);
+        }
+
+        DialStyle getModelStyle() throws Exception {
+            return ((RingTimeSelectView) field(this, "mModel")).getDialStyle();
+        }
+
+        @Override
+        Canvas lockCanvas() {
+            return new Canvas(mBitmap);
+        }
+
+        @Override
+        void unlockCanvasAndPost(Canvas canvas) {
+            frames++;
+        }
+    }
+
+    private static class RecordingListener implements RingTimeSelectView.IOnTimeChangedListener {
+        private final List<String> mLog;
+
+        RecordingListener(List<String> log) {
+            mLog = log;
+        }
+
+        @Override
+        public void onChanged(RingTimeSelectView view, List<RingTimeSelectView.TimePart> timePartList) {
+            mLog.add("changed " + GestureCorpus.format(timePartList));
+        }
+
+        @Override
+        public void onInsert(RingTimeSelectView.TimePart part) {
+            mLog.add("insert " + part.getStart() + "-" + part.getEnd());
+        }
+
+        @Override
+        public void onSelectStart(int minute) {
+            mLog.add("start " + minute);
+        }
+
+        @Override
+        public void onSelectChanged(int minute) {
+            mLog.add("selectChanged " + minute);
+        }
+
+        @Override
+        public void onSelectFinished() {
+            mLog.add("finished");
+        }
+    }
+}
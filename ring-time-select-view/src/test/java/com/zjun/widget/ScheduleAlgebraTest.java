@@ -0,0 +1,93 @@
+package com.zjun.widget;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ScheduleAlgebra}的正确性和吞吐量测试
+ */
+public class ScheduleAlgebraTest {
+
+    private static final int THROUGHPUT_SCHEDULES = 1000000;
+
+    @Test
+    public void setOperations() throws Exception {
+        long a = PackedSchedule.rangeMask(0, 30);
+        long b = PackedSchedule.rangeMask(20, 40);
+
+        assertEquals(PackedSchedule.rangeMask(0, 40), ScheduleAlgebra.union(a, b));
+        assertEquals(PackedSchedule.rangeMask(20, 30), ScheduleAlgebra.intersect(a, b));
+        assertEquals(PackedSchedule.rangeMask(0, 20), ScheduleAlgebra.difference(a, b));
+        assertEquals(PackedSchedule.rangeMask(30, 60), ScheduleAlgebra.complement(a));
+        assertEquals(PackedSchedule.MINUTE_MASK, ScheduleAlgebra.complement(PackedSchedule.EMPTY));
+    }
+
+    @Test
+    public void toParts_acceptedBySetTimeSections() throws Exception {
+        long maintenance = PackedSchedule.rangeMask(50, 60) | PackedSchedule.rangeMask(0, 5);
+        List<RingTimeSelectView.TimePart> parts = ScheduleAlgebra.toParts(ScheduleAlgebra.complement(maintenance));
+        assertEquals(1, parts.size());
+        assertEquals(5, parts.get(0).getStart());
+        assertEquals(50, parts.get(0).getEnd());
+        assertEquals(ScheduleAlgebra.complement(maintenance), PackedSchedule.pack(parts));
+    }
+
+    @Test
+    public void bulk_matchesNaive_sequentialAndParallel() throws Exception {
+        for (int count : new int[]{0, 1, 1000, ScheduleAlgebra.PARALLEL_THRESHOLD * 5 + 7}) {
+            long[] schedules = ScheduleFixtures.randomBits(count);
+            long union = PackedSchedule.EMPTY;
+            long intersect = count == 0 ? PackedSchedule.EMPTY : PackedSchedule.MINUTE_MASK;
+            int[] coverage = new int[PackedSchedule.MINUTES];
+            for (long schedule : schedules) {
+                union |= schedule;
+                intersect &= schedule;
+                for (int m = 0; m < PackedSchedule.MINUTES; m++) {
+                    if ((schedule & (1L << m)) != 0) {
+                        coverage[m]++;
+                    }
+                }
+            }
+
+            assertEquals(union, ScheduleAlgebra.union(schedules, 0, count));
+            assertEquals(intersect, ScheduleAlgebra.intersect(schedules, 0, count));
+            assertArrayEquals(coverage, ScheduleAlgebra.coverage(schedules, 0, count));
+        }
+    }
+
+    @Test
+    public void atLeast() throws Exception {
+        long[] schedules = {
+                PackedSchedule.rangeMask(0, 10),
+                PackedSchedule.rangeMask(5, 15),
+                PackedSchedule.rangeMask(8, 20),
+        };
+        assertEquals(PackedSchedule.rangeMask(8, 10), ScheduleAlgebra.atLeast(schedules, 0, 3, 3));
+        assertEquals(PackedSchedule.rangeMask(5, 15), ScheduleAlgebra.atLeast(schedules, 0, 3, 2));
+        assertEquals(PackedSchedule.rangeMask(0, 20), ScheduleAlgebra.atLeast(schedules, 0, 3, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void coverage_rejectsHighBits() throws Exception {
+        ScheduleAlgebra.coverage(new long[]{1L, 1L << 62}, 0, 2);
+    }
+
+    @Test
+    public void coverage_throughput() throws Exception {
+        ScheduleFixtures.assumeBenchmarkEnabled();
+        long[] schedules = ScheduleFixtures.randomBits(THROUGHPUT_SCHEDULES);
+
+        // 预热
+        ScheduleAlgebra.coverage(schedules, 0, schedules.length);
+        long begin = System.nanoTime();
+        int[] coverage = ScheduleAlgebra.coverage(schedules, 0, schedules.length);
+        long elapsed = System.nanoTime() - begin;
+
+        assertEquals(PackedSchedule.MINUTES, coverage.length);
+        System.out.printf("ScheduleAlgebra: coverage of %d schedules in %.1f ms, %.1f M schedules/s%n"
+                , schedules.length, elapsed / 1e6, schedules.length * 1e3 / elapsed);
+    }
+}
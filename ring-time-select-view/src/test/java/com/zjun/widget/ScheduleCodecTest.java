@@ -0,0 +1,139 @@
+package com.zjun.widget;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ScheduleCodec}的往返测试，以及吞吐量的基准测试（见{@link ScheduleFixtures}）
+ */
+public class ScheduleCodecTest {
+
+    private static final int THROUGHPUT_RECORDS = 2000000;
+
+    @Test
+    public void packAndUnpack_roundTrip() throws Exception {
+        List<RingTimeSelectView.TimePart> parts = new ArrayList<>();
+        parts.add(new RingTimeSelectView.TimePart(0, 5));
+        parts.add(new RingTimeSelectView.TimePart(10, 20));
+        parts.add(new RingTimeSelectView.TimePart(55, 60));
+
+        long packed = PackedSchedule.pack(parts);
+        assertEquals(3, PackedSchedule.sectionCount(packed));
+        assertEquals(20, PackedSchedule.totalMinutes(packed));
+
+        List<RingTimeSelectView.TimePart> unpacked = PackedSchedule.unpack(packed);
+        assertEquals(3, unpacked.size());
+        for (int i = 0; i < parts.size(); i++) {
+            assertEquals(parts.get(i).getStart(), unpacked.get(i).getStart());
+            assertEquals(parts.get(i).getEnd(), unpacked.get(i).getEnd());
+        }
+    }
+
+    @Test
+    public void unpack_keepsTouchingSectionsWithStartBits() throws Exception {
+        List<RingTimeSelectView.TimePart> parts = new ArrayList<>();
+        parts.add(new RingTimeSelectView.TimePart(0, 10));
+        parts.add(new RingTimeSelectView.TimePart(10, 20));
+
+        long packed = PackedSchedule.pack(parts);
+        assertEquals(1, PackedSchedule.unpack(packed).size());
+        assertEquals(2, PackedSchedule.unpack(packed, PackedSchedule.startBits(parts)).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pack_rejectsInvalidSection() throws Exception {
+        List<RingTimeSelectView.TimePart> parts = new ArrayList<>();
+        parts.add(new RingTimeSelectView.TimePart(20, 10));
+        PackedSchedule.pack(parts);
+    }
+
+    @Test
+    public void stream_roundTrip() throws Exception {
+        long[] schedules = ScheduleFixtures.randomBits(10000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ScheduleCodec.Encoder encoder = new ScheduleCodec.Encoder(bytes, 100);
+        encoder.write(schedules, 0, schedules.length);
+        encoder.close();
+        assertEquals(schedules.length * ScheduleCodec.RECORD_SIZE, bytes.size());
+
+        // 故意使用不是记录大小整数倍的缓冲区，覆盖跨缓冲区的记录
+        ScheduleCodec.Decoder decoder = new ScheduleCodec.Decoder(new ByteArrayInputStream(bytes.toByteArray()), 13);
+        for (long schedule : schedules) {
+            assertTrue(decoder.hasNext());
+            assertEquals(schedule, decoder.next());
+        }
+        assertFalse(decoder.hasNext());
+        decoder.close();
+    }
+
+    @Test
+    public void byteBuffer_roundTrip() throws Exception {
+        long[] schedules = ScheduleFixtures.randomBits(1000);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(schedules.length * ScheduleCodec.RECORD_SIZE);
+        ScheduleCodec.encode(buffer, schedules, 0, schedules.length);
+        buffer.flip();
+
+        long[] decoded = new long[schedules.length];
+        assertEquals(schedules.length, ScheduleCodec.decode(buffer, decoded, 0, decoded.length));
+        assertArrayEquals(schedules, decoded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void encode_rejectsHighBits() throws Exception {
+        ScheduleCodec.encode(ByteBuffer.allocate(8), 1L << 60);
+    }
+
+    @Test(expected = IOException.class)
+    public void decode_rejectsHighBits() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        buffer.putLong(-1L);
+        new ScheduleCodec.Decoder(new ByteArrayInputStream(buffer.array())).next();
+    }
+
+    @Test(expected = EOFException.class)
+    public void decode_rejectsTruncatedRecord() throws Exception {
+        new ScheduleCodec.Decoder(new ByteArrayInputStream(new byte[5])).hasNext();
+    }
+
+    @Test
+    public void stream_throughput() throws Exception {
+        ScheduleFixtures.assumeBenchmarkEnabled();
+        long[] schedules = ScheduleFixtures.randomBits(THROUGHPUT_RECORDS);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(schedules.length * ScheduleCodec.RECORD_SIZE);
+        long[] decoded = new long[schedules.length];
+
+        // 预热
+        runThroughput(schedules, bytes, decoded);
+        long begin = System.nanoTime();
+        runThroughput(schedules, bytes, decoded);
+        long elapsed = System.nanoTime() - begin;
+
+        assertArrayEquals(schedules, decoded);
+        System.out.printf("ScheduleCodec: %d schedules encoded and decoded in %.1f ms, %.1f M schedules/s%n"
+                , schedules.length, elapsed / 1e6, schedules.length * 1e3 / elapsed);
+    }
+
+    private static void runThroughput(long[] schedules, ByteArrayOutputStream bytes, long[] decoded) throws IOException {
+        bytes.reset();
+        ScheduleCodec.Encoder encoder = new ScheduleCodec.Encoder(bytes);
+        encoder.write(schedules, 0, schedules.length);
+        encoder.flush();
+
+        ScheduleCodec.Decoder decoder = new ScheduleCodec.Decoder(new ByteArrayInputStream(bytes.toByteArray()));
+        int offset = 0;
+        int n;
+        while ((n = decoder.read(decoded, offset, decoded.length - offset)) > 0) {
+            offset += n;
+        }
+        assertEquals(schedules.length, offset);
+    }
+}
@@ -0,0 +1,33 @@
+package com.zjun.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ScheduleDiffCallback}按ID和压缩值比较的测试
+ */
+public class ScheduleDiffCallbackTest {
+
+    @Test
+    public void comparesIdsAndPackedSchedules() {
+        long a = PackedSchedule.rangeMask(10, 20);
+        long b = PackedSchedule.rangeMask(30, 40);
+        ScheduleDiffCallback callback = new ScheduleDiffCallback(
+                new int[]{1, 2, 3}, new long[]{a, b, PackedSchedule.EMPTY},
+                new int[]{2, 1}, new long[]{b, a | b});
+
+        assertEquals(3, callback.getOldListSize());
+        assertEquals(2, callback.getNewListSize());
+        assertTrue(callback.areItemsTheSame(0, 1));
+        assertFalse(callback.areItemsTheSame(2, 0));
+        assertTrue(callback.areContentsTheSame(1, 0));
+        assertFalse(callback.areContentsTheSame(0, 1));
+        assertEquals(a | b, callback.getChangePayload(0, 1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void mismatchedLengths_throws() {
+        new ScheduleDiffCallback(new int[]{1}, new long[0], new int[0], new long[0]);
+    }
+}
@@ -0,0 +1,60 @@
+package com.zjun.widget;
+
+import java.util.Random;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 测试共用的时间段数据：固定种子的随机压缩值，以及基准测试的开关
+ *  基准测试只输出吞吐量，默认跳过，用系统属性rtv.benchmark开启：gradlew test -Prtv.benchmark=true
+ */
+final class ScheduleFixtures {
+
+    static final String BENCHMARK_PROPERTY = "rtv.benchmark";
+
+    private ScheduleFixtures() {
+    }
+
+    /**
+     * 未开启基准测试时跳过当前测试
+     */
+    static void assumeBenchmarkEnabled() {
+        assumeTrue("Benchmarks run only with -D" + BENCHMARK_PROPERTY + "=true", Boolean.getBoolean(BENCHMARK_PROPERTY));
+    }
+
+    /**
+     * 任意的60位压缩值，时间段多且碎。种子固定，每次的结果相同
+     */
+    static long[] randomBits(int count) {
+        Random random = new Random(20261018);
+        long[] schedules = new long[count];
+        for (int i = 0; i < count; i++) {
+            schedules[i] = random.nextLong() & PackedSchedule.MINUTE_MASK;
+        }
+        return schedules;
+    }
+
+    /**
+     * 接近真实排程的压缩值，见{@link #randomSchedule(Random)}
+     */
+    static long[] randomSchedules(Random random, int count) {
+        long[] schedules = new long[count];
+        for (int i = 0; i < count; i++) {
+            schedules[i] = randomSchedule(random);
+        }
+        return schedules;
+    }
+
+    /**
+     * 0~3个随机时间段的并集
+     */
+    static long randomSchedule(Random random) {
+        long packed = PackedSchedule.EMPTY;
+        for (int j = random.nextInt(4); j > 0; j--) {
+            int start = random.nextInt(PackedSchedule.MINUTES);
+            int end = start + 1 + random.nextInt(PackedSchedule.MINUTES - start);
+            packed |= PackedSchedule.rangeMask(start, end);
+        }
+        return packed;
+    }
+}
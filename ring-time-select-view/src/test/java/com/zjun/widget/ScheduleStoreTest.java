@@ -0,0 +1,140 @@
+package com.zjun.widget;
+
+import android.view.View;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link ScheduleStore}的文件映射、LRU缓存和控件绑定
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 26)
+public class ScheduleStoreTest {
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    @Test
+    public void putAndGet_persistAcrossReopen() throws Exception {
+        File file = mFolder.newFile("schedules.rtss");
+        ScheduleStore store = new ScheduleStore(file, 100, 10);
+        store.put(0, PackedSchedule.rangeMask(0, 10));
+        store.put(99, PackedSchedule.rangeMask(50, 60));
+        assertEquals(PackedSchedule.EMPTY, store.get(50));
+        store.close();
+
+        // 重新打开时扩容，原有数据不变，新增的设备没有时间段
+        store = new ScheduleStore(file, 200, 10);
+        assertEquals(200, store.getCapacity());
+        assertEquals(PackedSchedule.rangeMask(0, 10), store.get(0));
+        assertEquals(PackedSchedule.rangeMask(50, 60), store.get(99));
+        assertEquals(PackedSchedule.EMPTY, store.get(199));
+        store.close();
+
+        // 容量更小时不缩小
+        store = new ScheduleStore(file, 10, 10);
+        assertEquals(200, store.getCapacity());
+        store.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void open_rejectsForeignFile() throws Exception {
+        File file = mFolder.newFile("other.bin");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(new byte[32]);
+        out.close();
+        new ScheduleStore(file, 10, 10);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void get_outOfCapacity_throws() throws Exception {
+        ScheduleStore store = new ScheduleStore(mFolder.newFile(), 10, 10);
+        store.get(10);
+    }
+
+    @Test
+    public void getSections_cachedUntilPutOrEvicted() throws Exception {
+        ScheduleStore store = new ScheduleStore(mFolder.newFile(), 10, 2);
+        store.put(0, PackedSchedule.rangeMask(10, 20));
+        List<RingTimeSelectView.TimePart> first = store.getSections(0);
+        assertEquals("10-20", GestureCorpus.format(first));
+        assertSame(first, store.getSections(0));
+
+        // 写入后缓存失效
+        store.put(0, PackedSchedule.rangeMask(10, 30));
+        List<RingTimeSelectView.TimePart> second = store.getSections(0);
+        assertNotSame(first, second);
+        assertEquals("10-30", GestureCorpus.format(second));
+
+        // 缓存2个：访问1、2后，0被淘汰，重新解压
+        store.getSections(1);
+        store.getSections(2);
+        assertNotSame(second, store.getSections(0));
+        store.close();
+    }
+
+    @Test
+    public void bind_writesViewChangesBack() throws Exception {
+        ScheduleStore store = new ScheduleStore(mFolder.newFile(), 10, 10);
+        store.put(3, PackedSchedule.rangeMask(10, 20));
+        store.put(4, PackedSchedule.rangeMask(40, 50));
+        RingTimeSelectView view = createView();
+
+        store.bind(view, 3);
+        assertEquals("10-20", GestureCorpus.format(view.getTimeSections()));
+        view.addTimeSection(30, 35);
+        assertEquals(PackedSchedule.rangeMask(10, 20) | PackedSchedule.rangeMask(30, 35), store.get(3));
+        assertEquals("10-20,30-35", GestureCorpus.format(store.getSections(3)));
+
+        // 复用给另一个设备：不影响上一个设备，也不能撤销到上一个设备的状态
+        store.bind(view, 4);
+        assertEquals("40-50", GestureCorpus.format(view.getTimeSections()));
+        assertFalse(view.canUndo());
+        view.addTimeSection(0, 5);
+        assertEquals(PackedSchedule.rangeMask(10, 20) | PackedSchedule.rangeMask(30, 35), store.get(3));
+        assertEquals(PackedSchedule.rangeMask(0, 5) | PackedSchedule.rangeMask(40, 50), store.get(4));
+        store.close();
+    }
+
+    @Test
+    public void bind_moreSectionsThanView_failsAndKeepsView() throws Exception {
+        ScheduleStore store = new ScheduleStore(mFolder.newFile(), 10, 10);
+        store.put(0, PackedSchedule.rangeMask(0, 5));
+        store.put(1, PackedSchedule.rangeMask(0, 5) | PackedSchedule.rangeMask(10, 15)
+                | PackedSchedule.rangeMask(20, 25) | PackedSchedule.rangeMask(30, 35));
+        RingTimeSelectView view = createView();
+        store.bind(view, 0);
+
+        try {
+            store.bind(view, 1);
+            fail("Four sections must not fit into the default sectionSum of 3");
+        } catch (IllegalStateException expected) {
+        }
+        assertEquals("0-5", GestureCorpus.format(view.getTimeSections()));
+        // 仍然绑定在设备0上
+        view.addTimeSection(50, 55);
+        assertEquals(PackedSchedule.rangeMask(0, 5) | PackedSchedule.rangeMask(50, 55), store.get(0));
+        store.close();
+    }
+
+    private static RingTimeSelectView createView() {
+        RingTimeSelectView view = new RingTimeSelectView(RuntimeEnvironment.application);
+        int spec = View.MeasureSpec.makeMeasureSpec(GestureCorpus.SIZE, View.MeasureSpec.EXACTLY);
+        view.measure(spec, spec);
+        view.layout(0, 0, GestureCorpus.SIZE, GestureCorpus.SIZE);
+        return view;
+    }
+}
@@ -0,0 +1,208 @@
+package com.zjun.widget;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link SectionConstraints}的检查和拖动范围：禁用分钟、最短/最长时长、总时长预算，以及碰到其他时间段后的合并
+ */
+public class SectionConstraintsTest {
+
+    @Test
+    public void allows_rangeAndLength() {
+        SectionConstraints constraints = new SectionConstraints.Builder()
+                .setMinLength(5)
+                .setMaxLength(30)
+                .build();
+        assertFalse(constraints.allows(-1, 5, PackedSchedule.EMPTY));
+        assertFalse(constraints.allows(50, 61, PackedSchedule.EMPTY));
+        assertFalse(constraints.allows(10, 5, PackedSchedule.EMPTY));
+        // 长度为0表示删除，不受最短时长限制
+        assertTrue(constraints.allows(10, 10, PackedSchedule.EMPTY));
+
+        assertFalse(constraints.allows(0, 4, PackedSchedule.EMPTY));
+        assertTrue(constraints.allows(0, 5, PackedSchedule.EMPTY));
+        assertTrue(constraints.allows(0, 30, PackedSchedule.EMPTY));
+        assertFalse(constraints.allows(0, 31, PackedSchedule.EMPTY));
+    }
+
+    @Test
+    public void allows_blockedMinutes() {
+        SectionConstraints constraints = new SectionConstraints.Builder()
+                .addBlockedRange(40, 45)
+                .build();
+        assertFalse(constraints.allows(35, 41, PackedSchedule.EMPTY));
+        assertFalse(constraints.allows(44, 50, PackedSchedule.EMPTY));
+        // [start, end]只占用[start, end)的分钟
+        assertTrue(constraints.allows(35, 40, PackedSchedule.EMPTY));
+        assertTrue(constraints.allows(45, 60, PackedSchedule.EMPTY));
+    }
+
+    @Test
+    public void allows_totalBudget() {
+        SectionConstraints constraints = new SectionConstraints.Builder()
+                .setMaxTotal(40)
+                .build();
+        long other = PackedSchedule.rangeMask(0, 30);
+        assertTrue(constraints.allows(30, 40, other));
+        assertTrue(constraints.allows(50, 60, other));
+        assertFalse(constraints.allows(45, 56, other));
+        // 与其他时间段重叠的分钟不重复计算
+        assertTrue(constraints.allows(20, 40, other));
+        assertFalse(constraints.allows(50, 60, PackedSchedule.rangeMask(0, 31)));
+    }
+
+    @Test
+    public void upperBound_blockedAndMaxLength() {
+        SectionConstraints none = new SectionConstraints.Builder().build();
+        assertEquals(60, none.upperBound(10, PackedSchedule.EMPTY));
+
+        SectionConstraints blocked = new SectionConstraints.Builder()
+                .addBlockedRange(40, 45)
+                .build();
+        assertEquals(40, blocked.upperBound(10, PackedSchedule.EMPTY));
+        // start之前的禁用分钟不影响
+        assertEquals(60, blocked.upperBound(45, PackedSchedule.EMPTY));
+
+        SectionConstraints maxLength = new SectionConstraints.Builder()
+                .setMaxLength(30)
+                .build();
+        assertEquals(40, maxLength.upperBound(10, PackedSchedule.EMPTY));
+        assertEquals(60, maxLength.upperBound(45, PackedSchedule.EMPTY));
+    }
+
+    @Test
+    public void upperBound_totalBudget() {
+        SectionConstraints constraints = new SectionConstraints.Builder()
+                .setMaxTotal(20)
+                .build();
+        assertEquals(30, constraints.upperBound(20, PackedSchedule.rangeMask(0, 10)));
+        // 预算用完后，紧接着的已选分钟不增加总时长，可以继续伸展到它的末尾
+        assertEquals(40, constraints.upperBound(20, PackedSchedule.rangeMask(30, 40)));
+        // 没有预算：不能伸展
+        assertEquals(20, constraints.upperBound(20, PackedSchedule.rangeMask(0, 20)));
+    }
+
+    @Test
+    public void upperBound_mergedSpanWithinMaxLength() {
+        SectionConstraints constraints = new SectionConstraints.Builder()
+                .setMaxLength(30)
+                .build();
+        // [0, 20]拖到26会与[25, 50]合并为[0, 50]，只能止于25之前
+        assertEquals(24, constraints.upperBound(0, PackedSchedule.rangeMask(25, 50)));
+        // 相接也会合并
+        assertEquals(29, constraints.upperBound(0, PackedSchedule.rangeMask(30, 40)));
+        // 合并后不超过最长时长的，可以越过
+        assertEquals(30, constraints.upperBound(0, PackedSchedule.rangeMask(25, 28)));
+
+        SectionConstraints longer = new SectionConstraints.Builder()
+                .setMaxLength(40)
+                .build();
+        long other = PackedSchedule.rangeMask(10, 15) | PackedSchedule.rangeMask(35, 50);
+        assertEquals(34, longer.upperBound(0, other));
+    }
+
+    @Test
+    public void lowerBound_blockedAndMaxLength() {
+        SectionConstraints none = new SectionConstraints.Builder().build();
+        assertEquals(0, none.lowerBound(50, PackedSchedule.EMPTY));
+
+        SectionConstraints blocked = new SectionConstraints.Builder()
+                .addBlockedRange(10, 15)
+                .build();
+        assertEquals(15, blocked.lowerBound(50, PackedSchedule.EMPTY));
+        // end之后的禁用分钟不影响
+        assertEquals(0, blocked.lowerBound(10, PackedSchedule.EMPTY));
+
+        SectionConstraints maxLength = new SectionConstraints.Builder()
+                .setMaxLength(30)
+                .build();
+        assertEquals(20, maxLength.lowerBound(50, PackedSchedule.EMPTY));
+        assertEquals(0, maxLength.lowerBound(15, PackedSchedule.EMPTY));
+    }
+
+    @Test
+    public void lowerBound_totalBudget() {
+        SectionConstraints constraints = new SectionConstraints.Builder()
+                .setMaxTotal(20)
+                .build();
+        assertEquals(30, constraints.lowerBound(40, PackedSchedule.rangeMask(50, 60)));
+        assertEquals(20, constraints.lowerBound(40, PackedSchedule.rangeMask(20, 30)));
+        assertEquals(40, constraints.lowerBound(40, PackedSchedule.rangeMask(40, 60)));
+    }
+
+    @Test
+    public void lowerBound_mergedSpanWithinMaxLength() {
+        SectionConstraints constraints = new SectionConstraints.Builder()
+                .setMaxLength(30)
+                .build();
+        assertEquals(36, constraints.lowerBound(60, PackedSchedule.rangeMask(10, 35)));
+        assertEquals(31, constraints.lowerBound(60, PackedSchedule.rangeMask(20, 30)));
+        assertEquals(30, constraints.lowerBound(60, PackedSchedule.rangeMask(32, 35)));
+
+        SectionConstraints longer = new SectionConstraints.Builder()
+                .setMaxLength(40)
+                .build();
+        long other = PackedSchedule.rangeMask(10, 25) | PackedSchedule.rangeMask(45, 50);
+        assertEquals(26, longer.lowerBound(60, other));
+    }
+
+    @Test
+    public void bounds_alignedToSnapStep() {
+        SectionConstraints constraints = new SectionConstraints.Builder()
+                .setSnapStep(5)
+                .setMaxLength(7)
+                .build();
+        // 最长时长7不是步长的整数倍：止于10+5，而不是10+7
+        assertEquals(15, constraints.upperBound(10, PackedSchedule.EMPTY));
+        assertEquals(35, constraints.lowerBound(40, PackedSchedule.EMPTY));
+
+        SectionConstraints blocked = new SectionConstraints.Builder()
+                .setSnapStep(5)
+                .addBlockedRange(23, 24)
+                .addBlockedRange(42, 43)
+                .build();
+        assertEquals(40, blocked.upperBound(25, PackedSchedule.EMPTY));
+        assertEquals(25, blocked.lowerBound(40, PackedSchedule.EMPTY));
+        // 碰到其他时间段前止步，也对齐
+        SectionConstraints merged = new SectionConstraints.Builder()
+                .setSnapStep(5)
+                .setMaxLength(30)
+                .build();
+        assertEquals(20, merged.upperBound(0, PackedSchedule.rangeMask(23, 50)));
+        // 没有对齐的位置时不能伸展
+        assertEquals(10, constraints.upperBound(10, PackedSchedule.rangeMask(14, 20)));
+    }
+
+    @Test
+    public void insertLength_alignedToSnapStep() {
+        SectionConstraints none = new SectionConstraints.Builder().build();
+        assertEquals(5, none.insertLength(5));
+
+        SectionConstraints minLength = new SectionConstraints.Builder()
+                .setSnapStep(5)
+                .setMinLength(7)
+                .build();
+        assertEquals(10, minLength.insertLength(5));
+
+        SectionConstraints initial = new SectionConstraints.Builder()
+                .setSnapStep(5)
+                .build();
+        assertEquals(10, initial.insertLength(8));
+
+        SectionConstraints maxLength = new SectionConstraints.Builder()
+                .setSnapStep(5)
+                .setMaxLength(12)
+                .build();
+        assertEquals(10, maxLength.insertLength(12));
+
+        // [7, 9]之间没有5的整数倍
+        SectionConstraints impossible = new SectionConstraints.Builder()
+                .setSnapStep(5)
+                .setMinLength(7)
+                .setMaxLength(9)
+                .build();
+        assertEquals(0, impossible.insertLength(5));
+    }
+}
@@ -0,0 +1,185 @@
+package com.zjun.widget;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link TransitionScheduler}的转换时刻、增量修改和大量设备的测试，用可控的时钟。
+ *  大量设备的耗时依赖机器，默认跳过，见{@link ScheduleFixtures}
+ */
+public class TransitionSchedulerTest {
+
+    private static final long MINUTE = 60 * 1000;
+    private static final long FRAME_NANOS = 16000000L;
+    private static final int FLEET_SIZE = 100000;
+
+    private long mNow;
+    private final StringBuilder mLog = new StringBuilder();
+    private int mFired;
+    private TransitionScheduler mScheduler;
+
+    @Before
+    public void setUp() {
+        mScheduler = new TransitionScheduler(new TransitionScheduler.OnTransitionListener() {
+            @Override
+            public void onTransition(int device, boolean on, int minute) {
+                mFired++;
+                if (mLog.length() > 0) {
+                    mLog.append(", ");
+                }
+                mLog.append(device).append(on ? " on " : " off ").append(minute);
+            }
+        }, new TransitionScheduler.Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return mNow;
+            }
+        }, TimeZone.getTimeZone("UTC"));
+        // 10:00:30，第一次tick只记录当前分钟
+        mNow = 10 * 60 * MINUTE + 30 * 1000;
+        mScheduler.tick();
+    }
+
+    @Test
+    public void firesAtSectionBoundaries() {
+        mScheduler.set(0, GestureCorpus.parts(5, 10, 50, 60));
+        mScheduler.set(1, PackedSchedule.rangeMask(0, 5));
+        assertEquals(0, mFired);
+
+        advanceTo(10);
+        assertEquals("0 on 5, 1 off 5, 0 off 10", mLog.toString());
+    }
+
+    @Test
+    public void wrapsAroundTheHour() {
+        // 50-60和0-10在整点相接，整点没有转换
+        mScheduler.set(0, PackedSchedule.rangeMask(50, 60) | PackedSchedule.rangeMask(0, 10));
+        mScheduler.set(1, PackedSchedule.rangeMask(50, 60));
+        advanceTo(40);
+        mLog.setLength(0);
+        advanceTo(60 + 10);
+        assertEquals("0 on 50, 1 on 50, 1 off 0, 0 off 10", mLog.toString());
+    }
+
+    @Test
+    public void set_appliesOnlyTheDifference() {
+        mScheduler.set(0, PackedSchedule.rangeMask(5, 10));
+        mScheduler.set(0, PackedSchedule.rangeMask(5, 20));
+        assertEquals(2, mScheduler.getTransitionCount());
+        advanceTo(20);
+        assertEquals("0 on 5, 0 off 20", mLog.toString());
+
+        mScheduler.remove(0);
+        assertEquals(0, mScheduler.getTransitionCount());
+        advanceTo(60 + 20);
+        assertEquals(2, mFired);
+    }
+
+    @Test
+    public void fullHour_hasNoTransitions() {
+        mScheduler.set(0, PackedSchedule.MINUTE_MASK);
+        assertEquals(0, mScheduler.getTransitionCount());
+    }
+
+    @Test
+    public void longGap_firesOnlyTheLastHour() {
+        mScheduler.set(0, PackedSchedule.rangeMask(30, 40));
+        // 5小时后才tick一次
+        mNow += 5 * 60 * MINUTE;
+        mScheduler.tick();
+        assertEquals("0 on 30, 0 off 40", mLog.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void set_negativeDevice_throws() {
+        mScheduler.set(-1, PackedSchedule.EMPTY);
+    }
+
+    @Test
+    public void fleet_transitionsMatchSchedules() {
+        Random random = new Random(46);
+        long[] schedules = ScheduleFixtures.randomSchedules(random, FLEET_SIZE);
+        long[] updated = ScheduleFixtures.randomSchedules(random, FLEET_SIZE);
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            mScheduler.set(i, schedules[i]);
+        }
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            mScheduler.set(i, updated[i]);
+        }
+        assertEquals(expectedTransitions(updated), mScheduler.getTransitionCount());
+
+        mNow += MINUTE;
+        mScheduler.tick();
+        assertTrue(mFired > 0);
+    }
+
+    @Test
+    public void fleet_setAndTickWithinOneFrame() {
+        ScheduleFixtures.assumeBenchmarkEnabled();
+        Random random = new Random(46);
+        long[] schedules = ScheduleFixtures.randomSchedules(random, FLEET_SIZE);
+        long[] updated = ScheduleFixtures.randomSchedules(random, FLEET_SIZE);
+        // 预热
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < FLEET_SIZE; i++) {
+                mScheduler.set(i, schedules[i]);
+                mScheduler.set(i, updated[i]);
+            }
+        }
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            mScheduler.set(i, schedules[i]);
+        }
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < FLEET_SIZE; i++) {
+            mScheduler.set(i, updated[i]);
+        }
+        long update = System.nanoTime() - begin;
+
+        assertEquals(expectedTransitions(updated), mScheduler.getTransitionCount());
+
+        mFired = 0;
+        mLog.setLength(0);
+        mNow += MINUTE;
+        begin = System.nanoTime();
+        mScheduler.tick();
+        long tick = System.nanoTime() - begin;
+
+        System.out.printf("TransitionScheduler: %d devices, %d updates %.2f ms, one minute tick %d transitions %.2f ms%n"
+                , FLEET_SIZE, FLEET_SIZE, update / 1e6, mFired, tick / 1e6);
+        assertTrue(mFired > 0);
+        assertTrue(update < FRAME_NANOS * 10);
+        assertTrue(tick < FRAME_NANOS * 10);
+    }
+
+    /**
+     * 把时钟拨到今天10点之后的第minutes分钟，逐分钟tick
+     */
+    private void advanceTo(int minutes) {
+        long target = 10 * 60 * MINUTE + minutes * MINUTE;
+        while (mNow < target) {
+            mNow = Math.min(mNow + MINUTE, target);
+            mScheduler.tick();
+        }
+    }
+
+    /**
+     * 每个时间段有开、关两个转换；从0开始且到60结束的时间段，整点没有开的转换
+     */
+    private static int expectedTransitions(long[] schedules) {
+        int expected = 0;
+        for (long packed : schedules) {
+            long begins = PackedSchedule.beginBits(packed);
+            if ((packed & 1) != 0 && (packed >>> 59 & 1) != 0) {
+                begins &= ~1L;
+            }
+            expected += Long.bitCount(begins) * 2;
+        }
+        return expected;
+    }
+}